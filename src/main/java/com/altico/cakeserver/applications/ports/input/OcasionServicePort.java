@@ -1,6 +1,8 @@
 package com.altico.cakeserver.applications.ports.input;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.Ocasion;
+import com.altico.cakeserver.domain.model.PaginaCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -21,6 +23,7 @@ public interface OcasionServicePort {
     // Búsquedas y listados
     List<Ocasion> listarTodas();
     Page<Ocasion> listarPaginado(Pageable pageable);
+    PaginaCursor<Ocasion> listarPorCursor(ConsultaCursor consulta, int limite);
     List<Ocasion> listarActivas();
     List<Ocasion> buscarPorNombre(String nombre);
 
@@ -33,4 +36,5 @@ public interface OcasionServicePort {
     List<Ocasion> obtenerOcasionesSinTortas();
     boolean existePorNombre(String nombre);
     long contarActivas();
+    long contarTotal();
 }
\ No newline at end of file
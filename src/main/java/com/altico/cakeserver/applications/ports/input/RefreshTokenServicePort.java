@@ -1,7 +1,10 @@
 package com.altico.cakeserver.applications.ports.input;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.DispositivoSospechoso;
+import com.altico.cakeserver.domain.model.FiltroSesiones;
 import com.altico.cakeserver.domain.model.IntentoTokenSospechoso;
+import com.altico.cakeserver.domain.model.PaginaCursor;
 import com.altico.cakeserver.domain.model.RefreshToken;
 import com.altico.cakeserver.applications.ports.input.dto.*;
 import com.altico.cakeserver.domain.model.TokenEstadisticas;
@@ -11,6 +14,7 @@ import org.springframework.data.domain.Pageable;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Puerto de entrada para el servicio de gestión de refresh tokens
@@ -30,9 +34,13 @@ public interface RefreshTokenServicePort {
 
     // Operaciones administrativas
     Page<RefreshToken> listarTokens(Pageable pageable, String username);
+    PaginaCursor<RefreshToken> listarTokensPorCursor(ConsultaCursor consulta, int limite, String username);
+    long contarTokens(String username);
     int limpiarTokensExpirados();
+    int limpiarTokensInactivos(LocalDateTime fechaLimite, boolean auditar);
     int invalidarDispositivo(String deviceId);
     List<DispositivoSospechoso> obtenerDispositivosSospechosos();
+    void exportarSesiones(FiltroSesiones filtro, Consumer<RefreshToken> consumidor);
 
     // Consultas y validaciones
     RefreshToken obtenerTokenPorId(String tokenId);
@@ -1,6 +1,10 @@
 package com.altico.cakeserver.applications.ports.input;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import com.altico.cakeserver.domain.model.PaginaCursor;
+import com.altico.cakeserver.domain.model.Sugerencia;
 import com.altico.cakeserver.domain.model.Torta;
+import com.altico.cakeserver.domain.model.TortaBusqueda;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -21,7 +25,11 @@ public interface TortaServicePort {
     // Búsquedas y listados
     List<Torta> listarTodas();
     Page<Torta> listarPaginado(Pageable pageable);
+    PaginaCursor<Torta> listarPorCursor(ConsultaCursor consulta, int limite);
     List<Torta> buscarPorDescripcion(String descripcion);
+    PaginaCursor<TortaBusqueda> buscarPorRelevancia(String texto, Float despuesDeRelevancia,
+                                                    Integer despuesDeId, int limite);
+    List<Sugerencia> autocompletar(String texto, int limite);
 
     // Operaciones con ocasiones
     Torta agregarOcasion(Integer tortaId, Integer ocasionId);
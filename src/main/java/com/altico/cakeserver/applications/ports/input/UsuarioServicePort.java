@@ -1,5 +1,8 @@
 package com.altico.cakeserver.applications.ports.input;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import com.altico.cakeserver.domain.model.FiltroAuditoria;
+import com.altico.cakeserver.domain.model.PaginaCursor;
 import com.altico.cakeserver.domain.model.UsuarioAuditoria;
 import com.altico.cakeserver.domain.model.UsuarioCompleto;
 import com.altico.cakeserver.applications.ports.input.dto.*;
@@ -7,7 +10,9 @@ import com.altico.cakeserver.domain.model.UsuarioEstadisticas;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Puerto de entrada para el servicio de gestión completa de usuarios
@@ -23,6 +28,9 @@ public interface UsuarioServicePort {
 
     // Búsquedas y listados
     Page<UsuarioCompleto> listarUsuarios(Pageable pageable, Boolean activo, String rol);
+    PaginaCursor<UsuarioCompleto> listarUsuariosPorCursor(ConsultaCursor consulta, int limite,
+                                                          Boolean activo, String rol);
+    long contarUsuarios(Boolean activo, String rol);
     List<UsuarioCompleto> buscarUsuarios(String termino);
     List<UsuarioCompleto> obtenerUsuariosConRol(String rol);
     List<UsuarioCompleto> obtenerUsuariosSinRoles();
@@ -44,7 +52,11 @@ public interface UsuarioServicePort {
     // Operaciones de auditoría y seguridad
     UsuarioCompleto actualizarUltimoAcceso(String username);
     List<UsuarioAuditoria> obtenerAuditoriaUsuario(Long id);
+    PaginaCursor<UsuarioAuditoria> buscarAuditoria(FiltroAuditoria filtro, LocalDateTime despuesDeFecha,
+                                                   Long despuesDeId, int limite);
+    void exportarAuditoria(FiltroAuditoria filtro, Consumer<UsuarioAuditoria> consumidor);
     void registrarIntentoCofcometoLoginFallido(String username, String ip);
+    void registrarLoginExitoso(String username);
     boolean estaUsuarioBloqueado(String username);
 
     // Estadísticas y reportes
@@ -1,5 +1,6 @@
 package com.altico.cakeserver.applications.ports.output;
 
+import com.altico.cakeserver.domain.model.FiltroAuditoria;
 import com.altico.cakeserver.domain.model.UsuarioAuditoria;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,6 +8,7 @@ import org.springframework.data.domain.Pageable;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Puerto de salida para la persistencia de Auditoría
@@ -31,6 +33,12 @@ public interface AuditoriaPersistencePort {
     List<UsuarioAuditoria> findByIpAddress(String ipAddress);
     List<UsuarioAuditoria> findSuspiciousActivity(LocalDateTime desde);
 
+    // Búsqueda combinada con keyset por (fecha, id) descendente; despuesDe* null = primera página
+    List<UsuarioAuditoria> search(FiltroAuditoria filtro, LocalDateTime despuesDeFecha, Long despuesDeId, int limite);
+
+    // Exportación: recorre los registros filtrados con un cursor sin acumularlos en memoria
+    void forEach(FiltroAuditoria filtro, Consumer<UsuarioAuditoria> consumidor);
+
     // Operaciones de limpieza
     void deleteOlderThan(LocalDateTime fecha);
     long countByResultado(String resultado);
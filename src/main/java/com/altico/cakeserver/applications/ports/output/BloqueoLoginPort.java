@@ -0,0 +1,22 @@
+package com.altico.cakeserver.applications.ports.output;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Puerto de salida para el control de intentos fallidos de login y bloqueos de cuenta
+ */
+public interface BloqueoLoginPort {
+
+    boolean estaBloqueado(String username);
+
+    /**
+     * Registra un intento fallido; si se alcanza el máximo dentro de la ventana,
+     * devuelve la fecha hasta la que queda bloqueada la cuenta
+     */
+    Optional<LocalDateTime> registrarFallo(String username, String ip);
+
+    void registrarExito(String username);
+
+    void desbloquear(String username);
+}
@@ -0,0 +1,25 @@
+package com.altico.cakeserver.applications.ports.output;
+
+import com.altico.cakeserver.domain.model.DispositivoSospechoso;
+import com.altico.cakeserver.domain.model.IntentoTokenSospechoso;
+
+import java.util.List;
+
+/**
+ * Puerto de salida para la detección en línea de dispositivos e IPs sospechosos
+ * a partir de los eventos de autenticación
+ */
+public interface DetectorActividadSospechosaPort {
+
+    boolean isEnabled();
+
+    void registrarLogin(String username, String deviceInfo, String ip, boolean exitoso);
+
+    void registrarRefresh(String username, String deviceInfo, String ip);
+
+    void registrarTokenInvalido(String tokenId, String ip, String userAgent, String tipoIntento);
+
+    List<DispositivoSospechoso> obtenerDispositivosSospechosos();
+
+    List<IntentoTokenSospechoso> obtenerIntentosSospechosos();
+}
@@ -0,0 +1,27 @@
+package com.altico.cakeserver.applications.ports.output;
+
+import com.altico.cakeserver.domain.model.Ocasion;
+import com.altico.cakeserver.domain.model.Sugerencia;
+import com.altico.cakeserver.domain.model.Torta;
+
+import java.util.List;
+
+/**
+ * Puerto de salida para el índice de búsqueda en memoria del catálogo.
+ * Las altas, cambios y bajas se aplican al confirmar la transacción que las produce.
+ */
+public interface IndiceBusquedaPort {
+
+    // false si está deshabilitado o aún se está construyendo: hay que consultar la base de datos
+    boolean isListo();
+
+    // Tortas cuya descripción contiene todos los términos (sin relaciones cargadas)
+    List<Torta> buscarTortas(String texto);
+    List<Sugerencia> autocompletar(String texto, int limite);
+
+    // Mantenimiento incremental
+    void indexarTorta(Torta torta);
+    void eliminarTorta(Integer id);
+    void indexarOcasion(Ocasion ocasion);
+    void eliminarOcasion(Integer id);
+}
@@ -0,0 +1,17 @@
+package com.altico.cakeserver.applications.ports.output;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Puerto de salida para la jerarquía de roles precalculada a partir de la prioridad
+ */
+public interface JerarquiaRolesPort {
+
+    void reconstruir();
+
+    /**
+     * Roles efectivos (propios más heredados) para los roles asignados
+     */
+    Set<String> expandirRoles(Collection<String> roles);
+}
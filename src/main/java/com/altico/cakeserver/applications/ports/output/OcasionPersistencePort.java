@@ -1,5 +1,6 @@
 package com.altico.cakeserver.applications.ports.output;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.Ocasion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +23,8 @@ public interface OcasionPersistencePort {
     // Búsquedas
     List<Ocasion> findAll();
     Page<Ocasion> findAll(Pageable pageable);
+    // Página keyset sin COUNT: limite incluye el registro extra que indica si hay más
+    List<Ocasion> findByCursor(ConsultaCursor consulta, int limite);
     List<Ocasion> findByEstado(boolean activo);
     List<Ocasion> findByNombreContaining(String nombre);
     Optional<Ocasion> findByNombre(String nombre);
@@ -33,4 +36,5 @@ public interface OcasionPersistencePort {
     List<Map<String, Object>> findMostPopular(int limit);
     List<Ocasion> findWithoutTortas();
     long countByEstado(boolean activo);
+    long count();
 }
@@ -1,5 +1,7 @@
 package com.altico.cakeserver.applications.ports.output;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import com.altico.cakeserver.domain.model.FiltroSesiones;
 import com.altico.cakeserver.domain.model.RefreshToken;
 import com.altico.cakeserver.domain.model.TokenEstadisticas;
 import com.altico.cakeserver.domain.model.DispositivoSospechoso;
@@ -10,6 +12,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Puerto de salida para la persistencia de Refresh Tokens
@@ -22,6 +25,11 @@ public interface RefreshTokenPersistencePort {
     void deleteById(String id);
     boolean existsById(String id);
 
+    /**
+     * Filtro negativo en memoria: true si el token seguro no es válido (sin consultar la BD)
+     */
+    boolean isDefinitelyInvalid(String id);
+
     // Búsquedas por usuario
     List<RefreshToken> findByUsername(String username);
     List<RefreshToken> findActiveByUsername(String username);
@@ -33,6 +41,9 @@ public interface RefreshTokenPersistencePort {
 
     // Búsquedas con filtros
     Page<RefreshToken> findAllWithFilters(Pageable pageable, String username, Boolean activo);
+    // Página keyset sin COUNT: limite incluye el registro extra que indica si hay más
+    List<RefreshToken> findByCursor(ConsultaCursor consulta, int limite, String username, Boolean activo);
+    long countWithFilters(String username, Boolean activo);
     List<RefreshToken> findByActivo(boolean activo);
 
     // Operaciones de expiración
@@ -41,6 +52,14 @@ public interface RefreshTokenPersistencePort {
     int deleteExpired();
     int deleteExpiredBefore(LocalDateTime fecha);
 
+    /**
+     * Rotación atómica: valida el token (activo y no expirado), lo revoca, aplica el
+     * límite de tokens activos del usuario e inserta el nuevo token con los mismos
+     * datos de dispositivo. Devuelve vacío si el token no era válido.
+     */
+    Optional<RefreshToken> rotate(String tokenId, String nuevoTokenId, LocalDateTime ahora,
+                                  LocalDateTime nuevaExpiracion, int limiteTokensPorUsuario);
+
     // Operaciones de revocación
     int revokeAllByUsername(String username);
     int revokeAllByDeviceInfo(String deviceInfo);
@@ -59,4 +78,10 @@ public interface RefreshTokenPersistencePort {
     // Mantenimiento
     void updateUltimoUso(String tokenId, LocalDateTime ultimoUso);
     List<RefreshToken> findInactiveOlderThan(LocalDateTime fecha);
+    int deleteInactiveOlderThan(LocalDateTime fecha);
+    // Igual que el anterior, entregando cada token eliminado al auditor sin acumularlos en memoria
+    int deleteInactiveOlderThan(LocalDateTime fecha, Consumer<RefreshToken> auditor);
+
+    // Exportación: recorre los tokens filtrados con un cursor sin acumularlos en memoria
+    void forEach(FiltroSesiones filtro, Consumer<RefreshToken> consumidor);
 }
@@ -1,6 +1,8 @@
 package com.altico.cakeserver.applications.ports.output;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.Torta;
+import com.altico.cakeserver.domain.model.TortaBusqueda;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -18,11 +20,17 @@ public interface TortaPersistencePort {
     Optional<Torta> findByIdWithRelations(Integer id);
     void deleteById(Integer id);
     boolean existsById(Integer id);
+    // Comprobación previa de duplicados por huella; save() la garantiza con el índice único
+    boolean existsByDescripcionNormalizada(String descripcionNormalizada);
 
     // Búsquedas
     List<Torta> findAll();
     Page<Torta> findAll(Pageable pageable);
+    // Página keyset sin COUNT: limite incluye el registro extra que indica si hay más
+    List<Torta> findByCursor(ConsultaCursor consulta, int limite);
     List<Torta> findByDescripcionContaining(String descripcion);
+    // Texto completo ordenado por relevancia con keyset por (relevancia, id); despuesDe* null = primera página
+    List<TortaBusqueda> searchRanked(String texto, Float despuesDeRelevancia, Integer despuesDeId, int limite);
     List<Torta> findByOcasionId(Integer ocasionId);
     List<Torta> findByOcasionIds(List<Integer> ocasionIds);
 
@@ -1,5 +1,6 @@
 package com.altico.cakeserver.applications.ports.output;
 
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.UsuarioCompleto;
 import com.altico.cakeserver.domain.model.UsuarioEstadisticas;
 import org.springframework.data.domain.Page;
@@ -30,6 +31,9 @@ public interface UsuarioPersistencePort {
 
     // Búsquedas y listados
     Page<UsuarioCompleto> findAllWithFilters(Pageable pageable, Boolean activo, String rol);
+    // Página keyset sin COUNT: limite incluye el registro extra que indica si hay más
+    List<UsuarioCompleto> findByCursor(ConsultaCursor consulta, int limite, Boolean activo, String rol);
+    long countWithFilters(Boolean activo, String rol);
     List<UsuarioCompleto> searchByUsernameOrEmail(String termino);
     List<UsuarioCompleto> findByRole(String rol);
     List<UsuarioCompleto> findWithoutRoles();
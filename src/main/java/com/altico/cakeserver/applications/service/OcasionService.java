@@ -1,9 +1,12 @@
 package com.altico.cakeserver.applications.service;
 
 import com.altico.cakeserver.applications.ports.input.OcasionServicePort;
+import com.altico.cakeserver.applications.ports.output.IndiceBusquedaPort;
 import com.altico.cakeserver.applications.ports.output.OcasionPersistencePort;
 import com.altico.cakeserver.domain.exception.*;
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.Ocasion;
+import com.altico.cakeserver.domain.model.PaginaCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -17,9 +20,12 @@ import java.util.Map;
 public class OcasionService implements OcasionServicePort {
 
     private final OcasionPersistencePort ocasionPersistence;
+    private final IndiceBusquedaPort indiceBusqueda;
 
-    public OcasionService(OcasionPersistencePort ocasionPersistence) {
+    public OcasionService(OcasionPersistencePort ocasionPersistence,
+                          IndiceBusquedaPort indiceBusqueda) {
         this.ocasionPersistence = ocasionPersistence;
+        this.indiceBusqueda = indiceBusqueda;
     }
 
     @Override
@@ -29,7 +35,9 @@ public class OcasionService implements OcasionServicePort {
             throw new DuplicateOcasionException(ocasion.getNombre());
         }
 
-        return ocasionPersistence.save(ocasion);
+        Ocasion guardada = ocasionPersistence.save(ocasion);
+        indiceBusqueda.indexarOcasion(guardada);
+        return guardada;
     }
 
     @Override
@@ -52,7 +60,9 @@ public class OcasionService implements OcasionServicePort {
         // Crear nueva instancia con los datos actualizados
         Ocasion actualizada = existente.actualizarNombre(ocasion.getNombre());
 
-        return ocasionPersistence.save(actualizada);
+        Ocasion guardada = ocasionPersistence.save(actualizada);
+        indiceBusqueda.indexarOcasion(guardada);
+        return guardada;
     }
 
     @Override
@@ -62,6 +72,7 @@ public class OcasionService implements OcasionServicePort {
         }
 
         ocasionPersistence.deleteById(id);
+        indiceBusqueda.eliminarOcasion(id);
     }
 
     @Override
@@ -76,6 +87,12 @@ public class OcasionService implements OcasionServicePort {
         return ocasionPersistence.findAll(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaCursor<Ocasion> listarPorCursor(ConsultaCursor consulta, int limite) {
+        return PaginaCursor.de(ocasionPersistence.findByCursor(consulta, limite + 1), limite);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Ocasion> listarActivas() {
@@ -96,8 +113,9 @@ public class OcasionService implements OcasionServicePort {
             return ocasion; // Ya está activa
         }
 
-        Ocasion activada = ocasion.activar();
-        return ocasionPersistence.save(activada);
+        Ocasion activada = ocasionPersistence.save(ocasion.activar());
+        indiceBusqueda.indexarOcasion(activada);
+        return activada;
     }
 
     @Override
@@ -108,8 +126,10 @@ public class OcasionService implements OcasionServicePort {
             return ocasion; // Ya está inactiva
         }
 
-        Ocasion desactivada = ocasion.desactivar();
-        return ocasionPersistence.save(desactivada);
+        // Al reindexarla inactiva deja de sugerirse
+        Ocasion desactivada = ocasionPersistence.save(ocasion.desactivar());
+        indiceBusqueda.indexarOcasion(desactivada);
+        return desactivada;
     }
 
     @Override
@@ -135,4 +155,10 @@ public class OcasionService implements OcasionServicePort {
     public long contarActivas() {
         return ocasionPersistence.countByEstado(true);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long contarTotal() {
+        return ocasionPersistence.count();
+    }
 }
@@ -3,10 +3,12 @@ package com.altico.cakeserver.applications.service;
 import com.altico.cakeserver.applications.ports.input.PermisoServicePort;
 import com.altico.cakeserver.applications.ports.input.dto.*;
 import com.altico.cakeserver.applications.ports.output.PermisoPersistencePort;
+import com.altico.cakeserver.domain.event.PermisosModificadosEvent;
 import com.altico.cakeserver.domain.exception.*;
 import com.altico.cakeserver.domain.model.Permiso;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,7 @@ import java.util.stream.Collectors;
 public class PermisoService implements PermisoServicePort {
 
     private final PermisoPersistencePort permisoPersistence;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Permiso crearPermiso(CreatePermisoCommand command) {
@@ -92,6 +95,7 @@ public class PermisoService implements PermisoServicePort {
         }
 
         permisoPersistence.deleteById(id);
+        eventPublisher.publishEvent(new PermisosModificadosEvent(null, id));
     }
 
     @Override
@@ -110,14 +114,18 @@ public class PermisoService implements PermisoServicePort {
     public Permiso activarPermiso(Integer id) {
         Permiso permiso = obtenerPorId(id);
         Permiso permisoActivado = permiso.activar();
-        return permisoPersistence.save(permisoActivado);
+        Permiso resultado = permisoPersistence.save(permisoActivado);
+        eventPublisher.publishEvent(new PermisosModificadosEvent(null, id));
+        return resultado;
     }
 
     @Override
     public Permiso desactivarPermiso(Integer id) {
         Permiso permiso = obtenerPorId(id);
         Permiso permisoDesactivado = permiso.desactivar();
-        return permisoPersistence.save(permisoDesactivado);
+        Permiso resultado = permisoPersistence.save(permisoDesactivado);
+        eventPublisher.publishEvent(new PermisosModificadosEvent(null, id));
+        return resultado;
     }
 
     @Override
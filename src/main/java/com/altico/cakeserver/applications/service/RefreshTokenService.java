@@ -1,6 +1,7 @@
 package com.altico.cakeserver.applications.service;
 
 import com.altico.cakeserver.applications.ports.input.RefreshTokenServicePort;
+import com.altico.cakeserver.applications.ports.output.DetectorActividadSospechosaPort;
 import com.altico.cakeserver.applications.ports.output.RefreshTokenPersistencePort;
 import com.altico.cakeserver.domain.exception.*;
 import com.altico.cakeserver.domain.model.*;
@@ -9,12 +10,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
@@ -23,6 +26,7 @@ import java.util.UUID;
 public class RefreshTokenService implements RefreshTokenServicePort {
 
     private final RefreshTokenPersistencePort refreshTokenPersistence;
+    private final DetectorActividadSospechosaPort detectorActividadSospechosa;
 
     // Configuración por defecto
     private long tiempoExpiracionMinutos = 10080; // 7 días
@@ -73,37 +77,46 @@ public class RefreshTokenService implements RefreshTokenServicePort {
     public RefreshToken renovarToken(String tokenId) {
         log.info("Renovando refresh token: {}", tokenId);
 
-        RefreshToken token = obtenerTokenPorId(tokenId);
-
-        // Validar que el token esté activo
-        if (!token.activo()) {
+        // IDs mal formados o revocados no llegan a la sentencia de rotación
+        if (refreshTokenPersistence.isDefinitelyInvalid(tokenId)) {
             throw new RevokedRefreshTokenException(tokenId);
         }
 
-        // Validar que no esté expirado
-        if (LocalDateTime.now().isAfter(token.fechaExpiracion())) {
-            throw new ExpiredRefreshTokenException(tokenId);
-        }
-
-        // Crear nuevo token
-        RefreshToken nuevoToken = crearToken(
-                token.username(),
-                token.deviceInfo(),
-                token.ipAddress(),
-                token.userAgent()
-        );
-
-        // Revocar el token anterior
-        revocarToken(tokenId);
+        // Validación, revocación, límite por usuario e inserción en una sola sentencia
+        LocalDateTime ahora = LocalDateTime.now();
+        RefreshToken nuevoToken = refreshTokenPersistence.rotate(
+                tokenId,
+                UUID.randomUUID().toString(),
+                ahora,
+                ahora.plusMinutes(tiempoExpiracionMinutos),
+                limiteTokensPorUsuario
+        ).orElseThrow(() -> motivoRechazoRenovacion(tokenId));
 
         log.info("Token renovado exitosamente. Nuevo ID: {}", nuevoToken.id());
         return nuevoToken;
     }
 
+    /**
+     * Sólo en el camino de error: determina por qué no se pudo rotar el token
+     */
+    private RuntimeException motivoRechazoRenovacion(String tokenId) {
+        RefreshToken token = refreshTokenPersistence.findById(tokenId).orElse(null);
+        if (token == null) {
+            return new RefreshTokenNotFoundException(tokenId);
+        }
+        if (token.activo() && LocalDateTime.now().isAfter(token.fechaExpiracion())) {
+            return new ExpiredRefreshTokenException(tokenId);
+        }
+        // Revocado, o rotado por una petición concurrente
+        return new RevokedRefreshTokenException(tokenId);
+    }
+
     @Override
     public void revocarToken(String tokenId) {
         log.info("Revocando refresh token: {}", tokenId);
 
+        // Sin atajo por el filtro negativo: es local a cada nodo y un falso "inválido"
+        // dejaría vigente un token que se pidió revocar
         if (!refreshTokenPersistence.existsById(tokenId)) {
             throw new RefreshTokenNotFoundException(tokenId);
         }
@@ -115,6 +128,11 @@ public class RefreshTokenService implements RefreshTokenServicePort {
     @Override
     @Transactional(readOnly = true)
     public boolean esTokenValido(String tokenId) {
+        // IDs mal formados, revocados o desconocidos se descartan sin consultar la BD
+        if (refreshTokenPersistence.isDefinitelyInvalid(tokenId)) {
+            return false;
+        }
+
         try {
             RefreshToken token = obtenerTokenPorId(tokenId);
 
@@ -171,6 +189,19 @@ public class RefreshTokenService implements RefreshTokenServicePort {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public PaginaCursor<RefreshToken> listarTokensPorCursor(ConsultaCursor consulta, int limite, String username) {
+        return PaginaCursor.de(refreshTokenPersistence.findByCursor(consulta, limite + 1, username, null), limite);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long contarTokens(String username) {
+        return refreshTokenPersistence.countWithFilters(username, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int limpiarTokensExpirados() {
         log.info("Limpiando tokens expirados");
         int eliminados = refreshTokenPersistence.deleteExpired();
@@ -178,6 +209,19 @@ public class RefreshTokenService implements RefreshTokenServicePort {
         return eliminados;
     }
 
+    @Override
+    public int limpiarTokensInactivos(LocalDateTime fechaLimite, boolean auditar) {
+        log.info("Limpiando tokens inactivos sin uso desde: {}", fechaLimite);
+
+        if (!auditar) {
+            return refreshTokenPersistence.deleteInactiveOlderThan(fechaLimite);
+        }
+
+        return refreshTokenPersistence.deleteInactiveOlderThan(fechaLimite, token ->
+                log.info("Token inactivo eliminado: {} | Usuario: {} | Dispositivo: {} | Último uso: {}",
+                        token.id(), token.username(), token.deviceInfo(), token.ultimoUso()));
+    }
+
     @Override
     public int invalidarDispositivo(String deviceId) {
         log.info("Invalidando dispositivo: {}", deviceId);
@@ -187,9 +231,20 @@ public class RefreshTokenService implements RefreshTokenServicePort {
     @Override
     @Transactional(readOnly = true)
     public List<DispositivoSospechoso> obtenerDispositivosSospechosos() {
+        // Desde el detector en memoria; el escaneo de la tabla queda como respaldo si está deshabilitado
+        if (detectorActividadSospechosa.isEnabled()) {
+            return detectorActividadSospechosa.obtenerDispositivosSospechosos();
+        }
         return refreshTokenPersistence.findSuspiciousDevices();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportarSesiones(FiltroSesiones filtro, Consumer<RefreshToken> consumidor) {
+        // La transacción mantiene abierto el cursor del lado del servidor durante toda la exportación
+        refreshTokenPersistence.forEach(filtro, consumidor);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public RefreshToken obtenerTokenPorId(String tokenId) {
@@ -223,14 +278,13 @@ public class RefreshTokenService implements RefreshTokenServicePort {
     @Override
     public void registrarIntentoCofcometoTokenInvalido(String tokenId, String ip) {
         log.warn("Intento de uso de token inválido: {} desde IP: {}", tokenId, ip);
-        // Aquí podrías implementar lógica adicional de seguridad
+        detectorActividadSospechosa.registrarTokenInvalido(tokenId, ip, null, "REFRESH_TOKEN_INVALIDO");
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<IntentoTokenSospechoso> obtenerIntentosTokensSospechosos() {
-        // Implementación básica - podrías expandir con una tabla específica
-        return List.of();
+        return detectorActividadSospechosa.obtenerIntentosSospechosos();
     }
 
     @Override
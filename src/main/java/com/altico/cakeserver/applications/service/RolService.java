@@ -3,10 +3,13 @@ package com.altico.cakeserver.applications.service;
 import com.altico.cakeserver.applications.ports.input.RolServicePort;
 import com.altico.cakeserver.applications.ports.input.dto.*;
 import com.altico.cakeserver.applications.ports.output.*;
+import com.altico.cakeserver.domain.event.PermisosModificadosEvent;
+import com.altico.cakeserver.domain.event.RolModificadoEvent;
 import com.altico.cakeserver.domain.exception.*;
 import com.altico.cakeserver.domain.model.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -25,6 +28,8 @@ public class RolService implements RolServicePort {
     private final RolPersistencePort rolPersistence;
     private final PermisoPersistencePort permisoPersistence;
     private final UsuarioPersistencePort usuarioPersistence;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JerarquiaRolesPort jerarquiaRoles;
 
     @Override
     public RolCompleto crearRol(CreateRolCommand command) {
@@ -49,6 +54,9 @@ public class RolService implements RolServicePort {
             }
         }
 
+        eventPublisher.publishEvent(new RolModificadoEvent(
+                rolGuardado.getId(), rolGuardado.getNombre(), null, RolModificadoEvent.Motivo.CREADO));
+
         log.info("Rol creado exitosamente: {}", command.nombre());
         return rolGuardado;
     }
@@ -104,7 +112,19 @@ public class RolService implements RolServicePort {
                 LocalDateTime.now()
         );
 
-        return rolPersistence.save(rolActualizado);
+        RolCompleto resultado = rolPersistence.save(rolActualizado);
+
+        if (!resultado.getNombre().equals(rol.getNombre())) {
+            eventPublisher.publishEvent(new RolModificadoEvent(
+                    id, resultado.getNombre(), rol.getNombre(), RolModificadoEvent.Motivo.RENOMBRADO));
+        }
+
+        if (resultado.getPrioridad() != rol.getPrioridad()) {
+            eventPublisher.publishEvent(new RolModificadoEvent(
+                    id, resultado.getNombre(), rol.getNombre(), RolModificadoEvent.Motivo.PRIORIDAD_MODIFICADA));
+        }
+
+        return resultado;
     }
 
     @Override
@@ -124,6 +144,8 @@ public class RolService implements RolServicePort {
         }
 
         rolPersistence.deleteById(id);
+        eventPublisher.publishEvent(new RolModificadoEvent(
+                id, rol.getNombre(), rol.getNombre(), RolModificadoEvent.Motivo.ELIMINADO));
         log.info("Rol eliminado: {}", rol.getNombre());
     }
 
@@ -161,7 +183,10 @@ public class RolService implements RolServicePort {
         }
 
         RolCompleto rolActivo = rol.activar();
-        return rolPersistence.save(rolActivo);
+        RolCompleto resultado = rolPersistence.save(rolActivo);
+        eventPublisher.publishEvent(new RolModificadoEvent(
+                id, rol.getNombre(), rol.getNombre(), RolModificadoEvent.Motivo.ACTIVADO));
+        return resultado;
     }
 
     @Override
@@ -180,7 +205,10 @@ public class RolService implements RolServicePort {
         }
 
         RolCompleto rolInactivo = rol.desactivar();
-        return rolPersistence.save(rolInactivo);
+        RolCompleto resultado = rolPersistence.save(rolInactivo);
+        eventPublisher.publishEvent(new RolModificadoEvent(
+                id, rol.getNombre(), rol.getNombre(), RolModificadoEvent.Motivo.DESACTIVADO));
+        return resultado;
     }
 
     @Override
@@ -211,6 +239,7 @@ public class RolService implements RolServicePort {
 
         // Actualizar en la base de datos
         rolPersistence.removePermisoFromRol(rolId, permisoId);
+        eventPublisher.publishEvent(new PermisosModificadosEvent(rolId, permisoId));
 
         return resultado;
     }
@@ -242,6 +271,7 @@ public class RolService implements RolServicePort {
             }
         }
 
+        eventPublisher.publishEvent(new PermisosModificadosEvent(rolId, null));
         return obtenerPorIdConPermisos(rolId);
     }
 
@@ -317,7 +347,7 @@ public class RolService implements RolServicePort {
     @Override
     public void actualizarJerarquiaRoles() {
         log.info("Actualizando jerarquía de roles");
-        // Implementar lógica de actualización de jerarquía si es necesario
+        jerarquiaRoles.reconstruir();
     }
 
     @Override
@@ -395,6 +425,7 @@ public class RolService implements RolServicePort {
 
         // Actualizar en la base de datos
         rolPersistence.addPermisoToRol(rol.getId(), permisoId);
+        eventPublisher.publishEvent(new PermisosModificadosEvent(rol.getId(), permisoId));
 
         return resultado;
     }
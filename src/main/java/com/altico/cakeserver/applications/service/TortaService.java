@@ -5,13 +5,19 @@ import com.altico.cakeserver.applications.ports.input.TortaServicePort;
 import com.altico.cakeserver.applications.ports.output.TortaPersistencePort;
 import com.altico.cakeserver.applications.ports.output.OcasionPersistencePort;
 import com.altico.cakeserver.applications.ports.output.ImagenPersistencePort;
+import com.altico.cakeserver.applications.ports.output.IndiceBusquedaPort;
 import com.altico.cakeserver.domain.exception.*;
 import com.altico.cakeserver.domain.model.Torta;
 import com.altico.cakeserver.domain.model.Ocasion;
 import com.altico.cakeserver.domain.model.Imagen;
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import com.altico.cakeserver.domain.model.PaginaCursor;
+import com.altico.cakeserver.domain.model.Sugerencia;
+import com.altico.cakeserver.domain.model.TortaBusqueda;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -24,27 +30,30 @@ public class TortaService implements TortaServicePort {
     private final TortaPersistencePort tortaPersistence;
     private final OcasionPersistencePort ocasionPersistence;
     private final ImagenPersistencePort imagenPersistence;
+    private final IndiceBusquedaPort indiceBusqueda;
 
     //Could not autowire. No beans of 'TortaPersistencePort' type found.
     public TortaService(TortaPersistencePort tortaPersistence,
                         OcasionPersistencePort ocasionPersistence,
-                        ImagenPersistencePort imagenPersistence) {
+                        ImagenPersistencePort imagenPersistence,
+                        IndiceBusquedaPort indiceBusqueda) {
         this.tortaPersistence = tortaPersistence;
         this.ocasionPersistence = ocasionPersistence;
         this.imagenPersistence = imagenPersistence;
+        this.indiceBusqueda = indiceBusqueda;
     }
 
     @Override
     public Torta crear(Torta torta) {
-        // Validar que no exista una torta con la misma descripción
-        List<Torta> existentes = tortaPersistence.findByDescripcionContaining(torta.getDescripcion());
-        if (!existentes.isEmpty()) {
-            throw new BusinessRuleViolationException(
-                    "Ya existe una torta con descripción similar"
-            );
+        // Validar que no exista una torta con la misma descripción normalizada;
+        // si otra petición la crea a la vez, el índice único rechaza el guardado
+        if (tortaPersistence.existsByDescripcionNormalizada(torta.getDescripcionNormalizada())) {
+            throw new DuplicateTortaException(torta.getDescripcion());
         }
 
-        return tortaPersistence.save(torta);
+        Torta guardada = tortaPersistence.save(torta);
+        indiceBusqueda.indexarTorta(guardada);
+        return guardada;
     }
 
     @Override
@@ -69,7 +78,9 @@ public class TortaService implements TortaServicePort {
                 existente.getImagenes()
         );
 
-        return tortaPersistence.save(actualizada);
+        Torta guardada = tortaPersistence.save(actualizada);
+        indiceBusqueda.indexarTorta(guardada);
+        return guardada;
     }
 
     @Override
@@ -83,6 +94,7 @@ public class TortaService implements TortaServicePort {
 
         // Eliminar torta (las relaciones con ocasiones se eliminan en cascada)
         tortaPersistence.deleteById(id);
+        indiceBusqueda.eliminarTorta(id);
     }
 
     @Override
@@ -99,10 +111,39 @@ public class TortaService implements TortaServicePort {
 
     @Override
     @Transactional(readOnly = true)
+    public PaginaCursor<Torta> listarPorCursor(ConsultaCursor consulta, int limite) {
+        return PaginaCursor.de(tortaPersistence.findByCursor(consulta, limite + 1), limite);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Torta> buscarPorDescripcion(String descripcion) {
+        // Con el índice en memoria listo no se abre transacción ni se consulta la base de datos
+        if (indiceBusqueda.isListo()) {
+            return indiceBusqueda.buscarTortas(descripcion);
+        }
         return tortaPersistence.findByDescripcionContaining(descripcion);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Sugerencia> autocompletar(String texto, int limite) {
+        // Sin índice no hay sugerencias: el autocompletado no debe cargar la base de datos
+        if (!indiceBusqueda.isListo()) {
+            return List.of();
+        }
+        return indiceBusqueda.autocompletar(texto, limite);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaCursor<TortaBusqueda> buscarPorRelevancia(String texto, Float despuesDeRelevancia,
+                                                           Integer despuesDeId, int limite) {
+        // Se pide un resultado extra para saber si hay más páginas sin contar
+        List<TortaBusqueda> resultados = tortaPersistence.searchRanked(texto, despuesDeRelevancia, despuesDeId, limite + 1);
+        return PaginaCursor.de(resultados, limite);
+    }
+
     @Override
     public Torta agregarOcasion(Integer tortaId, Integer ocasionId) {
         Torta torta = obtenerPorId(tortaId);
@@ -196,7 +237,9 @@ public class TortaService implements TortaServicePort {
         Torta torta = obtenerPorId(tortaId);
         Torta actualizada = torta.actualizarImagen(urlImagen);
 
-        return tortaPersistence.save(actualizada);
+        Torta guardada = tortaPersistence.save(actualizada);
+        indiceBusqueda.indexarTorta(guardada);
+        return guardada;
     }
 
     @Override
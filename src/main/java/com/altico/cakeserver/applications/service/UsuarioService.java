@@ -3,20 +3,25 @@ package com.altico.cakeserver.applications.service;
 import com.altico.cakeserver.applications.ports.input.UsuarioServicePort;
 import com.altico.cakeserver.applications.ports.input.dto.*;
 import com.altico.cakeserver.applications.ports.output.*;
+import com.altico.cakeserver.domain.event.UsuarioSeguridadModificadaEvent;
+import com.altico.cakeserver.domain.event.UsuarioSeguridadModificadaEvent.Motivo;
 import com.altico.cakeserver.domain.exception.*;
 import com.altico.cakeserver.domain.model.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +34,8 @@ public class UsuarioService implements UsuarioServicePort {
     private final RolPersistencePort rolPersistence;
     private final AuditoriaPersistencePort auditoriaPersistence;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BloqueoLoginPort bloqueoLoginPort;
     private final SecureRandom secureRandom = new SecureRandom();
 
     @Override
@@ -120,6 +127,13 @@ public class UsuarioService implements UsuarioServicePort {
 
         UsuarioCompleto resultado = usuarioPersistence.save(usuarioActualizado);
 
+        if (!resultado.getUsername().equals(usuario.getUsername())) {
+            publicarEventoSeguridad(usuario, Motivo.USERNAME_MODIFICADO);
+        }
+        if (command.password() != null) {
+            publicarEventoSeguridad(resultado, Motivo.PASSWORD_MODIFICADO);
+        }
+
         // Auditoría
         registrarAuditoria(id, "ACTUALIZAR_USUARIO",
                 "Usuario actualizado: " + usuario.getUsername(), "EXITOSO");
@@ -139,10 +153,11 @@ public class UsuarioService implements UsuarioServicePort {
         }
 
         usuarioPersistence.deleteById(id);
+        publicarEventoSeguridad(usuario, Motivo.ELIMINADO);
 
-        // Auditoría
-        registrarAuditoria(id, "ELIMINAR_USUARIO",
-                "Usuario eliminado: " + usuario.getUsername(), "EXITOSO");
+        // Sin usuario_id: la fila ya no existe y la referencia violaría la clave foránea
+        registrarAuditoria(null, "ELIMINAR_USUARIO",
+                "Usuario eliminado: " + usuario.getUsername() + " (ID: " + id + ")", "EXITOSO");
 
         log.info("Usuario eliminado: {}", usuario.getUsername());
     }
@@ -153,6 +168,19 @@ public class UsuarioService implements UsuarioServicePort {
         return usuarioPersistence.findAllWithFilters(pageable, activo, rol);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaCursor<UsuarioCompleto> listarUsuariosPorCursor(ConsultaCursor consulta, int limite,
+                                                                 Boolean activo, String rol) {
+        return PaginaCursor.de(usuarioPersistence.findByCursor(consulta, limite + 1, activo, rol), limite);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long contarUsuarios(Boolean activo, String rol) {
+        return usuarioPersistence.countWithFilters(activo, rol);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<UsuarioCompleto> buscarUsuarios(String termino) {
@@ -170,6 +198,7 @@ public class UsuarioService implements UsuarioServicePort {
 
         UsuarioCompleto usuarioActivo = usuario.activar();
         UsuarioCompleto resultado = usuarioPersistence.save(usuarioActivo);
+        publicarEventoSeguridad(resultado, Motivo.ACTIVADO);
 
         registrarAuditoria(id, "ACTIVAR_USUARIO", "Usuario activado", "EXITOSO");
         return resultado;
@@ -192,6 +221,7 @@ public class UsuarioService implements UsuarioServicePort {
 
         UsuarioCompleto usuarioInactivo = usuario.desactivar();
         UsuarioCompleto resultado = usuarioPersistence.save(usuarioInactivo);
+        publicarEventoSeguridad(resultado, Motivo.DESACTIVADO);
 
         registrarAuditoria(id, "DESACTIVAR_USUARIO", "Usuario desactivado", "EXITOSO");
         return resultado;
@@ -223,6 +253,7 @@ public class UsuarioService implements UsuarioServicePort {
 
         UsuarioCompleto usuarioActualizado = usuario.removerRol(rol);
         UsuarioCompleto resultado = usuarioPersistence.save(usuarioActualizado);
+        publicarEventoSeguridad(resultado, Motivo.ROLES_MODIFICADOS);
 
         registrarAuditoria(usuarioId, "REMOVER_ROL",
                 "Rol removido: " + nombreRol, "EXITOSO");
@@ -250,6 +281,10 @@ public class UsuarioService implements UsuarioServicePort {
         );
 
         usuarioPersistence.save(usuarioActualizado);
+        publicarEventoSeguridad(usuario, Motivo.PASSWORD_MODIFICADO);
+
+        // El reseteo por un administrador es la vía de recuperación de una cuenta bloqueada
+        bloqueoLoginPort.desbloquear(usuario.getUsername());
 
         registrarAuditoria(id, "RESETEAR_PASSWORD", "Password reseteado", "EXITOSO");
 
@@ -269,6 +304,22 @@ public class UsuarioService implements UsuarioServicePort {
         return auditoriaPersistence.findByUsuarioId(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaCursor<UsuarioAuditoria> buscarAuditoria(FiltroAuditoria filtro, LocalDateTime despuesDeFecha,
+                                                          Long despuesDeId, int limite) {
+        // Se pide un registro extra para saber si hay más páginas sin contar
+        List<UsuarioAuditoria> registros = auditoriaPersistence.search(filtro, despuesDeFecha, despuesDeId, limite + 1);
+        return PaginaCursor.de(registros, limite);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportarAuditoria(FiltroAuditoria filtro, Consumer<UsuarioAuditoria> consumidor) {
+        // La transacción mantiene abierto el cursor del lado del servidor durante toda la exportación
+        auditoriaPersistence.forEach(filtro, consumidor);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public UsuarioEstadisticas obtenerEstadisticas() {
@@ -286,6 +337,7 @@ public class UsuarioService implements UsuarioServicePort {
 
         UsuarioCompleto usuarioActualizado = usuario.agregarRol(rol);
         UsuarioCompleto resultado = usuarioPersistence.save(usuarioActualizado);
+        publicarEventoSeguridad(resultado, Motivo.ROLES_MODIFICADOS);
 
         registrarAuditoria(usuario.getId(), "ASIGNAR_ROL",
                 "Rol asignado: " + nombreRol, "EXITOSO");
@@ -310,6 +362,11 @@ public class UsuarioService implements UsuarioServicePort {
         return usuarioPersistence.countByRoleAndActive("ROLE_ADMIN", true);
     }
 
+    private void publicarEventoSeguridad(UsuarioCompleto usuario, Motivo motivo) {
+        eventPublisher.publishEvent(
+                new UsuarioSeguridadModificadaEvent(usuario.getId(), usuario.getUsername(), motivo));
+    }
+
     private void registrarAuditoria(Long usuarioId, String accion, String descripcion, String resultado) {
         // Implementar auditoría
         auditoriaPersistence.save(new UsuarioAuditoria(
@@ -346,6 +403,7 @@ public class UsuarioService implements UsuarioServicePort {
             usuarioFinal = asignarRolInterno(usuarioFinal, nombreRol);
         }
 
+        publicarEventoSeguridad(usuario, Motivo.ROLES_MODIFICADOS);
         return usuarioFinal;
     }
 
@@ -357,7 +415,9 @@ public class UsuarioService implements UsuarioServicePort {
                 passwordEncoder.encode(nuevaPassword), usuario.isActivo(), usuario.getRoles(),
                 usuario.getFechaCreado(), LocalDateTime.now(), usuario.getUltimoAcceso()
         );
-        return usuarioPersistence.save(usuarioActualizado);
+        UsuarioCompleto resultado = usuarioPersistence.save(usuarioActualizado);
+        publicarEventoSeguridad(resultado, Motivo.PASSWORD_MODIFICADO);
+        return resultado;
     }
 
     @Override
@@ -368,14 +428,26 @@ public class UsuarioService implements UsuarioServicePort {
 
     @Override
     public void registrarIntentoCofcometoLoginFallido(String username, String ip) {
-        // Implementar registro de intentos fallidos
         log.warn("Login fallido para usuario: {} desde IP: {}", username, ip);
+
+        bloqueoLoginPort.registrarFallo(username, ip).ifPresent(bloqueadoHasta ->
+                usuarioPersistence.findByUsername(username).ifPresent(usuario ->
+                        registrarAuditoria(usuario.getId(), "BLOQUEAR_USUARIO",
+                                "Cuenta bloqueada hasta " + bloqueadoHasta + " por intentos fallidos desde IP: " + ip,
+                                "BLOQUEADO")));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void registrarLoginExitoso(String username) {
+        bloqueoLoginPort.registrarExito(username);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean estaUsuarioBloqueado(String username) {
-        // Implementar lógica de bloqueo por intentos fallidos
-        return false;
+        // Sin transacción propia: un bloqueo conocido se resuelve en memoria sin tomar conexión
+        return bloqueoLoginPort.estaBloqueado(username);
     }
 
     @Override
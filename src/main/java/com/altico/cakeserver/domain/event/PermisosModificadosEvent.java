@@ -0,0 +1,8 @@
+package com.altico.cakeserver.domain.event;
+
+// Evento de dominio: cambio en la asignación o el estado de permisos (rolId/permisoId pueden ser null)
+public record PermisosModificadosEvent(
+        Integer rolId,
+        Integer permisoId
+) {
+}
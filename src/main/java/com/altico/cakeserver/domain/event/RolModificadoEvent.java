@@ -0,0 +1,30 @@
+package com.altico.cakeserver.domain.event;
+
+// Evento de dominio: cambio en un rol que afecta las autoridades de sus usuarios
+public record RolModificadoEvent(
+        Integer rolId,
+        String nombre,
+        String nombreAnterior,
+        Motivo motivo
+) {
+
+    public enum Motivo {
+        CREADO,
+        ACTIVADO,
+        DESACTIVADO,
+        RENOMBRADO,
+        PRIORIDAD_MODIFICADA,
+        ELIMINADO
+    }
+
+    /**
+     * Nombre de la autoridad que deja de ser válida con este cambio (null si ninguna)
+     */
+    public String autoridadRevocada() {
+        return switch (motivo) {
+            case DESACTIVADO, ELIMINADO -> nombre;
+            case RENOMBRADO -> nombreAnterior;
+            case CREADO, ACTIVADO, PRIORIDAD_MODIFICADA -> null;
+        };
+    }
+}
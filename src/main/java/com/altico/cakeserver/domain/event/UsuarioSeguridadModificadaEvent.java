@@ -0,0 +1,28 @@
+package com.altico.cakeserver.domain.event;
+
+// Evento de dominio: cambio en el estado de seguridad de un usuario
+public record UsuarioSeguridadModificadaEvent(
+        Long usuarioId,
+        String username,
+        Motivo motivo
+) {
+
+    public enum Motivo {
+        ACTIVADO,
+        DESACTIVADO,
+        ELIMINADO,
+        ROLES_MODIFICADOS,
+        PASSWORD_MODIFICADO,
+        USERNAME_MODIFICADO
+    }
+
+    /**
+     * Indica si el cambio debe invalidar los access tokens ya emitidos para el usuario
+     */
+    public boolean revocaTokensEmitidos() {
+        return motivo == Motivo.DESACTIVADO
+                || motivo == Motivo.ELIMINADO
+                || motivo == Motivo.ROLES_MODIFICADOS
+                || motivo == Motivo.USERNAME_MODIFICADO;
+    }
+}
@@ -0,0 +1,7 @@
+package com.altico.cakeserver.domain.exception;
+
+public class DuplicateTortaException extends RuntimeException {
+    public DuplicateTortaException(String descripcion) {
+        super("Ya existe una torta con la descripción: " + descripcion);
+    }
+}
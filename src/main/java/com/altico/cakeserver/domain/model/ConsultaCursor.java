@@ -0,0 +1,14 @@
+package com.altico.cakeserver.domain.model;
+
+// Orden y posición de una página keyset sobre (campo, id); sin posición es la primera página
+public record ConsultaCursor(
+        String campo,
+        boolean descendente,
+        Object despuesDeValor,
+        Object despuesDeId
+) {
+
+    public boolean esPrimeraPagina() {
+        return despuesDeId == null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.altico.cakeserver.domain.model;
+
+import java.time.LocalDateTime;
+
+// Filtros combinables para la búsqueda de auditoría (null = sin filtro)
+public record FiltroAuditoria(
+        Long usuarioId,
+        String accion,
+        String resultado,
+        String ipAddress,
+        LocalDateTime desde,
+        LocalDateTime hasta
+) {}
@@ -0,0 +1,12 @@
+package com.altico.cakeserver.domain.model;
+
+import java.time.LocalDateTime;
+
+// Filtros combinables para la exportación de sesiones (null = sin filtro); el rango es sobre fecha_creacion
+public record FiltroSesiones(
+        String username,
+        Boolean activo,
+        String ipAddress,
+        LocalDateTime desde,
+        LocalDateTime hasta
+) {}
@@ -0,0 +1,19 @@
+package com.altico.cakeserver.domain.model;
+
+import java.util.List;
+
+// Página obtenida por keyset: el cursor de la siguiente se toma del último elemento
+public record PaginaCursor<T>(
+        List<T> contenido,
+        boolean hayMas
+) {
+
+    /**
+     * A partir de una consulta que pidió {@code limite + 1} resultados:
+     * el sobrante sólo indica que hay más páginas, sin necesidad de contar
+     */
+    public static <T> PaginaCursor<T> de(List<T> resultados, int limite) {
+        boolean hayMas = resultados.size() > limite;
+        return new PaginaCursor<>(hayMas ? resultados.subList(0, limite) : resultados, hayMas);
+    }
+}
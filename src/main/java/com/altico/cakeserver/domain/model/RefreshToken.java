@@ -13,4 +13,17 @@ public record RefreshToken(
         LocalDateTime fechaCreacion,
         LocalDateTime fechaExpiracion,
         LocalDateTime ultimoUso
-) {}
+) {
+
+    // El ID es la credencial: fuera del flujo de renovación sólo se expone enmascarado
+    public static String enmascararId(String id) {
+        if (id == null || id.length() <= 8) {
+            return "***";
+        }
+        return id.substring(0, 8) + "***";
+    }
+
+    public String idEnmascarado() {
+        return enmascararId(id);
+    }
+}
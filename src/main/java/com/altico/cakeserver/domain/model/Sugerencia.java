@@ -0,0 +1,13 @@
+package com.altico.cakeserver.domain.model;
+
+// Sugerencia de autocompletado: el texto completo propuesto y de dónde sale
+public record Sugerencia(
+        String texto,
+        Tipo tipo
+) {
+
+    public enum Tipo {
+        OCASION,
+        TERMINO
+    }
+}
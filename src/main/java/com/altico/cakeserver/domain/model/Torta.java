@@ -2,11 +2,14 @@ package com.altico.cakeserver.domain.model;
 
 import lombok.Getter;
 
+import java.text.Normalizer;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * Entidad de dominio que representa una Torta
@@ -14,6 +17,11 @@ import java.util.Objects;
  */
 @Getter
 public class Torta {
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    // Los mismos blancos que '[ \t\n\v\f\r]+' en la migración V14, que rellena la huella en SQL
+    private static final Pattern BLANCOS = Pattern.compile("[ \\t\\n\\x0B\\f\\r]+");
+    private static final Pattern ESPACIO_EN_EXTREMOS = Pattern.compile("^ | $");
+
     private final Integer id;
     private final String descripcion;
     private final String imagen;
@@ -102,6 +110,26 @@ public class Torta {
         }
     }
 
+    /**
+     * Huella de una descripción para detectar duplicados: minúsculas, sin acentos
+     * y con los espacios colapsados ("Torta  de LIMÓN " -> "torta de limon").
+     * Primero se colapsan los blancos y luego se quita el espacio de los extremos,
+     * igual que lower(btrim(regexp_replace(unaccent(...)))) en la base de datos
+     */
+    public static String normalizarDescripcion(String descripcion) {
+        if (descripcion == null) {
+            return null;
+        }
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(descripcion, Normalizer.Form.NFD))
+                .replaceAll("");
+        String colapsada = BLANCOS.matcher(sinAcentos).replaceAll(" ");
+        return ESPACIO_EN_EXTREMOS.matcher(colapsada).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public String getDescripcionNormalizada() {
+        return normalizarDescripcion(descripcion);
+    }
+
     // Queries
     public boolean tieneOcasion(Integer ocasionId) {
         return ocasiones.stream()
@@ -0,0 +1,14 @@
+package com.altico.cakeserver.domain.model;
+
+import java.time.LocalDateTime;
+
+// Resultado resumido de la búsqueda de texto completo, con su relevancia (ts_rank)
+public record TortaBusqueda(
+        Integer id,
+        String descripcion,
+        String imagen,
+        LocalDateTime fechaCreado,
+        int cantidadOcasiones,
+        int cantidadImagenes,
+        float relevancia
+) {}
@@ -0,0 +1,272 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest;
+
+import com.altico.cakeserver.applications.ports.input.RefreshTokenServicePort;
+import com.altico.cakeserver.applications.ports.input.UsuarioServicePort;
+import com.altico.cakeserver.domain.exception.RateLimitExceededException;
+import com.altico.cakeserver.domain.model.FiltroAuditoria;
+import com.altico.cakeserver.domain.model.FiltroSesiones;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.interceptor.TiempoEsperaAsincronoInterceptor;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.AdminDtoMapper;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.AuthDtoMapper;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación completa de auditoría y sesiones en CSV o NDJSON.
+ *
+ * Las filas se leen de un cursor de sólo avance y se escriben directamente en la
+ * respuesta (opcionalmente comprimida con gzip), sin colecciones intermedias:
+ * el consumo de memoria es constante sea cual sea el tamaño del volcado.
+ *
+ * Los IDs de sesión se exportan enmascarados (son la credencial del refresh token) y
+ * los valores CSV que una hoja de cálculo interpretaría como fórmula se neutralizan.
+ *
+ * Cada volcado retiene una conexión y su transacción mientras dura, así que sólo se
+ * admiten {@code app.admin.export.max-concurrent} a la vez por nodo (el resto recibe
+ * 429) y la base de datos los corta con los topes de {@code LimitesExportacion}.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/export")
+@Slf4j
+@Tag(name = "Exportación", description = "API para volcados completos de auditoría y sesiones")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminExportController {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final String CABECERA_AUDITORIA =
+            "id,usuario_id,accion,descripcion,ip_address,user_agent,fecha,resultado";
+    private static final String CABECERA_SESIONES =
+            "id_enmascarado,username,device_info,ip_address,user_agent,activo,fecha_creacion,fecha_expiracion,ultimo_uso";
+
+    private final UsuarioServicePort usuarioService;
+    private final RefreshTokenServicePort refreshTokenService;
+    private final AdminDtoMapper adminMapper;
+    private final AuthDtoMapper authMapper;
+    private final AdminProperties adminProperties;
+    private final ObjectWriter jsonWriter;
+    private final Semaphore volcadosEnCurso;
+
+    public AdminExportController(UsuarioServicePort usuarioService,
+                                 RefreshTokenServicePort refreshTokenService,
+                                 AdminDtoMapper adminMapper,
+                                 AuthDtoMapper authMapper,
+                                 AdminProperties adminProperties,
+                                 ObjectMapper objectMapper) {
+        this.usuarioService = usuarioService;
+        this.refreshTokenService = refreshTokenService;
+        this.adminMapper = adminMapper;
+        this.authMapper = authMapper;
+        this.adminProperties = adminProperties;
+        this.volcadosEnCurso = new Semaphore(adminProperties.getExport().getMaxConcurrent());
+        // Una línea por registro sobre el mismo Writer: sin cerrarlo ni vaciar el buffer tras cada valor
+        this.jsonWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private enum Formato {
+        CSV("csv", "text/csv;charset=UTF-8"),
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Formato(String extension, String mediaType) {
+            this.extension = extension;
+            this.mediaType = MediaType.parseMediaType(mediaType);
+        }
+
+        static Formato desde(String valor) {
+            try {
+                return valueOf(valor.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: " + valor);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Volcado {
+        void escribir(Writer writer) throws IOException;
+    }
+
+    @GetMapping("/auditoria")
+    @Operation(summary = "Exportar auditoría",
+            description = "Vuelca los registros de auditoría filtrados en CSV o NDJSON, ordenados por fecha")
+    public ResponseEntity<StreamingResponseBody> exportarAuditoria(
+            @Parameter(description = "Filtro por usuario") @RequestParam(required = false) Long usuarioId,
+            @Parameter(description = "Filtro por acción") @RequestParam(required = false) String accion,
+            @Parameter(description = "Filtro por resultado") @RequestParam(required = false) String resultado,
+            @Parameter(description = "Filtro por IP") @RequestParam(required = false) String ip,
+            @Parameter(description = "Desde (inclusive)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Hasta (exclusive)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "csv o ndjson") @RequestParam(defaultValue = "csv") String formato,
+            @Parameter(description = "Comprimir con gzip") @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+
+        Formato tipo = Formato.desde(formato);
+        var filtro = new FiltroAuditoria(usuarioId, accion, resultado, ip, desde, hasta);
+        log.info("Exportando auditoría en {} (gzip: {}) con filtro {}", tipo, gzip, filtro);
+
+        return respuesta(request, "auditoria", tipo, gzip, writer -> {
+            if (tipo == Formato.CSV) {
+                writer.write(CABECERA_AUDITORIA);
+                writer.write('\n');
+            }
+            usuarioService.exportarAuditoria(filtro, a -> escribirLinea(writer, tipo == Formato.CSV
+                    ? filaCsv(a.id(), a.usuarioId(), a.accion(), a.descripcion(), a.ipAddress(),
+                            a.userAgent(), a.fecha(), a.resultado())
+                    : adminMapper.toAuditResponse(a)));
+        });
+    }
+
+    @GetMapping("/sesiones")
+    @Operation(summary = "Exportar sesiones",
+            description = "Vuelca los refresh tokens filtrados en CSV o NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportarSesiones(
+            @Parameter(description = "Filtro por usuario") @RequestParam(required = false) String username,
+            @Parameter(description = "Filtro por estado") @RequestParam(required = false) Boolean activo,
+            @Parameter(description = "Filtro por IP") @RequestParam(required = false) String ip,
+            @Parameter(description = "Creados desde (inclusive)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Creados hasta (exclusive)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "csv o ndjson") @RequestParam(defaultValue = "csv") String formato,
+            @Parameter(description = "Comprimir con gzip") @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+
+        Formato tipo = Formato.desde(formato);
+        var filtro = new FiltroSesiones(username, activo, ip, desde, hasta);
+        log.info("Exportando sesiones en {} (gzip: {}) con filtro {}", tipo, gzip, filtro);
+
+        return respuesta(request, "sesiones", tipo, gzip, writer -> {
+            if (tipo == Formato.CSV) {
+                writer.write(CABECERA_SESIONES);
+                writer.write('\n');
+            }
+            refreshTokenService.exportarSesiones(filtro, t -> escribirLinea(writer, tipo == Formato.CSV
+                    ? filaCsv(t.idEnmascarado(), t.username(), t.deviceInfo(), t.ipAddress(), t.userAgent(),
+                            t.activo(), t.fechaCreacion(), t.fechaExpiracion(), t.ultimoUso())
+                    : authMapper.toTokenResponseEnmascarado(t)));
+        });
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private ResponseEntity<StreamingResponseBody> respuesta(HttpServletRequest request, String nombre, Formato tipo,
+                                                            boolean gzip, Volcado volcado) {
+        // Un volcado grande dura más que el tiempo de espera asíncrono global: se amplía sólo aquí
+        TiempoEsperaAsincronoInterceptor.solicitar(request, adminProperties.getExport().getTimeoutMs());
+        String archivo = nombre + "." + tipo.extension + (gzip ? ".gz" : "");
+
+        // El cupo se libera al terminar el volcado, no al devolver la respuesta
+        if (!volcadosEnCurso.tryAcquire()) {
+            throw new RateLimitExceededException("Hay demasiadas exportaciones en curso",
+                    adminProperties.getExport().getRetryAfterSeconds());
+        }
+
+        StreamingResponseBody cuerpo = salida -> {
+            try {
+                OutputStream destino = gzip ? new GZIPOutputStream(salida, BUFFER_BYTES) : salida;
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), BUFFER_BYTES)) {
+                    volcado.escribir(writer);
+                } catch (UncheckedIOException e) {
+                    // Normalmente el cliente cortó la descarga: el cursor y la transacción se liberan al salir
+                    throw e.getCause();
+                }
+            } finally {
+                volcadosEnCurso.release();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : tipo.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(archivo).build().toString())
+                .body(cuerpo);
+    }
+
+    private void escribirLinea(Writer writer, Object linea) {
+        try {
+            if (linea instanceof String csv) {
+                writer.write(csv);
+            } else {
+                jsonWriter.writeValue(writer, linea);
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String filaCsv(Object... valores) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            if (valores[i] instanceof String texto) {
+                sb.append(escaparCsv(pareceFormula(texto) ? "'" + texto : texto));
+            } else if (valores[i] != null) {
+                sb.append(escaparCsv(valores[i].toString()));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Inyección de fórmulas: el texto que Excel/LibreOffice evaluaría se antepone con un apóstrofo
+    // (sólo texto libre; los números y fechas se escriben tal cual)
+    private static boolean pareceFormula(String valor) {
+        if (valor.isEmpty()) {
+            return false;
+        }
+        char inicial = valor.charAt(0);
+        return inicial == '=' || inicial == '+' || inicial == '-' || inicial == '@'
+                || inicial == '\t' || inicial == '\r';
+    }
+
+    // RFC 4180: se entrecomilla si contiene separador, comillas o saltos de línea
+    private static String escaparCsv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0
+                && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,8 +1,12 @@
 package com.altico.cakeserver.infrastructure.adapters.input.rest;
 
 import com.altico.cakeserver.applications.ports.input.UsuarioServicePort;
+import com.altico.cakeserver.domain.model.FiltroAuditoria;
+import com.altico.cakeserver.domain.model.UsuarioCompleto;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin.*;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.AdminDtoMapper;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.CursorCodec;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.OrdenCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,12 +18,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,6 +38,13 @@ import java.util.stream.Collectors;
 @SecurityRequirement(name = "bearerAuth")
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminUserController {
+    // Órdenes con índice (campo, id) admitidos en la paginación por cursor
+    private static final OrdenCursor<UsuarioCompleto> ORDEN_CURSOR = OrdenCursor
+            .<UsuarioCompleto>porId(Long::valueOf, UsuarioCompleto::getId)
+            .campo("username", valor -> valor, UsuarioCompleto::getUsername)
+            .campo("email", valor -> valor, UsuarioCompleto::getEmail)
+            .campo("fechaCreado", LocalDateTime::parse, UsuarioCompleto::getFechaCreado);
+
 
     private final UsuarioServicePort usuarioService;
     private final AdminDtoMapper adminMapper;
@@ -76,6 +90,34 @@ public class AdminUserController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(params = "paginacion=cursor")
+    @Operation(summary = "Listar usuarios por cursor",
+            description = "Con paginacion=cursor: páginas keyset por (campo, id) sin OFFSET ni COUNT; " +
+                    "ordenable por username, email, fechaCreado o id")
+    public ResponseEntity<AdminUserCursorResponse> listarUsuariosPorCursor(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máx. 200)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Campo de ordenamiento") @RequestParam(defaultValue = "username") String sort,
+            @Parameter(description = "Dirección de ordenamiento") @RequestParam(defaultValue = "ASC") String direction,
+            @Parameter(description = "Filtro por estado") @RequestParam(required = false) Boolean activo,
+            @Parameter(description = "Filtro por rol") @RequestParam(required = false) String rol,
+            @Parameter(description = "Incluir el total (ejecuta un COUNT)") @RequestParam(defaultValue = "false") boolean contar) {
+
+        log.info("Listando usuarios por cursor - orden: {} {}, tamaño: {}", sort, direction, size);
+
+        var consulta = ORDEN_CURSOR.consulta(sort, direction, cursor);
+        int limite = Math.min(Math.max(size, 1), 200);
+        var pagina = usuarioService.listarUsuariosPorCursor(consulta, limite, activo, rol);
+
+        var content = pagina.contenido().stream()
+                .map(adminMapper::toResponse)
+                .collect(Collectors.toList());
+        Long total = contar ? usuarioService.contarUsuarios(activo, rol) : null;
+
+        return ResponseEntity.ok(new AdminUserCursorResponse(
+                content, ORDEN_CURSOR.siguiente(consulta, pagina), pagina.hayMas(), total));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener usuario por ID", description = "Obtiene los detalles completos de un usuario")
     public ResponseEntity<AdminUserDetailResponse> obtenerUsuario(@PathVariable Long id) {
@@ -190,6 +232,50 @@ public class AdminUserController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/auditoria")
+    @Operation(summary = "Buscar auditoría",
+            description = "Busca registros de auditoría combinando filtros, paginando por cursor (fecha, id)")
+    public ResponseEntity<AuditSearchResponse> buscarAuditoria(
+            @Parameter(description = "Filtro por usuario") @RequestParam(required = false) Long usuarioId,
+            @Parameter(description = "Filtro por acción") @RequestParam(required = false) String accion,
+            @Parameter(description = "Filtro por resultado") @RequestParam(required = false) String resultado,
+            @Parameter(description = "Filtro por IP") @RequestParam(required = false) String ip,
+            @Parameter(description = "Desde (inclusive)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Hasta (exclusive)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máx. 200)") @RequestParam(defaultValue = "50") int size) {
+
+        LocalDateTime despuesDeFecha = null;
+        Long despuesDeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = CursorCodec.decodificar(cursor, 2);
+            try {
+                despuesDeFecha = LocalDateTime.parse(partes[0]);
+                despuesDeId = Long.parseLong(partes[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        int limite = Math.min(Math.max(size, 1), 200);
+        var filtro = new FiltroAuditoria(usuarioId, accion, resultado, ip, desde, hasta);
+        var pagina = usuarioService.buscarAuditoria(filtro, despuesDeFecha, despuesDeId, limite);
+
+        String nextCursor = null;
+        if (pagina.hayMas()) {
+            var ultimo = pagina.contenido().get(pagina.contenido().size() - 1);
+            nextCursor = CursorCodec.codificar(ultimo.fecha(), ultimo.id());
+        }
+
+        var content = pagina.contenido().stream()
+                .map(adminMapper::toAuditResponse)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(new AuditSearchResponse(content, nextCursor, pagina.hayMas()));
+    }
+
     @GetMapping("/auditoria/{id}")
     @Operation(summary = "Auditoría de usuario", description = "Obtiene el historial de acciones de un usuario")
     public ResponseEntity<List<UserAuditResponse>> obtenerAuditoria(@PathVariable Long id) {
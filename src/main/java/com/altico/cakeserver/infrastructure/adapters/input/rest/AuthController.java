@@ -1,14 +1,24 @@
 package com.altico.cakeserver.infrastructure.adapters.input.rest;
 
 import com.altico.cakeserver.applications.ports.input.RefreshTokenServicePort;
+import com.altico.cakeserver.applications.ports.input.UsuarioServicePort;
+import com.altico.cakeserver.applications.ports.output.DetectorActividadSospechosaPort;
+import com.altico.cakeserver.domain.exception.RefreshTokenNotFoundException;
+import com.altico.cakeserver.domain.exception.RevokedRefreshTokenException;
+import com.altico.cakeserver.domain.exception.UserBlockedException;
 import com.altico.cakeserver.domain.model.RefreshToken;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.auth.*;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.interceptor.RateLimitInterceptor;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.UsuarioEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.RolEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.UsuarioRepository;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.RolRepository;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
 import com.altico.cakeserver.infrastructure.config.JwtProperties;
 import com.altico.cakeserver.infrastructure.security.jwt.JwtService;
+import com.altico.cakeserver.infrastructure.security.service.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -20,13 +30,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -43,12 +56,18 @@ public class AuthController {
     private final JwtService jwtService;
     private final JwtProperties jwtProperties;
     private final RefreshTokenServicePort refreshTokenService;
+    private final MeterRegistry meterRegistry;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AdminProperties adminProperties;
+    private final UsuarioServicePort usuarioService;
+    private final DetectorActividadSospechosaPort detectorActividadSospechosa;
 
     @PostMapping("/login")
     @Operation(summary = "Iniciar sesión", description = "Autentica un usuario y devuelve tokens JWT")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login exitoso"),
-            @ApiResponse(responseCode = "401", description = "Credenciales inválidas")
+            @ApiResponse(responseCode = "401", description = "Credenciales inválidas"),
+            @ApiResponse(responseCode = "423", description = "Usuario bloqueado por intentos fallidos")
     })
     public ResponseEntity<AuthResponse> login(
             @Valid @RequestBody LoginRequest request,
@@ -56,34 +75,61 @@ public class AuthController {
 
         log.info("Intento de login para usuario: {}", request.username());
 
+        // Límite por usuario e IP (el límite por IP lo aplica RateLimitInterceptor): con la clave
+        // sólo por usuario, cualquiera podría agotar la cubeta de la víctima y dejarla sin acceso
+        String username = request.username().toLowerCase();
+        rateLimiter.verificar("login_usuario", adminProperties.getRateLimit().getLoginPorUsuario(),
+                username + "|" + ipLimitacion(httpRequest));
+        // Y por usuario desde cualquier IP, más holgado: acota los intentos repartidos entre
+        // muchas IPs sin que una sola pueda agotarlo (se consume después del límite por IP)
+        rateLimiter.verificar("login_cuenta", adminProperties.getRateLimit().getLoginPorCuenta(), username);
+
+        // Rechazar cuentas bloqueadas antes de cualquier trabajo de BCrypt
+        if (usuarioService.estaUsuarioBloqueado(request.username())) {
+            log.warn("Intento de login sobre cuenta bloqueada: {}", request.username());
+            throw new UserBlockedException(request.username());
+        }
+
+        String deviceInfo = extractDeviceInfo(httpRequest);
+        String ipAddress = getClientIpAddress(httpRequest);
+        String userAgent = httpRequest.getHeader("User-Agent");
+
         try {
             // Autenticar
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.username(),
-                            request.password()
-                    )
-            );
+            Authentication authentication;
+            try {
+                authentication = medirEtapa("login", "autenticacion", () ->
+                        authenticationManager.authenticate(
+                                new UsernamePasswordAuthenticationToken(
+                                        request.username(),
+                                        request.password()
+                                )
+                        ));
+            } catch (BadCredentialsException e) {
+                usuarioService.registrarIntentoCofcometoLoginFallido(request.username(), ipAddress);
+                detectorActividadSospechosa.registrarLogin(request.username(), deviceInfo, ipAddress, false);
+                throw e;
+            }
+            usuarioService.registrarLoginExitoso(request.username());
+            detectorActividadSospechosa.registrarLogin(request.username(), deviceInfo, ipAddress, true);
 
             // Obtener usuario
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            UsuarioEntity usuario = usuarioRepository.findByUsername(request.username())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            UsuarioEntity usuario = medirEtapa("login", "base_datos", () ->
+                    usuarioRepository.findByUsername(request.username())
+                            .orElseThrow(() -> new RuntimeException("Usuario no encontrado")));
 
             // Generar access token
-            String accessToken = jwtService.generateToken(userDetails);
+            String accessToken = medirEtapa("login", "token", () -> jwtService.generateToken(userDetails));
 
             // Crear refresh token
-            String deviceInfo = extractDeviceInfo(httpRequest);
-            String ipAddress = getClientIpAddress(httpRequest);
-            String userAgent = httpRequest.getHeader("User-Agent");
-
-            var refreshToken = refreshTokenService.crearToken(
-                    request.username(),
-                    deviceInfo,
-                    ipAddress,
-                    userAgent
-            );
+            var refreshToken = medirEtapa("login", "refresh_token", () ->
+                    refreshTokenService.crearToken(
+                            request.username(),
+                            deviceInfo,
+                            ipAddress,
+                            userAgent
+                    ));
 
             // Crear respuesta
             AuthResponse response = getAuthResponse(usuario, accessToken, refreshToken);
@@ -120,11 +166,12 @@ public class AuthController {
                 throw new RuntimeException("El email ya está registrado");
             }
 
-            // Crear usuario
+            // Crear usuario (único hash BCrypt del registro)
+            String passwordHash = medirEtapa("register", "hash", () -> passwordEncoder.encode(request.password()));
             UsuarioEntity usuario = new UsuarioEntity(
                     request.username(),
                     request.email(),
-                    passwordEncoder.encode(request.password())
+                    passwordHash
             );
 
             // ✅ CORRECCIÓN 1: Buscar y asignar rol por defecto usando RolEntity
@@ -133,32 +180,33 @@ public class AuthController {
             usuario.getRoles().add(rolUser);
 
             // Guardar
-            usuario = usuarioRepository.save(usuario);
-
-            // Autenticar automáticamente
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.username(),
-                            request.password()
-                    )
-            );
-
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            UsuarioEntity nuevoUsuario = usuario;
+            usuario = medirEtapa("register", "base_datos", () -> usuarioRepository.save(nuevoUsuario));
+
+            // La contraseña se acaba de fijar: no es necesario volver a verificarla con BCrypt
+            UserDetails userDetails = User.builder()
+                    .username(usuario.getUsername())
+                    .password(usuario.getPassword())
+                    .authorities(usuario.getRoles().stream()
+                            .map(rol -> new SimpleGrantedAuthority(rol.getNombre()))
+                            .collect(Collectors.toList()))
+                    .build();
 
             // Generar access token
-            String accessToken = jwtService.generateToken(userDetails);
+            String accessToken = medirEtapa("register", "token", () -> jwtService.generateToken(userDetails));
 
             // Crear refresh token
             String deviceInfo = extractDeviceInfo(httpRequest);
             String ipAddress = getClientIpAddress(httpRequest);
             String userAgent = httpRequest.getHeader("User-Agent");
 
-            var refreshToken = refreshTokenService.crearToken(
-                    request.username(),
-                    deviceInfo,
-                    ipAddress,
-                    userAgent
-            );
+            var refreshToken = medirEtapa("register", "refresh_token", () ->
+                    refreshTokenService.crearToken(
+                            request.username(),
+                            deviceInfo,
+                            ipAddress,
+                            userAgent
+                    ));
 
             // Crear respuesta
             AuthResponse response = getAuthResponse(usuario, accessToken, refreshToken);
@@ -185,43 +233,41 @@ public class AuthController {
         log.info("Solicitud de renovación de token");
 
         try {
-            // Validar y renovar token
-            if (!refreshTokenService.esTokenValido(request.refreshToken())) {
-                log.warn("Token de refresco inválido: {}", request.refreshToken());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
-
-            // Obtener token actual
-            var tokenActual = refreshTokenService.obtenerTokenPorId(request.refreshToken());
-
-            // ✅ CORRECCIÓN 2: Cargar usuario y mapear roles correctamente
-            UserDetails userDetails = usuarioRepository.findByUsername(tokenActual.username())
-                    .map(usuario -> org.springframework.security.core.userdetails.User.builder()
-                            .username(usuario.getUsername())
-                            .password(usuario.getPassword())
-                            .authorities(usuario.getRoles().stream()
-                                    .map(rol -> new SimpleGrantedAuthority(rol.getNombre())) // ✅ CORREGIDO
-                                    .collect(Collectors.toList()))
-                            .build())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            // Validar, revocar y emitir el nuevo refresh token en una sola sentencia
+            var nuevoRefreshToken = medirEtapa("refresh", "rotacion", () ->
+                    refreshTokenService.renovarToken(request.refreshToken()));
+
+            // Cargar usuario con sus roles en una sola consulta
+            UsuarioEntity usuario = medirEtapa("refresh", "base_datos", () ->
+                    usuarioRepository.findByUsernameWithRoles(nuevoRefreshToken.username())
+                            .orElseThrow(() -> new RuntimeException("Usuario no encontrado")));
+
+            UserDetails userDetails = User.builder()
+                    .username(usuario.getUsername())
+                    .password(usuario.getPassword())
+                    .authorities(usuario.getRoles().stream()
+                            .map(rol -> new SimpleGrantedAuthority(rol.getNombre()))
+                            .collect(Collectors.toList()))
+                    .build();
 
             // Generar nuevo access token
-            String newAccessToken = jwtService.generateToken(userDetails);
-
-            // Renovar refresh token
-            var nuevoRefreshToken = refreshTokenService.renovarToken(request.refreshToken());
-
-            // Obtener información del usuario
-            UsuarioEntity usuario = usuarioRepository.findByUsername(tokenActual.username())
-                    .orElseThrow();
+            String newAccessToken = medirEtapa("refresh", "token", () -> jwtService.generateToken(userDetails));
 
             AuthResponse response = getAuthResponse(usuario, newAccessToken, nuevoRefreshToken);
 
-            log.info("Token renovado exitosamente para usuario: {}", tokenActual.username());
+            detectorActividadSospechosa.registrarRefresh(usuario.getUsername(),
+                    extractDeviceInfo(httpRequest), getClientIpAddress(httpRequest));
+
+            log.info("Token renovado exitosamente para usuario: {}", usuario.getUsername());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
             log.error("Error al renovar token: {}", e.getMessage());
+            // Un token inexistente o ya revocado es señal de adivinanza o reutilización
+            if (e instanceof RefreshTokenNotFoundException || e instanceof RevokedRefreshTokenException) {
+                refreshTokenService.registrarIntentoCofcometoTokenInvalido(
+                        request.refreshToken(), getClientIpAddress(httpRequest));
+            }
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
@@ -317,6 +363,18 @@ public class AuthController {
 
     // ============== MÉTODOS AUXILIARES ==============
 
+    /**
+     * Registra la duración de una etapa del flujo de autenticación
+     * (cakeserver.auth.stage, etiquetado por endpoint y etapa)
+     */
+    private <T> T medirEtapa(String endpoint, String etapa, Supplier<T> accion) {
+        return Timer.builder("cakeserver.auth.stage")
+                .tag("endpoint", endpoint)
+                .tag("etapa", etapa)
+                .register(meterRegistry)
+                .record(accion);
+    }
+
     /**
      * Extrae información del dispositivo desde la petición HTTP
      */
@@ -356,4 +414,13 @@ public class AuthController {
 
         return request.getRemoteAddr();
     }
-}
\ No newline at end of file
+
+    /**
+     * IP del cliente para los límites de peticiones: la misma que usa RateLimitInterceptor,
+     * que sólo confía en las cabeceras de proxy si está configurado
+     */
+    private String ipLimitacion(HttpServletRequest request) {
+        Object ip = request.getAttribute(RateLimitInterceptor.ATRIBUTO_IP_CLIENTE);
+        return ip != null ? ip.toString() : request.getRemoteAddr();
+    }
+}
@@ -3,8 +3,10 @@ package com.altico.cakeserver.infrastructure.adapters.input.rest;
 import com.altico.cakeserver.applications.mapper.DomainDtoMapper;
 import com.altico.cakeserver.applications.ports.input.OcasionServicePort;
 import com.altico.cakeserver.applications.ports.input.TortaServicePort;
+import com.altico.cakeserver.domain.model.Ocasion;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.ocasion.*;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.torta.TortaSummaryResponse;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.OrdenCursor;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.RestDtoMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,6 +23,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,6 +33,12 @@ import java.util.stream.Collectors;
 @Slf4j
 @Tag(name = "Ocasiones", description = "API para gestión de ocasiones")
 public class OcasionRestController {
+    // Órdenes con índice (campo, id) admitidos en la paginación por cursor
+    private static final OrdenCursor<Ocasion> ORDEN_CURSOR = OrdenCursor
+            .<Ocasion>porId(Integer::valueOf, Ocasion::getId)
+            .campo("nombre", valor -> valor, Ocasion::getNombre)
+            .campo("fechaCreado", LocalDateTime::parse, Ocasion::getFechaCreado);
+
 
     // Importado para dar soporte a HATEOAS
     private final TortaServicePort tortaService;
@@ -93,6 +102,33 @@ public class OcasionRestController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(params = "paginacion=cursor")
+    @Operation(summary = "Listar ocasiones por cursor",
+            description = "Con paginacion=cursor: páginas keyset por (campo, id) sin OFFSET ni COUNT; " +
+                    "ordenable por nombre, fechaCreado o id")
+    public ResponseEntity<OcasionCursorResponse> listarPorCursor(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máx. 50)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Campo de ordenamiento") @RequestParam(defaultValue = "nombre") String sort,
+            @Parameter(description = "Dirección de ordenamiento") @RequestParam(defaultValue = "ASC") String direction,
+            @Parameter(description = "Incluir el total (ejecuta un COUNT)") @RequestParam(defaultValue = "false") boolean contar) {
+
+        log.info("Listando ocasiones por cursor - orden: {} {}, tamaño: {}", sort, direction, size);
+
+        var consulta = ORDEN_CURSOR.consulta(sort, direction, cursor);
+        int limite = Math.min(Math.max(size, 1), 50);
+        var pagina = ocasionService.listarPorCursor(consulta, limite);
+
+        var content = pagina.contenido().stream()
+                .map(domainMapper::toDto)
+                .map(restMapper::toResponse)
+                .collect(Collectors.toList());
+        Long total = contar ? ocasionService.contarTotal() : null;
+
+        return ResponseEntity.ok(new OcasionCursorResponse(
+                content, ORDEN_CURSOR.siguiente(consulta, pagina), pagina.hayMas(), total));
+    }
+
     @GetMapping("/activas")
     @Operation(summary = "Listar ocasiones activas", description = "Lista solo las ocasiones activas")
     public ResponseEntity<List<OcasionResponse>> listarActivas() {
@@ -1,12 +1,16 @@
 package com.altico.cakeserver.infrastructure.adapters.input.rest;
 
 import com.altico.cakeserver.applications.ports.input.RefreshTokenServicePort;
+import com.altico.cakeserver.domain.model.RefreshToken;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin.RefreshTokenCursorResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin.RefreshTokenListResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin.RefreshTokenResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin.SuspiciousDeviceResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin.TokenStatsResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.auth.*;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.AuthDtoMapper;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.CifradorCursor;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.OrdenCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -23,6 +27,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,9 +38,17 @@ import java.util.stream.Collectors;
 @Tag(name = "Gestión de Tokens", description = "API para gestión de refresh tokens y sesiones")
 @SecurityRequirement(name = "bearerAuth")
 public class RefreshTokenController {
+    // Órdenes con índice (campo, id) admitidos en la paginación por cursor.
+    // El id es la credencial del token: el cursor sólo sale cifrado (CifradorCursor)
+    private static final OrdenCursor<RefreshToken> ORDEN_CURSOR = OrdenCursor
+            .<RefreshToken>porId(valor -> valor, RefreshToken::id)
+            .campo("fechaCreacion", LocalDateTime::parse, RefreshToken::fechaCreacion)
+            .campo("fechaExpiracion", LocalDateTime::parse, RefreshToken::fechaExpiracion);
+
 
     private final RefreshTokenServicePort refreshTokenService;
     private final AuthDtoMapper authMapper;
+    private final CifradorCursor cifradorCursor;
 
     @GetMapping("/mis-sesiones")
     @Operation(summary = "Mis sesiones activas", description = "Lista las sesiones activas del usuario actual")
@@ -117,6 +130,35 @@ public class RefreshTokenController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/admin/sesiones", params = "paginacion=cursor")
+    @Operation(summary = "Listar todas las sesiones por cursor",
+            description = "Con paginacion=cursor: páginas keyset por (campo, id) sin OFFSET ni COUNT; " +
+                    "ordenable por fechaCreacion, fechaExpiracion o id. Los IDs de sesión se devuelven enmascarados")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RefreshTokenCursorResponse> listarTodasLasSesionesPorCursor(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máx. 200)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Campo de ordenamiento") @RequestParam(defaultValue = "fechaCreacion") String sort,
+            @Parameter(description = "Dirección de ordenamiento") @RequestParam(defaultValue = "DESC") String direction,
+            @Parameter(description = "Filtro por usuario") @RequestParam(required = false) String username,
+            @Parameter(description = "Incluir el total (ejecuta un COUNT)") @RequestParam(defaultValue = "false") boolean contar) {
+
+        log.info("Admin listando sesiones por cursor - orden: {} {}, tamaño: {}", sort, direction, size);
+
+        var consulta = ORDEN_CURSOR.consulta(sort, direction, cifradorCursor.descifrar(cursor));
+        int limite = Math.min(Math.max(size, 1), 200);
+        var pagina = refreshTokenService.listarTokensPorCursor(consulta, limite, username);
+
+        // Ni el cuerpo ni el cursor llevan el ID completo: es la credencial de cada sesión
+        var content = pagina.contenido().stream()
+                .map(authMapper::toTokenResponseEnmascarado)
+                .collect(Collectors.toList());
+        Long total = contar ? refreshTokenService.contarTokens(username) : null;
+
+        return ResponseEntity.ok(new RefreshTokenCursorResponse(
+                content, cifradorCursor.cifrar(ORDEN_CURSOR.siguiente(consulta, pagina)), pagina.hayMas(), total));
+    }
+
     @GetMapping("/admin/usuario/{username}")
     @Operation(summary = "Sesiones de usuario específico", description = "Lista todas las sesiones de un usuario específico")
     @PreAuthorize("hasRole('ADMIN')")
@@ -5,11 +5,15 @@ import com.altico.cakeserver.applications.ports.input.ImagenServicePort;
 import com.altico.cakeserver.applications.ports.input.OcasionServicePort;
 import com.altico.cakeserver.applications.ports.input.TortaServicePort;
 import com.altico.cakeserver.applications.ports.input.dto.TortaDto;
+import com.altico.cakeserver.domain.model.Torta;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.imagen.ImagenListResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.ocasion.OcasionListResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.ocasion.OcasionResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.torta.*;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.CursorCodec;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.OrdenCursor;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.RestDtoMapper;
+import com.altico.cakeserver.infrastructure.config.BusquedaProperties;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -27,6 +31,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -36,6 +41,12 @@ import java.util.stream.Collectors;
 @Slf4j
 @Tag(name = "Tortas", description = "API para gestión de tortas")
 public class TortaRestController {
+    // Órdenes con índice (campo, id) admitidos en la paginación por cursor
+    private static final OrdenCursor<Torta> ORDEN_CURSOR = OrdenCursor
+            .<Torta>porId(Integer::valueOf, Torta::getId)
+            .campo("fechaCreado", LocalDateTime::parse, Torta::getFechaCreado)
+            .campo("descripcion", valor -> valor, Torta::getDescripcion);
+
     // Importado para dar soporte a HATEOAS
     private final ImagenServicePort imagenService;
     private final OcasionServicePort ocasionService;
@@ -43,6 +54,7 @@ public class TortaRestController {
     private final TortaServicePort tortaService;
     private final DomainDtoMapper domainMapper;
     private final RestDtoMapper restMapper;
+    private final BusquedaProperties busquedaProperties;
 
     @PostMapping
     @Operation(summary = "Crear nueva torta", description = "Crea una nueva torta con sus ocasiones asociadas")
@@ -108,6 +120,33 @@ public class TortaRestController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(params = "paginacion=cursor")
+    @Operation(summary = "Listar tortas por cursor",
+            description = "Con paginacion=cursor: páginas keyset por (campo, id) sin OFFSET ni COUNT; " +
+                    "ordenable por fechaCreado, descripcion o id")
+    public ResponseEntity<TortaCursorResponse> listarPorCursor(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máx. 50)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Campo de ordenamiento") @RequestParam(defaultValue = "fechaCreado") String sort,
+            @Parameter(description = "Dirección de ordenamiento") @RequestParam(defaultValue = "DESC") String direction,
+            @Parameter(description = "Incluir el total (ejecuta un COUNT)") @RequestParam(defaultValue = "false") boolean contar) {
+
+        log.info("Listando tortas por cursor - orden: {} {}, tamaño: {}", sort, direction, size);
+
+        var consulta = ORDEN_CURSOR.consulta(sort, direction, cursor);
+        int limite = Math.min(Math.max(size, 1), 50);
+        var pagina = tortaService.listarPorCursor(consulta, limite);
+
+        var content = pagina.contenido().stream()
+                .map(domainMapper::toDto)
+                .map(restMapper::toSummaryResponse)
+                .collect(Collectors.toList());
+        Long total = contar ? tortaService.contarTotal() : null;
+
+        return ResponseEntity.ok(new TortaCursorResponse(
+                content, ORDEN_CURSOR.siguiente(consulta, pagina), pagina.hayMas(), total));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Actualizar torta", description = "Actualiza los datos de una torta existente")
     @ApiResponses(value = {
@@ -154,6 +193,60 @@ public class TortaRestController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/buscar/relevancia")
+    @Operation(summary = "Buscar tortas por relevancia",
+            description = "Búsqueda de texto completo en español, sin distinguir acentos, ordenada por relevancia " +
+                    "y paginada por cursor; el último término se trata como prefijo")
+    public ResponseEntity<TortaSearchResponse> buscarPorRelevancia(
+            @Parameter(description = "Texto a buscar") @RequestParam String q,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máx. 50)") @RequestParam(defaultValue = "20") int size) {
+        log.info("Buscando tortas por relevancia: {}", q);
+
+        Float despuesDeRelevancia = null;
+        Integer despuesDeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = CursorCodec.decodificar(cursor, 2);
+            try {
+                despuesDeRelevancia = Float.parseFloat(partes[0]);
+                despuesDeId = Integer.parseInt(partes[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        int limite = Math.min(Math.max(size, 1), 50);
+        var pagina = tortaService.buscarPorRelevancia(q, despuesDeRelevancia, despuesDeId, limite);
+
+        String nextCursor = null;
+        if (pagina.hayMas()) {
+            var ultimo = pagina.contenido().get(pagina.contenido().size() - 1);
+            nextCursor = CursorCodec.codificar(ultimo.relevancia(), ultimo.id());
+        }
+
+        var content = pagina.contenido().stream()
+                .map(restMapper::toSummaryResponse)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(new TortaSearchResponse(content, nextCursor, pagina.hayMas()));
+    }
+
+    @GetMapping("/autocompletar")
+    @Operation(summary = "Autocompletar búsqueda",
+            description = "Sugiere ocasiones activas que empiezan por el texto y completa la última palabra " +
+                    "con las más frecuentes del catálogo; vacío si el índice en memoria no está disponible")
+    public ResponseEntity<List<SugerenciaResponse>> autocompletar(
+            @Parameter(description = "Texto escrito hasta el momento") @RequestParam String q,
+            @Parameter(description = "Máximo de sugerencias") @RequestParam(defaultValue = "10") int limite) {
+        int maximo = Math.min(Math.max(limite, 1), busquedaProperties.getMaxSugerencias());
+
+        var response = tortaService.autocompletar(q, maximo).stream()
+                .map(s -> new SugerenciaResponse(s.texto(), s.tipo().name()))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/{id}/ocasiones")
     @Operation(summary = "Agregar ocasión a torta", description = "Asocia una ocasión a una torta")
     @ResponseStatus(HttpStatus.NO_CONTENT)
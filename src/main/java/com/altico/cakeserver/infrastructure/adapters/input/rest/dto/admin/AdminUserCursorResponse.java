@@ -0,0 +1,16 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+// Listado de usuarios paginado por cursor
+@Schema(description = "Página de usuarios (keyset por campo de orden e id)")
+public record AdminUserCursorResponse(
+        List<AdminUserResponse> content,
+        @Schema(description = "Cursor para la siguiente página; null si no hay más")
+        String nextCursor,
+        boolean hasMore,
+        @Schema(description = "Total de usuarios con los filtros; sólo si se pidió contar")
+        Long totalElements
+) {}
@@ -0,0 +1,14 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+// Búsqueda de auditoría paginada por cursor
+@Schema(description = "Página de registros de auditoría (keyset por fecha e id)")
+public record AuditSearchResponse(
+        List<UserAuditResponse> content,
+        @Schema(description = "Cursor para la siguiente página; null si no hay más")
+        String nextCursor,
+        boolean hasMore
+) {}
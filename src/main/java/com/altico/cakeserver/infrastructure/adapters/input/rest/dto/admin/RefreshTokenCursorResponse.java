@@ -0,0 +1,16 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.dto.admin;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+// Listado de sesiones paginado por cursor
+@Schema(description = "Página de sesiones (keyset por campo de orden e id)")
+public record RefreshTokenCursorResponse(
+        List<RefreshTokenResponse> content,
+        @Schema(description = "Cursor para la siguiente página; null si no hay más")
+        String nextCursor,
+        boolean hasMore,
+        @Schema(description = "Total de sesiones con los filtros; sólo si se pidió contar")
+        Long totalElements
+) {}
@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 @Schema(description = "Registro de auditoría de usuario")
 public record UserAuditResponse(
         Long id,
+        Long usuarioId,
         String accion,
         String descripcion,
         String ipAddress,
@@ -0,0 +1,11 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.dto.ocasion;
+
+import java.util.List;
+
+// Listado de ocasiones paginado por cursor; totalElements sólo si se pidió contar
+public record OcasionCursorResponse(
+        List<OcasionResponse> content,
+        String nextCursor,
+        boolean hasMore,
+        Long totalElements
+) {}
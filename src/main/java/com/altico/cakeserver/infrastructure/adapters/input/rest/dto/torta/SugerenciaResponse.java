@@ -0,0 +1,7 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.dto.torta;
+
+// Sugerencia de autocompletado: nombre de ocasión o texto completado con palabras del catálogo
+public record SugerenciaResponse(
+        String texto,
+        String tipo
+) {}
@@ -0,0 +1,11 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.dto.torta;
+
+import java.util.List;
+
+// Listado de tortas paginado por cursor; totalElements sólo si se pidió contar
+public record TortaCursorResponse(
+        List<TortaSummaryResponse> content,
+        String nextCursor,
+        boolean hasMore,
+        Long totalElements
+) {}
@@ -0,0 +1,10 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.dto.torta;
+
+import java.util.List;
+
+// Búsqueda de tortas por relevancia paginada por cursor
+public record TortaSearchResponse(
+        List<TortaSummaryResponse> content,
+        String nextCursor,
+        boolean hasMore
+) {}
@@ -7,6 +7,7 @@ import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.error.Valida
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -55,6 +56,7 @@ public class GlobalExceptionHandler {
     // Excepciones de dominio - 409 Conflict
     @ExceptionHandler({
             DuplicateOcasionException.class,
+            DuplicateTortaException.class,
             BusinessRuleViolationException.class,
             DuplicateUserException.class,
             DuplicateRoleException.class,
@@ -66,7 +68,7 @@ public class GlobalExceptionHandler {
             RuntimeException ex, HttpServletRequest request) {
         log.error("Conflicto de negocio: {}", ex.getMessage());
 
-        ApiError errorType = ex instanceof DuplicateOcasionException
+        ApiError errorType = ex instanceof DuplicateOcasionException || ex instanceof DuplicateTortaException
                 ? ApiError.DUPLICATE_RESOURCE
                 : ApiError.BUSINESS_RULE_VIOLATION;
 
@@ -394,7 +396,6 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler({
             TooManyTokensException.class,
-            RateLimitExceededException.class,
             QuotaExceededException.class
     })
     public ResponseEntity<ErrorResponse> handleLimitExceededException(
@@ -411,6 +412,42 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
     }
 
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimitExceededException(
+            RateLimitExceededException ex, HttpServletRequest request) {
+        log.warn("Límite de peticiones excedido: {} - {}", request.getRequestURI(), ex.getMessage());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Límite excedido",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+
+        var response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+        if (ex.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        }
+        return response.body(errorResponse);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloadedException(
+            ServiceOverloadedException ex, HttpServletRequest request) {
+        log.warn("Servicio saturado: {}", ex.getMessage());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Servicio saturado",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     // ============== EXCEPCIONES DE SEGURIDAD ==============
 
     @ExceptionHandler({
@@ -0,0 +1,89 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.interceptor;
+
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import com.altico.cakeserver.infrastructure.security.service.TokenBucketRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Aplica las políticas de limitación por ruta (login, registro, refresh) por IP
+ * y el presupuesto general de la API por usuario autenticado o, en su defecto, por IP.
+ * Se ejecuta antes del controlador, por lo que un cliente abusivo no llega
+ * a consumir conexiones de BD ni hashing de contraseñas.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    // IP del cliente ya resuelta según trust-forwarded-headers
+    public static final String ATRIBUTO_IP_CLIENTE = RateLimitInterceptor.class.getName() + ".ip";
+
+    private static final String AUTH_PATH = "/api/v1/auth";
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AdminProperties adminProperties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) throws Exception {
+        if (!rateLimiter.isEnabled()) {
+            return true;
+        }
+
+        AdminProperties.RateLimit config = adminProperties.getRateLimit();
+        String ip = getClientIpAddress(request, config.isTrustForwardedHeaders());
+        // Los límites por usuario de los controladores usan la misma IP resuelta
+        request.setAttribute(ATRIBUTO_IP_CLIENTE, ip);
+
+        if ("POST".equals(request.getMethod())) {
+            String uri = request.getRequestURI();
+            if (uri.equals(AUTH_PATH + "/login")) {
+                rateLimiter.verificar("login", config.getLogin(), ip);
+            } else if (uri.equals(AUTH_PATH + "/register")) {
+                rateLimiter.verificar("register", config.getRegister(), ip);
+            } else if (uri.equals(AUTH_PATH + "/refresh")) {
+                rateLimiter.verificar("refresh", config.getRefresh(), ip);
+            }
+        }
+
+        rateLimiter.verificar("global", config.getGlobal(), clienteGlobal(ip));
+        return true;
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private String clienteGlobal(String ip) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + ip;
+    }
+
+    /**
+     * Dirección IP del cliente; las cabeceras de proxy sólo se usan si están
+     * habilitadas, ya que el cliente puede falsificarlas para evadir el límite
+     */
+    private String getClientIpAddress(HttpServletRequest request, boolean trustForwardedHeaders) {
+        if (trustForwardedHeaders) {
+            String xForwardedFor = request.getHeader("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                return xForwardedFor.split(",")[0].trim();
+            }
+
+            String xRealIp = request.getHeader("X-Real-IP");
+            if (xRealIp != null && !xRealIp.isEmpty()) {
+                return xRealIp;
+            }
+        }
+
+        return request.getRemoteAddr();
+    }
+}
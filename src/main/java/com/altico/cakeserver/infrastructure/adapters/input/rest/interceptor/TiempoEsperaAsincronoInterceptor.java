@@ -0,0 +1,40 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Tiempo de espera asíncrono por petición.
+ *
+ * spring.mvc.async.request-timeout afecta a todas las respuestas asíncronas; los
+ * handlers que necesitan más margen (p. ej. las exportaciones en streaming) lo
+ * solicitan con {@link #solicitar} y este interceptor lo aplica justo antes de
+ * iniciar el procesamiento asíncrono, cuando todavía se puede cambiar.
+ */
+@Component
+@Slf4j
+public class TiempoEsperaAsincronoInterceptor implements CallableProcessingInterceptor {
+
+    private static final String ATRIBUTO_TIEMPO_ESPERA =
+            TiempoEsperaAsincronoInterceptor.class.getName() + ".timeoutMs";
+
+    public static void solicitar(HttpServletRequest request, long timeoutMs) {
+        request.setAttribute(ATRIBUTO_TIEMPO_ESPERA, timeoutMs);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        Object timeoutMs = request.getAttribute(ATRIBUTO_TIEMPO_ESPERA, RequestAttributes.SCOPE_REQUEST);
+        if (timeoutMs instanceof Long valor && request instanceof AsyncWebRequest asyncRequest) {
+            asyncRequest.setTimeout(valor);
+            log.debug("Tiempo de espera asíncrono de {}ms para {}", valor, request.getDescription(false));
+        }
+    }
+}
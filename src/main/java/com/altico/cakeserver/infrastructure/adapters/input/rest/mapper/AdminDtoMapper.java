@@ -95,6 +95,7 @@ public class AdminDtoMapper {
     public UserAuditResponse toAuditResponse(UsuarioAuditoria auditoria) {
         return new UserAuditResponse(
                 auditoria.id(),
+                auditoria.usuarioId(),
                 auditoria.accion(),
                 auditoria.descripcion(),
                 auditoria.ipAddress(),
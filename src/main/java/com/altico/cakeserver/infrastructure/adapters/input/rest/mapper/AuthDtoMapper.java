@@ -54,6 +54,21 @@ public class AuthDtoMapper {
         );
     }
 
+    // Para listados y volcados de administración: el ID completo permitiría renovar la sesión
+    public RefreshTokenResponse toTokenResponseEnmascarado(RefreshToken token) {
+        return new RefreshTokenResponse(
+                token.idEnmascarado(),
+                token.username(),
+                token.deviceInfo(),
+                token.ipAddress(),
+                token.userAgent(),
+                token.activo(),
+                token.fechaCreacion(),
+                token.fechaExpiracion(),
+                token.ultimoUso()
+        );
+    }
+
     public RefreshTokenListResponse toTokenListResponse(org.springframework.data.domain.Page<RefreshToken> tokensPage) {
         return new RefreshTokenListResponse(
                 tokensPage.getContent().stream()
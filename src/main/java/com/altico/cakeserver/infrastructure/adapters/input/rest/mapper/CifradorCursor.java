@@ -0,0 +1,97 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.mapper;
+
+import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Cifra (AES-GCM) los cursores cuya posición contiene un valor que no debe salir
+ * en claro, como el ID de un refresh token en el listado de sesiones: el cursor
+ * viaja en la URL y acaba en logs de proxies y navegadores.
+ *
+ * La clave se deriva del secreto JWT, compartido por todos los nodos; al rotarlo,
+ * los cursores emitidos antes se rechazan con 400 igual que uno alterado.
+ */
+@Component
+public class CifradorCursor {
+
+    private static final String ALGORITMO = "AES/GCM/NoPadding";
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    // Separa esta clave de la de firma de los JWT aunque ambas salgan del mismo secreto
+    private static final byte[] CONTEXTO = "cakeserver-cursor-v1".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKeySpec clave;
+    private final SecureRandom random = new SecureRandom();
+
+    public CifradorCursor(JwtProperties jwtProperties) {
+        this.clave = derivarClave(jwtProperties.getSecret());
+    }
+
+    /**
+     * @return el cursor cifrado, o null si no hay cursor
+     */
+    public String cifrar(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            byte[] nonce = new byte[NONCE_BYTES];
+            random.nextBytes(nonce);
+            Cipher cipher = Cipher.getInstance(ALGORITMO);
+            cipher.init(Cipher.ENCRYPT_MODE, clave, new GCMParameterSpec(TAG_BITS, nonce));
+            byte[] cifrado = cipher.doFinal(cursor.getBytes(StandardCharsets.UTF_8));
+
+            byte[] salida = ByteBuffer.allocate(NONCE_BYTES + cifrado.length).put(nonce).put(cifrado).array();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(salida);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo cifrar el cursor", e);
+        }
+    }
+
+    /**
+     * @return el cursor en claro, o null si no hay cursor
+     * @throws IllegalArgumentException si el cursor está alterado o se cifró con otra clave
+     */
+    public String descifrar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] entrada = Base64.getUrlDecoder().decode(cursor);
+            if (entrada.length <= NONCE_BYTES) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            Cipher cipher = Cipher.getInstance(ALGORITMO);
+            cipher.init(Cipher.DECRYPT_MODE, clave, new GCMParameterSpec(TAG_BITS, entrada, 0, NONCE_BYTES));
+            byte[] plano = cipher.doFinal(entrada, NONCE_BYTES, entrada.length - NONCE_BYTES);
+            return new String(plano, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private static SecretKeySpec derivarClave(String secreto) {
+        if (secreto == null || secreto.isBlank()) {
+            throw new IllegalStateException("app.jwt.secret es obligatorio para cifrar los cursores");
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return new SecretKeySpec(mac.doFinal(CONTEXTO), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo derivar la clave de los cursores", e);
+        }
+    }
+}
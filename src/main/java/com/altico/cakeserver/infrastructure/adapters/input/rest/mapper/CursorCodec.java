@@ -0,0 +1,44 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.mapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Codifica la posición de una página keyset como un cursor opaco (Base64 URL-safe).
+ * El cliente sólo debe devolverlo tal cual; un cursor alterado se rechaza con 400.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARADOR = "|";
+
+    private CursorCodec() {
+    }
+
+    public static String codificar(Object... partes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < partes.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARADOR);
+            }
+            sb.append(partes[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException si el cursor no es válido o no tiene el número de partes esperado
+     */
+    public static String[] decodificar(String cursor, int partes) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] resultado = valor.split("\\|", partes);
+            if (resultado.length != partes) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return resultado;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
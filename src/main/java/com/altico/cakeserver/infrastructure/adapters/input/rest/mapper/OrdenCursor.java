@@ -0,0 +1,93 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.mapper;
+
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import com.altico.cakeserver.domain.model.PaginaCursor;
+
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Campos por los que se permite paginar con cursor en un listado y cómo se leen
+ * y escriben en el cursor opaco.
+ *
+ * Sólo se registran campos no nulos con índice compuesto (campo, id): cualquier
+ * otro orden obligaría a recorrer y ordenar la tabla en cada página. El cursor
+ * lleva también el campo y la dirección, así que no puede reutilizarse con otro orden.
+ *
+ * El cursor sólo está codificado, no cifrado: si el id es un secreto (refresh
+ * tokens), el controlador lo pasa además por {@link CifradorCursor}.
+ *
+ * @param <T> elemento del listado
+ */
+public final class OrdenCursor<T> {
+
+    private final Function<String, ?> leerId;
+    private final Function<T, ?> id;
+    private final Map<String, Campo<T>> campos = new LinkedHashMap<>();
+
+    private record Campo<T>(Function<String, ?> leer, Function<T, ?> valor) {}
+
+    private OrdenCursor(Function<String, ?> leerId, Function<T, ?> id) {
+        this.leerId = leerId;
+        this.id = id;
+    }
+
+    public static <T> OrdenCursor<T> porId(Function<String, ?> leerId, Function<T, ?> id) {
+        OrdenCursor<T> orden = new OrdenCursor<>(leerId, id);
+        orden.campos.put("id", new Campo<>(leerId, id));
+        return orden;
+    }
+
+    public OrdenCursor<T> campo(String nombre, Function<String, ?> leer, Function<T, ?> valor) {
+        campos.put(nombre, new Campo<>(leer, valor));
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException si el campo no está permitido o el cursor no
+     * es válido o pertenece a otro orden
+     */
+    public ConsultaCursor consulta(String sort, String direction, String cursor) {
+        Campo<T> campo = campos.get(sort);
+        if (campo == null) {
+            throw new IllegalArgumentException("Campo de ordenamiento no soportado con cursor: " + sort
+                    + " (permitidos: " + String.join(", ", campos.keySet()) + ")");
+        }
+        boolean descendente = "DESC".equals(direction.toUpperCase(Locale.ROOT));
+        if (!descendente && !"ASC".equals(direction.toUpperCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Dirección de ordenamiento inválida: " + direction);
+        }
+
+        if (cursor == null || cursor.isBlank()) {
+            return new ConsultaCursor(sort, descendente, null, null);
+        }
+
+        // El valor va al final: es la única parte que puede contener el separador
+        String[] partes = CursorCodec.decodificar(cursor, 4);
+        if (!partes[0].equals(sort) || !partes[1].equals(descendente ? "DESC" : "ASC")) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden solicitado");
+        }
+        try {
+            return new ConsultaCursor(sort, descendente, campo.leer().apply(partes[3]), leerId.apply(partes[2]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Cursor de la página siguiente a partir del último elemento, o null si no hay más
+     */
+    public String siguiente(ConsultaCursor consulta, PaginaCursor<T> pagina) {
+        if (!pagina.hayMas()) {
+            return null;
+        }
+        List<T> contenido = pagina.contenido();
+        T ultimo = contenido.get(contenido.size() - 1);
+        return CursorCodec.codificar(consulta.campo(), consulta.descendente() ? "DESC" : "ASC",
+                id.apply(ultimo), campos.get(consulta.campo()).valor().apply(ultimo));
+    }
+}
@@ -1,6 +1,7 @@
 package com.altico.cakeserver.infrastructure.adapters.input.rest.mapper;
 
 import com.altico.cakeserver.applications.ports.input.dto.*;
+import com.altico.cakeserver.domain.model.TortaBusqueda;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.imagen.CreateImagenRequest;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.imagen.ImagenListResponse;
 import com.altico.cakeserver.infrastructure.adapters.input.rest.dto.imagen.ImagenResponse;
@@ -70,6 +71,20 @@ public class RestDtoMapper {
         );
     }
 
+    public TortaSummaryResponse toSummaryResponse(TortaBusqueda resultado) {
+        String baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+
+        return new TortaSummaryResponse(
+                resultado.id(),
+                resultado.descripcion(),
+                resultado.imagen(),
+                resultado.fechaCreado(),
+                resultado.cantidadOcasiones(),
+                resultado.cantidadImagenes(),
+                baseUrl + "/api/v1/tortas/" + resultado.id()
+        );
+    }
+
     public TortaListResponse toListTortaResponse(Page<TortaDto> page) {
         return new TortaListResponse(
                 page.getContent().stream()
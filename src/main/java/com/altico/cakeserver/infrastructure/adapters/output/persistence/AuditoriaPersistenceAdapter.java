@@ -1,6 +1,7 @@
 package com.altico.cakeserver.infrastructure.adapters.output.persistence;
 
 import com.altico.cakeserver.applications.ports.output.AuditoriaPersistencePort;
+import com.altico.cakeserver.domain.model.FiltroAuditoria;
 import com.altico.cakeserver.domain.model.UsuarioAuditoria;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.AuditoriaEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.AdminPersistenceMapper;
@@ -9,12 +10,21 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
@@ -25,9 +35,36 @@ public class AuditoriaPersistenceAdapter implements AuditoriaPersistencePort {
 
     private final AuditoriaRepository auditoriaRepository;
     private final AdminPersistenceMapper mapper;
+    private final AuditoriaWriteBehind auditoriaWriteBehind;
+    private final RollupAuditoria rollupAuditoria;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final LimitesExportacion limitesExportacion;
+
+    private static final int FETCH_SIZE_EXPORTACION = 1000;
+
+    private static final String SELECT_AUDITORIA =
+            "SELECT id, usuario_id, accion, descripcion, ip_address, user_agent, fecha, resultado " +
+            "FROM auditoria_usuarios WHERE 1 = 1";
+
+    private static final RowMapper<UsuarioAuditoria> AUDITORIA_ROW_MAPPER = (rs, rowNum) -> new UsuarioAuditoria(
+            rs.getLong("id"),
+            rs.getObject("usuario_id", Long.class),
+            rs.getString("accion"),
+            rs.getString("descripcion"),
+            rs.getString("ip_address"),
+            rs.getString("user_agent"),
+            rs.getObject("fecha", LocalDateTime.class),
+            rs.getString("resultado")
+    );
 
     @Override
     public UsuarioAuditoria save(UsuarioAuditoria auditoria) {
+        // Se encola y se escribe por lotes tras el commit; el id lo asigna la base de datos al volcar
+        if (auditoria.id() == null && auditoriaWriteBehind.isEnabled()) {
+            auditoriaWriteBehind.registrar(auditoria);
+            return auditoria;
+        }
+
         try {
             AuditoriaEntity entity = mapper.toEntity(auditoria);
             AuditoriaEntity saved = auditoriaRepository.save(entity);
@@ -103,6 +140,45 @@ public class AuditoriaPersistenceAdapter implements AuditoriaPersistencePort {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<UsuarioAuditoria> search(FiltroAuditoria filtro, LocalDateTime despuesDeFecha,
+                                         Long despuesDeId, int limite) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SELECT_AUDITORIA).append(condiciones(filtro, params));
+
+        if (despuesDeFecha != null && despuesDeId != null) {
+            sql.append(" AND (fecha, id) < (:cursorFecha, :cursorId)");
+            params.addValue("cursorFecha", despuesDeFecha);
+            params.addValue("cursorId", despuesDeId);
+        }
+
+        sql.append(" ORDER BY fecha DESC, id DESC LIMIT :limite");
+        params.addValue("limite", limite);
+
+        return namedParameterJdbcTemplate.query(sql.toString(), params, AUDITORIA_ROW_MAPPER);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(FiltroAuditoria filtro, Consumer<UsuarioAuditoria> consumidor) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = SELECT_AUDITORIA + condiciones(filtro, params) + " ORDER BY fecha, id";
+
+        // Cursor de sólo avance leído por bloques: la memoria no crece con el tamaño de la exportación
+        limitesExportacion.aplicar();
+        String sqlPosicional = NamedParameterUtils.substituteNamedParameters(sql, params);
+        Object[] valores = NamedParameterUtils.buildValueArray(sql, params.getValues());
+        int[] fila = {0};
+        namedParameterJdbcTemplate.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sqlPosicional,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE_EXPORTACION);
+            new ArgumentPreparedStatementSetter(valores).setValues(ps);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.accept(AUDITORIA_ROW_MAPPER.mapRow(rs, fila[0]++)));
+    }
+
     @Override
     public void deleteOlderThan(LocalDateTime fecha) {
         auditoriaRepository.deleteByFechaBefore(fecha);
@@ -117,6 +193,42 @@ public class AuditoriaPersistenceAdapter implements AuditoriaPersistencePort {
     @Override
     @Transactional(readOnly = true)
     public List<Object[]> getAuditoriaEstadisticas(LocalDateTime desde, LocalDateTime hasta) {
+        // Las horas completas salen del resumen horario; sólo los bordes recorren la tabla cruda
+        if (rollupAuditoria.isEnabled()) {
+            return rollupAuditoria.estadisticas(desde, hasta);
+        }
         return auditoriaRepository.getEstadisticas(desde, hasta);
     }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private static String condiciones(FiltroAuditoria filtro, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder();
+        if (filtro.usuarioId() != null) {
+            sql.append(" AND usuario_id = :usuarioId");
+            params.addValue("usuarioId", filtro.usuarioId());
+        }
+        if (filtro.accion() != null) {
+            sql.append(" AND accion = :accion");
+            params.addValue("accion", filtro.accion());
+        }
+        if (filtro.resultado() != null) {
+            sql.append(" AND resultado = :resultado");
+            params.addValue("resultado", filtro.resultado());
+        }
+        if (filtro.ipAddress() != null) {
+            sql.append(" AND ip_address = :ip");
+            params.addValue("ip", filtro.ipAddress());
+        }
+        // El rango de fechas también descarta particiones completas
+        if (filtro.desde() != null) {
+            sql.append(" AND fecha >= :desde");
+            params.addValue("desde", filtro.desde());
+        }
+        if (filtro.hasta() != null) {
+            sql.append(" AND fecha < :hasta");
+            params.addValue("hasta", filtro.hasta());
+        }
+        return sql.toString();
+    }
 }
@@ -0,0 +1,338 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.domain.model.UsuarioAuditoria;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura asíncrona por lotes de {@code auditoria_usuarios}.
+ *
+ * Los registros se encolan al confirmar la transacción que los genera (si ésta
+ * se revierte, la auditoría tampoco se escribe) en una cola acotada sin bloqueos,
+ * y se vuelcan periódicamente con un único INSERT por lote usando arrays de
+ * Postgres. Con la cola llena se aplica la política configurada: volcar en el
+ * hilo que audita (contrapresión, con un número acotado de intentos) o descartar
+ * el registro. Al detener la aplicación se vuelca lo pendiente.
+ *
+ * Si un lote viola una restricción se divide hasta aislar los registros culpables:
+ * uno cuyo usuario ya no existe se escribe con {@code usuario_id} NULL y el resto se
+ * descarta al log. Cualquier otro error (BD caída) devuelve el lote a la cola,
+ * espacia los volcados programados y descarta un registro tras
+ * {@code max-retries} intentos. Los descartes se cuentan en
+ * {@code cakeserver.auditoria.descartados} por motivo.
+ */
+@Component
+@Slf4j
+public class AuditoriaWriteBehind {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO auditoria_usuarios (usuario_id, accion, descripcion, ip_address, user_agent, fecha, resultado)
+            SELECT * FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[],
+                                 ?::timestamp[], ?::varchar[])
+            """;
+
+    // Espera máxima entre volcados programados mientras la BD falla
+    private static final long PAUSA_MAXIMA_MS = 60_000;
+
+    private final Queue<Pendiente> pendientes = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() recorre la cola: el tamaño se lleva aparte
+    private final AtomicInteger tamano = new AtomicInteger();
+    private final ReentrantLock volcado = new ReentrantLock();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate loteTemplate;
+    private final AdminProperties.AuditPipeline config;
+    private final Timer flushTimer;
+    private final Counter descartadosColaLlena;
+    private final Counter descartadosReintentos;
+    private final Counter descartadosInvalidos;
+    private final Counter sinUsuario;
+
+    // Pausa tras un volcado fallido; 0 si el último fue bien
+    private volatile long pausaMs = 0;
+    private volatile long siguienteVolcado = 0;
+
+    private record Pendiente(UsuarioAuditoria auditoria, int intentos) {}
+
+    public AuditoriaWriteBehind(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                AdminProperties adminProperties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Cada lote en su propia transacción: el volcado por contrapresión ocurre en afterCommit
+        // de la transacción que audita, cuyos recursos siguen ligados al hilo
+        this.loteTemplate = new TransactionTemplate(transactionManager);
+        this.loteTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.config = adminProperties.getAuditPipeline();
+        this.flushTimer = Timer.builder("cakeserver.auditoria.flush")
+                .description("Duración del volcado por lotes de auditoría")
+                .register(meterRegistry);
+        this.descartadosColaLlena = descartados(meterRegistry, "cola_llena");
+        this.descartadosReintentos = descartados(meterRegistry, "reintentos_agotados");
+        this.descartadosInvalidos = descartados(meterRegistry, "invalido");
+        this.sinUsuario = Counter.builder("cakeserver.auditoria.sin_usuario")
+                .description("Registros escritos con usuario_id NULL porque el usuario ya no existe")
+                .register(meterRegistry);
+        Gauge.builder("cakeserver.auditoria.pending", tamano, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public void registrar(UsuarioAuditoria auditoria) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    encolar(auditoria);
+                }
+            });
+        } else {
+            encolar(auditoria);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.admin.audit-pipeline.flush-interval-ms:1000}")
+    public void volcadoProgramado() {
+        if (System.currentTimeMillis() < siguienteVolcado) {
+            return;
+        }
+        volcar();
+    }
+
+    @PreDestroy
+    public void volcarAlDetener() {
+        log.info("Volcando {} registros de auditoría pendientes antes de detener", tamano.get());
+        volcado.lock();
+        try {
+            volcarPendientes();
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    /**
+     * Vuelca los registros pendientes. Si otro hilo ya está volcando no se espera:
+     * los registros nuevos saldrán en el siguiente ciclo.
+     */
+    public void volcar() {
+        if (tamano.get() == 0 || !volcado.tryLock()) {
+            return;
+        }
+
+        try {
+            flushTimer.record(this::volcarPendientes);
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    public int pendientes() {
+        return tamano.get();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void encolar(UsuarioAuditoria auditoria) {
+        int volcados = 0;
+        while (!reservarCupo()) {
+            // Con la BD fallando volcar no libera espacio: se descarta sin hacer esperar al hilo
+            if (config.getOverflowPolicy() == AdminProperties.AuditPipeline.OverflowPolicy.DROP
+                    || volcados >= Math.max(1, config.getCallerRunsMaxFlushes())
+                    || pausaMs > 0) {
+                descartadosColaLlena.increment();
+                log.warn("Cola de auditoría llena, registro descartado: {}", auditoria.accion());
+                return;
+            }
+            // Contrapresión: quien audita espera a que se libere espacio volcando él mismo
+            volcados++;
+            volcado.lock();
+            try {
+                volcarPendientes();
+            } finally {
+                volcado.unlock();
+            }
+        }
+        pendientes.offer(new Pendiente(auditoria, 0));
+    }
+
+    private boolean reservarCupo() {
+        int capacidad = Math.max(1, config.getCapacity());
+        while (true) {
+            int actual = tamano.get();
+            if (actual >= capacidad) {
+                return false;
+            }
+            if (tamano.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void volcarPendientes() {
+        int batchSize = Math.max(1, config.getBatchSize());
+        int insertados = 0;
+
+        while (true) {
+            List<Pendiente> lote = new ArrayList<>(batchSize);
+            Pendiente pendiente;
+            while (lote.size() < batchSize && (pendiente = pendientes.poll()) != null) {
+                lote.add(pendiente);
+            }
+            if (lote.isEmpty()) {
+                break;
+            }
+
+            int escritos = volcarLote(lote);
+            if (escritos < 0) {
+                return;
+            }
+            insertados += escritos;
+        }
+
+        pausaMs = 0;
+        siguienteVolcado = 0;
+        if (insertados > 0) {
+            log.debug("Volcado de auditoría completado: {} registros insertados", insertados);
+        }
+    }
+
+    /**
+     * Inserta el lote dividiéndolo ante violaciones de restricciones hasta aislar
+     * los registros que fallan solos.
+     *
+     * @return registros insertados, o -1 si un error no atribuible a los datos
+     * obligó a devolver lo pendiente a la cola
+     */
+    private int volcarLote(List<Pendiente> lote) {
+        int insertados = 0;
+        Deque<List<Pendiente>> trabajo = new ArrayDeque<>();
+        trabajo.push(lote);
+
+        while (!trabajo.isEmpty()) {
+            List<Pendiente> parte = trabajo.pop();
+            try {
+                insertados += insertar(parte.stream().map(Pendiente::auditoria).toList());
+                tamano.addAndGet(-parte.size());
+            } catch (DataIntegrityViolationException e) {
+                if (parte.size() == 1) {
+                    insertados += recuperar(parte.get(0).auditoria(), e);
+                    tamano.decrementAndGet();
+                } else {
+                    int mitad = parte.size() / 2;
+                    trabajo.push(parte.subList(mitad, parte.size()));
+                    trabajo.push(parte.subList(0, mitad));
+                }
+            } catch (Exception e) {
+                List<Pendiente> sinEscribir = new ArrayList<>(parte);
+                trabajo.forEach(sinEscribir::addAll);
+                reencolar(sinEscribir);
+                log.error("Error volcando auditoría ({} registros), se reintentará en {}ms: {}",
+                        sinEscribir.size(), pausaMs, e.getMessage());
+                return -1;
+            }
+        }
+
+        return insertados;
+    }
+
+    /**
+     * Registro que viola una restricción por sí solo: si referencia un usuario ya
+     * eliminado se escribe sin él; si no, se descarta dejando constancia en el log
+     */
+    private int recuperar(UsuarioAuditoria auditoria, DataIntegrityViolationException error) {
+        if (auditoria.usuarioId() != null) {
+            UsuarioAuditoria sinReferencia = new UsuarioAuditoria(auditoria.id(), null, auditoria.accion(),
+                    auditoria.descripcion(), auditoria.ipAddress(), auditoria.userAgent(),
+                    auditoria.fecha(), auditoria.resultado());
+            try {
+                int filas = insertar(List.of(sinReferencia));
+                sinUsuario.increment();
+                log.warn("Auditoría {} escrita sin usuario_id: el usuario {} ya no existe",
+                        auditoria.accion(), auditoria.usuarioId());
+                return filas;
+            } catch (DataIntegrityViolationException e) {
+                error = e;
+            }
+        }
+
+        descartadosInvalidos.increment();
+        log.error("Registro de auditoría descartado por violar restricciones: {} | {}", auditoria, error.getMessage());
+        return 0;
+    }
+
+    private void reencolar(List<Pendiente> lote) {
+        int maxReintentos = Math.max(0, config.getMaxRetries());
+        for (Pendiente pendiente : lote) {
+            int intentos = pendiente.intentos() + 1;
+            if (intentos > maxReintentos) {
+                tamano.decrementAndGet();
+                descartadosReintentos.increment();
+                log.error("Registro de auditoría descartado tras {} intentos: {}", intentos, pendiente.auditoria());
+            } else {
+                // Ya tiene su cupo reservado
+                pendientes.offer(new Pendiente(pendiente.auditoria(), intentos));
+            }
+        }
+
+        long intervalo = Math.max(1, config.getFlushIntervalMs());
+        pausaMs = Math.min(PAUSA_MAXIMA_MS, pausaMs == 0 ? intervalo : pausaMs * 2);
+        siguienteVolcado = System.currentTimeMillis() + pausaMs;
+    }
+
+    private int insertar(List<UsuarioAuditoria> lote) {
+        Integer filas = loteTemplate.execute(status -> insertarLote(lote));
+        return filas != null ? filas : 0;
+    }
+
+    private int insertarLote(List<UsuarioAuditoria> lote) {
+        Integer filas = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            try (var ps = con.prepareStatement(INSERT_SQL)) {
+                ps.setArray(1, con.createArrayOf("bigint", lote.stream().map(UsuarioAuditoria::usuarioId).toArray()));
+                ps.setArray(2, con.createArrayOf("varchar", lote.stream().map(UsuarioAuditoria::accion).toArray()));
+                ps.setArray(3, con.createArrayOf("varchar", lote.stream().map(UsuarioAuditoria::descripcion).toArray()));
+                ps.setArray(4, con.createArrayOf("varchar", lote.stream().map(UsuarioAuditoria::ipAddress).toArray()));
+                ps.setArray(5, con.createArrayOf("varchar", lote.stream().map(UsuarioAuditoria::userAgent).toArray()));
+                ps.setArray(6, con.createArrayOf("timestamp", lote.stream()
+                        .map(a -> a.fecha() != null ? Timestamp.valueOf(a.fecha()) : new Timestamp(System.currentTimeMillis()))
+                        .toArray()));
+                ps.setArray(7, con.createArrayOf("varchar", lote.stream().map(UsuarioAuditoria::resultado).toArray()));
+                return ps.executeUpdate();
+            }
+        });
+        return filas != null ? filas : 0;
+    }
+
+    private static Counter descartados(MeterRegistry meterRegistry, String motivo) {
+        return Counter.builder("cakeserver.auditoria.descartados")
+                .description("Registros de auditoría descartados")
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,167 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.applications.ports.output.BloqueoLoginPort;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.BloqueoLoginEntity;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.BloqueoLoginRepository;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptador para el control de intentos fallidos de login.
+ *
+ * Los fallos se cuentan en memoria con una ventana deslizante acotada por
+ * usuario; al alcanzar {@code app.admin.max-login-attempts} el bloqueo se
+ * persiste en {@code bloqueos_login} para que sobreviva a reinicios y sea
+ * visible desde otros nodos. Los bloqueos conocidos se consultan en memoria,
+ * de modo que un ataque contra una cuenta bloqueada no llega a la base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BloqueoLoginAdapter implements BloqueoLoginPort {
+
+    private final BloqueoLoginRepository bloqueoLoginRepository;
+    private final AdminProperties adminProperties;
+
+    // Marcas de tiempo (ms) de los fallos recientes por usuario
+    private final Map<String, Deque<Long>> fallos = new ConcurrentHashMap<>();
+    // Bloqueos vigentes conocidos por este nodo: username -> bloqueado hasta (ms)
+    private final Map<String, Long> bloqueos = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean estaBloqueado(String username) {
+        long ahora = System.currentTimeMillis();
+
+        Long hasta = bloqueos.get(username);
+        if (hasta != null) {
+            if (hasta > ahora) {
+                return true;
+            }
+            bloqueos.remove(username, hasta);
+        }
+
+        // Bloqueo emitido por otro nodo o antes de un reinicio
+        Optional<BloqueoLoginEntity> bloqueo = bloqueoLoginRepository.findById(username)
+                .filter(b -> b.getBloqueadoHasta().isAfter(LocalDateTime.now()));
+        bloqueo.ifPresent(b -> recordarBloqueo(username, b.getBloqueadoHasta()));
+        return bloqueo.isPresent();
+    }
+
+    @Override
+    @Transactional
+    public Optional<LocalDateTime> registrarFallo(String username, String ip) {
+        long ahora = System.currentTimeMillis();
+        long inicioVentana = ahora - adminProperties.getLoginFailureWindowMinutes() * 60_000L;
+        int maxIntentos = Math.max(1, adminProperties.getMaxLoginAttempts());
+
+        if (!fallos.containsKey(username) && fallos.size() >= adminProperties.getLoginAttemptsMaxTracked()) {
+            liberarEspacio(inicioVentana);
+        }
+
+        int[] intentos = new int[1];
+        fallos.compute(username, (k, ventana) -> {
+            Deque<Long> actual = ventana != null ? ventana : new ArrayDeque<>();
+            while (!actual.isEmpty() && actual.peekFirst() < inicioVentana) {
+                actual.pollFirst();
+            }
+            actual.addLast(ahora);
+            intentos[0] = actual.size();
+            // La ventana nunca necesita más marcas que el máximo de intentos
+            return intentos[0] >= maxIntentos ? null : actual;
+        });
+
+        if (intentos[0] < maxIntentos) {
+            return Optional.empty();
+        }
+
+        LocalDateTime bloqueadoHasta = LocalDateTime.now().plusMinutes(adminProperties.getLockoutDurationMinutes());
+        bloqueoLoginRepository.save(new BloqueoLoginEntity(username, bloqueadoHasta, intentos[0], ip));
+        recordarBloqueo(username, bloqueadoHasta);
+
+        log.warn("Usuario {} bloqueado hasta {} tras {} intentos fallidos (última IP: {})",
+                username, bloqueadoHasta, intentos[0], ip);
+        return Optional.of(bloqueadoHasta);
+    }
+
+    @Override
+    public void registrarExito(String username) {
+        fallos.remove(username);
+    }
+
+    @Override
+    @Transactional
+    public void desbloquear(String username) {
+        fallos.remove(username);
+        bloqueos.remove(username);
+        if (bloqueoLoginRepository.existsById(username)) {
+            bloqueoLoginRepository.deleteById(username);
+        }
+        log.info("Usuario desbloqueado: {}", username);
+    }
+
+    /**
+     * Carga en memoria los bloqueos vigentes al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void inicializar() {
+        var vigentes = bloqueoLoginRepository.findByBloqueadoHastaAfter(LocalDateTime.now());
+        vigentes.forEach(b -> recordarBloqueo(b.getUsername(), b.getBloqueadoHasta()));
+        log.info("Bloqueos de login vigentes cargados: {}", vigentes.size());
+    }
+
+    @Scheduled(cron = "${app.admin.lockout-cleanup-cron:0 15 * * * *}")
+    @Transactional
+    public void limpiarBloqueosExpirados() {
+        long ahora = System.currentTimeMillis();
+        bloqueos.values().removeIf(hasta -> hasta <= ahora);
+
+        int eliminados = bloqueoLoginRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (eliminados > 0) {
+            log.info("Bloqueos de login expirados eliminados: {}", eliminados);
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void recordarBloqueo(String username, LocalDateTime bloqueadoHasta) {
+        long hasta = bloqueadoHasta.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        bloqueos.merge(username, hasta, Math::max);
+    }
+
+    /**
+     * Elimina primero las ventanas sin fallos recientes y, si sigue lleno,
+     * descarta ventanas arbitrarias hasta dejar un 10% de margen.
+     */
+    private void liberarEspacio(long inicioVentana) {
+        for (String username : fallos.keySet()) {
+            fallos.computeIfPresent(username, (k, ventana) -> {
+                Long ultimo = ventana.peekLast();
+                return ultimo == null || ultimo < inicioVentana ? null : ventana;
+            });
+        }
+
+        int max = adminProperties.getLoginAttemptsMaxTracked();
+        int objetivo = max - Math.max(1, max / 10);
+        Iterator<String> it = fallos.keySet().iterator();
+        while (fallos.size() > objetivo && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.SchedulingProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ejecución de tareas programadas una sola vez por turno en todo el clúster.
+ *
+ * Un bloqueo asesor de PostgreSQL ({@code pg_try_advisory_lock}) evita que dos nodos
+ * la ejecuten a la vez. El bloqueo es de sesión y se toma sobre una conexión
+ * reservada durante toda la tarea: si el nodo cae, la conexión se cierra y el
+ * bloqueo se libera solo. Si otro nodo (o este mismo) ya está ejecutando la tarea,
+ * la ejecución se omite en lugar de esperar.
+ *
+ * El bloqueo no basta para una tarea rápida: termina y lo suelta antes de que lleguen
+ * los disparos de los demás nodos, que la ejecutarían otra vez. Por eso, con el
+ * bloqueo tomado, se reclama el turno en {@code tareas_programadas}: si la última
+ * ejecución (hora de la base de datos) es más reciente que la ventana mínima de la
+ * tarea, ya se ejecutó en este turno y se omite. Si la tarea falla, el turno se
+ * devuelve para que el siguiente disparo la reintente.
+ *
+ * Con una base de datos distinta de PostgreSQL sólo se aplica la exclusión local.
+ */
+@Component
+@Slf4j
+public class BloqueoTareasDistribuido {
+
+    // Espacio de claves de la aplicación para pg_try_advisory_lock(int, int)
+    private static final int ESPACIO_CLAVES = 0x43414B45;
+
+    // Sólo actualiza si la última ejecución queda fuera de la ventana; 0 filas = turno ya ejecutado
+    private static final String RECLAMAR_TURNO_SQL = """
+            INSERT INTO tareas_programadas (nombre, ultima_ejecucion)
+            VALUES (?, LOCALTIMESTAMP)
+            ON CONFLICT (nombre) DO UPDATE SET ultima_ejecucion = EXCLUDED.ultima_ejecucion
+            WHERE tareas_programadas.ultima_ejecucion <= EXCLUDED.ultima_ejecucion - ? * INTERVAL '1 millisecond'
+            """;
+
+    private static final String DEVOLVER_TURNO_SQL = """
+            UPDATE tareas_programadas
+            SET ultima_ejecucion = ultima_ejecucion - ? * INTERVAL '1 millisecond'
+            WHERE nombre = ?
+            """;
+
+    private final DataSource dataSource;
+    private final SchedulingProperties config;
+    private final MeterRegistry meterRegistry;
+    private final Set<TareaProgramada> enEjecucion = ConcurrentHashMap.newKeySet();
+    private volatile Boolean postgres;
+
+    public BloqueoTareasDistribuido(DataSource dataSource,
+                                    SchedulingProperties schedulingProperties,
+                                    MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.config = schedulingProperties;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("cakeserver.tareas.bloqueos.activos", enEjecucion, Set::size)
+                .description("Tareas programadas en ejecución con el bloqueo tomado en este nodo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la tarea si ningún otro nodo la está ejecutando ni la ha ejecutado
+     * dentro de su ventana mínima
+     *
+     * @return true si la tarea se ejecutó, false si se omitió
+     */
+    public boolean ejecutar(TareaProgramada tarea, Runnable accion) {
+        if (!enEjecucion.add(tarea)) {
+            registrarResultado(tarea, "omitida");
+            log.debug("Tarea {} ya en ejecución en este nodo, se omite", tarea);
+            return false;
+        }
+
+        try {
+            if (!config.isDistributedLocks() || !esPostgres()) {
+                correr(tarea, accion);
+                return true;
+            }
+
+            try (Connection con = dataSource.getConnection()) {
+                if (!intentarBloqueo(con, tarea)) {
+                    registrarResultado(tarea, "omitida");
+                    log.debug("Tarea {} en ejecución en otro nodo, se omite", tarea);
+                    return false;
+                }
+
+                try {
+                    if (!reclamarTurno(con, tarea)) {
+                        registrarResultado(tarea, "ya_ejecutada");
+                        log.debug("Tarea {} ya ejecutada en este turno por otro nodo, se omite", tarea);
+                        return false;
+                    }
+                    try {
+                        correr(tarea, accion);
+                    } catch (RuntimeException e) {
+                        devolverTurno(con, tarea);
+                        throw e;
+                    }
+                    return true;
+                } finally {
+                    liberar(con, tarea);
+                }
+            }
+        } catch (SQLException e) {
+            registrarResultado(tarea, "error");
+            log.error("No se pudo coordinar la ejecución de la tarea {}: {}", tarea, e.getMessage());
+            return false;
+        } finally {
+            enEjecucion.remove(tarea);
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void correr(TareaProgramada tarea, Runnable accion) {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "ejecutada";
+        try {
+            accion.run();
+        } catch (RuntimeException e) {
+            resultado = "error";
+            throw e;
+        } finally {
+            muestra.stop(Timer.builder("cakeserver.tareas.bloqueo.retenido")
+                    .description("Tiempo con el bloqueo de la tarea tomado")
+                    .tag("tarea", tarea.getNombre())
+                    .register(meterRegistry));
+            registrarResultado(tarea, resultado);
+        }
+    }
+
+    private boolean intentarBloqueo(Connection con, TareaProgramada tarea) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+            ps.setInt(1, ESPACIO_CLAVES);
+            ps.setInt(2, tarea.getClaveBloqueo());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean reclamarTurno(Connection con, TareaProgramada tarea) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(RECLAMAR_TURNO_SQL)) {
+            ps.setString(1, tarea.getNombre());
+            ps.setLong(2, tarea.getVentanaMinima().toMillis());
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    private void devolverTurno(Connection con, TareaProgramada tarea) {
+        try (PreparedStatement ps = con.prepareStatement(DEVOLVER_TURNO_SQL)) {
+            ps.setLong(1, tarea.getVentanaMinima().toMillis());
+            ps.setString(2, tarea.getNombre());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            // Sin devolver el turno, el reintento espera a que pase la ventana
+            log.warn("No se pudo devolver el turno de la tarea {}: {}", tarea, e.getMessage());
+        }
+    }
+
+    private void liberar(Connection con, TareaProgramada tarea) {
+        try (PreparedStatement ps = con.prepareStatement("SELECT pg_advisory_unlock(?, ?)")) {
+            ps.setInt(1, ESPACIO_CLAVES);
+            ps.setInt(2, tarea.getClaveBloqueo());
+            ps.execute();
+        } catch (SQLException e) {
+            // La conexión vuelve al pool: no debe quedar con el bloqueo tomado
+            log.warn("No se pudo liberar el bloqueo de la tarea {}: {}", tarea, e.getMessage());
+            try (PreparedStatement ps = con.prepareStatement("SELECT pg_advisory_unlock_all()")) {
+                ps.execute();
+            } catch (SQLException ignored) {
+                // Conexión rota: el pool la descarta y el servidor libera el bloqueo
+            }
+        }
+    }
+
+    private boolean esPostgres() throws SQLException {
+        Boolean resultado = postgres;
+        if (resultado == null) {
+            try (Connection con = dataSource.getConnection()) {
+                resultado = "PostgreSQL".equalsIgnoreCase(con.getMetaData().getDatabaseProductName());
+            }
+            postgres = resultado;
+        }
+        return resultado;
+    }
+
+    private void registrarResultado(TareaProgramada tarea, String resultado) {
+        meterRegistry.counter("cakeserver.tareas.ejecuciones", "tarea", tarea.getNombre(), "resultado", resultado)
+                .increment();
+    }
+}
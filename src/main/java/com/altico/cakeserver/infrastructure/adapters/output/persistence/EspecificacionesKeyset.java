@@ -0,0 +1,67 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Condición y orden de una página keyset sobre (campo, id).
+ *
+ * La condición se expresa como {@code campo >= v AND (campo > v OR id > i)} (o su
+ * inversa en orden descendente): el primer término acota el recorrido del índice
+ * compuesto (campo, id) y el segundo descarta los ya devueltos. El id sigue la
+ * dirección del campo para que ambos se recorran en el mismo sentido del índice.
+ */
+final class EspecificacionesKeyset {
+
+    private static final String ID = "id";
+
+    private EspecificacionesKeyset() {
+    }
+
+    static <E> Specification<E> despuesDe(ConsultaCursor consulta) {
+        return (root, query, cb) -> {
+            if (consulta.esPrimeraPagina()) {
+                return null;
+            }
+
+            Expression<Comparable<Object>> id = root.get(ID);
+            Comparable<Object> idCursor = comparable(consulta.despuesDeId());
+            if (ID.equals(consulta.campo())) {
+                return posterior(cb, id, idCursor, consulta.descendente());
+            }
+
+            Expression<Comparable<Object>> campo = root.get(consulta.campo());
+            Comparable<Object> valorCursor = comparable(consulta.despuesDeValor());
+            Predicate desdeValor = consulta.descendente()
+                    ? cb.lessThanOrEqualTo(campo, valorCursor)
+                    : cb.greaterThanOrEqualTo(campo, valorCursor);
+
+            return cb.and(desdeValor, cb.or(
+                    posterior(cb, campo, valorCursor, consulta.descendente()),
+                    posterior(cb, id, idCursor, consulta.descendente())));
+        };
+    }
+
+    static Sort orden(ConsultaCursor consulta) {
+        Sort.Direction direccion = consulta.descendente() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (ID.equals(consulta.campo())) {
+            return Sort.by(direccion, ID);
+        }
+        return Sort.by(direccion, consulta.campo()).and(Sort.by(direccion, ID));
+    }
+
+    private static Predicate posterior(CriteriaBuilder cb, Expression<Comparable<Object>> expresion,
+                                       Comparable<Object> valor, boolean descendente) {
+        return descendente ? cb.lessThan(expresion, valor) : cb.greaterThan(expresion, valor);
+    }
+
+    // Los valores del cursor ya vienen con el tipo del atributo (LocalDateTime, String, Integer...)
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object valor) {
+        return (Comparable<Object>) valor;
+    }
+}
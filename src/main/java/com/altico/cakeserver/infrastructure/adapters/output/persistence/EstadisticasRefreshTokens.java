@@ -0,0 +1,360 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.domain.event.UsuarioSeguridadModificadaEvent;
+import com.altico.cakeserver.domain.model.TokenEstadisticas;
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Estadísticas de refresh tokens sobre un resumen compartido en la base de datos
+ * ({@code refresh_token_resumen} y {@code refresh_token_resumen_expiracion}).
+ *
+ * El adaptador de persistencia notifica altas, revocaciones y bajas; las variaciones
+ * se acumulan durante la transacción y se suman al resumen justo antes del commit,
+ * en la misma transacción que la escritura del token. Así todos los nodos leen los
+ * mismos conteos y una lectura sólo suma unas pocas filas del resumen, sin agregar
+ * refresh_tokens. Cada transacción escribe en una ranura elegida al azar para que
+ * las escrituras concurrentes no compitan por la misma fila, y las filas se
+ * actualizan siempre en el mismo orden para no provocar interbloqueos.
+ *
+ * Las métricas que dependen del reloj (expirados y por expirar en 24h) salen del
+ * conteo por minuto de expiración con la hora de la lectura.
+ *
+ * Las operaciones que eliminan filas sin informar cuáles (borrados masivos,
+ * particiones eliminadas, cascada al eliminar usuarios) marcan el resumen como
+ * desfasado y el nodo que las hizo lo reconstruye en la siguiente revisión. Además,
+ * un nodo del clúster lo reconstruye cada {@code reconcile-interval-ms} para corregir
+ * cualquier deriva y compactar las filas.
+ */
+@Component
+@Slf4j
+public class EstadisticasRefreshTokens {
+
+    // Variaciones de una transacción repartidas entre estas ranuras
+    static final int RANURAS = 16;
+
+    private static final String TOTAL = "TOTAL";
+    private static final String ACTIVOS = "ACTIVOS";
+    private static final String USUARIO = "USUARIO";
+    private static final String DISPOSITIVO = "DISPOSITIVO";
+
+    private static final String SUMAR_RESUMEN_SQL = """
+            INSERT INTO refresh_token_resumen (tipo, clave, ranura, total) VALUES (?, ?, ?, ?)
+            ON CONFLICT (tipo, clave, ranura) DO UPDATE SET total = refresh_token_resumen.total + EXCLUDED.total
+            """;
+    private static final String SUMAR_EXPIRACION_SQL = """
+            INSERT INTO refresh_token_resumen_expiracion (minuto, ranura, total) VALUES (?, ?, ?)
+            ON CONFLICT (minuto, ranura) DO UPDATE SET total = refresh_token_resumen_expiracion.total + EXCLUDED.total
+            """;
+
+    private static final String TOTALES_SQL = """
+            SELECT COALESCE(SUM(total) FILTER (WHERE tipo = 'TOTAL'), 0),
+                   COALESCE(SUM(total) FILTER (WHERE tipo = 'ACTIVOS'), 0)
+            FROM refresh_token_resumen
+            WHERE tipo IN ('TOTAL', 'ACTIVOS')
+            """;
+    private static final String DISTINTOS_SQL = """
+            SELECT COUNT(*) FILTER (WHERE tipo = 'USUARIO'), COUNT(*) FILTER (WHERE tipo = 'DISPOSITIVO')
+            FROM (SELECT tipo, clave FROM refresh_token_resumen
+                  WHERE tipo IN ('USUARIO', 'DISPOSITIVO')
+                  GROUP BY tipo, clave
+                  HAVING SUM(total) > 0) distintos
+            """;
+    private static final String EXPIRACIONES_SQL = """
+            SELECT COALESCE(SUM(total) FILTER (WHERE minuto < ?), 0),
+                   COALESCE(SUM(total) FILTER (WHERE minuto >= ? AND minuto <= ?), 0)
+            FROM refresh_token_resumen_expiracion
+            """;
+
+    private static final String RECONSTRUIR_RESUMEN_SQL = """
+            INSERT INTO refresh_token_resumen (tipo, clave, ranura, total)
+            SELECT 'TOTAL', '', 0, COUNT(*) FROM refresh_tokens
+            UNION ALL
+            SELECT 'ACTIVOS', '', 0, COUNT(*) FROM refresh_tokens WHERE activo
+            UNION ALL
+            SELECT 'USUARIO', username, 0, COUNT(*) FROM refresh_tokens GROUP BY username
+            UNION ALL
+            SELECT 'DISPOSITIVO', device_info, 0, COUNT(*) FROM refresh_tokens
+            WHERE device_info IS NOT NULL GROUP BY device_info
+            """;
+    private static final String RECONSTRUIR_EXPIRACIONES_SQL = """
+            INSERT INTO refresh_token_resumen_expiracion (minuto, ranura, total)
+            SELECT date_trunc('minute', fecha_expiracion), 0, COUNT(*) FROM refresh_tokens GROUP BY 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final TransactionTemplate reconstruccionTemplate;
+    private final BloqueoTareasDistribuido bloqueoTareas;
+    private final RefreshTokenProperties.Estadisticas config;
+
+    private volatile boolean desfasado = false;
+
+    public EstadisticasRefreshTokens(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     RefreshTokenProperties refreshTokenProperties,
+                                     BloqueoTareasDistribuido bloqueoTareas) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = refreshTokenProperties.getEstadisticas();
+        this.bloqueoTareas = bloqueoTareas;
+        // Las tres lecturas ven la misma instantánea
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        // Siempre una transacción propia, aunque se llame desde otra
+        this.reconstruccionTemplate = new TransactionTemplate(transactionManager);
+        this.reconstruccionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public TokenEstadisticas obtener() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime corte = ahora.truncatedTo(ChronoUnit.MINUTES);
+
+        return snapshotTemplate.execute(status -> {
+            long[] totales = jdbcTemplate.queryForObject(TOTALES_SQL, (rs, rowNum) ->
+                    new long[]{rs.getLong(1), rs.getLong(2)});
+            long[] distintos = jdbcTemplate.queryForObject(DISTINTOS_SQL, (rs, rowNum) ->
+                    new long[]{rs.getLong(1), rs.getLong(2)});
+            long[] expiraciones = jdbcTemplate.queryForObject(EXPIRACIONES_SQL, (rs, rowNum) ->
+                    new long[]{rs.getLong(1), rs.getLong(2)}, corte, corte, ahora.plusHours(24));
+
+            long total = Math.max(0, totales[0]);
+            long activos = Math.max(0, totales[1]);
+            long usuarios = distintos[0];
+            return new TokenEstadisticas(
+                    total,
+                    activos,
+                    Math.max(0, expiraciones[0]),
+                    Math.max(0, total - activos),
+                    Math.max(0, expiraciones[1]),
+                    usuarios,
+                    distintos[1],
+                    usuarios == 0 ? 0 : (double) total / usuarios
+            );
+        });
+    }
+
+    public void registrarAlta(String username, String deviceInfo, boolean activo, LocalDateTime expiracion) {
+        acumular(cambios -> cambios.token(username, deviceInfo, activo, expiracion, 1));
+    }
+
+    public void registrarBaja(String username, String deviceInfo, boolean activo, LocalDateTime expiracion) {
+        acumular(cambios -> cambios.token(username, deviceInfo, activo, expiracion, -1));
+    }
+
+    /**
+     * Tokens que pasaron de activos a revocados
+     */
+    public void registrarRevocaciones(int cantidad) {
+        if (cantidad <= 0) {
+            return;
+        }
+        acumular(cambios -> cambios.activos -= cantidad);
+    }
+
+    /**
+     * Se eliminaron filas sin detalle: se reconstruye en la próxima revisión
+     */
+    public void marcarDesfasadas() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    desfasado = true;
+                }
+            });
+        } else {
+            desfasado = true;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioSeguridadModificada(UsuarioSeguridadModificadaEvent event) {
+        // Los tokens del usuario se eliminan por cascada (ON DELETE CASCADE)
+        if (event.motivo() == UsuarioSeguridadModificadaEvent.Motivo.ELIMINADO
+                || event.motivo() == UsuarioSeguridadModificadaEvent.Motivo.USERNAME_MODIFICADO) {
+            desfasado = true;
+        }
+    }
+
+    /**
+     * Sin resumen (esquema recién creado por Hibernate) se construye al arrancar;
+     * con Flyway lo rellena la migración
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Integer filas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM refresh_token_resumen LIMIT 1) r", Integer.class);
+        if (filas == null || filas == 0) {
+            reconciliar();
+        }
+    }
+
+    /**
+     * Reconstruye el resumen si este nodo hizo borrados sin detalle
+     */
+    @Scheduled(fixedDelayString = "${app.refresh-token.estadisticas.check-interval-ms:15000}",
+            initialDelayString = "${app.refresh-token.estadisticas.check-interval-ms:15000}")
+    public void revisar() {
+        if (config.isEnabled() && desfasado) {
+            reconciliar();
+        }
+    }
+
+    /**
+     * Reconstrucción periódica; la hace un solo nodo por turno
+     */
+    @Scheduled(fixedDelayString = "${app.refresh-token.estadisticas.reconcile-interval-ms:21600000}",
+            initialDelayString = "${app.refresh-token.estadisticas.reconcile-interval-ms:21600000}")
+    public void reconciliarPeriodicamente() {
+        if (config.isEnabled()) {
+            bloqueoTareas.ejecutar(TareaProgramada.REFRESH_TOKEN_ESTADISTICAS_RECONSTRUCCION, this::reconciliar);
+        }
+    }
+
+    /**
+     * Reconstruye el resumen desde refresh_tokens.
+     *
+     * Bloquea el resumen (EXCLUSIVE: las lecturas siguen, las variaciones esperan)
+     * antes de agregar la tabla. Una transacción que ya sumó su variación termina
+     * antes de que se tome el bloqueo y su token entra en el agregado; una que aún no
+     * la ha sumado espera y la suma sobre el resumen nuevo, que no incluye su token.
+     */
+    public void reconciliar() {
+        long inicio = System.currentTimeMillis();
+        desfasado = false;
+
+        reconstruccionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE refresh_token_resumen, refresh_token_resumen_expiracion IN EXCLUSIVE MODE");
+            jdbcTemplate.update("DELETE FROM refresh_token_resumen");
+            jdbcTemplate.update("DELETE FROM refresh_token_resumen_expiracion");
+            jdbcTemplate.update(RECONSTRUIR_RESUMEN_SQL);
+            jdbcTemplate.update(RECONSTRUIR_EXPIRACIONES_SQL);
+        });
+
+        log.info("Resumen de refresh tokens reconstruido en {}ms", System.currentTimeMillis() - inicio);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    /**
+     * Acumula la variación en la transacción actual y la suma al resumen antes del
+     * commit; sin transacción, de inmediato
+     */
+    private void acumular(Consumer<Cambios> cambio) {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Cambios cambios = new Cambios();
+            cambio.accept(cambios);
+            aplicar(cambios);
+            return;
+        }
+
+        Cambios cambios = (Cambios) TransactionSynchronizationManager.getResource(this);
+        if (cambios == null) {
+            Cambios nuevos = new Cambios();
+            TransactionSynchronizationManager.bindResource(this, nuevos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    aplicar(nuevos);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EstadisticasRefreshTokens.this);
+                }
+            });
+            cambios = nuevos;
+        }
+        cambio.accept(cambios);
+    }
+
+    private void aplicar(Cambios cambios) {
+        short ranura = (short) ThreadLocalRandom.current().nextInt(RANURAS);
+
+        // Orden fijo (tipo, clave) y luego minuto: dos transacciones nunca se esperan en ciclo
+        List<Object[]> resumen = new ArrayList<>();
+        agregar(resumen, ACTIVOS, Map.of("", cambios.activos), ranura);
+        agregar(resumen, DISPOSITIVO, cambios.porDispositivo, ranura);
+        agregar(resumen, TOTAL, Map.of("", cambios.total), ranura);
+        agregar(resumen, USUARIO, cambios.porUsuario, ranura);
+        if (!resumen.isEmpty()) {
+            jdbcTemplate.batchUpdate(SUMAR_RESUMEN_SQL, resumen);
+        }
+
+        List<Object[]> expiraciones = new ArrayList<>();
+        cambios.porMinuto.forEach((minuto, delta) -> {
+            if (delta != 0) {
+                expiraciones.add(new Object[]{minuto, ranura, delta});
+            }
+        });
+        if (!expiraciones.isEmpty()) {
+            jdbcTemplate.batchUpdate(SUMAR_EXPIRACION_SQL, expiraciones);
+        }
+    }
+
+    private static void agregar(List<Object[]> filas, String tipo, Map<String, Long> deltas, short ranura) {
+        deltas.forEach((clave, delta) -> {
+            if (delta != 0) {
+                filas.add(new Object[]{tipo, clave, ranura, delta});
+            }
+        });
+    }
+
+    /**
+     * Variaciones pendientes de una transacción; los mapas ordenados fijan el orden de escritura
+     */
+    private static final class Cambios {
+        private long total;
+        private long activos;
+        private final Map<String, Long> porUsuario = new TreeMap<>();
+        private final Map<String, Long> porDispositivo = new TreeMap<>();
+        private final Map<LocalDateTime, Long> porMinuto = new TreeMap<>();
+
+        private void token(String username, String deviceInfo, boolean activo, LocalDateTime expiracion, int delta) {
+            total += delta;
+            if (activo) {
+                activos += delta;
+            }
+            porUsuario.merge(username, (long) delta, Long::sum);
+            if (deviceInfo != null) {
+                porDispositivo.merge(deviceInfo, (long) delta, Long::sum);
+            }
+            porMinuto.merge(expiracion.truncatedTo(ChronoUnit.MINUTES), (long) delta, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro negativo en memoria para refresh tokens.
+ *
+ * Combina un filtro de Bloom con los IDs de tokens vigentes y un conjunto acotado
+ * de IDs revocados recientemente. Responde "seguro inválido" sin consultar la base
+ * de datos para IDs mal formados, revocados en este nodo o (si el filtro es
+ * autoritativo) ausentes del Bloom. Un falso positivo sólo implica la consulta
+ * habitual; un token vigente nunca se rechaza porque se registra antes de
+ * devolverse al cliente.
+ *
+ * El Bloom sólo conoce los tokens de la última reconstrucción y los emitidos por
+ * este nodo, así que únicamente puede ser autoritativo con un solo nodo y por eso
+ * no lo es por defecto. Sin modo autoritativo el Bloom no se consulta, de modo que
+ * tampoco se construye ni se mantiene: el filtro se reduce a los IDs mal formados y
+ * a los revocados en este nodo, y un ID bien formado que no existe cuesta una consulta.
+ *
+ * Las revocaciones se anotan al confirmarse su transacción: si se revierte, el token
+ * sigue vigente y no debe rechazarse. Los revocados tampoco se comparten entre nodos:
+ * sirven para ahorrar lecturas, nunca para decidir que no hay nada que revocar.
+ */
+@Component
+@Slf4j
+public class FiltroRefreshTokens {
+
+    private static final String IDS_VIGENTES_SQL =
+            "SELECT id FROM refresh_tokens WHERE activo = true AND fecha_expiracion > CURRENT_TIMESTAMP";
+
+    // Holgura para altas registradas dentro de una transacción aún sin confirmar al leer la tabla
+    private static final long MARGEN_ALTAS_MS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lecturaTemplate;
+    private final RefreshTokenProperties.Filtro config;
+    private final Counter rechazados;
+    private final Counter consultados;
+
+    // IDs revocados -> momento de revocación (ms)
+    private final Map<String, Long> revocados = new ConcurrentHashMap<>();
+
+    // Altas recientes en orden de registro, para volcarlas en el Bloom reconstruido
+    private final ConcurrentLinkedDeque<Alta> altasRecientes = new ConcurrentLinkedDeque<>();
+
+    private volatile Bloom vigentes;
+    // Inicio de la reconstrucción en curso (ms); mientras dura no se descartan sus altas
+    private volatile long reconstruyendoDesde = Long.MAX_VALUE;
+    private volatile boolean inicializado = false;
+
+    private record Alta(UUID uuid, long registradaEn) {}
+
+    public FiltroRefreshTokens(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               RefreshTokenProperties refreshTokenProperties,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Sólo lectura: permite al driver leer por bloques (fetch size)
+        this.lecturaTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate.setReadOnly(true);
+        this.config = refreshTokenProperties.getFiltro();
+        this.vigentes = new Bloom(config.getExpectedTokens(), config.getFalsePositiveRate());
+        this.rechazados = Counter.builder("cakeserver.refresh_token.filtro")
+                .tag("resultado", "rechazado").register(meterRegistry);
+        this.consultados = Counter.builder("cakeserver.refresh_token.filtro")
+                .tag("resultado", "consultar").register(meterRegistry);
+    }
+
+    /**
+     * true si el token seguro no es válido; false si hay que consultar la base de datos
+     */
+    public boolean esSeguroInvalido(String tokenId) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+
+        UUID uuid = parsear(tokenId);
+        boolean invalido = uuid == null
+                || revocados.containsKey(tokenId)
+                || (inicializado && config.isBloomAuthoritative() && !vigentes.contiene(uuid));
+
+        (invalido ? rechazados : consultados).increment();
+        return invalido;
+    }
+
+    public void registrarAlta(String tokenId) {
+        UUID uuid = parsear(tokenId);
+        if (uuid == null || !config.isBloomAuthoritative()) {
+            return;
+        }
+
+        // Primero en la cola: una reconstrucción que publique después la volcará en el nuevo Bloom
+        long ahora = System.currentTimeMillis();
+        altasRecientes.addLast(new Alta(uuid, ahora));
+        vigentes.agregar(uuid);
+        descartarAltasAntiguas(ahora);
+    }
+
+    public void registrarRevocacion(String tokenId) {
+        registrarRevocaciones(List.of(tokenId));
+    }
+
+    /**
+     * Dentro de una transacción los IDs se anotan en afterCommit, como las variaciones
+     * de las estadísticas; sin transacción, en el acto
+     */
+    public void registrarRevocaciones(Collection<String> tokenIds) {
+        if (tokenIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    anotarRevocaciones(tokenIds);
+                }
+            });
+        } else {
+            anotarRevocaciones(tokenIds);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (config.isEnabled()) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Reconstruye el Bloom desde refresh_tokens. Las altas registradas desde poco
+     * antes de la consulta (incluidas las de transacciones aún sin confirmar) se
+     * vuelcan en el nuevo Bloom antes de publicarlo y otra vez después, para cubrir
+     * las que llegan al viejo durante el cambio.
+     */
+    @Scheduled(fixedDelayString = "${app.refresh-token.filtro.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.refresh-token.filtro.rebuild-interval-ms:3600000}")
+    public synchronized void reconstruir() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!config.isBloomAuthoritative()) {
+            // Sin Bloom que reconstruir sólo se renueva la lista de revocados
+            purgarRevocados();
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        Bloom nuevo = new Bloom(config.getExpectedTokens(), config.getFalsePositiveRate());
+        reconstruyendoDesde = inicio;
+        try {
+            long[] total = new long[1];
+            lecturaTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(IDS_VIGENTES_SQL);
+                ps.setFetchSize(10000);
+                return ps;
+            }, rs -> {
+                UUID uuid = parsear(rs.getString(1));
+                if (uuid != null) {
+                    nuevo.agregar(uuid);
+                    total[0]++;
+                }
+            }));
+
+            agregarAltasDesde(nuevo, inicio - MARGEN_ALTAS_MS);
+            vigentes = nuevo;
+            agregarAltasDesde(nuevo, inicio - MARGEN_ALTAS_MS);
+            inicializado = true;
+            purgarRevocados();
+
+            log.info("Filtro de refresh tokens reconstruido: {} tokens vigentes en {}ms",
+                    total[0], System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Error reconstruyendo el filtro de refresh tokens: {}", e.getMessage());
+        } finally {
+            reconstruyendoDesde = Long.MAX_VALUE;
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void anotarRevocaciones(Collection<String> tokenIds) {
+        long ahora = System.currentTimeMillis();
+        for (String tokenId : tokenIds) {
+            if (revocados.size() >= config.getMaxRevoked()) {
+                liberarEspacio();
+            }
+            revocados.put(tokenId, ahora);
+        }
+    }
+
+    private static UUID parsear(String tokenId) {
+        if (tokenId == null || tokenId.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(tokenId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void agregarAltasDesde(Bloom bloom, long desde) {
+        for (Alta alta : altasRecientes) {
+            if (alta.registradaEn() >= desde) {
+                bloom.agregar(alta.uuid());
+            }
+        }
+    }
+
+    /**
+     * Las altas sólo hacen falta hasta la siguiente reconstrucción; se conservan las
+     * del margen y, si hay una en curso, todas las posteriores a su inicio menos el margen
+     */
+    private void descartarAltasAntiguas(long ahora) {
+        long limite = Math.min(ahora, reconstruyendoDesde) - MARGEN_ALTAS_MS;
+        Alta primera;
+        while ((primera = altasRecientes.peekFirst()) != null && primera.registradaEn() < limite) {
+            altasRecientes.remove(primera);
+        }
+    }
+
+    /**
+     * Tras una reconstrucción los revocados antiguos ya no están en el Bloom;
+     * se conservan dos intervalos de reconstrucción por seguridad (sin Bloom, la
+     * antigüedad sólo acota la memoria)
+     */
+    private void purgarRevocados() {
+        long limite = System.currentTimeMillis() - 2 * config.getRebuildIntervalMs();
+        revocados.values().removeIf(revocadoEn -> revocadoEn < limite);
+    }
+
+    /**
+     * Descartar un revocado sólo hace que su próxima consulta vaya a la base de datos
+     */
+    private void liberarEspacio() {
+        purgarRevocados();
+
+        int objetivo = config.getMaxRevoked() - Math.max(1, config.getMaxRevoked() / 10);
+        Iterator<String> it = revocados.keySet().iterator();
+        while (revocados.size() > objetivo && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Filtro de Bloom concurrente sobre los 128 bits del UUID (doble hashing)
+     */
+    private static final class Bloom {
+        private final AtomicLongArray bits;
+        private final long numBits;
+        private final int numHashes;
+
+        Bloom(long elementosEsperados, double tasaFalsosPositivos) {
+            long n = Math.max(1, elementosEsperados);
+            double p = Math.min(0.5, Math.max(1e-6, tasaFalsosPositivos));
+            long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, ((m + 63) / 64) * 64);
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+            this.bits = new AtomicLongArray((int) (numBits / 64));
+        }
+
+        void agregar(UUID uuid) {
+            long h1 = mezclar(uuid.getMostSignificantBits());
+            long h2 = mezclar(uuid.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                int palabra = (int) (bit >>> 6);
+                long mascara = 1L << bit;
+                long actual;
+                do {
+                    actual = bits.get(palabra);
+                    if ((actual & mascara) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(palabra, actual, actual | mascara));
+            }
+        }
+
+        boolean contiene(UUID uuid) {
+            long h1 = mezclar(uuid.getMostSignificantBits());
+            long h2 = mezclar(uuid.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Finalizador de SplitMix64 para repartir los bits de versión/variante del UUID
+        private static long mezclar(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
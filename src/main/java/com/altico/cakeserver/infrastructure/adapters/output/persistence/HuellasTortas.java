@@ -0,0 +1,64 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conjunto en memoria con las huellas de descripción de las tortas conocidas
+ * por este nodo, usado como comprobación previa de duplicados.
+ *
+ * Una huella ausente no necesita consulta: el índice único de la base de datos
+ * rechaza el INSERT si otro nodo ya la creó. Una huella presente puede estar
+ * desfasada (torta eliminada o renombrada), así que se confirma con la base de
+ * datos antes de rechazar. El tamaño es el del catálogo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HuellasTortas {
+
+    private static final String HUELLAS_SQL =
+            "SELECT descripcion_normalizada FROM torta WHERE descripcion_normalizada IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<String> huellas = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        try {
+            jdbcTemplate.query(HUELLAS_SQL, rs -> {
+                huellas.add(rs.getString(1));
+            });
+            log.info("Huellas de descripción de tortas cargadas: {}", huellas.size());
+        } catch (Exception e) {
+            // Sin huellas la comprobación previa no descarta nada: decide el índice único
+            log.warn("No se pudieron cargar las huellas de tortas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * true si la huella puede existir y conviene confirmarla en la base de datos
+     */
+    public boolean puedeExistir(String huella) {
+        return huella != null && huellas.contains(huella);
+    }
+
+    public void registrar(String huella) {
+        if (huella != null) {
+            huellas.add(huella);
+        }
+    }
+
+    public void descartar(String huella) {
+        if (huella != null) {
+            huellas.remove(huella);
+        }
+    }
+}
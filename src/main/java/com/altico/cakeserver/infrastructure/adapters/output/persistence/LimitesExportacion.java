@@ -0,0 +1,31 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tope en la base de datos para las exportaciones en streaming.
+ *
+ * El tiempo de espera asíncrono sólo corta la respuesta HTTP; la consulta y su
+ * transacción seguirían reteniendo una conexión del pool. Con estos límites es
+ * Postgres quien cancela la consulta si dura demasiado o si el cliente deja de
+ * leer y la transacción queda inactiva entre bloques.
+ */
+@Component
+@RequiredArgsConstructor
+public class LimitesExportacion {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AdminProperties adminProperties;
+
+    /**
+     * Debe llamarse dentro de la transacción de la exportación: SET LOCAL sólo dura hasta su fin
+     */
+    public void aplicar() {
+        AdminProperties.Export config = adminProperties.getExport();
+        jdbcTemplate.execute("SET LOCAL statement_timeout = " + config.getStatementTimeoutMs());
+        jdbcTemplate.execute("SET LOCAL idle_in_transaction_session_timeout = " + config.getIdleTimeoutMs());
+    }
+}
@@ -0,0 +1,240 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantenimiento de las particiones mensuales de refresh_tokens (por fecha_expiracion)
+ * y auditoria_usuarios (por fecha).
+ *
+ * Crea por adelantado las particiones de los próximos meses y elimina completas
+ * las que quedaron fuera de la retención, de modo que la retención no depende de
+ * DELETE por filas. Las filas que caen en la partición por defecto (fuera de las
+ * mensuales) se purgan con la misma retención. Si la tabla no está particionada
+ * (p. ej. esquema creado por Hibernate o H2) no hace nada.
+ *
+ * Las sentencias DDL toman ACCESS EXCLUSIVE sobre la tabla padre o la partición por
+ * defecto; se ejecutan con {@code lock-timeout-ms} para no encolar el tráfico detrás
+ * de una consulta larga. Cada partición va en su propia transacción: si una no obtiene
+ * el bloqueo se registra y se reintenta en la siguiente ejecución, sin impedir el
+ * mantenimiento de las demás ni el de la otra tabla.
+ *
+ * La clave primaria incluye la columna de partición, así que Postgres sólo garantiza
+ * la unicidad del id dentro de cada partición. Los ids de refresh_tokens son UUID
+ * aleatorios generados por la aplicación y los de auditoria_usuarios salen de una
+ * secuencia; cualquier otra vía de inserción debe respetar esa unicidad.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MantenimientoParticiones {
+
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String ES_PARTICIONADA_SQL = """
+            SELECT COUNT(*) FROM pg_partitioned_table pt
+            JOIN pg_class c ON c.oid = pt.partrelid
+            WHERE c.oid = to_regclass(?)
+            """;
+
+    private static final String PARTICIONES_SQL = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AdminProperties adminProperties;
+    private final EstadisticasRefreshTokens estadisticasRefreshTokens;
+
+    public record Resultado(int creadas, int eliminadas, int filasPurgadas) {}
+
+    public Resultado mantener() {
+        AdminProperties.Partitions config = adminProperties.getPartitions();
+        LocalDateTime ahora = LocalDateTime.now();
+        int creadas = 0;
+        int eliminadas = 0;
+        int filasPurgadas = 0;
+
+        creadas += crearParticionesFuturas("refresh_tokens", "fecha_expiracion", config.getMonthsAhead());
+        LocalDateTime corteTokens = ahora.minusDays(config.getTokenGraceDays());
+        int tokensEliminadas = eliminarParticionesVencidas("refresh_tokens", corteTokens);
+        int tokensPurgados = purgarParticionPorDefecto("refresh_tokens", "fecha_expiracion", corteTokens);
+        if (tokensEliminadas > 0 || tokensPurgados > 0) {
+            estadisticasRefreshTokens.marcarDesfasadas();
+        }
+        eliminadas += tokensEliminadas;
+        filasPurgadas += tokensPurgados;
+
+        creadas += crearParticionesFuturas("auditoria_usuarios", "fecha", config.getMonthsAhead());
+        if (adminProperties.isAuditCleanupEnabled()) {
+            LocalDateTime corteAuditoria = ahora.minusDays(adminProperties.getAuditRetentionDays());
+            eliminadas += eliminarParticionesVencidas("auditoria_usuarios", corteAuditoria);
+            filasPurgadas += purgarParticionPorDefecto("auditoria_usuarios", "fecha", corteAuditoria);
+        }
+
+        return new Resultado(creadas, eliminadas, filasPurgadas);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private int crearParticionesFuturas(String tabla, String columna, int mesesAdelante) {
+        if (!esParticionada(tabla)) {
+            log.debug("Tabla {} no particionada, se omite el mantenimiento", tabla);
+            return 0;
+        }
+
+        List<String> existentes = particiones(tabla);
+        YearMonth mes = YearMonth.now();
+        int creadas = 0;
+
+        for (int i = 0; i <= mesesAdelante; i++, mes = mes.plusMonths(1)) {
+            String nombre = tabla + "_p" + mes.format(SUFIJO);
+            if (!existentes.contains(nombre) && crearParticion(tabla, columna, nombre, mes)) {
+                creadas++;
+            }
+        }
+
+        return creadas;
+    }
+
+    /**
+     * Crea la partición como tabla independiente, le mueve las filas de su rango que
+     * hubieran caído en la partición por defecto y luego la adjunta, todo en una
+     * transacción. La partición por defecto se bloquea antes de mover las filas: sin
+     * el bloqueo, una inserción confirmada entre el traslado y ATTACH haría fallar
+     * ATTACH al validar la partición por defecto.
+     *
+     * @return false si no se pudo crear (p. ej. lock_timeout); se reintenta en la siguiente ejecución
+     */
+    private boolean crearParticion(String tabla, String columna, String nombre, YearMonth mes) {
+        String desde = mes.atDay(1).toString();
+        String hasta = mes.plusMonths(1).atDay(1).toString();
+
+        return ejecutarDdl(nombre, "crear", () -> transactionTemplate.executeWithoutResult(status -> {
+            limitarEsperaDeBloqueos();
+            // ATTACH tomaría el mismo bloqueo; se adelanta para cubrir también el traslado
+            jdbcTemplate.execute("LOCK TABLE " + tabla + "_default IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TABLE " + nombre
+                    + " (LIKE " + tabla + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int movidas = jdbcTemplate.update("WITH movidas AS (DELETE FROM " + tabla + "_default"
+                    + " WHERE " + columna + " >= '" + desde + "' AND " + columna + " < '" + hasta + "'"
+                    + " RETURNING *) INSERT INTO " + nombre + " SELECT * FROM movidas");
+            jdbcTemplate.execute("ALTER TABLE " + tabla + " ATTACH PARTITION " + nombre
+                    + " FOR VALUES FROM ('" + desde + "') TO ('" + hasta + "')");
+
+            log.info("Partición {} creada ({} filas reubicadas desde {}_default)", nombre, movidas, tabla);
+        }));
+    }
+
+    /**
+     * Elimina las particiones mensuales cuyo límite superior es anterior al corte.
+     *
+     * DETACH toma ACCESS EXCLUSIVE sobre la tabla padre, igual que DROP de una
+     * partición: es un cambio de catálogo breve, pero espera a las consultas en curso
+     * y bloquea las nuevas mientras espera. DETACH CONCURRENTLY no es posible porque
+     * existe partición por defecto; por eso ambas sentencias van en una transacción
+     * con lock_timeout.
+     */
+    private int eliminarParticionesVencidas(String tabla, LocalDateTime corte) {
+        if (!esParticionada(tabla)) {
+            return 0;
+        }
+
+        Pattern patron = Pattern.compile("^" + Pattern.quote(tabla) + "_p(\\d{4})_(\\d{2})$");
+        int eliminadas = 0;
+
+        for (String nombre : particiones(tabla)) {
+            Matcher m = patron.matcher(nombre);
+            if (!m.matches()) {
+                continue;
+            }
+
+            LocalDate limiteSuperior = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)))
+                    .plusMonths(1).atDay(1);
+            if (!limiteSuperior.atStartOfDay().isAfter(corte)
+                    && ejecutarDdl(nombre, "eliminar", () -> transactionTemplate.executeWithoutResult(status -> {
+                        limitarEsperaDeBloqueos();
+                        jdbcTemplate.execute("ALTER TABLE " + tabla + " DETACH PARTITION " + nombre);
+                        jdbcTemplate.execute("DROP TABLE " + nombre);
+                    }))) {
+                eliminadas++;
+                log.info("Partición {} eliminada (datos anteriores a {})", nombre, limiteSuperior);
+            }
+        }
+
+        return eliminadas;
+    }
+
+    /**
+     * Borra de la partición por defecto las filas fuera de la retención. Normalmente
+     * está vacía: sólo recibe filas de meses sin partición propia
+     */
+    private int purgarParticionPorDefecto(String tabla, String columna, LocalDateTime corte) {
+        if (!esParticionada(tabla)) {
+            return 0;
+        }
+
+        int purgadas;
+        try {
+            purgadas = jdbcTemplate.update("DELETE FROM " + tabla + "_default WHERE " + columna + " < ?", corte);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo purgar {}_default; se reintentará en la siguiente ejecución: {}",
+                    tabla, e.getMostSpecificCause().getMessage());
+            return 0;
+        }
+        if (purgadas > 0) {
+            log.info("{} filas purgadas de {}_default (anteriores a {})", purgadas, tabla, corte);
+        }
+        return purgadas;
+    }
+
+    /**
+     * Ejecuta el DDL de una partición. Un fallo (normalmente lock_timeout porque una
+     * consulta larga retiene la tabla) sólo afecta a esa partición: la transacción ya
+     * se ha revertido y el resto del mantenimiento continúa.
+     */
+    private boolean ejecutarDdl(String particion, String operacion, Runnable ddl) {
+        try {
+            ddl.run();
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("No se pudo {} la partición {}; se reintentará en la siguiente ejecución: {}",
+                    operacion, particion, e.getMostSpecificCause().getMessage());
+            return false;
+        }
+    }
+
+    private void limitarEsperaDeBloqueos() {
+        long lockTimeoutMs = Math.max(1, adminProperties.getPartitions().getLockTimeoutMs());
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+    }
+
+    private boolean esParticionada(String tabla) {
+        try {
+            Integer count = jdbcTemplate.queryForObject(ES_PARTICIONADA_SQL, Integer.class, tabla);
+            return count != null && count > 0;
+        } catch (Exception e) {
+            // Base de datos sin catálogos de PostgreSQL
+            return false;
+        }
+    }
+
+    private List<String> particiones(String tabla) {
+        return jdbcTemplate.queryForList(PARTICIONES_SQL, String.class, tabla);
+    }
+}
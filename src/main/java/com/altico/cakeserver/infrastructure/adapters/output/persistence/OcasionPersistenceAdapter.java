@@ -1,6 +1,7 @@
 package com.altico.cakeserver.infrastructure.adapters.output.persistence;
 
 import com.altico.cakeserver.applications.ports.output.OcasionPersistencePort;
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.Ocasion;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.OcasionEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.OcasionPersistenceMapper;
@@ -67,6 +68,16 @@ public class OcasionPersistenceAdapter implements OcasionPersistencePort {
                 .map(mapper::toDomain);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Ocasion> findByCursor(ConsultaCursor consulta, int limite) {
+        return ocasionRepository.findBy(EspecificacionesKeyset.<OcasionEntity>despuesDe(consulta),
+                        q -> q.sortBy(EspecificacionesKeyset.orden(consulta)).limit(limite).all())
+                .stream()
+                .map(mapper::toDomain)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Ocasion> findByEstado(boolean activo) {
@@ -128,4 +139,10 @@ public class OcasionPersistenceAdapter implements OcasionPersistencePort {
         byte estado = activo ? (byte) 1 : (byte) 0;
         return ocasionRepository.findByEstado(estado).size();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return ocasionRepository.count();
+    }
 }
\ No newline at end of file
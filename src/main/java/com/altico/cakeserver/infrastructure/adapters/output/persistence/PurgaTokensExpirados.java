@@ -0,0 +1,183 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Purga de refresh tokens expirados por lotes.
+ *
+ * Cada lote es un DELETE independiente (su propia transacción, en la que también se
+ * descuentan las filas del resumen de estadísticas) sobre como máximo
+ * {@code batch-size} filas, recorridas en orden (fecha_expiracion, id). Entre lotes
+ * se hace una pausa y la ejecución se detiene al agotar el presupuesto de tiempo;
+ * el cursor se conserva para que la siguiente ejecución continúe donde quedó.
+ * Las filas bloqueadas por otras transacciones se saltan (SKIP LOCKED).
+ */
+@Component
+@Slf4j
+public class PurgaTokensExpirados {
+
+    private static final String DELETE_LOTE_SQL = """
+            DELETE FROM refresh_tokens
+            WHERE id IN (
+                SELECT id FROM refresh_tokens
+                WHERE fecha_expiracion < :corte
+                  AND (fecha_expiracion, id) > (:cursorFecha, :cursorId)
+                ORDER BY fecha_expiracion, id
+                LIMIT :lote
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING fecha_expiracion, id, username, device_info, activo
+            """;
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate loteTemplate;
+    private final EstadisticasRefreshTokens estadisticas;
+    private final RefreshTokenProperties.Purga config;
+    private final ReentrantLock enEjecucion = new ReentrantLock();
+    private final Counter filasEliminadas;
+    private final DistributionSummary filasPorLote;
+    private final Timer duracionLote;
+
+    // Cursor (fecha_expiracion, id) del último lote, para reanudar
+    private LocalDateTime cursorFecha = INICIO;
+    private String cursorId = "";
+
+    public PurgaTokensExpirados(NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                EstadisticasRefreshTokens estadisticas,
+                                RefreshTokenProperties refreshTokenProperties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loteTemplate = new TransactionTemplate(transactionManager);
+        this.estadisticas = estadisticas;
+        this.config = refreshTokenProperties.getPurga();
+        this.filasEliminadas = Counter.builder("cakeserver.refresh_token.purga.filas")
+                .description("Refresh tokens expirados eliminados")
+                .register(meterRegistry);
+        this.filasPorLote = DistributionSummary.builder("cakeserver.refresh_token.purga.lote.filas")
+                .register(meterRegistry);
+        this.duracionLote = Timer.builder("cakeserver.refresh_token.purga.lote.duracion")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Elimina tokens expirados hasta terminar o agotar el presupuesto de tiempo
+     *
+     * @return filas eliminadas en esta ejecución
+     */
+    public int purgar() {
+        if (!enEjecucion.tryLock()) {
+            log.debug("Purga de refresh tokens ya en ejecución");
+            return 0;
+        }
+
+        try {
+            return ejecutar();
+        } finally {
+            enEjecucion.unlock();
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private int ejecutar() {
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.MILLISECONDS.toNanos(config.getTimeBudgetMs());
+        LocalDateTime corte = LocalDateTime.now();
+        int total = 0;
+        int lotes = 0;
+
+        while (true) {
+            long inicioLote = System.nanoTime();
+            List<Object[]> eliminadas = loteTemplate.execute(status -> jdbcTemplate.query(DELETE_LOTE_SQL,
+                    new MapSqlParameterSource()
+                            .addValue("corte", corte)
+                            .addValue("cursorFecha", cursorFecha)
+                            .addValue("cursorId", cursorId)
+                            .addValue("lote", Math.max(1, config.getBatchSize())),
+                    (rs, rowNum) -> {
+                        LocalDateTime expiracion = rs.getObject(1, LocalDateTime.class);
+                        estadisticas.registrarBaja(rs.getString(3), rs.getString(4), rs.getBoolean(5), expiracion);
+                        return new Object[]{expiracion, rs.getString(2)};
+                    }));
+            long duracion = System.nanoTime() - inicioLote;
+
+            duracionLote.record(duracion, TimeUnit.NANOSECONDS);
+            filasPorLote.record(eliminadas.size());
+            filasEliminadas.increment(eliminadas.size());
+            total += eliminadas.size();
+            lotes++;
+
+            log.debug("Lote de purga {}: {} tokens eliminados en {}ms",
+                    lotes, eliminadas.size(), TimeUnit.NANOSECONDS.toMillis(duracion));
+
+            if (eliminadas.size() < config.getBatchSize()) {
+                // Fin del recorrido: la próxima ejecución vuelve a empezar (las filas saltadas se reintentan)
+                reiniciarCursor();
+                break;
+            }
+
+            avanzarCursor(eliminadas);
+
+            if (System.nanoTime() >= limite) {
+                log.info("Purga de refresh tokens pausada por presupuesto de tiempo; se reanudará en la próxima ejecución");
+                break;
+            }
+
+            if (!pausar()) {
+                break;
+            }
+        }
+
+        log.info("Purga de refresh tokens: {} eliminados en {} lotes ({}ms)",
+                total, lotes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        return total;
+    }
+
+    private void avanzarCursor(List<Object[]> eliminadas) {
+        for (Object[] fila : eliminadas) {
+            LocalDateTime fecha = (LocalDateTime) fila[0];
+            String id = (String) fila[1];
+            int cmp = fecha.compareTo(cursorFecha);
+            if (cmp > 0 || (cmp == 0 && id.compareTo(cursorId) > 0)) {
+                cursorFecha = fecha;
+                cursorId = id;
+            }
+        }
+    }
+
+    private void reiniciarCursor() {
+        cursorFecha = INICIO;
+        cursorId = "";
+    }
+
+    private boolean pausar() {
+        if (config.getPauseMs() <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(config.getPauseMs());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.altico.cakeserver.infrastructure.adapters.output.persistence;
 
 import com.altico.cakeserver.applications.ports.output.RefreshTokenPersistencePort;
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.DispositivoSospechoso;
+import com.altico.cakeserver.domain.model.FiltroSesiones;
 import com.altico.cakeserver.domain.model.RefreshToken;
 import com.altico.cakeserver.domain.model.TokenEstadisticas;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.RefreshTokenEntity;
@@ -11,13 +13,24 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +45,72 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
 
     private final RefreshTokenRepository refreshTokenRepository;
     private final RefreshTokenPersistenceMapper mapper;
+    private final UltimoUsoWriteBehind ultimoUsoWriteBehind;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final FiltroRefreshTokens filtroRefreshTokens;
+    private final PurgaTokensExpirados purgaTokensExpirados;
+    private final EstadisticasRefreshTokens estadisticas;
+    private final LimitesExportacion limitesExportacion;
+
+    // Una sola sentencia: revoca el token vigente, recorta los activos que excedan el
+    // límite (conservando los más recientes) e inserta el nuevo a partir del anterior.
+    // Todas las partes del CTE ven la misma instantánea, por eso se excluye :tokenId
+    // explícitamente al calcular los excedentes.
+    private static final String ROTATE_SQL = """
+            WITH anterior AS (
+                UPDATE refresh_tokens SET activo = false
+                WHERE id = :tokenId AND activo = true AND fecha_expiracion > :ahora
+                RETURNING username, device_info, ip_address, user_agent
+            ),
+            excedentes AS (
+                UPDATE refresh_tokens SET activo = false
+                WHERE id IN (
+                    SELECT rt.id FROM refresh_tokens rt JOIN anterior a ON rt.username = a.username
+                    WHERE rt.activo = true AND rt.id <> :tokenId
+                    ORDER BY rt.fecha_creacion DESC
+                    OFFSET :conservar
+                )
+                RETURNING id
+            )
+            INSERT INTO refresh_tokens (id, username, device_info, ip_address, user_agent,
+                                        activo, fecha_creacion, fecha_expiracion, ultimo_uso)
+            SELECT :nuevoTokenId, a.username, a.device_info, a.ip_address, a.user_agent,
+                   true, :ahora, :expiracion, :ahora
+            FROM anterior a
+            RETURNING id, username, device_info, ip_address, user_agent,
+                      activo, fecha_creacion, fecha_expiracion, ultimo_uso,
+                      (SELECT COUNT(*) FROM excedentes) AS excedentes_revocados
+            """;
+
+    // Misma condición que findInactiveOlderThan; devuelve las filas eliminadas para auditarlas
+    private static final String DELETE_INACTIVOS_SQL = """
+            DELETE FROM refresh_tokens
+            WHERE activo = false AND ultimo_uso < ?
+            RETURNING id, username, device_info, ip_address, user_agent,
+                      activo, fecha_creacion, fecha_expiracion, ultimo_uso
+            """;
+
+    // Filas por viaje al leer el resultado en modo auditoría
+    private static final int FETCH_SIZE_AUDITORIA = 500;
+    private static final int FETCH_SIZE_EXPORTACION = 1000;
+
+    private static final String SELECT_EXPORTACION = """
+            SELECT id, username, device_info, ip_address, user_agent, activo,
+                   fecha_creacion, fecha_expiracion, ultimo_uso
+            FROM refresh_tokens
+            WHERE 1 = 1""";
+
+    private static final RowMapper<RefreshToken> TOKEN_ROW_MAPPER = (rs, rowNum) -> new RefreshToken(
+            rs.getString("id"),
+            rs.getString("username"),
+            rs.getString("device_info"),
+            rs.getString("ip_address"),
+            rs.getString("user_agent"),
+            rs.getBoolean("activo"),
+            rs.getObject("fecha_creacion", LocalDateTime.class),
+            rs.getObject("fecha_expiracion", LocalDateTime.class),
+            rs.getObject("ultimo_uso", LocalDateTime.class)
+    );
 
     @Override
     public RefreshToken save(RefreshToken token) {
@@ -42,6 +121,14 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
             RefreshTokenEntity saved = refreshTokenRepository.save(entity);
             RefreshToken result = mapper.toDomain(saved);
 
+            // Se registra antes de devolverlo: el filtro nunca debe rechazar un token vigente
+            if (result.activo()) {
+                filtroRefreshTokens.registrarAlta(result.id());
+            }
+            // save sólo se usa para altas (crearToken); la rotación tiene su propia sentencia
+            estadisticas.registrarAlta(result.username(), result.deviceInfo(), result.activo(),
+                    result.fechaExpiracion());
+
             log.debug("Token guardado exitosamente: {}", result.id());
             return result;
         } catch (Exception e) {
@@ -61,6 +148,7 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
     public void deleteById(String id) {
         log.debug("Eliminando refresh token: {}", id);
         refreshTokenRepository.deleteById(id);
+        estadisticas.marcarDesfasadas();
     }
 
     @Override
@@ -120,6 +208,37 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
                 .map(mapper::toDomain);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<RefreshToken> findByCursor(ConsultaCursor consulta, int limite, String username, Boolean activo) {
+        Specification<RefreshTokenEntity> spec = filtros(username, activo)
+                .and(EspecificacionesKeyset.despuesDe(consulta));
+        return refreshTokenRepository.findBy(spec,
+                        q -> q.sortBy(EspecificacionesKeyset.orden(consulta)).limit(limite).all())
+                .stream()
+                .map(mapper::toDomain)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countWithFilters(String username, Boolean activo) {
+        return refreshTokenRepository.count(filtros(username, activo));
+    }
+
+    private static Specification<RefreshTokenEntity> filtros(String username, Boolean activo) {
+        return (root, query, cb) -> {
+            var condiciones = cb.conjunction();
+            if (username != null) {
+                condiciones = cb.and(condiciones, cb.equal(root.get("username"), username));
+            }
+            if (activo != null) {
+                condiciones = cb.and(condiciones, cb.equal(root.get("activo"), activo));
+            }
+            return condiciones;
+        };
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<RefreshToken> findByActivo(boolean activo) {
@@ -147,9 +266,11 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int deleteExpired() {
         log.info("Eliminando tokens expirados");
-        int deleted = refreshTokenRepository.deleteExpired();
+        // Sin transacción envolvente: cada lote confirma por separado
+        int deleted = purgaTokensExpirados.purgar();
         log.info("Eliminados {} tokens expirados", deleted);
         return deleted;
     }
@@ -157,7 +278,9 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
     @Override
     public int deleteExpiredBefore(LocalDateTime fecha) {
         log.info("Eliminando tokens expirados antes de: {}", fecha);
-        return refreshTokenRepository.deleteByFechaExpiracionBefore(fecha);
+        int deleted = refreshTokenRepository.deleteByFechaExpiracionBefore(fecha);
+        estadisticas.marcarDesfasadas();
+        return deleted;
     }
 
     // ============== OPERACIONES DE REVOCACIÓN ==============
@@ -165,7 +288,7 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
     @Override
     public int revokeAllByUsername(String username) {
         log.info("Revocando todos los tokens del usuario: {}", username);
-        int revoked = refreshTokenRepository.revokeAllByUsername(username);
+        int revoked = revocarYRegistrar("username", username);
         log.info("Revocados {} tokens para usuario: {}", revoked, username);
         return revoked;
     }
@@ -173,13 +296,33 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
     @Override
     public int revokeAllByDeviceInfo(String deviceInfo) {
         log.info("Revocando todos los tokens del dispositivo: {}", deviceInfo);
-        return refreshTokenRepository.revokeAllByDeviceInfo(deviceInfo);
+        return revocarYRegistrar("device_info", deviceInfo);
     }
 
     @Override
     public void revokeById(String id) {
         log.info("Revocando token: {}", id);
-        refreshTokenRepository.revokeById(id);
+        estadisticas.registrarRevocaciones(refreshTokenRepository.revokeById(id));
+        filtroRefreshTokens.registrarRevocacion(id);
+    }
+
+    @Override
+    public boolean isDefinitelyInvalid(String id) {
+        return filtroRefreshTokens.esSeguroInvalido(id);
+    }
+
+    /**
+     * Revoca los tokens activos que coinciden con la columna y devuelve sus IDs
+     * para registrarlos en el filtro negativo
+     */
+    private int revocarYRegistrar(String columna, String valor) {
+        List<String> ids = namedParameterJdbcTemplate.queryForList(
+                "UPDATE refresh_tokens SET activo = false WHERE " + columna + " = :valor AND activo = true RETURNING id",
+                new MapSqlParameterSource("valor", valor),
+                String.class);
+        filtroRefreshTokens.registrarRevocaciones(ids);
+        estadisticas.registrarRevocaciones(ids.size());
+        return ids.size();
     }
 
     // ============== SEGURIDAD Y DETECCIÓN DE ANOMALÍAS ==============
@@ -225,6 +368,11 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
     public TokenEstadisticas getTokenEstadisticas() {
         log.debug("Obteniendo estadísticas de tokens");
 
+        // Servidas desde memoria; la consulta agregada queda para cuando están deshabilitadas
+        if (estadisticas.isEnabled()) {
+            return estadisticas.obtener();
+        }
+
         LocalDateTime ahora24h = LocalDateTime.now().plusHours(24);
         Object[] stats = refreshTokenRepository.getTokenEstadisticas(ahora24h);
 
@@ -269,11 +417,49 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
         return refreshTokenRepository.countByFechaCreacionBetween(inicio, fin);
     }
 
+    @Override
+    public Optional<RefreshToken> rotate(String tokenId, String nuevoTokenId, LocalDateTime ahora,
+                                         LocalDateTime nuevaExpiracion, int limiteTokensPorUsuario) {
+        log.debug("Rotando refresh token: {}", tokenId);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tokenId", tokenId)
+                .addValue("nuevoTokenId", nuevoTokenId)
+                .addValue("ahora", ahora)
+                .addValue("expiracion", nuevaExpiracion)
+                // El nuevo token ocupa un cupo
+                .addValue("conservar", Math.max(0, limiteTokensPorUsuario - 1));
+
+        int[] excedentesRevocados = {0};
+        List<RefreshToken> rotados = namedParameterJdbcTemplate.query(ROTATE_SQL, params, (rs, rowNum) -> {
+            excedentesRevocados[0] = rs.getInt("excedentes_revocados");
+            return TOKEN_ROW_MAPPER.mapRow(rs, rowNum);
+        });
+
+        rotados.forEach(nuevo -> {
+            filtroRefreshTokens.registrarAlta(nuevo.id());
+            estadisticas.registrarAlta(nuevo.username(), nuevo.deviceInfo(), nuevo.activo(), nuevo.fechaExpiracion());
+        });
+        if (!rotados.isEmpty()) {
+            filtroRefreshTokens.registrarRevocacion(tokenId);
+            // El token anterior más los que excedían el límite
+            estadisticas.registrarRevocaciones(1 + excedentesRevocados[0]);
+        }
+        return rotados.stream().findFirst();
+    }
+
     // ============== MANTENIMIENTO ==============
 
     @Override
     public void updateUltimoUso(String tokenId, LocalDateTime ultimoUso) {
         log.debug("Actualizando último uso para token: {}", tokenId);
+
+        // Se acumula en memoria y se vuelca por lotes
+        if (ultimoUsoWriteBehind.isEnabled()) {
+            ultimoUsoWriteBehind.registrar(tokenId, ultimoUso);
+            return;
+        }
+
         refreshTokenRepository.updateUltimoUso(tokenId, ultimoUso);
     }
 
@@ -284,4 +470,74 @@ public class RefreshTokenPersistenceAdapter implements RefreshTokenPersistencePo
                 .map(mapper::toDomain)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    @Override
+    public int deleteInactiveOlderThan(LocalDateTime fecha) {
+        log.info("Eliminando tokens inactivos sin uso desde: {}", fecha);
+        int deleted = refreshTokenRepository.deleteInactiveOlderThan(fecha);
+        estadisticas.marcarDesfasadas();
+        return deleted;
+    }
+
+    @Override
+    public int deleteInactiveOlderThan(LocalDateTime fecha, Consumer<RefreshToken> auditor) {
+        log.info("Eliminando tokens inactivos sin uso desde {} (con auditoría)", fecha);
+
+        // Las filas devueltas se leen por bloques desde un cursor: la memoria no crece con la tabla
+        int[] eliminados = {0};
+        namedParameterJdbcTemplate.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(DELETE_INACTIVOS_SQL);
+            ps.setObject(1, fecha);
+            ps.setFetchSize(FETCH_SIZE_AUDITORIA);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            RefreshToken token = TOKEN_ROW_MAPPER.mapRow(rs, eliminados[0]);
+            estadisticas.registrarBaja(token.username(), token.deviceInfo(), token.activo(), token.fechaExpiracion());
+            auditor.accept(token);
+            eliminados[0]++;
+        });
+
+        return eliminados[0];
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(FiltroSesiones filtro, Consumer<RefreshToken> consumidor) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SELECT_EXPORTACION);
+
+        if (filtro.username() != null) {
+            sql.append(" AND username = :username");
+            params.addValue("username", filtro.username());
+        }
+        if (filtro.activo() != null) {
+            sql.append(" AND activo = :activo");
+            params.addValue("activo", filtro.activo());
+        }
+        if (filtro.ipAddress() != null) {
+            sql.append(" AND ip_address = :ip");
+            params.addValue("ip", filtro.ipAddress());
+        }
+        if (filtro.desde() != null) {
+            sql.append(" AND fecha_creacion >= :desde");
+            params.addValue("desde", filtro.desde());
+        }
+        if (filtro.hasta() != null) {
+            sql.append(" AND fecha_creacion < :hasta");
+            params.addValue("hasta", filtro.hasta());
+        }
+
+        // Sin ORDER BY: un volcado completo no necesita orden y así se evita ordenar la tabla entera
+        limitesExportacion.aplicar();
+        String sqlPosicional = NamedParameterUtils.substituteNamedParameters(sql.toString(), params);
+        Object[] valores = NamedParameterUtils.buildValueArray(sql.toString(), params.getValues());
+        int[] fila = {0};
+        namedParameterJdbcTemplate.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sqlPosicional,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE_EXPORTACION);
+            new ArgumentPreparedStatementSetter(valores).setValues(ps);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.accept(TOKEN_ROW_MAPPER.mapRow(rs, fila[0]++)));
+    }
+}
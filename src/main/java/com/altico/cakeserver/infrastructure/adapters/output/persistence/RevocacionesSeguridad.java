@@ -0,0 +1,73 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Épocas de seguridad de usuarios y autoridades revocadas, compartidas por todos
+ * los nodos en {@code revocaciones_seguridad}.
+ *
+ * Las escrituras participan en la transacción del cambio que las origina; los valores
+ * sólo avanzan (GREATEST), así que un registro repetido o fuera de orden no retrocede
+ * una revocación.
+ */
+@Component
+@RequiredArgsConstructor
+public class RevocacionesSeguridad {
+
+    private static final String USUARIO = "USUARIO";
+    private static final String AUTORIDAD = "AUTORIDAD";
+
+    private static final String REGISTRAR_SQL = """
+            INSERT INTO revocaciones_seguridad (tipo, clave, revocada_en)
+            VALUES (?, ?, ?)
+            ON CONFLICT (tipo, clave)
+                DO UPDATE SET revocada_en = GREATEST(revocaciones_seguridad.revocada_en, EXCLUDED.revocada_en)
+            """;
+
+    private static final String LEER_SQL =
+            "SELECT clave, revocada_en FROM revocaciones_seguridad WHERE tipo = ? AND revocada_en > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Revocacion(String clave, long revocadaEn) {
+    }
+
+    public void registrarEpoca(String username, long epoca) {
+        jdbcTemplate.update(REGISTRAR_SQL, USUARIO, username, epoca);
+    }
+
+    public void registrarAutoridadRevocada(String autoridad, long revocadaEn) {
+        jdbcTemplate.update(REGISTRAR_SQL, AUTORIDAD, autoridad, revocadaEn);
+    }
+
+    public void eliminarAutoridadRevocada(String autoridad) {
+        jdbcTemplate.update("DELETE FROM revocaciones_seguridad WHERE tipo = ? AND clave = ?", AUTORIDAD, autoridad);
+    }
+
+    public List<Revocacion> epocasDesde(long desde) {
+        return leer(USUARIO, desde);
+    }
+
+    public List<Revocacion> autoridadesRevocadasDesde(long desde) {
+        return leer(AUTORIDAD, desde);
+    }
+
+    /**
+     * Elimina las filas anteriores a {@code limite}: ningún token emitido antes sigue vigente
+     *
+     * @return filas eliminadas
+     */
+    public int purgar(long limite) {
+        return jdbcTemplate.update("DELETE FROM revocaciones_seguridad WHERE revocada_en < ?", limite);
+    }
+
+    private List<Revocacion> leer(String tipo, long desde) {
+        return jdbcTemplate.query(LEER_SQL,
+                (rs, rowNum) -> new Revocacion(rs.getString("clave"), rs.getLong("revocada_en")),
+                tipo, desde);
+    }
+}
@@ -0,0 +1,170 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Resumen horario de {@code auditoria_usuarios} en {@code auditoria_rollup_horaria}.
+ *
+ * Una tarea periódica consolida las horas cerradas (con un margen para el volcado
+ * por lotes) y avanza la marca {@code consolidado_hasta}. Cada ejecución vuelve a
+ * consolidar además las {@code recheck-hours} horas anteriores a la marca, de modo
+ * que los registros que llegan tarde (reintentos del volcado, relojes desfasados)
+ * con una fecha ya consolidada se cuentan igualmente; los que lleguen aún más
+ * tarde sólo aparecen en la tabla cruda. Las estadísticas de un
+ * rango suman el resumen para las horas completas ya consolidadas y sólo agrupan
+ * la tabla cruda en los bordes: la hora parcial inicial y lo posterior a la marca.
+ * El resumen no se ve afectado por la retención de la tabla cruda.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RollupAuditoria {
+
+    private static final String MARCA_SQL =
+            "SELECT consolidado_hasta FROM auditoria_rollup_estado WHERE id = 1";
+
+    private static final String PRIMERA_FECHA_SQL = "SELECT MIN(fecha) FROM auditoria_usuarios";
+
+    private static final String BORRAR_SQL =
+            "DELETE FROM auditoria_rollup_horaria WHERE hora >= ? AND hora < ?";
+
+    private static final String CONSOLIDAR_SQL = """
+            INSERT INTO auditoria_rollup_horaria (hora, accion, resultado, total)
+            SELECT date_trunc('hour', fecha), accion, COALESCE(resultado, ''), COUNT(*)
+            FROM auditoria_usuarios
+            WHERE fecha >= ? AND fecha < ?
+            GROUP BY date_trunc('hour', fecha), accion, COALESCE(resultado, '')
+            """;
+
+    private static final String ESTADISTICAS_SQL = """
+            SELECT accion, SUM(total) AS total, NULLIF(resultado, '') AS resultado
+            FROM (
+                SELECT accion, resultado, total
+                FROM auditoria_rollup_horaria
+                WHERE hora >= ? AND hora < ?
+                UNION ALL
+                SELECT accion, COALESCE(resultado, '') AS resultado, COUNT(*) AS total
+                FROM auditoria_usuarios
+                WHERE fecha >= ? AND fecha < ?
+                GROUP BY accion, COALESCE(resultado, '')
+                UNION ALL
+                SELECT accion, COALESCE(resultado, '') AS resultado, COUNT(*) AS total
+                FROM auditoria_usuarios
+                WHERE fecha >= ? AND fecha <= ?
+                GROUP BY accion, COALESCE(resultado, '')
+            ) t
+            GROUP BY accion, resultado
+            ORDER BY SUM(total) DESC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AdminProperties adminProperties;
+
+    public record Resultado(long horas, int filas, LocalDateTime consolidadoHasta) {}
+
+    public boolean isEnabled() {
+        return adminProperties.getAuditRollup().isEnabled();
+    }
+
+    /**
+     * Consolida las horas cerradas pendientes, como máximo {@code max-hours-per-run},
+     * junto con la ventana de revisión anterior a la marca. Cada tramo se reescribe
+     * completo, así que repetir una ejecución es inocuo.
+     */
+    public Resultado consolidar() {
+        AdminProperties.AuditRollup config = adminProperties.getAuditRollup();
+        LocalDateTime objetivo = truncarHora(LocalDateTime.now().minusMinutes(config.getLagMinutes()));
+
+        return transactionTemplate.execute(status -> {
+            LocalDateTime desde = leerMarcaCreandoEstado();
+            if (desde == null) {
+                // Primera ejecución: se parte de la hora del registro más antiguo
+                LocalDateTime primera = jdbcTemplate.queryForObject(PRIMERA_FECHA_SQL, LocalDateTime.class);
+                desde = primera != null ? truncarHora(primera) : objetivo;
+            }
+
+            LocalDateTime hasta = desde;
+            if (desde.isBefore(objetivo)) {
+                hasta = desde.plusHours(Math.max(1, config.getMaxHoursPerRun()));
+                if (hasta.isAfter(objetivo)) {
+                    hasta = objetivo;
+                }
+            }
+
+            // Horas ya consolidadas que aún pueden recibir registros tardíos
+            LocalDateTime inicio = desde.minusHours(Math.max(0, config.getRecheckHours()));
+            int filas = 0;
+            if (inicio.isBefore(hasta)) {
+                jdbcTemplate.update(BORRAR_SQL, inicio, hasta);
+                filas = jdbcTemplate.update(CONSOLIDAR_SQL, inicio, hasta);
+            }
+            guardarMarca(hasta);
+
+            return new Resultado(Duration.between(desde, hasta).toHours(), filas, hasta);
+        });
+    }
+
+    /**
+     * Conteos por acción y resultado en [desde, hasta], con la misma forma que
+     * la consulta sobre la tabla cruda: {accion, total, resultado}
+     */
+    public List<Object[]> estadisticas(LocalDateTime desde, LocalDateTime hasta) {
+        LocalDateTime marca = leerMarca();
+
+        // Horas completas dentro del rango y ya consolidadas: [inicio, fin)
+        LocalDateTime inicio = truncarHora(desde).equals(desde) ? desde : truncarHora(desde).plusHours(1);
+        LocalDateTime fin = truncarHora(hasta);
+        if (marca != null && marca.isBefore(fin)) {
+            fin = marca;
+        }
+        if (marca == null || !inicio.isBefore(fin)) {
+            // Sin horas aprovechables: todo el rango sale de la tabla cruda
+            inicio = desde;
+            fin = desde;
+        }
+
+        return jdbcTemplate.query(ESTADISTICAS_SQL, (rs, rowNum) -> new Object[]{
+                rs.getString("accion"),
+                rs.getLong("total"),
+                rs.getString("resultado")
+        }, inicio, fin, desde, inicio, fin, hasta);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private LocalDateTime leerMarca() {
+        List<LocalDateTime> marcas = jdbcTemplate.query(MARCA_SQL,
+                (rs, rowNum) -> rs.getObject(1, LocalDateTime.class));
+        return marcas.isEmpty() ? null : marcas.get(0);
+    }
+
+    private LocalDateTime leerMarcaCreandoEstado() {
+        List<LocalDateTime> marcas = jdbcTemplate.query(MARCA_SQL + " FOR UPDATE",
+                (rs, rowNum) -> rs.getObject(1, LocalDateTime.class));
+        if (marcas.isEmpty()) {
+            // Esquema creado por Hibernate: la fila de estado no existe todavía
+            jdbcTemplate.update("INSERT INTO auditoria_rollup_estado (id, consolidado_hasta) VALUES (1, NULL)");
+            return null;
+        }
+        return marcas.get(0);
+    }
+
+    private void guardarMarca(LocalDateTime hasta) {
+        jdbcTemplate.update("UPDATE auditoria_rollup_estado SET consolidado_hasta = ? WHERE id = 1", hasta);
+    }
+
+    private static LocalDateTime truncarHora(LocalDateTime fecha) {
+        return fecha.truncatedTo(ChronoUnit.HOURS);
+    }
+}
@@ -0,0 +1,38 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Tareas programadas que se ejecutan en exclusiva entre nodos.
+ *
+ * Cada tarea tiene una clave fija para el bloqueo asesor de PostgreSQL: no se deriva
+ * del nombre ni del orden de declaración, así que dos tareas nunca comparten bloqueo
+ * y renombrar o reordenar no cambia la clave. Las claves no se reutilizan.
+ *
+ * La ventana mínima es el tiempo que debe pasar desde la última ejecución (en
+ * cualquier nodo) para volver a ejecutarla: cubre el desfase entre los disparos de
+ * los nodos y debe ser menor que el periodo configurado de la tarea, o se saltarán
+ * turnos.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TareaProgramada {
+
+    REFRESH_TOKEN_LIMPIEZA("refresh-token-limpieza", 1, Duration.ofMinutes(30)),
+    REFRESH_TOKEN_ESTADISTICAS("refresh-token-estadisticas", 2, Duration.ofHours(1)),
+    REFRESH_TOKEN_LIMPIEZA_PROFUNDA("refresh-token-limpieza-profunda", 3, Duration.ofDays(1)),
+    REFRESH_TOKEN_SEGURIDAD("refresh-token-seguridad", 4, Duration.ofHours(1)),
+    MANTENIMIENTO_PARTICIONES("mantenimiento-particiones", 5, Duration.ofHours(1)),
+    AUDITORIA_ROLLUP("auditoria-rollup", 6, Duration.ofMinutes(4)),
+    REFRESH_TOKEN_ESTADISTICAS_RECONSTRUCCION("refresh-token-estadisticas-reconstruccion", 7, Duration.ofMinutes(30));
+
+    // Etiqueta de las métricas y los logs, y clave de tareas_programadas
+    private final String nombre;
+    // Segunda clave de pg_try_advisory_lock(int, int)
+    private final int claveBloqueo;
+    // Tiempo mínimo entre dos ejecuciones en el clúster
+    private final Duration ventanaMinima;
+}
@@ -1,7 +1,10 @@
 package com.altico.cakeserver.infrastructure.adapters.output.persistence;
 
 import com.altico.cakeserver.applications.ports.output.TortaPersistencePort;
+import com.altico.cakeserver.domain.exception.DuplicateTortaException;
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.Torta;
+import com.altico.cakeserver.domain.model.TortaBusqueda;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.*;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.TortaPersistenceMapper;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.*;
@@ -9,11 +12,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Component
@@ -23,22 +31,100 @@ public class TortaPersistenceAdapter implements TortaPersistencePort {
     private final TortaRepository tortaRepository;
     private final OcasionRepository ocasionRepository;
     private final TortaPersistenceMapper mapper;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final HuellasTortas huellasTortas;
+
+    private static final String INDICE_HUELLA = "uk_torta_descripcion_normalizada";
+
+    // Términos de la consulta que se tienen en cuenta (acota el coste de la búsqueda)
+    private static final int MAX_TERMINOS = 8;
+
+    // Longitud mínima del último término para buscarlo como prefijo: "t:*" coincide con casi todo
+    private static final int MIN_PREFIJO = 3;
+
+    // Coincidencias que se ordenan por relevancia en cada página; una consulta muy amplia sólo
+    // clasifica las más recientes en lugar de calcular ts_rank sobre todo el catálogo
+    private static final int MAX_CANDIDATOS = 1000;
+
+    private static final Pattern SEPARADOR_TERMINOS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Relevancia sobre la columna generada descripcion_tsv, sólo para los candidatos acotados
+    // (orden fijo por id, así todas las páginas parten del mismo conjunto); los conteos sólo
+    // se calculan para la página
+    private static final String BUSQUEDA_SQL = """
+            SELECT p.id, p.descripcion, p.imagen, p.fecha_creado, p.relevancia,
+                   (SELECT COUNT(*) FROM torta_ocasion o WHERE o.torta_id = p.id AND o.estado = 1) AS cantidad_ocasiones,
+                   (SELECT COUNT(*) FROM imagenes i WHERE i.fk_torta = p.id) AS cantidad_imagenes
+            FROM (
+                SELECT r.* FROM (
+                    SELECT c.id, c.descripcion, c.imagen, c.fecha_creado,
+                           ts_rank(c.descripcion_tsv, c.q) AS relevancia
+                    FROM (
+                        SELECT t.id, t.descripcion, t.imagen, t.fecha_creado, t.descripcion_tsv, q
+                        FROM torta t, to_tsquery('es_sin_acentos', :consulta) q
+                        WHERE t.descripcion_tsv @@ q
+                        ORDER BY t.id DESC
+                        LIMIT :maxCandidatos
+                    ) c
+                ) r
+                %s
+                ORDER BY r.relevancia DESC, r.id
+                LIMIT :limite
+            ) p
+            ORDER BY p.relevancia DESC, p.id
+            """;
 
     public TortaPersistenceAdapter(TortaRepository tortaRepository,
                                    OcasionRepository ocasionRepository,
-                                   TortaPersistenceMapper mapper) {
+                                   TortaPersistenceMapper mapper,
+                                   NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                   HuellasTortas huellasTortas) {
         this.tortaRepository = tortaRepository;
         this.ocasionRepository = ocasionRepository;
         this.mapper = mapper;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.huellasTortas = huellasTortas;
     }
 
     @Override
     public Torta save(Torta torta) {
-        TortaEntity entity = mapper.toEntity(torta);
-        TortaEntity saved = tortaRepository.save(entity);
+        // Una torta existente se actualiza sobre la fila cargada para no pisar su huella
+        TortaEntity entity = torta.getId() == null
+                ? mapper.toEntity(torta)
+                : tortaRepository.findById(torta.getId())
+                        .map(existente -> mapper.updateEntity(existente, torta))
+                        .orElseGet(() -> mapper.toEntity(torta));
+        TortaEntity saved;
+        try {
+            // Flush inmediato: el índice único de la huella decide aquí y no al confirmar
+            saved = tortaRepository.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            String causa = e.getMostSpecificCause().getMessage();
+            if (causa != null && causa.contains(INDICE_HUELLA)) {
+                throw new DuplicateTortaException(torta.getDescripcion());
+            }
+            throw e;
+        }
+
+        huellasTortas.registrar(saved.getDescripcionNormalizada());
         return mapper.toDomain(saved);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsByDescripcionNormalizada(String descripcionNormalizada) {
+        // Sólo se consulta la base de datos si la huella está en memoria (puede estar desfasada)
+        if (!huellasTortas.puedeExistir(descripcionNormalizada)) {
+            return false;
+        }
+
+        boolean existe = tortaRepository.existsByDescripcionNormalizada(descripcionNormalizada);
+        if (!existe) {
+            huellasTortas.descartar(descripcionNormalizada);
+        }
+        return existe;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Torta> findById(Integer id) {
@@ -79,6 +165,16 @@ public class TortaPersistenceAdapter implements TortaPersistencePort {
                 .map(mapper::toDomain);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Torta> findByCursor(ConsultaCursor consulta, int limite) {
+        return tortaRepository.findBy(EspecificacionesKeyset.<TortaEntity>despuesDe(consulta),
+                        q -> q.sortBy(EspecificacionesKeyset.orden(consulta)).limit(limite).all())
+                .stream()
+                .map(mapper::toDomain)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Torta> findByDescripcionContaining(String descripcion) {
@@ -87,6 +183,38 @@ public class TortaPersistenceAdapter implements TortaPersistencePort {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TortaBusqueda> searchRanked(String texto, Float despuesDeRelevancia,
+                                            Integer despuesDeId, int limite) {
+        String consulta = construirConsulta(texto);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("consulta", consulta)
+                .addValue("limite", limite)
+                .addValue("maxCandidatos", MAX_CANDIDATOS);
+
+        String cursor = "";
+        if (despuesDeRelevancia != null && despuesDeId != null) {
+            cursor = "WHERE r.relevancia < :relevancia OR (r.relevancia = :relevancia AND r.id > :id)";
+            params.addValue("relevancia", despuesDeRelevancia);
+            params.addValue("id", despuesDeId);
+        }
+
+        return namedParameterJdbcTemplate.query(BUSQUEDA_SQL.formatted(cursor), params, (rs, rowNum) -> new TortaBusqueda(
+                rs.getInt("id"),
+                rs.getString("descripcion"),
+                rs.getString("imagen"),
+                rs.getObject("fecha_creado", LocalDateTime.class),
+                rs.getInt("cantidad_ocasiones"),
+                rs.getInt("cantidad_imagenes"),
+                rs.getFloat("relevancia")
+        ));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Torta> findByOcasionId(Integer ocasionId) {
@@ -155,4 +283,29 @@ public class TortaPersistenceAdapter implements TortaPersistencePort {
 
         tortaRepository.save(torta);
     }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    /**
+     * Convierte el texto libre en una tsquery: sólo letras y dígitos (no se puede
+     * inyectar sintaxis de tsquery), términos unidos con AND y el último como
+     * prefijo para la búsqueda mientras se escribe, si tiene al menos
+     * {@link #MIN_PREFIJO} caracteres
+     */
+    private static String construirConsulta(String texto) {
+        if (texto == null) {
+            return "";
+        }
+
+        List<String> terminos = SEPARADOR_TERMINOS.splitAsStream(texto.trim())
+                .filter(t -> !t.isEmpty())
+                .limit(MAX_TERMINOS)
+                .collect(Collectors.toList());
+        if (terminos.isEmpty()) {
+            return "";
+        }
+
+        String consulta = String.join(" & ", terminos);
+        return terminos.get(terminos.size() - 1).length() >= MIN_PREFIJO ? consulta + ":*" : consulta;
+    }
 }
@@ -0,0 +1,187 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida de {@code refresh_tokens.ultimo_uso}.
+ *
+ * Los usos se acumulan en memoria (un valor por token, el más reciente) y se
+ * vuelcan periódicamente con un único UPDATE por lote usando arrays de Postgres,
+ * en lugar de una sentencia por validación.
+ *
+ * El volcado sólo lo hace la tarea programada (y el cierre de la aplicación): quien
+ * registra un uso suele estar dentro de una transacción de sólo lectura y no debe
+ * pagar ni arrastrar el UPDATE. El buffer está acotado a {@code maxPending}; si se
+ * llena, por ejemplo con la BD caída, se descarta el token usado hace más tiempo y
+ * se contabiliza en {@code cakeserver.refresh_token.ultimo_uso.descartados}.
+ */
+@Component
+@Slf4j
+public class UltimoUsoWriteBehind {
+
+    private static final String UPDATE_SQL =
+            "UPDATE refresh_tokens t SET ultimo_uso = v.ultimo_uso " +
+            "FROM (SELECT unnest(?::varchar[]) AS id, unnest(?::timestamp[]) AS ultimo_uso) v " +
+            "WHERE t.id = v.id AND (t.ultimo_uso IS NULL OR t.ultimo_uso < v.ultimo_uso)";
+
+    // Orden de acceso: el primero es el token usado hace más tiempo. Protegido por su propio monitor
+    private final LinkedHashMap<String, LocalDateTime> pendientes = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock volcado = new ReentrantLock();
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshTokenProperties.UltimoUso config;
+    private final Timer flushTimer;
+    private final Counter descartados;
+
+    public UltimoUsoWriteBehind(JdbcTemplate jdbcTemplate,
+                                RefreshTokenProperties refreshTokenProperties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = refreshTokenProperties.getUltimoUso();
+        this.flushTimer = Timer.builder("cakeserver.refresh_token.ultimo_uso.flush")
+                .description("Duración del volcado diferido de ultimo_uso")
+                .register(meterRegistry);
+        this.descartados = Counter.builder("cakeserver.refresh_token.ultimo_uso.descartados")
+                .description("Usos descartados por tener el buffer de ultimo_uso lleno")
+                .register(meterRegistry);
+        Gauge.builder("cakeserver.refresh_token.ultimo_uso.pending", this, UltimoUsoWriteBehind::pendientes)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isWriteBehindEnabled();
+    }
+
+    /**
+     * Registra un uso sin tocar la BD; varios usos del mismo token se reducen al más reciente
+     */
+    public void registrar(String tokenId, LocalDateTime ultimoUso) {
+        boolean descartado = false;
+        synchronized (pendientes) {
+            pendientes.merge(tokenId, ultimoUso, (actual, nuevo) -> nuevo.isAfter(actual) ? nuevo : actual);
+            if (pendientes.size() > Math.max(1, config.getMaxPending())) {
+                var masAntiguo = pendientes.keySet().iterator();
+                masAntiguo.next();
+                masAntiguo.remove();
+                descartado = true;
+            }
+        }
+
+        if (descartado) {
+            descartados.increment();
+            log.debug("Buffer de ultimo_uso lleno ({}), descartado el uso más antiguo", config.getMaxPending());
+        }
+    }
+
+    public int pendientes() {
+        synchronized (pendientes) {
+            return pendientes.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.refresh-token.ultimo-uso.flush-interval-ms:5000}")
+    public void volcadoProgramado() {
+        volcar();
+    }
+
+    @PreDestroy
+    public void volcarAlDetener() {
+        log.info("Volcando {} registros de ultimo_uso pendientes antes de detener", pendientes());
+        volcar();
+    }
+
+    /**
+     * Vuelca los usos pendientes. Si otro hilo ya está volcando no se espera:
+     * los registros nuevos saldrán en el siguiente ciclo.
+     */
+    public void volcar() {
+        if (pendientes() == 0 || !volcado.tryLock()) {
+            return;
+        }
+
+        try {
+            flushTimer.record(this::volcarPendientes);
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void volcarPendientes() {
+        // Copia para no retener el monitor durante el UPDATE
+        Map<String, LocalDateTime> copia;
+        synchronized (pendientes) {
+            copia = new HashMap<>(pendientes);
+        }
+
+        // Orden estable de claves: varios nodos bloquean las filas en el mismo orden
+        List<String> ids = new ArrayList<>(copia.keySet());
+        ids.sort(null);
+
+        int batchSize = Math.max(1, config.getBatchSize());
+        int actualizados = 0;
+        for (int desde = 0; desde < ids.size(); desde += batchSize) {
+            List<String> lote = ids.subList(desde, Math.min(ids.size(), desde + batchSize));
+            List<String> loteIds = new ArrayList<>(lote.size());
+            List<LocalDateTime> loteFechas = new ArrayList<>(lote.size());
+            for (String id : lote) {
+                loteIds.add(id);
+                loteFechas.add(copia.get(id));
+            }
+
+            try {
+                actualizados += ejecutarLote(loteIds, loteFechas);
+                // Sólo se descarta si no llegó un uso más reciente durante el volcado
+                synchronized (pendientes) {
+                    for (int i = 0; i < loteIds.size(); i++) {
+                        pendientes.remove(loteIds.get(i), loteFechas.get(i));
+                    }
+                }
+            } catch (Exception e) {
+                // Lo pendiente se conserva para el siguiente ciclo; el tope del buffer evita que crezca sin límite
+                log.error("Error volcando ultimo_uso ({} tokens), se reintentará: {}", loteIds.size(), e.getMessage());
+                return;
+            }
+        }
+
+        log.debug("Volcado de ultimo_uso completado: {} tokens actualizados", actualizados);
+    }
+
+    private int ejecutarLote(List<String> ids, List<LocalDateTime> fechas) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Integer filas = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            try (var ps = con.prepareStatement(UPDATE_SQL)) {
+                Array idsArray = con.createArrayOf("varchar", ids.toArray());
+                Array fechasArray = con.createArrayOf("timestamp",
+                        fechas.stream().map(Timestamp::valueOf).toArray());
+                ps.setArray(1, idsArray);
+                ps.setArray(2, fechasArray);
+                return ps.executeUpdate();
+            }
+        });
+        return filas != null ? filas : 0;
+    }
+}
@@ -1,15 +1,21 @@
 package com.altico.cakeserver.infrastructure.adapters.output.persistence;
 
 import com.altico.cakeserver.applications.ports.output.UsuarioPersistencePort;
+import com.altico.cakeserver.domain.model.ConsultaCursor;
 import com.altico.cakeserver.domain.model.UsuarioCompleto;
 import com.altico.cakeserver.domain.model.UsuarioEstadisticas;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.RolEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.UsuarioEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.AdminPersistenceMapper;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.UsuarioRepository;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -96,6 +102,23 @@ public class UsuarioPersistenceAdapter implements UsuarioPersistencePort {
                 .map(mapper::toDomain);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<UsuarioCompleto> findByCursor(ConsultaCursor consulta, int limite, Boolean activo, String rol) {
+        Specification<UsuarioEntity> spec = filtros(activo, rol).and(EspecificacionesKeyset.despuesDe(consulta));
+        return usuarioRepository.findBy(spec,
+                        q -> q.sortBy(EspecificacionesKeyset.orden(consulta)).limit(limite).all())
+                .stream()
+                .map(mapper::toDomain)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countWithFilters(Boolean activo, String rol) {
+        return usuarioRepository.count(filtros(activo, rol));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<UsuarioCompleto> searchByUsernameOrEmail(String termino) {
@@ -179,4 +202,24 @@ public class UsuarioPersistenceAdapter implements UsuarioPersistencePort {
                 ultimosDias30
         );
     }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    // El rol se filtra con EXISTS en lugar de JOIN + DISTINCT para no romper el orden keyset
+    private static Specification<UsuarioEntity> filtros(Boolean activo, String rol) {
+        return (root, query, cb) -> {
+            var condiciones = cb.conjunction();
+            if (activo != null) {
+                condiciones = cb.and(condiciones, cb.equal(root.get("activo"), activo));
+            }
+            if (rol != null) {
+                Subquery<Integer> conRol = query.subquery(Integer.class);
+                Root<UsuarioEntity> usuario = conRol.correlate(root);
+                Join<UsuarioEntity, RolEntity> roles = usuario.join("roles");
+                conRol.select(roles.get("id")).where(cb.equal(roles.get("nombre"), rol));
+                condiciones = cb.and(condiciones, cb.exists(conRol));
+            }
+            return condiciones;
+        };
+    }
 }
@@ -10,9 +10,11 @@ import java.time.LocalDateTime;
 // Entidad de Auditoría
 @Entity
 @Table(name = "auditoria_usuarios", indexes = {
-        @Index(name = "idx_auditoria_usuario", columnList = "usuario_id"),
-        @Index(name = "idx_auditoria_fecha", columnList = "fecha"),
-        @Index(name = "idx_auditoria_accion", columnList = "accion")
+        @Index(name = "idx_auditoria_fecha_id", columnList = "fecha DESC, id DESC"),
+        @Index(name = "idx_auditoria_usuario_fecha", columnList = "usuario_id, fecha DESC, id DESC"),
+        @Index(name = "idx_auditoria_accion_fecha", columnList = "accion, fecha DESC, id DESC"),
+        @Index(name = "idx_auditoria_resultado_fecha", columnList = "resultado, fecha DESC, id DESC"),
+        @Index(name = "idx_auditoria_ip_fecha", columnList = "ip_address, fecha DESC, id DESC")
 })
 @Getter
 @Setter
@@ -0,0 +1,24 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Conteo de registros de auditoría por hora, acción y resultado.
+ * Lo mantiene {@code RollupAuditoria} por SQL; la entidad sólo declara el esquema.
+ */
+@Entity
+@Table(name = "auditoria_rollup_horaria")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AuditoriaRollupEntity {
+
+    @EmbeddedId
+    private AuditoriaRollupId id;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+}
@@ -0,0 +1,24 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Fila única con la marca de consolidación del resumen horario de auditoría
+@Entity
+@Table(name = "auditoria_rollup_estado")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AuditoriaRollupEstadoEntity {
+
+    @Id
+    @Column(name = "id")
+    private Short id;
+
+    @Column(name = "consolidado_hasta")
+    private LocalDateTime consolidadoHasta;
+}
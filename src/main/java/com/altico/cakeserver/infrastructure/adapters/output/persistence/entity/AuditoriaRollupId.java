@@ -0,0 +1,46 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Clave compuesta del resumen horario de auditoría
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+public class AuditoriaRollupId implements java.io.Serializable {
+
+    @Column(name = "hora", nullable = false)
+    private LocalDateTime hora;
+
+    @Column(name = "accion", nullable = false, length = 100)
+    private String accion;
+
+    @Column(name = "resultado", nullable = false, length = 50)
+    private String resultado;
+
+    public AuditoriaRollupId(LocalDateTime hora, String accion, String resultado) {
+        this.hora = hora;
+        this.accion = accion;
+        this.resultado = resultado;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AuditoriaRollupId that = (AuditoriaRollupId) o;
+        return hora.equals(that.hora) && accion.equals(that.accion) && resultado.equals(that.resultado);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hora, accion, resultado);
+    }
+}
@@ -0,0 +1,48 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bloqueo de cuenta por intentos fallidos de login.
+ * Sólo se persisten los bloqueos; la ventana de intentos vive en memoria.
+ */
+@Entity
+@Table(name = "bloqueos_login",
+        indexes = {
+                @Index(name = "idx_bloqueos_login_hasta", columnList = "bloqueado_hasta")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class BloqueoLoginEntity {
+
+    @Id
+    @Column(name = "username", length = 50)
+    private String username;
+
+    @Column(name = "bloqueado_hasta", nullable = false)
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(name = "intentos_fallidos", nullable = false)
+    private int intentosFallidos;
+
+    @Column(name = "ultima_ip", length = 45)
+    private String ultimaIp;
+
+    @Column(name = "fecha_bloqueo", nullable = false)
+    private LocalDateTime fechaBloqueo;
+
+    public BloqueoLoginEntity(String username, LocalDateTime bloqueadoHasta,
+                              int intentosFallidos, String ultimaIp) {
+        this.username = username;
+        this.bloqueadoHasta = bloqueadoHasta;
+        this.intentosFallidos = intentosFallidos;
+        this.ultimaIp = ultimaIp;
+        this.fechaBloqueo = LocalDateTime.now();
+    }
+}
@@ -14,7 +14,8 @@ import java.util.Set;
 @Entity
 @Table(name = "ocasion", indexes = {
         @Index(name = "idx_ocasion_nombre", columnList = "nombre"),
-        @Index(name = "idx_ocasion_estado", columnList = "estado")
+        @Index(name = "idx_ocasion_estado", columnList = "estado"),
+        @Index(name = "idx_ocasion_fecha_creado_id", columnList = "fecha_creado, id")
 })
 @Getter
 @Setter
@@ -15,9 +15,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "refresh_tokens",
         indexes = {
-                @Index(name = "idx_refresh_token_username", columnList = "username"),
+                @Index(name = "idx_refresh_token_username_creacion", columnList = "username, fecha_creacion, id"),
+                @Index(name = "idx_refresh_token_creacion_id", columnList = "fecha_creacion, id"),
                 @Index(name = "idx_refresh_token_device", columnList = "device_info"),
-                @Index(name = "idx_refresh_token_expiracion", columnList = "fecha_expiracion"),
+                @Index(name = "idx_refresh_token_expiracion_id", columnList = "fecha_expiracion, id"),
                 @Index(name = "idx_refresh_token_activo", columnList = "activo"),
                 @Index(name = "idx_refresh_token_ip", columnList = "ip_address")
         })
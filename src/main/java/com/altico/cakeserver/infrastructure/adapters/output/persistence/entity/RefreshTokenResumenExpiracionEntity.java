@@ -0,0 +1,24 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Conteo parcial (una ranura) de refresh tokens que expiran en un minuto.
+ * Lo mantiene {@code EstadisticasRefreshTokens} por SQL; la entidad sólo declara el esquema.
+ */
+@Entity
+@Table(name = "refresh_token_resumen_expiracion")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshTokenResumenExpiracionEntity {
+
+    @EmbeddedId
+    private RefreshTokenResumenExpiracionId id;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+}
@@ -0,0 +1,42 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Clave compuesta del resumen de expiraciones de refresh tokens
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshTokenResumenExpiracionId implements java.io.Serializable {
+
+    @Column(name = "minuto", nullable = false)
+    private LocalDateTime minuto;
+
+    @Column(name = "ranura", nullable = false)
+    private short ranura;
+
+    public RefreshTokenResumenExpiracionId(LocalDateTime minuto, short ranura) {
+        this.minuto = minuto;
+        this.ranura = ranura;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefreshTokenResumenExpiracionId that = (RefreshTokenResumenExpiracionId) o;
+        return ranura == that.ranura && minuto.equals(that.minuto);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minuto, ranura);
+    }
+}
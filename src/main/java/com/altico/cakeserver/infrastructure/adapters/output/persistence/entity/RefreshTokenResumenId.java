@@ -0,0 +1,45 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Objects;
+
+// Clave compuesta del resumen de refresh tokens
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshTokenResumenId implements java.io.Serializable {
+
+    @Column(name = "tipo", nullable = false, length = 12)
+    private String tipo;
+
+    @Column(name = "clave", nullable = false, length = 255)
+    private String clave;
+
+    @Column(name = "ranura", nullable = false)
+    private short ranura;
+
+    public RefreshTokenResumenId(String tipo, String clave, short ranura) {
+        this.tipo = tipo;
+        this.clave = clave;
+        this.ranura = ranura;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefreshTokenResumenId that = (RefreshTokenResumenId) o;
+        return ranura == that.ranura && tipo.equals(that.tipo) && clave.equals(that.clave);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tipo, clave, ranura);
+    }
+}
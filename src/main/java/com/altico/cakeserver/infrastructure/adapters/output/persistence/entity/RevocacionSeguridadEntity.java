@@ -0,0 +1,27 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Época de seguridad de un usuario o revocación de una autoridad en los access tokens emitidos.
+ * Lo mantiene {@code RevocacionesSeguridad} por SQL; la entidad sólo declara el esquema.
+ */
+@Entity
+@Table(name = "revocaciones_seguridad", indexes = {
+        @Index(name = "idx_revocaciones_seguridad_revocada_en", columnList = "revocada_en")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class RevocacionSeguridadEntity {
+
+    @EmbeddedId
+    private RevocacionSeguridadId id;
+
+    // Milisegundos desde epoch
+    @Column(name = "revocada_en", nullable = false)
+    private long revocadaEn;
+}
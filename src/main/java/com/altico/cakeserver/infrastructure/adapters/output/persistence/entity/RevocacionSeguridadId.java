@@ -0,0 +1,41 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Objects;
+
+// Clave compuesta de las revocaciones de seguridad
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+public class RevocacionSeguridadId implements java.io.Serializable {
+
+    @Column(name = "tipo", nullable = false, length = 10)
+    private String tipo;
+
+    @Column(name = "clave", nullable = false, length = 100)
+    private String clave;
+
+    public RevocacionSeguridadId(String tipo, String clave) {
+        this.tipo = tipo;
+        this.clave = clave;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RevocacionSeguridadId that = (RevocacionSeguridadId) o;
+        return tipo.equals(that.tipo) && clave.equals(that.clave);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tipo, clave);
+    }
+}
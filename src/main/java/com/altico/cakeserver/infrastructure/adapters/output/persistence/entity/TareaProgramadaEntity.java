@@ -0,0 +1,27 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Última ejecución de una tarea programada en cualquier nodo.
+ * Lo mantiene {@code BloqueoTareasDistribuido} por SQL; la entidad sólo declara el esquema.
+ */
+@Entity
+@Table(name = "tareas_programadas")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TareaProgramadaEntity {
+
+    @Id
+    @Column(name = "nombre", length = 100)
+    private String nombre;
+
+    @Column(name = "ultima_ejecucion", nullable = false)
+    private LocalDateTime ultimaEjecucion;
+}
@@ -13,8 +13,9 @@ import java.util.Set;
 
 @Entity
 @Table(name = "torta", indexes = {
-        @Index(name = "idx_torta_descripcion", columnList = "descripcion"),
-        @Index(name = "idx_torta_fecha_creado", columnList = "fecha_creado")
+        @Index(name = "idx_torta_descripcion_id", columnList = "descripcion, id"),
+        @Index(name = "idx_torta_fecha_creado_id", columnList = "fecha_creado, id"),
+        @Index(name = "uk_torta_descripcion_normalizada", columnList = "descripcion_normalizada", unique = true)
 })
 @Getter
 @Setter
@@ -28,6 +29,10 @@ public class TortaEntity {
     @Column(name = "descripcion", nullable = false)
     private String descripcion;
 
+    // Huella para detectar duplicados; la unicidad la garantiza el índice
+    @Column(name = "descripcion_normalizada")
+    private String descripcionNormalizada;
+
     @Column(name = "imagen", nullable = false, length = 500)
     private String imagen;
 
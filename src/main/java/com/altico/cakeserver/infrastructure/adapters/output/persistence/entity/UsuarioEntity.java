@@ -13,7 +13,9 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", indexes = {
+        @Index(name = "idx_usuario_fecha_creado_id", columnList = "fecha_creado, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -64,6 +65,7 @@ public class TortaPersistenceMapper {
         TortaEntity entity = new TortaEntity();
         entity.setId(domain.getId());
         entity.setDescripcion(domain.getDescripcion());
+        entity.setDescripcionNormalizada(domain.getDescripcionNormalizada());
         entity.setImagen(domain.getImagen());
 
         // Las fechas se manejan automáticamente con @CreationTimestamp y @UpdateTimestamp
@@ -74,6 +76,11 @@ public class TortaPersistenceMapper {
     public TortaEntity updateEntity(TortaEntity entity, Torta domain) {
         if (entity == null || domain == null) return entity;
 
+        // La huella sólo se recalcula si cambia la descripción: los duplicados previos a V10
+        // conservan su huella NULL y pueden editarse sin chocar con el índice único
+        if (!Objects.equals(entity.getDescripcion(), domain.getDescripcion())) {
+            entity.setDescripcionNormalizada(domain.getDescripcionNormalizada());
+        }
         entity.setDescripcion(domain.getDescripcion());
         entity.setImagen(domain.getImagen());
 
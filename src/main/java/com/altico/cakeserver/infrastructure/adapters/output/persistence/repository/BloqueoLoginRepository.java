@@ -0,0 +1,21 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.repository;
+
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.BloqueoLoginEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BloqueoLoginRepository extends JpaRepository<BloqueoLoginEntity, String> {
+
+    List<BloqueoLoginEntity> findByBloqueadoHastaAfter(LocalDateTime fecha);
+
+    @Modifying
+    @Query("DELETE FROM BloqueoLoginEntity b WHERE b.bloqueadoHasta < :fecha")
+    int deleteExpiredBefore(@Param("fecha") LocalDateTime fecha);
+}
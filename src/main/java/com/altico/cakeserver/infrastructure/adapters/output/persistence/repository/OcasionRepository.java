@@ -4,6 +4,7 @@ import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.O
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,7 +13,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OcasionRepository extends JpaRepository<OcasionEntity, Integer> {
+public interface OcasionRepository extends JpaRepository<OcasionEntity, Integer>, JpaSpecificationExecutor<OcasionEntity> {
 
     // Buscar por nombre (case insensitive)
     Optional<OcasionEntity> findByNombreIgnoreCase(String nombre);
@@ -4,6 +4,7 @@ import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.R
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, String> {
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, String>, JpaSpecificationExecutor<RefreshTokenEntity> {
 
     // Búsquedas básicas por usuario
     List<RefreshTokenEntity> findByUsername(String username);
@@ -64,8 +65,8 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity
     int revokeAllByDeviceInfo(@Param("deviceInfo") String deviceInfo);
 
     @Modifying
-    @Query("UPDATE RefreshTokenEntity rt SET rt.activo = false WHERE rt.id = :id")
-    void revokeById(@Param("id") String id);
+    @Query("UPDATE RefreshTokenEntity rt SET rt.activo = false WHERE rt.id = :id AND rt.activo = true")
+    int revokeById(@Param("id") String id);
 
     // Actualizar último uso
     @Modifying
@@ -84,6 +85,11 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity
             "WHERE rt.activo = false AND rt.ultimoUso < :fecha")
     List<RefreshTokenEntity> findInactiveOlderThan(@Param("fecha") LocalDateTime fecha);
 
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntity rt " +
+            "WHERE rt.activo = false AND rt.ultimoUso < :fecha")
+    int deleteInactiveOlderThan(@Param("fecha") LocalDateTime fecha);
+
     // Estadísticas de tokens
     //noinspection JpaQlInspection
     @SuppressWarnings("JpaQlInspection")
@@ -45,6 +45,11 @@ public interface RolRepository extends JpaRepository<RolEntity, Integer> {
     @Query("SELECT r FROM RolEntity r ORDER BY r.prioridad ASC, r.nombre ASC")
     List<RolEntity> findAllOrderByPrioridad();
 
+    // Pares (rol, recurso, acción) activos para compilar la matriz de permisos
+    @Query("SELECT r.nombre, p.recurso, p.accion FROM RolEntity r JOIN r.permisos p " +
+            "WHERE r.activo = true AND p.activo = true")
+    List<Object[]> findParesRolPermisoActivos();
+
     // Roles sin permisos
     @Query("SELECT r FROM RolEntity r " +
             "WHERE r.permisos IS EMPTY OR SIZE(r.permisos) = 0")
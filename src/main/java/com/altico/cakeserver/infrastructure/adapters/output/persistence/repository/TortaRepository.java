@@ -5,6 +5,7 @@ import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.T
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,7 +15,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TortaRepository extends JpaRepository<TortaEntity, Integer> {
+public interface TortaRepository extends JpaRepository<TortaEntity, Integer>, JpaSpecificationExecutor<TortaEntity> {
 
     // Búsqueda con fetch join para evitar N+1 queries
     @Query("SELECT DISTINCT t FROM TortaEntity t " +
@@ -23,6 +24,9 @@ public interface TortaRepository extends JpaRepository<TortaEntity, Integer> {
             "WHERE t.id = :id")
     Optional<TortaEntity> findByIdWithOcasiones(@Param("id") Integer id);
 
+    // Detección de duplicados por huella (índice único)
+    boolean existsByDescripcionNormalizada(String descripcionNormalizada);
+
     // Búsqueda por descripción con full text search de PostgreSQL
     @Query(value = "SELECT * FROM torta t " +
             "WHERE to_tsvector('spanish', t.descripcion) @@ plainto_tsquery('spanish', :searchTerm)",
@@ -0,0 +1,103 @@
+package com.altico.cakeserver.infrastructure.adapters.output.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Análisis de texto en español para el índice en memoria: separa palabras,
+ * las pasa a minúsculas sin acentos, descarta palabras vacías y reduce plurales
+ * y género con un stemmer ligero ("Tortas de Fresa" -> tort, fres).
+ */
+final class AnalizadorEspanol {
+
+    private static final Pattern SEPARADOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "e", "el", "en", "entre", "es", "la", "las", "lo", "los",
+            "mas", "o", "para", "pero", "por", "se", "sin", "sobre", "su", "sus", "u", "un", "una", "y"
+    );
+
+    private AnalizadorEspanol() {
+    }
+
+    record Palabra(String forma, String plegada) {}
+
+    /**
+     * Minúsculas, sin acentos y con los espacios colapsados
+     */
+    static String plegar(String texto) {
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("");
+        return ESPACIOS.matcher(sinAcentos.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Palabras significativas del texto con su forma original en minúsculas (para mostrar)
+     */
+    static List<Palabra> palabras(String texto) {
+        List<Palabra> palabras = new ArrayList<>();
+        if (texto == null) {
+            return palabras;
+        }
+
+        for (String forma : SEPARADOR.split(texto.toLowerCase(Locale.ROOT))) {
+            if (forma.isEmpty()) {
+                continue;
+            }
+            String plegada = plegar(forma);
+            if (!PALABRAS_VACIAS.contains(plegada)) {
+                palabras.add(new Palabra(forma, plegada));
+            }
+        }
+        return palabras;
+    }
+
+    /**
+     * Raíces distintas de las palabras significativas del texto
+     */
+    static List<String> raices(String texto) {
+        List<String> raices = new ArrayList<>();
+        for (Palabra palabra : palabras(texto)) {
+            String raiz = raiz(palabra.plegada());
+            if (!raices.contains(raiz)) {
+                raices.add(raiz);
+            }
+        }
+        return raices;
+    }
+
+    /**
+     * Stemmer ligero (plural y género) sobre una palabra ya plegada
+     */
+    static String raiz(String palabra) {
+        int n = palabra.length();
+        if (n < 5) {
+            return palabra;
+        }
+
+        char ultima = palabra.charAt(n - 1);
+        if (ultima == 'o' || ultima == 'a' || ultima == 'e') {
+            return palabra.substring(0, n - 1);
+        }
+        if (ultima == 's') {
+            if (palabra.endsWith("eses")) {
+                return palabra.substring(0, n - 2);
+            }
+            if (palabra.endsWith("ces")) {
+                // nueces -> nuez
+                return palabra.substring(0, n - 3) + "z";
+            }
+            char penultima = palabra.charAt(n - 2);
+            if (penultima == 'o' || penultima == 'a' || penultima == 'e') {
+                return palabra.substring(0, n - 2);
+            }
+        }
+        return palabra;
+    }
+}
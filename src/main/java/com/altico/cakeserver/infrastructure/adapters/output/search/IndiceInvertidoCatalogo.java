@@ -0,0 +1,425 @@
+package com.altico.cakeserver.infrastructure.adapters.output.search;
+
+import com.altico.cakeserver.applications.ports.output.IndiceBusquedaPort;
+import com.altico.cakeserver.domain.model.Ocasion;
+import com.altico.cakeserver.domain.model.Sugerencia;
+import com.altico.cakeserver.domain.model.Torta;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.OcasionPersistenceMapper;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.TortaPersistenceMapper;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.OcasionRepository;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.TortaRepository;
+import com.altico.cakeserver.infrastructure.config.BusquedaProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Motor de búsqueda en memoria sobre {@code torta.descripcion} y {@code ocasion.nombre}.
+ *
+ * Un índice invertido de raíces a listas ordenadas de IDs de torta (arrays de int)
+ * resuelve las búsquedas por intersección, y dos mapas ordenados (palabras del
+ * catálogo y nombres de ocasiones activas, sin acentos) resuelven el autocompletado
+ * por rango de prefijo. Se construye al arrancar desde los repositorios y se
+ * mantiene con las escrituras de los servicios al confirmarse. Mientras no está
+ * listo, o si está deshabilitado, los servicios consultan la base de datos.
+ *
+ * Con varios nodos cada uno sólo ve al instante sus propias escrituras: el índice
+ * se reconstruye completo cada {@code app.busqueda.rebuild-interval-ms}, de modo
+ * que un cambio hecho en otro nodo tarda como mucho ese intervalo (más lo que dure
+ * la carga) en aparecer. La carga se hace sobre un catálogo nuevo sin bloquear las
+ * búsquedas, y los cambios locales confirmados mientras tanto se reaplican sobre él
+ * antes de publicarlo.
+ */
+@Component
+@Slf4j
+public class IndiceInvertidoCatalogo implements IndiceBusquedaPort {
+
+    // Límite superior para el rango de prefijo en los mapas ordenados
+    private static final char FIN_PREFIJO = Character.MAX_VALUE;
+
+    private final BusquedaProperties config;
+    private final TortaRepository tortaRepository;
+    private final OcasionRepository ocasionRepository;
+    private final TortaPersistenceMapper tortaMapper;
+    private final OcasionPersistenceMapper ocasionMapper;
+    private final TransactionTemplate lecturaTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Protegidos por lock: el catálogo se sustituye completo en cada reconstrucción
+    private Catalogo catalogo = new Catalogo();
+    // Cambios confirmados durante una reconstrucción (null si no hay ninguna en curso)
+    private List<Consumer<Catalogo>> cambiosDuranteCarga = null;
+
+    private volatile boolean listo = false;
+
+    public IndiceInvertidoCatalogo(BusquedaProperties busquedaProperties,
+                                   TortaRepository tortaRepository,
+                                   OcasionRepository ocasionRepository,
+                                   TortaPersistenceMapper tortaMapper,
+                                   OcasionPersistenceMapper ocasionMapper,
+                                   PlatformTransactionManager transactionManager) {
+        this.config = busquedaProperties;
+        this.tortaRepository = tortaRepository;
+        this.ocasionRepository = ocasionRepository;
+        this.tortaMapper = tortaMapper;
+        this.ocasionMapper = ocasionMapper;
+        this.lecturaTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        reconstruir();
+    }
+
+    /**
+     * Carga el catálogo completo desde la base de datos en una estructura nueva y la
+     * publica. Recoge los cambios de otros nodos; los locales que se confirmen durante
+     * la carga se reaplican sobre el catálogo nuevo (son idempotentes) antes del cambio.
+     */
+    @Scheduled(fixedDelayString = "${app.busqueda.rebuild-interval-ms:300000}",
+            initialDelayString = "${app.busqueda.rebuild-interval-ms:300000}")
+    public synchronized void reconstruir() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        conBloqueoDeEscritura(() -> cambiosDuranteCarga = new ArrayList<>());
+        try {
+            Catalogo nuevo = new Catalogo();
+            lecturaTemplate.executeWithoutResult(status -> {
+                tortaRepository.findAll().forEach(entity -> nuevo.agregarTorta(tortaMapper.toDomain(entity)));
+                ocasionRepository.findAll().forEach(entity -> nuevo.agregarOcasion(ocasionMapper.toDomain(entity)));
+            });
+
+            conBloqueoDeEscritura(() -> {
+                cambiosDuranteCarga.forEach(cambio -> cambio.accept(nuevo));
+                catalogo = nuevo;
+                listo = true;
+            });
+            log.info("Índice de búsqueda construido: {} tortas, {} términos, {} ocasiones en {} ms",
+                    nuevo.tortas.size(), nuevo.postings.size(), nuevo.ocasiones.size(),
+                    System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            // Si ya estaba listo se sigue sirviendo el catálogo anterior hasta la próxima reconstrucción
+            log.error("No se pudo construir el índice de búsqueda{}: {}",
+                    listo ? "" : ", se usará la base de datos", e.getMessage());
+        } finally {
+            conBloqueoDeEscritura(() -> cambiosDuranteCarga = null);
+        }
+    }
+
+    @Override
+    public boolean isListo() {
+        return config.isEnabled() && listo;
+    }
+
+    @Override
+    public List<Torta> buscarTortas(String texto) {
+        List<String> raices = AnalizadorEspanol.raices(texto);
+        if (raices.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> listas = new ArrayList<>(raices.size());
+            for (String raiz : raices) {
+                Postings lista = catalogo.postings.get(raiz);
+                if (lista == null) {
+                    return List.of();
+                }
+                listas.add(lista);
+            }
+
+            // Intersección empezando por la lista más corta
+            listas.sort(Comparator.comparingInt(Postings::tamano));
+            int[] ids = listas.get(0).copia();
+            int total = ids.length;
+            for (int i = 1; i < listas.size() && total > 0; i++) {
+                total = listas.get(i).retener(ids, total);
+            }
+
+            List<Torta> resultado = new ArrayList<>(total);
+            for (int j = 0; j < total; j++) {
+                resultado.add(catalogo.tortas.get(ids[j]));
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Sugerencia> autocompletar(String texto, int limite) {
+        if (texto == null || texto.isBlank() || limite <= 0) {
+            return List.of();
+        }
+
+        String plegado = AnalizadorEspanol.plegar(texto);
+        String original = texto.trim();
+        int corte = Math.max(original.lastIndexOf(' '), original.lastIndexOf('\t'));
+        // Lo ya escrito antes de la última palabra se conserva tal cual en la sugerencia
+        String previo = corte >= 0 ? original.substring(0, corte + 1) : "";
+        String ultima = AnalizadorEspanol.plegar(original.substring(corte + 1));
+
+        List<Sugerencia> sugerencias = new ArrayList<>(limite);
+        lock.readLock().lock();
+        try {
+            for (Ocasion ocasion : catalogo.ocasiones.subMap(plegado, plegado + FIN_PREFIJO).values()) {
+                if (sugerencias.size() >= limite) {
+                    return sugerencias;
+                }
+                sugerencias.add(new Sugerencia(ocasion.getNombre(), Sugerencia.Tipo.OCASION));
+            }
+
+            if (ultima.isEmpty()) {
+                return sugerencias;
+            }
+
+            // Las palabras más frecuentes del catálogo que completan la última palabra
+            int restantes = limite - sugerencias.size();
+            PriorityQueue<Termino> mejores = new PriorityQueue<>(Comparator.comparingInt(Termino::frecuencia));
+            for (Termino termino : catalogo.vocabulario.subMap(ultima, ultima + FIN_PREFIJO).values()) {
+                mejores.offer(termino);
+                if (mejores.size() > restantes) {
+                    mejores.poll();
+                }
+            }
+
+            List<Termino> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(Comparator.comparingInt(Termino::frecuencia).reversed());
+            for (Termino termino : ordenados) {
+                sugerencias.add(new Sugerencia(previo + termino.forma(), Sugerencia.Tipo.TERMINO));
+            }
+            return sugerencias;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexarTorta(Torta torta) {
+        if (!config.isEnabled() || torta == null || torta.getId() == null) {
+            return;
+        }
+        despuesDeConfirmar(c -> {
+            c.quitarTorta(torta.getId());
+            c.agregarTorta(torta);
+        });
+    }
+
+    @Override
+    public void eliminarTorta(Integer id) {
+        if (!config.isEnabled() || id == null) {
+            return;
+        }
+        despuesDeConfirmar(c -> c.quitarTorta(id));
+    }
+
+    @Override
+    public void indexarOcasion(Ocasion ocasion) {
+        if (!config.isEnabled() || ocasion == null || ocasion.getId() == null) {
+            return;
+        }
+        despuesDeConfirmar(c -> {
+            c.quitarOcasion(ocasion.getId());
+            c.agregarOcasion(ocasion);
+        });
+    }
+
+    @Override
+    public void eliminarOcasion(Integer id) {
+        if (!config.isEnabled() || id == null) {
+            return;
+        }
+        despuesDeConfirmar(c -> c.quitarOcasion(id));
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void despuesDeConfirmar(Consumer<Catalogo> cambio) {
+        Runnable conBloqueo = () -> conBloqueoDeEscritura(() -> {
+            cambio.accept(catalogo);
+            if (cambiosDuranteCarga != null) {
+                cambiosDuranteCarga.add(cambio);
+            }
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    conBloqueo.run();
+                }
+            });
+        } else {
+            conBloqueo.run();
+        }
+    }
+
+    private void conBloqueoDeEscritura(Runnable accion) {
+        lock.writeLock().lock();
+        try {
+            accion.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Estructuras del índice. Una vez publicado sólo se modifica con el bloqueo de escritura
+     */
+    private static final class Catalogo {
+
+        // raíz -> IDs de tortas que la contienen
+        private final Map<String, Postings> postings = new HashMap<>();
+        // ID -> torta indexada, para responder sin consultar la base de datos
+        private final Map<Integer, Torta> tortas = new HashMap<>();
+        // ID -> raíces y palabras indexadas, para retirarlas al actualizar o eliminar
+        private final Map<Integer, Indexada> indexadas = new HashMap<>();
+        // palabra sin acentos -> frecuencia en el catálogo y forma para mostrar
+        private final TreeMap<String, Termino> vocabulario = new TreeMap<>();
+        // nombre sin acentos -> ocasión activa
+        private final TreeMap<String, Ocasion> ocasiones = new TreeMap<>();
+        private final Map<Integer, String> nombrePorOcasion = new HashMap<>();
+
+        void agregarTorta(Torta torta) {
+            List<AnalizadorEspanol.Palabra> palabras = AnalizadorEspanol.palabras(torta.getDescripcion());
+            List<String> raices = new ArrayList<>(palabras.size());
+            List<String> plegadas = new ArrayList<>(palabras.size());
+
+            for (AnalizadorEspanol.Palabra palabra : palabras) {
+                String raiz = AnalizadorEspanol.raiz(palabra.plegada());
+                if (!raices.contains(raiz)) {
+                    raices.add(raiz);
+                    postings.computeIfAbsent(raiz, r -> new Postings()).agregar(torta.getId());
+                }
+                if (!plegadas.contains(palabra.plegada())) {
+                    plegadas.add(palabra.plegada());
+                    vocabulario.compute(palabra.plegada(), (p, t) -> t == null
+                            ? new Termino(palabra.forma(), 1)
+                            : new Termino(t.forma(), t.frecuencia() + 1));
+                }
+            }
+
+            tortas.put(torta.getId(), torta);
+            indexadas.put(torta.getId(), new Indexada(raices.toArray(String[]::new), plegadas.toArray(String[]::new)));
+        }
+
+        void quitarTorta(Integer id) {
+            Indexada anterior = indexadas.remove(id);
+            tortas.remove(id);
+            if (anterior == null) {
+                return;
+            }
+
+            for (String raiz : anterior.raices()) {
+                Postings lista = postings.get(raiz);
+                if (lista != null && lista.quitar(id) && lista.tamano() == 0) {
+                    postings.remove(raiz);
+                }
+            }
+            for (String plegada : anterior.palabras()) {
+                vocabulario.computeIfPresent(plegada, (p, t) -> t.frecuencia() <= 1
+                        ? null
+                        : new Termino(t.forma(), t.frecuencia() - 1));
+            }
+        }
+
+        void agregarOcasion(Ocasion ocasion) {
+            // Sólo se sugieren las ocasiones activas
+            if (!ocasion.estaActiva()) {
+                return;
+            }
+            String nombre = AnalizadorEspanol.plegar(ocasion.getNombre());
+            ocasiones.put(nombre, ocasion);
+            nombrePorOcasion.put(ocasion.getId(), nombre);
+        }
+
+        void quitarOcasion(Integer id) {
+            String nombre = nombrePorOcasion.remove(id);
+            if (nombre != null) {
+                ocasiones.remove(nombre);
+            }
+        }
+    }
+
+    private record Indexada(String[] raices, String[] palabras) {}
+
+    private record Termino(String forma, int frecuencia) {}
+
+    /**
+     * Lista ordenada de IDs sobre un array de int que crece por duplicación
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int tamano = 0;
+
+        int tamano() {
+            return tamano;
+        }
+
+        void agregar(int id) {
+            int pos = Arrays.binarySearch(ids, 0, tamano, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, tamano - pos);
+            ids[pos] = id;
+            tamano++;
+        }
+
+        boolean quitar(int id) {
+            int pos = Arrays.binarySearch(ids, 0, tamano, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, tamano - pos - 1);
+            tamano--;
+            return true;
+        }
+
+        int[] copia() {
+            return Arrays.copyOf(ids, tamano);
+        }
+
+        /**
+         * Deja al principio de {@code candidatos} sólo los que también están en esta lista
+         *
+         * @return cuántos candidatos quedan
+         */
+        int retener(int[] candidatos, int total) {
+            int quedan = 0;
+            for (int i = 0; i < total; i++) {
+                if (Arrays.binarySearch(ids, 0, tamano, candidatos[i]) >= 0) {
+                    candidatos[quedan++] = candidatos[i];
+                }
+            }
+            return quedan;
+        }
+    }
+}
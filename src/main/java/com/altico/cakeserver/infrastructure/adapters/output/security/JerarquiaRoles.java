@@ -0,0 +1,108 @@
+package com.altico.cakeserver.infrastructure.adapters.output.security;
+
+import com.altico.cakeserver.applications.ports.output.JerarquiaRolesPort;
+import com.altico.cakeserver.domain.event.RolModificadoEvent;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.RolEntity;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.RolRepository;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Cierre transitivo de la jerarquía de roles.
+ *
+ * Un rol hereda las autoridades de todos los roles activos con prioridad
+ * numéricamente mayor (menos privilegiados): ROLE_ADMIN (10) incluye ROLE_USER (100)
+ * y ROLE_VIEWER (500). El cierre se calcula una sola vez, se publica como un mapa
+ * inmutable y sólo se recalcula cuando cambian los roles.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JerarquiaRoles implements JerarquiaRolesPort {
+
+    private final RolRepository rolRepository;
+    private final AdminProperties adminProperties;
+
+    // rol -> roles efectivos (incluye el propio rol)
+    private volatile Map<String, Set<String>> cierre = Map.of();
+
+    @Override
+    public Set<String> expandirRoles(Collection<String> roles) {
+        if (!adminProperties.isRoleHierarchyEnabled()) {
+            return Set.copyOf(roles);
+        }
+
+        Map<String, Set<String>> actual = cierre;
+        Set<String> efectivos = new HashSet<>();
+        for (String rol : roles) {
+            efectivos.addAll(actual.getOrDefault(rol, Set.of(rol)));
+        }
+        return efectivos;
+    }
+
+    public List<GrantedAuthority> expandirAutoridades(Collection<? extends GrantedAuthority> autoridades) {
+        if (!adminProperties.isRoleHierarchyEnabled()) {
+            return List.copyOf(autoridades);
+        }
+
+        return expandirRoles(autoridades.stream().map(GrantedAuthority::getAuthority).toList()).stream()
+                .map(SimpleGrantedAuthority::new)
+                .map(GrantedAuthority.class::cast)
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    // Antes que las cachés que invalidan por el mismo evento, para que recarguen con el cierre nuevo
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRolModificado(RolModificadoEvent event) {
+        reconstruir();
+    }
+
+    @Override
+    public synchronized void reconstruir() {
+        List<RolEntity> roles = new ArrayList<>(rolRepository.findByActivo(true));
+        // De menor a mayor privilegio
+        roles.sort(Comparator.comparingInt(RolEntity::getPrioridad).reversed());
+
+        Map<String, Set<String>> nuevo = new HashMap<>();
+        Set<String> heredados = new HashSet<>();
+        int i = 0;
+        while (i < roles.size()) {
+            // Los roles con la misma prioridad no se heredan entre sí
+            int prioridad = roles.get(i).getPrioridad();
+            int fin = i;
+            while (fin < roles.size() && roles.get(fin).getPrioridad() == prioridad) {
+                fin++;
+            }
+
+            for (int j = i; j < fin; j++) {
+                Set<String> efectivos = new HashSet<>(heredados);
+                efectivos.add(roles.get(j).getNombre());
+                nuevo.put(roles.get(j).getNombre(), Set.copyOf(efectivos));
+            }
+            for (int j = i; j < fin; j++) {
+                heredados.add(roles.get(j).getNombre());
+            }
+            i = fin;
+        }
+
+        cierre = Map.copyOf(nuevo);
+        log.info("Jerarquía de roles recalculada: {} roles activos", nuevo.size());
+    }
+}
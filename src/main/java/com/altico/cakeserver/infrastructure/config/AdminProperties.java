@@ -0,0 +1,151 @@
+package com.altico.cakeserver.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.admin")
+public class AdminProperties {
+    // Límites de seguridad
+    private int maxLoginAttempts = 5;
+    private int lockoutDurationMinutes = 30;
+    // Ventana deslizante para contar intentos fallidos y máximo de usuarios con fallos en memoria
+    private int loginFailureWindowMinutes = 15;
+    private int loginAttemptsMaxTracked = 10000;
+    private int sessionTimeoutMinutes = 30;
+    private int maxConcurrentSessions = 3;
+
+    // Configuración de tokens
+    private int maxRefreshTokensPerUser = 5;
+    private int tokenCleanupIntervalHours = 24;
+    private int suspiciousActivityThreshold = 10;
+
+    // Configuración de auditoría
+    private int auditRetentionDays = 90;
+    private boolean auditCleanupEnabled = true;
+    private boolean auditSensitiveOperations = true;
+    // Escritura asíncrona por lotes (app.admin.audit-pipeline.*)
+    private AuditPipeline auditPipeline = new AuditPipeline();
+    // Resumen horario para estadísticas de auditoría (app.admin.audit-rollup.*)
+    private AuditRollup auditRollup = new AuditRollup();
+
+    // Configuración de roles
+    private String defaultUserRole = "ROLE_USER";
+    private boolean roleHierarchyEnabled = true;
+
+    // Configuración de permisos
+    private boolean permissionSyncEnabled = true;
+    private boolean permissionAutoDiscovery = true;
+
+    // Limitación de peticiones (app.admin.rate-limit.*)
+    private RateLimit rateLimit = new RateLimit();
+
+    // Particiones mensuales de refresh_tokens y auditoria_usuarios (app.admin.partitions.*)
+    private Partitions partitions = new Partitions();
+
+    // Exportaciones en streaming (app.admin.export.*)
+    private Export export = new Export();
+
+    @Getter
+    @Setter
+    public static class RateLimit {
+        private boolean enabled = true;
+        // Sólo usar X-Forwarded-For / X-Real-IP si la aplicación está detrás de un proxy confiable
+        private boolean trustForwardedHeaders = false;
+        // Máximo de claves (IP / usuario) en memoria y tiempo sin uso antes de descartarlas
+        private int maxKeys = 100000;
+        private long idleEvictionSeconds = 600;
+        // Cada cuánto se recorren las cubetas para descartar las inactivas
+        private long evictionIntervalMs = 60000;
+
+        private Policy login = new Policy(10, 10);
+        // Por usuario e IP
+        private Policy loginPorUsuario = new Policy(5, 5);
+        // Por usuario desde cualquier IP: holgado frente a loginPorUsuario para que una sola IP no lo agote
+        private Policy loginPorCuenta = new Policy(30, 30);
+        private Policy register = new Policy(5, 5);
+        private Policy refresh = new Policy(20, 20);
+        // Presupuesto general por cliente para todo /api/**
+        private Policy global = new Policy(300, 300);
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        // Ráfaga máxima y recarga de tokens por minuto
+        private int capacity;
+        private int refillPerMinute;
+
+        public Policy() {
+        }
+
+        public Policy(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.refillPerMinute = refillPerMinute;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class AuditPipeline {
+        private boolean enabled = true;
+        // Registros en cola antes de aplicar la política de desborde
+        private int capacity = 10000;
+        private int batchSize = 500;
+        private long flushIntervalMs = 1000;
+        // CALLER_RUNS: quien audita vuelca (contrapresión); DROP: se descarta y se cuenta
+        private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+        // Volcados que intenta quien audita con la cola llena antes de descartar el registro
+        private int callerRunsMaxFlushes = 3;
+        // Volcados fallidos que soporta un registro (BD caída) antes de descartarse
+        private int maxRetries = 10;
+
+        public enum OverflowPolicy {
+            CALLER_RUNS,
+            DROP
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class AuditRollup {
+        private boolean enabled = true;
+        // Margen antes de consolidar una hora, para que el volcado por lotes haya escrito sus registros
+        private int lagMinutes = 10;
+        // Horas consolidadas como máximo por ejecución (acota la recuperación tras una parada)
+        private int maxHoursPerRun = 168;
+        // Horas anteriores a la marca que se reconsolidan en cada ejecución (registros tardíos)
+        private int recheckHours = 6;
+        private long intervalMs = 300000;
+    }
+
+    @Getter
+    @Setter
+    public static class Partitions {
+        private boolean enabled = true;
+        // Meses futuros que deben existir siempre
+        private int monthsAhead = 3;
+        // Días que se conservan las particiones de tokens ya expirados antes de eliminarlas
+        private int tokenGraceDays = 1;
+        // Espera máxima por los bloqueos del DDL; si se agota se reintenta en la siguiente ejecución
+        private long lockTimeoutMs = 5000;
+        private String maintenanceCron = "0 30 2 * * *";
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+        // Tiempo máximo de un volcado; sólo se aplica a /api/v1/admin/export, no al resto de peticiones asíncronas
+        private long timeoutMs = 1800000;
+        // Volcados simultáneos por nodo (cada uno retiene una conexión del pool); el resto recibe 429
+        private int maxConcurrent = 2;
+        private long retryAfterSeconds = 30;
+        // Topes en Postgres: duración de la consulta y pausa del cliente entre bloques del cursor
+        private long statementTimeoutMs = 1800000;
+        private long idleTimeoutMs = 60000;
+    }
+}
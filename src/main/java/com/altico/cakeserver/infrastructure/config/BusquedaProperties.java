@@ -0,0 +1,19 @@
+package com.altico.cakeserver.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.busqueda")
+public class BusquedaProperties {
+    // Índice invertido en memoria sobre tortas y ocasiones; deshabilitado = búsqueda en PostgreSQL
+    private boolean enabled = false;
+    // Límite superior de sugerencias por petición de autocompletado
+    private int maxSugerencias = 20;
+    // Reconstrucción completa periódica: acota cuánto tarda en verse un cambio hecho en otro nodo
+    private long rebuildIntervalMs = 300000;
+}
@@ -14,4 +14,21 @@ public class JwtProperties {
     private final long expirationMs = 86400000;
     private final long refreshExpirationMs = 604800000;
     private String issuer;
-}
\ No newline at end of file
+
+    // Si es true, las autoridades se toman de los claims firmados del token
+    // en lugar de cargar el usuario desde la base de datos en cada petición
+    private boolean statelessAuthorization = false;
+
+    // Cada cuánto se releen las revocaciones guardadas por otros nodos (modo sin estado)
+    private long epochRefreshIntervalMs = 5000;
+
+    // Caché de tokens ya verificados (app.jwt.cache.*)
+    private Cache cache = new Cache();
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private boolean enabled = true;
+        private int maxEntries = 10000;
+    }
+}
@@ -0,0 +1,19 @@
+package com.altico.cakeserver.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.security.password-hashing")
+public class PasswordHashingProperties {
+    // Hilos dedicados a BCrypt (por defecto la mitad de los núcleos)
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Peticiones en espera antes de responder 503
+    private int queueCapacity = 64;
+    private long timeoutMs = 10000;
+    private long retryAfterSeconds = 2;
+}
@@ -0,0 +1,101 @@
+package com.altico.cakeserver.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.refresh-token")
+public class RefreshTokenProperties {
+
+    // Escritura diferida de ultimo_uso (app.refresh-token.ultimo-uso.*)
+    private UltimoUso ultimoUso = new UltimoUso();
+
+    // Filtro negativo de tokens (app.refresh-token.filtro.*)
+    private Filtro filtro = new Filtro();
+
+    // Purga por lotes de tokens expirados (app.refresh-token.purga.*)
+    private Purga purga = new Purga();
+
+    // Limpieza profunda semanal (app.refresh-token.deep-cleanup.*)
+    private DeepCleanup deepCleanup = new DeepCleanup();
+
+    // Estadísticas incrementales sobre un resumen compartido (app.refresh-token.estadisticas.*)
+    private Estadisticas estadisticas = new Estadisticas();
+
+    // Detección de actividad sospechosa (app.refresh-token.security-check.*)
+    private SecurityCheck securityCheck = new SecurityCheck();
+
+    @Getter
+    @Setter
+    public static class UltimoUso {
+        private boolean writeBehindEnabled = true;
+        private long flushIntervalMs = 5000;
+        // Tope de tokens pendientes; al superarlo se descarta el usado hace más tiempo
+        private int maxPending = 50000;
+        // Filas por sentencia UPDATE
+        private int batchSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Filtro {
+        private boolean enabled = true;
+        // Con varios nodos el Bloom local no ve los tokens emitidos por otros: sólo
+        // debe activarse con un único nodo. Con false el Bloom no se construye y sólo se
+        // rechazan IDs mal formados o revocados en este nodo; el resto se consulta en la BD
+        private boolean bloomAuthoritative = false;
+        private long expectedTokens = 1_000_000;
+        private double falsePositiveRate = 0.01;
+        private int maxRevoked = 100_000;
+        private long rebuildIntervalMs = 3_600_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Purga {
+        private int batchSize = 1000;
+        private long pauseMs = 50;
+        // Tiempo máximo por ejecución; lo pendiente se retoma en la siguiente
+        private long timeBudgetMs = 30_000;
+    }
+
+    @Getter
+    @Setter
+    public static class DeepCleanup {
+        private boolean enabled = true;
+        // Días sin uso tras los cuales se eliminan los tokens ya revocados
+        private int inactiveDaysThreshold = 30;
+        // Registrar cada token eliminado (lectura por cursor del resultado)
+        private boolean auditRemoved = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Estadisticas {
+        private boolean enabled = true;
+        // Reconstrucción del resumen compartido desde refresh_tokens (un nodo por turno);
+        // sólo corrige deriva: los cambios de cualquier nodo se ven al confirmarse
+        private long reconcileIntervalMs = 21_600_000;
+        // Frecuencia con la que se revisa si este nodo hizo borrados sin detalle
+        private long checkIntervalMs = 15_000;
+    }
+
+    @Getter
+    @Setter
+    public static class SecurityCheck {
+        private boolean enabled = true;
+        // Usuarios distintos en un mismo dispositivo (o tokens inválidos desde una IP) dentro de la ventana
+        private int suspiciousDeviceThreshold = 3;
+        private int windowMinutes = 60;
+        // Máximo de dispositivos / IPs seguidos en memoria
+        private int maxTrackedKeys = 50_000;
+        // Intentos recientes conservados por IP
+        private int maxAttemptsPerIp = 20;
+        // Tiempo que una clave sigue marcada tras cruzar el umbral; cubre el informe diario
+        private int flagRetentionMinutes = 1500;
+    }
+}
@@ -0,0 +1,19 @@
+package com.altico.cakeserver.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.scheduling")
+public class SchedulingProperties {
+    // Hilos del planificador dedicado a las tareas programadas
+    private int poolSize = 4;
+    private int awaitTerminationSeconds = 30;
+
+    // Bloqueos asesores de PostgreSQL para que cada tarea corra en un solo nodo
+    private boolean distributedLocks = true;
+}
@@ -0,0 +1,16 @@
+package com.altico.cakeserver.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.security.user-details-cache")
+public class UserDetailsCacheProperties {
+    private boolean enabled = true;
+    private int maxEntries = 5000;
+    private long ttlSeconds = 300;
+}
@@ -1,8 +1,11 @@
 package com.altico.cakeserver.infrastructure.config;
 
 import com.altico.cakeserver.infrastructure.adapters.input.rest.interceptor.ErrorLoggingInterceptor;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.interceptor.RateLimitInterceptor;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.interceptor.TiempoEsperaAsincronoInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 //import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -15,6 +18,12 @@ public class WebConfig implements WebMvcConfigurer {
     @Autowired
     private ErrorLoggingInterceptor errorLoggingInterceptor;
 
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Autowired
+    private TiempoEsperaAsincronoInterceptor tiempoEsperaAsincronoInterceptor;
+
 //    @Override
 //    public void configurePathMatch(PathMatchConfigurer configurer) {
 //        // Habilitar el lanzamiento de excepciones cuando no se encuentra un handler
@@ -26,5 +35,13 @@ public class WebConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(errorLoggingInterceptor)
                 .addPathPatterns("/api/**");
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/api/**");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Tiempo de espera por petición (exportaciones) sin alargar el global
+        configurer.registerCallableInterceptors(tiempoEsperaAsincronoInterceptor);
     }
 }
\ No newline at end of file
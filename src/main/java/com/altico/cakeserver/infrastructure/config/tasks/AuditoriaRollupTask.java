@@ -0,0 +1,51 @@
+package com.altico.cakeserver.infrastructure.config.tasks;
+
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.BloqueoTareasDistribuido;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.RollupAuditoria;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.TareaProgramada;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que consolida el resumen horario de auditoría
+ * Se ejecuta cada 5 minutos por defecto; tras una parada recupera
+ * las horas pendientes por tramos en ejecuciones sucesivas
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(
+        name = "app.admin.audit-rollup.enabled",
+        havingValue = "true",
+        matchIfMissing = true
+)
+public class AuditoriaRollupTask {
+
+    private final RollupAuditoria rollupAuditoria;
+    private final BloqueoTareasDistribuido bloqueoTareas;
+
+    @Scheduled(fixedDelayString = "${app.admin.audit-rollup.interval-ms:300000}",
+            initialDelayString = "${app.admin.audit-rollup.interval-ms:300000}")
+    public void consolidarAuditoria() {
+        bloqueoTareas.ejecutar(TareaProgramada.AUDITORIA_ROLLUP, this::consolidarAuditoriaExclusivo);
+    }
+
+    private void consolidarAuditoriaExclusivo() {
+        try {
+            var resultado = rollupAuditoria.consolidar();
+
+            if (resultado.horas() > 0) {
+                log.info("Resumen de auditoría consolidado: {} horas, {} filas, hasta {}",
+                        resultado.horas(), resultado.filas(), resultado.consolidadoHasta());
+            } else {
+                log.debug("Resumen de auditoría al día hasta {}", resultado.consolidadoHasta());
+            }
+
+        } catch (Exception e) {
+            log.error("Error consolidando el resumen de auditoría: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.altico.cakeserver.infrastructure.config.tasks;
+
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.BloqueoTareasDistribuido;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.MantenimientoParticiones;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.TareaProgramada;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada de mantenimiento de particiones
+ * Se ejecuta al arrancar (para garantizar las particiones del mes en curso)
+ * y diariamente a las 2:30 AM por defecto
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(
+        name = "app.admin.partitions.enabled",
+        havingValue = "true",
+        matchIfMissing = true
+)
+public class ParticionesMaintenanceTask {
+
+    private final MantenimientoParticiones mantenimientoParticiones;
+    private final BloqueoTareasDistribuido bloqueoTareas;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        mantenerParticiones();
+    }
+
+    @Scheduled(cron = "${app.admin.partitions.maintenance-cron:0 30 2 * * *}")
+    public void mantenerParticiones() {
+        // DDL sobre tablas compartidas: un solo nodo a la vez
+        bloqueoTareas.ejecutar(TareaProgramada.MANTENIMIENTO_PARTICIONES, this::mantenerParticionesExclusivo);
+    }
+
+    private void mantenerParticionesExclusivo() {
+        try {
+            var resultado = mantenimientoParticiones.mantener();
+
+            if (resultado.creadas() > 0 || resultado.eliminadas() > 0 || resultado.filasPurgadas() > 0) {
+                log.info("Mantenimiento de particiones: {} creadas, {} eliminadas, {} filas purgadas de la partición por defecto",
+                        resultado.creadas(), resultado.eliminadas(), resultado.filasPurgadas());
+            } else {
+                log.debug("Mantenimiento de particiones: sin cambios");
+            }
+
+        } catch (Exception e) {
+            log.error("Error durante el mantenimiento de particiones: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.altico.cakeserver.infrastructure.config.tasks;
 
 import com.altico.cakeserver.applications.ports.input.RefreshTokenServicePort;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.BloqueoTareasDistribuido;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.TareaProgramada;
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+
 /**
  * Tarea programada para la limpieza automática de tokens expirados
  * Se ejecuta cada hora por defecto
@@ -22,6 +27,9 @@ import org.springframework.stereotype.Component;
 public class RefreshTokenCleanupTask {
 
     private final RefreshTokenServicePort refreshTokenService;
+    private final RefreshTokenProperties refreshTokenProperties;
+    // Con varias instancias, cada tarea se ejecuta en un solo nodo a la vez
+    private final BloqueoTareasDistribuido bloqueoTareas;
 
     /**
      * Limpia tokens expirados cada hora
@@ -30,6 +38,10 @@ public class RefreshTokenCleanupTask {
      */
     @Scheduled(cron = "${app.refresh-token.cleanup.cron:0 0 * * * *}")
     public void limpiarTokensExpirados() {
+        bloqueoTareas.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, this::limpiarTokensExpiradosExclusivo);
+    }
+
+    private void limpiarTokensExpiradosExclusivo() {
         log.info("Iniciando limpieza programada de refresh tokens expirados");
 
         try {
@@ -52,6 +64,10 @@ public class RefreshTokenCleanupTask {
      */
     @Scheduled(cron = "${app.refresh-token.stats.cron:0 0 */6 * * *}")
     public void reportarEstadisticas() {
+        bloqueoTareas.ejecutar(TareaProgramada.REFRESH_TOKEN_ESTADISTICAS, this::reportarEstadisticasExclusivo);
+    }
+
+    private void reportarEstadisticasExclusivo() {
         try {
             var stats = refreshTokenService.obtenerEstadisticas();
 
@@ -89,24 +105,26 @@ public class RefreshTokenCleanupTask {
      */
     @Scheduled(cron = "${app.refresh-token.deep-cleanup.cron:0 0 2 * * SUN}")
     public void limpiezaProfunda() {
+        bloqueoTareas.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA_PROFUNDA, this::limpiezaProfundaExclusivo);
+    }
+
+    private void limpiezaProfundaExclusivo() {
+        var config = refreshTokenProperties.getDeepCleanup();
+        if (!config.isEnabled()) {
+            return;
+        }
+
         log.info("Iniciando limpieza profunda semanal de refresh tokens");
 
         try {
-            // Eliminar tokens inactivos de más de 30 días
-            var fechaLimite = java.time.LocalDateTime.now().minusDays(30);
-            var tokensInactivos = refreshTokenService
-                    .obtenerTokensPorExpirar(24 * 30); // 30 días en horas
-
-            int eliminados = 0;
-            for (var token : tokensInactivos) {
-                if (!token.activo() && token.ultimoUso() != null &&
-                        token.ultimoUso().isBefore(fechaLimite)) {
-                    refreshTokenService.revocarToken(token.id());
-                    eliminados++;
-                }
-            }
+            // Eliminar en una sola sentencia los tokens revocados sin uso desde hace N días
+            var fechaLimite = LocalDateTime.now().minusDays(config.getInactiveDaysThreshold());
+            long inicio = System.currentTimeMillis();
+
+            int eliminados = refreshTokenService.limpiarTokensInactivos(fechaLimite, config.isAuditRemoved());
 
-            log.info("Limpieza profunda completada: {} tokens inactivos antiguos eliminados", eliminados);
+            log.info("Limpieza profunda completada: {} tokens inactivos sin uso desde {} eliminados en {}ms",
+                    eliminados, fechaLimite, System.currentTimeMillis() - inicio);
 
         } catch (Exception e) {
             log.error("Error durante la limpieza profunda: {}", e.getMessage(), e);
@@ -114,11 +132,21 @@ public class RefreshTokenCleanupTask {
     }
 
     /**
-     * Detecta y reporta actividad sospechosa diariamente
-     * Se ejecuta a las 8:00 AM todos los días
+     * Resumen diario de actividad sospechosa (8:00 AM por defecto). Las alertas se
+     * emiten al cruzar el umbral; el resumen repite las marcas que siguen vigentes.
+     * Con el detector en memoria cada nodo informa de las suyas, así que no se usa
+     * el bloqueo distribuido; sin él, el escaneo de la tabla lo hace un solo nodo.
      */
     @Scheduled(cron = "${app.refresh-token.security-check.cron:0 0 8 * * *}")
     public void verificarSeguridadDiaria() {
+        if (refreshTokenProperties.getSecurityCheck().isEnabled()) {
+            informarActividadSospechosa();
+            return;
+        }
+        bloqueoTareas.ejecutar(TareaProgramada.REFRESH_TOKEN_SEGURIDAD, this::informarActividadSospechosa);
+    }
+
+    private void informarActividadSospechosa() {
         log.info("Verificando actividad sospechosa en refresh tokens");
 
         try {
@@ -140,6 +168,17 @@ public class RefreshTokenCleanupTask {
                 // notificationService.enviarAlertaSeguridad(dispositivosSospechosos);
             }
 
+            var intentosSospechosos = refreshTokenService.obtenerIntentosTokensSospechosos();
+            if (!intentosSospechosos.isEmpty()) {
+                log.warn("🚨 ALERTA DE SEGURIDAD: {} intentos recientes con refresh tokens inválidos:",
+                        intentosSospechosos.size());
+
+                for (var intento : intentosSospechosos) {
+                    log.warn("   • IP: {} | Token: {} | Fecha: {} | Tipo: {}",
+                            intento.ip(), intento.tokenId(), intento.fecha(), intento.tipoIntento());
+                }
+            }
+
         } catch (Exception e) {
             log.error("Error durante la verificación de seguridad: {}", e.getMessage());
         }
@@ -0,0 +1,46 @@
+package com.altico.cakeserver.infrastructure.config.tasks;
+
+import com.altico.cakeserver.infrastructure.config.SchedulingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Planificador dedicado para las tareas programadas
+ * Reemplaza el hilo único por defecto para que una tarea lenta no retrase a las demás
+ */
+@Configuration
+@Slf4j
+public class TareasProgramadasConfig {
+
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(SchedulingProperties schedulingProperties,
+                                                 MeterRegistry meterRegistry) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler() {
+            @Override
+            protected ExecutorService initializeExecutor(ThreadFactory threadFactory,
+                                                         RejectedExecutionHandler rejectedExecutionHandler) {
+                ExecutorService executor = super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+                // Hilos activos, cola y tareas completadas del pool
+                new ExecutorServiceMetrics(executor, "cakeserver.tareas",
+                        List.of(Tag.of("pool", "scheduler"))).bindTo(meterRegistry);
+                return executor;
+            }
+        };
+        scheduler.setPoolSize(Math.max(1, schedulingProperties.getPoolSize()));
+        scheduler.setThreadNamePrefix("cake-tareas-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(schedulingProperties.getAwaitTerminationSeconds());
+        scheduler.setErrorHandler(t -> log.error("Error no controlado en tarea programada: {}", t.getMessage(), t));
+        return scheduler;
+    }
+}
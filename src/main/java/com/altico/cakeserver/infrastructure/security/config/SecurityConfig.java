@@ -1,10 +1,17 @@
 package com.altico.cakeserver.infrastructure.security.config;
 
+import com.altico.cakeserver.infrastructure.config.PasswordHashingProperties;
 import com.altico.cakeserver.infrastructure.security.jwt.JwtAuthenticationFilter;
+import com.altico.cakeserver.infrastructure.security.service.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -30,6 +37,8 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final PasswordHashingProperties passwordHashingProperties;
+    private final MeterRegistry meterRegistry;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -114,8 +123,17 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
+    // Habilita hasPermission('recurso', 'accion') en @PreAuthorize usando la matriz de permisos compilada
+    @Bean
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(@Lazy PermissionEvaluator permissionEvaluator) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(permissionEvaluator);
+        return handler;
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // BCrypt se ejecuta en un pool acotado para no agotar los hilos de Tomcat bajo ráfagas de login
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingProperties, meterRegistry);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.altico.cakeserver.infrastructure.security.jwt;
 
+import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -23,6 +26,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final JwtProperties jwtProperties;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -43,17 +47,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            // Extraer username del token
-            username = jwtService.extractUsername(jwt);
+            // Verificar el token una sola vez (firma + expiración) y extraer username
+            Claims claims = jwtService.verifyToken(jwt);
+            username = claims.getSubject();
 
             // Si el username es válido y no hay autenticación en el contexto
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                // Cargar usuario
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                // Cargar usuario: desde los claims firmados (modo sin estado) o desde la BD
+                UserDetails userDetails = jwtProperties.isStatelessAuthorization()
+                        ? buildUserDetailsFromClaims(claims)
+                        : this.userDetailsService.loadUserByUsername(username);
+
+                if (userDetails == null) {
+                    log.debug("Token emitido antes de la última época de seguridad de: {}", username);
+                }
 
                 // Validar token
-                if (jwtService.validateToken(jwt, userDetails)) {
+                if (userDetails != null && jwtService.validateToken(claims, userDetails)) {
                     // Crear autenticación
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -75,4 +86,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Construye el principal sólo con la información firmada del token, sin consultar la BD.
+     * Devuelve null si el usuario fue desactivado o cambió de roles después de emitirse el token.
+     */
+    private UserDetails buildUserDetailsFromClaims(Claims claims) {
+        if (!jwtService.isTokenEpochValid(claims)) {
+            return null;
+        }
+
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(jwtService.extractActiveAuthorities(claims))
+                .build();
+    }
+}
@@ -1,18 +1,27 @@
 package com.altico.cakeserver.infrastructure.security.jwt;
 
+import com.altico.cakeserver.infrastructure.adapters.output.security.JerarquiaRoles;
 import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import com.altico.cakeserver.infrastructure.security.service.SecurityEpochRegistry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 
 @Service
@@ -21,6 +30,33 @@ import java.util.function.Function;
 public class JwtService {
 
     private final JwtProperties jwtProperties;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final JerarquiaRoles jerarquiaRoles;
+
+    // Se construyen una sola vez: la clave HMAC y el parser son inmutables y thread-safe
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
+    /**
+     * Verifica firma y expiración del token una única vez y devuelve sus claims.
+     * Los tokens repetidos se resuelven desde la caché de tokens verificados.
+     */
+    public Claims verifyToken(String token) {
+        return verifiedTokenCache.get(token).orElseGet(() -> {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            verifiedTokenCache.put(token, claims);
+            return claims;
+        });
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -36,30 +72,78 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verifyToken(token);
     }
 
+    // Sin claim exp el token se trata como expirado
     public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        Date expiracion = extractExpiration(token);
+        return expiracion == null || expiracion.before(new Date());
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            return validateToken(verifyToken(token), userDetails);
         } catch (Exception e) {
             log.error("Error validando token JWT: {}", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Un token sin claim exp no es válido: todos los emitidos aquí lo llevan
+     */
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        final Date expiracion = claims.getExpiration();
+        return (username != null
+                && username.equals(userDetails.getUsername())
+                && expiracion != null
+                && expiracion.after(new Date()));
+    }
+
+    /**
+     * Autoridades firmadas en el claim {@code roles}. Acepta tanto la lista de nombres
+     * actual como el formato anterior serializado como objetos {@code {"authority": ...}}.
+     */
+    public List<GrantedAuthority> extractAuthorities(Claims claims) {
+        Object roles = claims.get("roles");
+        if (!(roles instanceof Collection<?> coleccion)) {
+            return List.of();
+        }
+
+        return coleccion.stream()
+                .map(rol -> rol instanceof Map<?, ?> mapa ? mapa.get("authority") : rol)
+                .filter(Objects::nonNull)
+                .map(rol -> (GrantedAuthority) new SimpleGrantedAuthority(rol.toString()))
+                .toList();
+    }
+
+    /**
+     * Verifica que el token no haya sido emitido antes de la última época de seguridad del usuario
+     */
+    public boolean isTokenEpochValid(Claims claims) {
+        Number epoca = claims.get(SecurityEpochRegistry.CLAIM_EPOCH, Number.class);
+        return securityEpochRegistry.esVigente(claims.getSubject(), epoca != null ? epoca.longValue() : 0L);
+    }
+
+    /**
+     * Autoridades del token descartando las de roles revocados después de su emisión
+     */
+    public List<GrantedAuthority> extractActiveAuthorities(Claims claims) {
+        long emitidoEn = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        return extractAuthorities(claims).stream()
+                .filter(a -> securityEpochRegistry.esAutoridadVigente(a.getAuthority(), emitidoEn))
+                .toList();
+    }
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities());
+        // Roles efectivos: en modo sin estado el token no vuelve a pasar por la jerarquía
+        claims.put("roles", jerarquiaRoles.expandirAutoridades(userDetails.getAuthorities()).stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        claims.put(SecurityEpochRegistry.CLAIM_EPOCH, securityEpochRegistry.epocaActual(userDetails.getUsername()));
         return createToken(claims, userDetails.getUsername(), jwtProperties.getExpirationMs());
     }
 
@@ -78,12 +162,7 @@ public class JwtService {
                 .issuer(jwtProperties.getIssuer())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
-
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtProperties.getSecret().getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
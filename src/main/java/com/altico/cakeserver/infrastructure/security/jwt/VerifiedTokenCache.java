@@ -0,0 +1,104 @@
+package com.altico.cakeserver.infrastructure.security.jwt;
+
+import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché acotada de claims de tokens JWT ya verificados.
+ * La clave es el digest SHA-256 del token (nunca el token en claro) y cada
+ * entrada vence junto con la expiración del propio token.
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    private final Map<String, CachedClaims> entries = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxEntries;
+
+    public VerifiedTokenCache(JwtProperties jwtProperties) {
+        this.enabled = jwtProperties.getCache().isEnabled();
+        this.maxEntries = Math.max(1, jwtProperties.getCache().getMaxEntries());
+    }
+
+    public Optional<Claims> get(String token) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        String key = digest(token);
+        CachedClaims cached = entries.get(key);
+        if (cached == null) {
+            return Optional.empty();
+        }
+
+        if (cached.expiraEn() <= System.currentTimeMillis()) {
+            entries.remove(key, cached);
+            return Optional.empty();
+        }
+
+        return Optional.of(cached.claims());
+    }
+
+    public void put(String token, Claims claims) {
+        if (!enabled || claims.getExpiration() == null) {
+            return;
+        }
+
+        if (entries.size() >= maxEntries) {
+            liberarEspacio();
+        }
+
+        entries.put(digest(token), new CachedClaims(claims, claims.getExpiration().getTime()));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    /**
+     * Elimina primero las entradas vencidas y, si la caché sigue llena,
+     * descarta entradas arbitrarias hasta dejar un 10% de margen.
+     */
+    private void liberarEspacio() {
+        long ahora = System.currentTimeMillis();
+        entries.values().removeIf(cached -> cached.expiraEn() <= ahora);
+
+        int objetivo = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > objetivo && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+
+        log.debug("Caché de tokens verificados compactada: {} entradas", entries.size());
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record CachedClaims(Claims claims, long expiraEn) {}
+}
@@ -0,0 +1,122 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.domain.exception.ServiceOverloadedException;
+import com.altico.cakeserver.infrastructure.config.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PasswordEncoder que ejecuta el hashing (BCrypt) en un pool dedicado y acotado.
+ *
+ * Los hilos de Tomcat sólo esperan el resultado: el consumo de CPU queda limitado
+ * a {@code app.security.password-hashing.threads} y, si la cola está llena, la
+ * petición falla de inmediato con {@link ServiceOverloadedException} (503).
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final String METRIC_NAME = "cakeserver.password.hashing";
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingProperties properties;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate,
+                                  PasswordHashingProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "password-hashing-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password-hashing");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar("encode", () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar("matches", () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private <T> T ejecutar(String operacion, Supplier<T> tarea) {
+        long encolado = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long inicio = System.nanoTime();
+                timer("queue", operacion).record(inicio - encolado, TimeUnit.NANOSECONDS);
+                try {
+                    return tarea.get();
+                } finally {
+                    timer("execution", operacion).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter(METRIC_NAME + ".rejected", "operation", operacion).increment();
+            log.warn("Pool de hashing saturado, rechazando operación: {}", operacion);
+            throw new ServiceOverloadedException(
+                    "Servicio de autenticación saturado, intente nuevamente",
+                    properties.getRetryAfterSeconds());
+        }
+
+        try {
+            return future.get(properties.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceOverloadedException(
+                    "Tiempo de espera agotado en el servicio de autenticación",
+                    properties.getRetryAfterSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing de contraseña interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Error en hashing de contraseña", e.getCause());
+        }
+    }
+
+    private Timer timer(String etapa, String operacion) {
+        return Timer.builder(METRIC_NAME + "." + etapa)
+                .tag("operation", operacion)
+                .register(meterRegistry);
+    }
+}
@@ -3,6 +3,7 @@ package com.altico.cakeserver.infrastructure.security.service;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.RolEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.UsuarioEntity;
 import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.UsuarioRepository;
+import com.altico.cakeserver.infrastructure.adapters.output.security.JerarquiaRoles;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
@@ -10,8 +11,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,10 +20,27 @@ import java.util.stream.Collectors;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final JerarquiaRoles jerarquiaRoles;
 
+    // Sin @Transactional: un acierto en caché no debe tomar una conexión del pool.
+    // findByUsernameWithRoles ya carga los roles con JOIN FETCH.
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (!userDetailsCache.isEnabled()) {
+            return cargarDesdeBaseDeDatos(username);
+        }
+
+        return userDetailsCache.get(username).orElseGet(() -> {
+            // Antes de leer: si se invalida durante la carga, el resultado no se cachea
+            long generacion = userDetailsCache.generacion();
+            UserDetails userDetails = cargarDesdeBaseDeDatos(username);
+            userDetailsCache.put(userDetails, generacion);
+            return userDetails;
+        });
+    }
+
+    private UserDetails cargarDesdeBaseDeDatos(String username) {
         UsuarioEntity usuario = usuarioRepository.findByUsernameWithRoles(username)
                 .orElseThrow(() -> new UsernameNotFoundException(
                         "Usuario no encontrado: " + username
@@ -33,12 +51,17 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
 
         // ✅ CAMBIO: Mapear desde Set<RolEntity> en lugar de Set<String>
+        // Se incluyen los roles heredados según la jerarquía por prioridad
+        Set<String> roles = jerarquiaRoles.expandirRoles(usuario.getRoles().stream()
+                .filter(RolEntity::isActivo) // Solo roles activos
+                .map(RolEntity::getNombre)
+                .toList());
+
         return User.builder()
                 .username(usuario.getUsername())
                 .password(usuario.getPassword())
-                .authorities(usuario.getRoles().stream()
-                        .filter(RolEntity::isActivo) // Solo roles activos
-                        .map(rol -> new SimpleGrantedAuthority(rol.getNombre()))
+                .authorities(roles.stream()
+                        .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList()))
                 .accountExpired(false)
                 .accountLocked(false)
@@ -0,0 +1,403 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.applications.ports.output.DetectorActividadSospechosaPort;
+import com.altico.cakeserver.domain.model.DispositivoSospechoso;
+import com.altico.cakeserver.domain.model.IntentoTokenSospechoso;
+import com.altico.cakeserver.domain.model.RefreshToken;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Detector en línea de actividad sospechosa alimentado por los eventos de login,
+ * renovación y uso de tokens inválidos.
+ *
+ * Por dispositivo (deviceInfo + IP) lleva los usuarios distintos y los logins
+ * fallidos dentro de una ventana deslizante por minutos; por IP, los intentos con
+ * refresh tokens inválidos. Las claves que superan el umbral se marcan al recibir
+ * el evento, de modo que la consulta sólo recorre las marcadas. Los mapas están
+ * acotados y las claves sin actividad dentro de la ventana se descartan.
+ *
+ * Al cruzar el umbral se emite la alerta en ese momento (log WARN y métrica
+ * {@code cakeserver.seguridad.detector.alertas}), sin esperar al informe diario. La
+ * marca se conserva {@code flag-retention-minutes} aunque la actividad salga de la
+ * ventana, para que el informe la recoja, y al liberar espacio se descartan antes
+ * las claves sin marcar: las claves (deviceInfo, IP) las elige el cliente y no deben
+ * poder desalojar una marca. El estado es de cada nodo; la alerta queda en el log
+ * del nodo que la detectó.
+ */
+@Component
+@Slf4j
+public class DetectorActividadSospechosa implements DetectorActividadSospechosaPort {
+
+    private static final String RAZON_MULTIPLES_USUARIOS = "Múltiples usuarios en mismo dispositivo";
+    private static final String RAZON_LOGINS_FALLIDOS = "Logins fallidos reiterados";
+
+    private final RefreshTokenProperties.SecurityCheck config;
+    private final AdminProperties adminProperties;
+    private final Map<String, EstadoDispositivo> dispositivos = new ConcurrentHashMap<>();
+    private final Map<String, EstadoIp> ips = new ConcurrentHashMap<>();
+    private final Set<String> dispositivosMarcados = ConcurrentHashMap.newKeySet();
+    private final Set<String> ipsMarcadas = ConcurrentHashMap.newKeySet();
+    private final Counter alertasDispositivo;
+    private final Counter alertasIp;
+    private final Counter marcadosDescartados;
+
+    public DetectorActividadSospechosa(RefreshTokenProperties refreshTokenProperties,
+                                       AdminProperties adminProperties,
+                                       MeterRegistry meterRegistry) {
+        this.config = refreshTokenProperties.getSecurityCheck();
+        this.adminProperties = adminProperties;
+
+        Gauge.builder("cakeserver.seguridad.detector.claves", dispositivos, Map::size)
+                .tag("tipo", "dispositivo").register(meterRegistry);
+        Gauge.builder("cakeserver.seguridad.detector.claves", ips, Map::size)
+                .tag("tipo", "ip").register(meterRegistry);
+        this.alertasDispositivo = Counter.builder("cakeserver.seguridad.detector.alertas")
+                .tag("tipo", "dispositivo").register(meterRegistry);
+        this.alertasIp = Counter.builder("cakeserver.seguridad.detector.alertas")
+                .tag("tipo", "ip").register(meterRegistry);
+        this.marcadosDescartados = Counter.builder("cakeserver.seguridad.detector.marcados_descartados")
+                .description("Claves marcadas descartadas por falta de espacio")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    @Override
+    public void registrarLogin(String username, String deviceInfo, String ip, boolean exitoso) {
+        if (!config.isEnabled() || username == null) {
+            return;
+        }
+
+        String clave = deviceInfo + "|" + ip;
+        EstadoDispositivo estado = obtener(dispositivos, clave, k -> new EstadoDispositivo(deviceInfo, ip));
+        DispositivoSospechoso nuevo = estado.registrar(username.toLowerCase(), !exitoso, minutoActual());
+        if (nuevo != null) {
+            dispositivosMarcados.add(clave);
+            alertasDispositivo.increment();
+            log.warn("🚨 ALERTA DE SEGURIDAD: Dispositivo sospechoso: {} | IP: {} | Usuarios: {} | Logins fallidos: {} | Razón: {}",
+                    nuevo.deviceInfo(), nuevo.ultimaIp(), nuevo.usuariosDiferentes(),
+                    nuevo.loginsFallidos(), nuevo.razonSospecha());
+        }
+    }
+
+    @Override
+    public void registrarRefresh(String username, String deviceInfo, String ip) {
+        registrarLogin(username, deviceInfo, ip, true);
+    }
+
+    @Override
+    public void registrarTokenInvalido(String tokenId, String ip, String userAgent, String tipoIntento) {
+        if (!config.isEnabled() || ip == null) {
+            return;
+        }
+
+        var intento = new IntentoTokenSospechoso(RefreshToken.enmascararId(tokenId), ip, userAgent, LocalDateTime.now(), tipoIntento);
+        EstadoIp estado = obtener(ips, ip, k -> new EstadoIp());
+        if (estado.registrar(intento, minutoActual())) {
+            ipsMarcadas.add(ip);
+            alertasIp.increment();
+            log.warn("🚨 ALERTA DE SEGURIDAD: IP {} supera {} intentos con refresh tokens inválidos en {} minutos",
+                    ip, config.getSuspiciousDeviceThreshold(), ventanaMinutos());
+        }
+    }
+
+    @Override
+    public List<DispositivoSospechoso> obtenerDispositivosSospechosos() {
+        long minuto = minutoActual();
+        List<DispositivoSospechoso> resultado = new ArrayList<>();
+
+        for (Iterator<String> it = dispositivosMarcados.iterator(); it.hasNext(); ) {
+            EstadoDispositivo estado = dispositivos.get(it.next());
+            DispositivoSospechoso sospechoso = estado == null ? null : estado.evaluar(minuto);
+            if (sospechoso == null) {
+                it.remove();
+            } else {
+                resultado.add(sospechoso);
+            }
+        }
+
+        resultado.sort(Comparator.comparing(DispositivoSospechoso::ultimaActividad).reversed());
+        return resultado;
+    }
+
+    @Override
+    public List<IntentoTokenSospechoso> obtenerIntentosSospechosos() {
+        long minuto = minutoActual();
+        List<IntentoTokenSospechoso> resultado = new ArrayList<>();
+
+        for (Iterator<String> it = ipsMarcadas.iterator(); it.hasNext(); ) {
+            EstadoIp estado = ips.get(it.next());
+            List<IntentoTokenSospechoso> intentos = estado == null ? List.of() : estado.evaluar(minuto);
+            if (intentos.isEmpty()) {
+                it.remove();
+            } else {
+                resultado.addAll(intentos);
+            }
+        }
+
+        resultado.sort(Comparator.comparing(IntentoTokenSospechoso::fecha).reversed());
+        return resultado;
+    }
+
+    /**
+     * Descarta dispositivos e IPs sin actividad dentro de la ventana y sin marca vigente
+     */
+    @Scheduled(fixedDelayString = "${app.refresh-token.security-check.eviction-interval-ms:60000}")
+    public void descartarInactivos() {
+        long minuto = minutoActual();
+        int antes = dispositivos.size() + ips.size();
+
+        dispositivos.entrySet().removeIf(e -> e.getValue().inactivo(minuto));
+        ips.entrySet().removeIf(e -> e.getValue().inactivo(minuto));
+        dispositivosMarcados.retainAll(dispositivos.keySet());
+        ipsMarcadas.retainAll(ips.keySet());
+
+        int descartados = antes - dispositivos.size() - ips.size();
+        if (descartados > 0) {
+            log.debug("Detector de actividad sospechosa: {} claves inactivas descartadas", descartados);
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private <T extends Estado> T obtener(Map<String, T> mapa, String clave, Function<String, T> crear) {
+        T estado = mapa.get(clave);
+        if (estado != null) {
+            return estado;
+        }
+
+        if (mapa.size() >= config.getMaxTrackedKeys()) {
+            liberarEspacio(mapa);
+        }
+        return mapa.computeIfAbsent(clave, crear);
+    }
+
+    /**
+     * Elimina primero las claves inactivas y, si el mapa sigue lleno, claves sin
+     * marcar hasta dejar un 10% de margen. Las marcadas sólo se descartan si no queda
+     * otra opción; su alerta ya se emitió al marcarlas.
+     */
+    private <T extends Estado> void liberarEspacio(Map<String, T> mapa) {
+        long minuto = minutoActual();
+        mapa.values().removeIf(estado -> estado.inactivo(minuto));
+
+        int max = Math.max(1, config.getMaxTrackedKeys());
+        int objetivo = max - Math.max(1, max / 10);
+        Iterator<T> it = mapa.values().iterator();
+        while (mapa.size() > objetivo && it.hasNext()) {
+            if (!it.next().marcado(minuto)) {
+                it.remove();
+            }
+        }
+
+        it = mapa.values().iterator();
+        while (mapa.size() >= max && it.hasNext()) {
+            it.next();
+            it.remove();
+            marcadosDescartados.increment();
+        }
+    }
+
+    private int ventanaMinutos() {
+        return Math.max(1, config.getWindowMinutes());
+    }
+
+    private int retencionMarcaMinutos() {
+        return Math.max(ventanaMinutos(), config.getFlagRetentionMinutes());
+    }
+
+    // Instancia y visible en el paquete para poder simular el paso del tiempo en las pruebas
+    long minutoActual() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private abstract class Estado {
+        protected long ultimoMinuto;
+        // Hasta este minuto (exclusive) la clave sigue marcada aunque su actividad salga de la ventana
+        protected long marcadoHasta = Long.MIN_VALUE;
+
+        synchronized boolean inactivo(long minuto) {
+            return minuto - ultimoMinuto >= ventanaMinutos() && !marcado(minuto);
+        }
+
+        synchronized boolean marcado(long minuto) {
+            return minuto < marcadoHasta;
+        }
+
+        /**
+         * Renueva la marca; true si la clave no estaba marcada y hay que alertar
+         */
+        protected synchronized boolean marcar(long minuto) {
+            boolean nueva = !marcado(minuto);
+            marcadoHasta = minuto + retencionMarcaMinutos();
+            return nueva;
+        }
+    }
+
+    private final class EstadoDispositivo extends Estado {
+        private final String deviceInfo;
+        private final String ip;
+        private final LocalDateTime primeraActividad = LocalDateTime.now();
+        private LocalDateTime ultimaActividad = primeraActividad;
+        private final Ventana fallos = new Ventana(ventanaMinutos());
+        // Última evaluación que superó algún umbral; se informa mientras dure la marca
+        private DispositivoSospechoso sospecha;
+        // username -> último minuto visto; acotado, se descarta el menos reciente
+        private final Map<String, Long> usuarios = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > Math.max(16, config.getSuspiciousDeviceThreshold() * 4);
+            }
+        };
+
+        EstadoDispositivo(String deviceInfo, String ip) {
+            this.deviceInfo = deviceInfo;
+            this.ip = ip;
+        }
+
+        /**
+         * @return la sospecha si el dispositivo acaba de cruzar un umbral sin estar
+         * marcado, o null (también si ya lo estaba: la alerta no se repite)
+         */
+        synchronized DispositivoSospechoso registrar(String username, boolean fallido, long minuto) {
+            ultimoMinuto = minuto;
+            ultimaActividad = LocalDateTime.now();
+            usuarios.put(username, minuto);
+            if (fallido) {
+                fallos.incrementar(minuto);
+            }
+
+            DispositivoSospechoso actual = evaluarVentana(minuto);
+            if (actual == null) {
+                return null;
+            }
+            sospecha = actual;
+            return marcar(minuto) ? actual : null;
+        }
+
+        /**
+         * Sospecha actual o, si la actividad ya salió de la ventana, la registrada al marcarlo
+         */
+        synchronized DispositivoSospechoso evaluar(long minuto) {
+            DispositivoSospechoso actual = evaluarVentana(minuto);
+            if (actual != null) {
+                return actual;
+            }
+            return marcado(minuto) ? sospecha : null;
+        }
+
+        private DispositivoSospechoso evaluarVentana(long minuto) {
+            int usuariosDiferentes = (int) usuarios.values().stream()
+                    .filter(visto -> minuto - visto < ventanaMinutos())
+                    .count();
+            int loginsFallidos = fallos.total(minuto);
+
+            List<String> razones = new ArrayList<>(2);
+            if (usuariosDiferentes >= config.getSuspiciousDeviceThreshold()) {
+                razones.add(RAZON_MULTIPLES_USUARIOS);
+            }
+            if (loginsFallidos >= adminProperties.getSuspiciousActivityThreshold()) {
+                razones.add(RAZON_LOGINS_FALLIDOS);
+            }
+            if (razones.isEmpty()) {
+                return null;
+            }
+
+            return new DispositivoSospechoso(
+                    deviceInfo,
+                    deviceInfo,
+                    ip,
+                    usuariosDiferentes,
+                    loginsFallidos,
+                    String.join("; ", razones),
+                    primeraActividad,
+                    ultimaActividad
+            );
+        }
+    }
+
+    private final class EstadoIp extends Estado {
+        private final Ventana intentos = new Ventana(ventanaMinutos());
+        private final Deque<IntentoTokenSospechoso> recientes = new ArrayDeque<>();
+
+        /**
+         * @return true si la IP acaba de cruzar el umbral sin estar marcada
+         */
+        synchronized boolean registrar(IntentoTokenSospechoso intento, long minuto) {
+            ultimoMinuto = minuto;
+            intentos.incrementar(minuto);
+            recientes.addLast(intento);
+            while (recientes.size() > Math.max(1, config.getMaxAttemptsPerIp())) {
+                recientes.removeFirst();
+            }
+            return intentos.total(minuto) >= config.getSuspiciousDeviceThreshold() && marcar(minuto);
+        }
+
+        // Los intentos recientes se conservan mientras dure la marca
+        synchronized List<IntentoTokenSospechoso> evaluar(long minuto) {
+            if (intentos.total(minuto) < config.getSuspiciousDeviceThreshold() && !marcado(minuto)) {
+                return List.of();
+            }
+            return List.copyOf(recientes);
+        }
+    }
+
+    /**
+     * Contador por minutos sobre una ventana circular; no es seguro entre hilos
+     * por sí mismo (lo protege el estado que lo contiene)
+     */
+    private static final class Ventana {
+        private final long[] minutos;
+        private final int[] conteos;
+
+        Ventana(int tamano) {
+            this.minutos = new long[tamano];
+            this.conteos = new int[tamano];
+            Arrays.fill(minutos, Long.MIN_VALUE);
+        }
+
+        void incrementar(long minuto) {
+            int i = (int) Math.floorMod(minuto, (long) minutos.length);
+            if (minutos[i] != minuto) {
+                minutos[i] = minuto;
+                conteos[i] = 0;
+            }
+            conteos[i]++;
+        }
+
+        int total(long minuto) {
+            int total = 0;
+            for (int i = 0; i < minutos.length; i++) {
+                if (minutos[i] != Long.MIN_VALUE && minuto - minutos[i] < minutos.length) {
+                    total += conteos[i];
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.domain.event.PermisosModificadosEvent;
+import com.altico.cakeserver.domain.event.RolModificadoEvent;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.RolRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matriz de permisos compilada en memoria.
+ *
+ * Cada par recurso:acción recibe un índice de bit y cada rol activo un bitset
+ * precalculado con sus permisos activos. La matriz es inmutable: ante cualquier
+ * cambio en roles o permisos se compila una nueva y se publica de forma atómica,
+ * de modo que las consultas nunca ven un estado intermedio ni tocan la base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MatrizPermisos {
+
+    private final RolRepository rolRepository;
+
+    private volatile Matriz matriz = Matriz.VACIA;
+
+    /**
+     * Indica si alguna de las autoridades concede el permiso recurso:acción
+     */
+    public boolean tienePermiso(Collection<? extends GrantedAuthority> autoridades, String recurso, String accion) {
+        Matriz actual = matriz;
+        Map<String, Integer> acciones = actual.indices().get(recurso);
+        Integer indice = acciones != null ? acciones.get(accion) : null;
+        if (indice == null) {
+            return false;
+        }
+
+        for (GrantedAuthority autoridad : autoridades) {
+            long[] bits = actual.bitsPorRol().get(autoridad.getAuthority());
+            if (bits != null && (bits[indice >>> 6] & (1L << indice)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean rolTienePermiso(String rol, String recurso, String accion) {
+        Matriz actual = matriz;
+        Map<String, Integer> acciones = actual.indices().get(recurso);
+        Integer indice = acciones != null ? acciones.get(accion) : null;
+        long[] bits = actual.bitsPorRol().get(rol);
+        return indice != null && bits != null && (bits[indice >>> 6] & (1L << indice)) != 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPermisosModificados(PermisosModificadosEvent event) {
+        reconstruir();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolModificado(RolModificadoEvent event) {
+        reconstruir();
+    }
+
+    /**
+     * Compila una nueva matriz desde la base de datos y la publica
+     */
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        List<Object[]> pares = rolRepository.findParesRolPermisoActivos();
+
+        Map<String, Map<String, Integer>> indices = new HashMap<>();
+        int totalBits = 0;
+        for (Object[] par : pares) {
+            Map<String, Integer> acciones = indices.computeIfAbsent((String) par[1], k -> new HashMap<>());
+            if (!acciones.containsKey((String) par[2])) {
+                acciones.put((String) par[2], totalBits++);
+            }
+        }
+
+        int palabras = Math.max(1, (totalBits + 63) >>> 6);
+        Map<String, long[]> bitsPorRol = new HashMap<>();
+        for (Object[] par : pares) {
+            int indice = indices.get((String) par[1]).get((String) par[2]);
+            long[] bits = bitsPorRol.computeIfAbsent((String) par[0], k -> new long[palabras]);
+            bits[indice >>> 6] |= 1L << indice;
+        }
+
+        Map<String, Map<String, Integer>> indicesInmutables = new HashMap<>();
+        indices.forEach((recurso, acciones) -> indicesInmutables.put(recurso, Map.copyOf(acciones)));
+        matriz = new Matriz(Map.copyOf(indicesInmutables), Map.copyOf(bitsPorRol));
+
+        log.info("Matriz de permisos compilada: {} roles, {} permisos en {}ms",
+                bitsPorRol.size(), totalBits, System.currentTimeMillis() - inicio);
+    }
+
+    private record Matriz(Map<String, Map<String, Integer>> indices, Map<String, long[]> bitsPorRol) {
+        static final Matriz VACIA = new Matriz(Map.of(), Map.of());
+    }
+}
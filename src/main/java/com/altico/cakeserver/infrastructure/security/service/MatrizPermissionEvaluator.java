@@ -0,0 +1,34 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * Evalúa {@code hasPermission('recurso', 'accion')} en expresiones {@code @PreAuthorize}
+ * contra la matriz de permisos compilada, sin acceso a base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+public class MatrizPermissionEvaluator implements PermissionEvaluator {
+
+    private final MatrizPermisos matrizPermisos;
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object recurso, Object accion) {
+        if (authentication == null || !(recurso instanceof String) || accion == null) {
+            return false;
+        }
+        return matrizPermisos.tienePermiso(authentication.getAuthorities(), (String) recurso, accion.toString());
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId,
+                                 String targetType, Object accion) {
+        // El permiso se define por tipo de recurso, no por instancia
+        return hasPermission(authentication, targetType, accion);
+    }
+}
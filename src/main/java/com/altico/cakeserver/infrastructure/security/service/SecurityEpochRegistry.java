@@ -0,0 +1,190 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.domain.event.RolModificadoEvent;
+import com.altico.cakeserver.domain.event.UsuarioSeguridadModificadaEvent;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.RevocacionesSeguridad;
+import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla en memoria de "épocas de seguridad" por usuario.
+ *
+ * Cada access token lleva la época vigente del usuario al momento de emitirse
+ * (claim {@code sep}). Cuando un usuario se desactiva, se elimina o cambia de
+ * roles, su época avanza y los tokens emitidos antes dejan de ser aceptados
+ * en el modo de autorización sin estado.
+ *
+ * Las épocas y las autoridades revocadas se guardan además en
+ * {@link RevocacionesSeguridad}, en la misma transacción que el cambio. Cada nodo
+ * las relee cada pocos segundos: los cambios hechos en otro nodo se aplican aquí
+ * con ese retraso, y tras un reinicio la tabla se reconstruye completa.
+ *
+ * Sólo se conservan entradas durante la vida de un access token; pasado ese
+ * tiempo cualquier token anterior ya está expirado.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SecurityEpochRegistry {
+
+    public static final String CLAIM_EPOCH = "sep";
+
+    // Margen de la lectura incremental: escrituras confirmadas tarde y desfase de reloj entre nodos
+    private static final long SOLAPE_MS = 60_000;
+    private static final long INTERVALO_PURGA_MS = 3_600_000;
+
+    private final Map<String, Long> epocas = new ConcurrentHashMap<>();
+    private final Map<String, Long> autoridadesRevocadas = new ConcurrentHashMap<>();
+    private final JwtProperties jwtProperties;
+    private final RevocacionesSeguridad revocacionesSeguridad;
+
+    // Hora local de la última lectura completada (0 = nunca)
+    private volatile long marcaLectura;
+    private volatile long ultimaPurga;
+
+    /**
+     * Época vigente para el usuario (0 si nunca se ha modificado)
+     */
+    public long epocaActual(String username) {
+        return epocas.getOrDefault(username, 0L);
+    }
+
+    /**
+     * Un token es vigente si fue emitido con la época actual del usuario o una posterior
+     */
+    public boolean esVigente(String username, long epocaToken) {
+        return epocaToken >= epocaActual(username);
+    }
+
+    /**
+     * Una autoridad firmada en el token deja de valer si el rol fue desactivado,
+     * renombrado o eliminado después de emitirse el token
+     */
+    public boolean esAutoridadVigente(String autoridad, long emitidoEnMillis) {
+        Long revocadaEn = autoridadesRevocadas.get(autoridad);
+        return revocadaEn == null || emitidoEnMillis > revocadaEn;
+    }
+
+    public void avanzarEpoca(String username) {
+        long ahora = System.currentTimeMillis();
+        epocas.merge(username, ahora, Math::max);
+        purgarEntradasVencidas(ahora);
+        log.debug("Época de seguridad avanzada para usuario: {}", username);
+    }
+
+    /**
+     * Guarda la nueva época con la transacción del cambio, para que la vean los demás nodos
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void persistirUsuarioSeguridadModificada(UsuarioSeguridadModificadaEvent event) {
+        if (event.revocaTokensEmitidos()) {
+            revocacionesSeguridad.registrarEpoca(event.username(), System.currentTimeMillis());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void persistirRolModificado(RolModificadoEvent event) {
+        String autoridad = event.autoridadRevocada();
+        if (autoridad != null) {
+            revocacionesSeguridad.registrarAutoridadRevocada(autoridad, System.currentTimeMillis());
+        } else if (esReactivacion(event)) {
+            revocacionesSeguridad.eliminarAutoridadRevocada(event.nombre());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioSeguridadModificada(UsuarioSeguridadModificadaEvent event) {
+        if (event.revocaTokensEmitidos()) {
+            avanzarEpoca(event.username());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolModificado(RolModificadoEvent event) {
+        String autoridad = event.autoridadRevocada();
+        if (autoridad != null) {
+            autoridadesRevocadas.merge(autoridad, System.currentTimeMillis(), Math::max);
+            log.debug("Autoridad revocada en tokens emitidos: {}", autoridad);
+        } else if (esReactivacion(event)) {
+            autoridadesRevocadas.remove(event.nombre());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (!jwtProperties.isStatelessAuthorization()) {
+            return;
+        }
+
+        refrescar();
+        log.info("Épocas de seguridad inicializadas: {} usuarios, {} autoridades revocadas",
+                epocas.size(), autoridadesRevocadas.size());
+    }
+
+    /**
+     * Aplica los cambios guardados por los demás nodos.
+     *
+     * Las épocas se leen de forma incremental desde la lectura anterior (con
+     * {@link #SOLAPE_MS} de margen; aplicarlas dos veces no cambia nada). Las
+     * autoridades revocadas son una fila por rol y se releen completas, así se ve
+     * también una reactivación hecha en otro nodo.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.epoch-refresh-interval-ms:5000}",
+            initialDelayString = "${app.jwt.epoch-refresh-interval-ms:5000}")
+    public void refrescar() {
+        if (!jwtProperties.isStatelessAuthorization()) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        long limite = inicio - jwtProperties.getExpirationMs();
+        try {
+            long desde = Math.max(marcaLectura - SOLAPE_MS, limite);
+            revocacionesSeguridad.epocasDesde(desde)
+                    .forEach(r -> epocas.merge(r.clave(), r.revocadaEn(), Math::max));
+
+            Map<String, Long> leidas = new HashMap<>();
+            revocacionesSeguridad.autoridadesRevocadasDesde(limite)
+                    .forEach(r -> leidas.put(r.clave(), r.revocadaEn()));
+            leidas.forEach((autoridad, revocadaEn) -> autoridadesRevocadas.merge(autoridad, revocadaEn, Math::max));
+            // Sin fila: reactivada o vencida. Una revocación local posterior al inicio aún puede no verse
+            autoridadesRevocadas.entrySet().removeIf(e -> !leidas.containsKey(e.getKey()) && e.getValue() < inicio);
+
+            marcaLectura = inicio;
+            purgarEntradasVencidas(inicio);
+            if (inicio - ultimaPurga >= INTERVALO_PURGA_MS) {
+                ultimaPurga = inicio;
+                int purgadas = revocacionesSeguridad.purgar(limite);
+                if (purgadas > 0) {
+                    log.debug("Revocaciones de seguridad vencidas eliminadas: {}", purgadas);
+                }
+            }
+        } catch (DataAccessException e) {
+            // Se reintenta desde la misma marca en la próxima ejecución
+            log.warn("No se pudieron leer las revocaciones de seguridad: {}", e.getMessage());
+        }
+    }
+
+    private boolean esReactivacion(RolModificadoEvent event) {
+        return event.motivo() == RolModificadoEvent.Motivo.ACTIVADO
+                || event.motivo() == RolModificadoEvent.Motivo.CREADO;
+    }
+
+    private void purgarEntradasVencidas(long ahora) {
+        long limite = ahora - jwtProperties.getExpirationMs();
+        epocas.values().removeIf(epoca -> epoca < limite);
+        autoridadesRevocadas.values().removeIf(revocadaEn -> revocadaEn < limite);
+    }
+}
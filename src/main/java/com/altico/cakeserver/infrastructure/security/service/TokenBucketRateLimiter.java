@@ -0,0 +1,151 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.domain.exception.RateLimitExceededException;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitador de peticiones en memoria basado en token bucket.
+ *
+ * Cada cubeta se representa con un único {@link AtomicLong} que guarda el
+ * "tiempo teórico de llegada" (GCRA, equivalente a un token bucket): consumir
+ * un token es un CAS, sin bloqueos. Las claves se reparten en franjas
+ * independientes, cada una con su propio tope de tamaño, y las cubetas que
+ * llevan tiempo llenas (sin uso) se descartan periódicamente.
+ */
+@Component
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    private static final int FRANJAS = 16;
+    private static final long NANOS_POR_MINUTO = TimeUnit.MINUTES.toNanos(1);
+
+    private final AdminProperties.RateLimit config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicLong>[] franjas;
+    private final int maxClavesPorFranja;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(AdminProperties adminProperties, MeterRegistry meterRegistry) {
+        this.config = adminProperties.getRateLimit();
+        this.meterRegistry = meterRegistry;
+        this.maxClavesPorFranja = Math.max(1, config.getMaxKeys() / FRANJAS);
+        this.franjas = new Map[FRANJAS];
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new ConcurrentHashMap<>();
+        }
+
+        Gauge.builder("cakeserver.ratelimit.keys", this, TokenBucketRateLimiter::size)
+                .description("Claves con cubeta activa en el limitador de peticiones")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Consume un token de la cubeta {@code politica:clave}
+     *
+     * @throws RateLimitExceededException si la cubeta está vacía
+     */
+    public void verificar(String politica, AdminProperties.Policy policy, String clave) {
+        if (!config.isEnabled() || clave == null || policy.getRefillPerMinute() <= 0) {
+            return;
+        }
+
+        long intervalo = NANOS_POR_MINUTO / policy.getRefillPerMinute();
+        long tolerancia = intervalo * Math.max(0, policy.getCapacity() - 1);
+        long ahora = System.nanoTime();
+
+        AtomicLong cubeta = obtenerCubeta(politica + ":" + clave, ahora);
+        while (true) {
+            long llegadaTeorica = cubeta.get();
+            long base = Math.max(llegadaTeorica, ahora);
+            long permitidoDesde = base - tolerancia;
+
+            if (ahora < permitidoDesde) {
+                long esperaSegundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(permitidoDesde - ahora) + 1);
+                meterRegistry.counter("cakeserver.ratelimit.rejected", "politica", politica).increment();
+                log.warn("Límite de peticiones excedido - política: {}, clave: {}", politica, clave);
+                throw new RateLimitExceededException(
+                        "Demasiadas solicitudes, intente nuevamente en " + esperaSegundos + " segundos",
+                        esperaSegundos);
+            }
+
+            if (cubeta.compareAndSet(llegadaTeorica, base + intervalo)) {
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return Arrays.stream(franjas).mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Descarta las cubetas que llevan más de {@code idle-eviction-seconds} llenas
+     */
+    @Scheduled(fixedDelayString = "${app.admin.rate-limit.eviction-interval-ms:60000}")
+    public void descartarCubetasInactivas() {
+        long ahora = System.nanoTime();
+        int antes = size();
+        for (Map<String, AtomicLong> franja : franjas) {
+            descartarInactivas(franja, ahora);
+        }
+
+        int descartadas = antes - size();
+        if (descartadas > 0) {
+            log.debug("Cubetas inactivas descartadas: {}", descartadas);
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private AtomicLong obtenerCubeta(String clave, long ahora) {
+        Map<String, AtomicLong> franja = franjas[Math.floorMod(clave.hashCode(), FRANJAS)];
+        AtomicLong cubeta = franja.get(clave);
+        if (cubeta != null) {
+            return cubeta;
+        }
+
+        if (franja.size() >= maxClavesPorFranja) {
+            liberarEspacio(franja, ahora);
+        }
+
+        // Una cubeta nueva arranca llena
+        return franja.computeIfAbsent(clave, k -> new AtomicLong(ahora));
+    }
+
+    /**
+     * Elimina primero las cubetas inactivas y, si la franja sigue llena,
+     * descarta cubetas arbitrarias hasta dejar un 10% de margen.
+     */
+    private void liberarEspacio(Map<String, AtomicLong> franja, long ahora) {
+        descartarInactivas(franja, ahora);
+
+        int objetivo = maxClavesPorFranja - Math.max(1, maxClavesPorFranja / 10);
+        Iterator<String> it = franja.keySet().iterator();
+        while (franja.size() > objetivo && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private void descartarInactivas(Map<String, AtomicLong> franja, long ahora) {
+        long inactividad = TimeUnit.SECONDS.toNanos(config.getIdleEvictionSeconds());
+        // Cuando la llegada teórica quedó en el pasado la cubeta ya está llena
+        franja.values().removeIf(cubeta -> ahora - cubeta.get() > inactividad);
+    }
+}
@@ -0,0 +1,179 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.domain.event.RolModificadoEvent;
+import com.altico.cakeserver.domain.event.UsuarioSeguridadModificadaEvent;
+import com.altico.cakeserver.infrastructure.config.UserDetailsCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché acotada con TTL delante de {@link CustomUserDetailsService}.
+ *
+ * Las entradas se invalidan de forma precisa con los eventos de dominio de
+ * UsuarioService y RolService; el TTL sólo acota la ventana ante cambios
+ * hechos fuera de la aplicación.
+ *
+ * Una carga desde la base de datos puede leer los datos anteriores a un cambio y
+ * terminar después de su invalidación. Para no cachear ese resultado, quien carga
+ * toma la {@link #generacion()} antes de leer y la pasa a {@link #put}: cualquier
+ * invalidación posterior la incrementa y la entrada se descarta.
+ */
+@Component
+@Slf4j
+public class UserDetailsCache {
+
+    private static final String METRIC_NAME = "cakeserver.security.userdetails.cache";
+
+    private final Map<String, Entrada> entries = new ConcurrentHashMap<>();
+    // Se incrementa en cada invalidación, antes de quitar las entradas
+    private final AtomicLong generacion = new AtomicLong();
+    private final UserDetailsCacheProperties properties;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public UserDetailsCache(UserDetailsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hits = Counter.builder(METRIC_NAME + ".requests")
+                .tag("result", "hit")
+                .description("Consultas a la caché de UserDetails")
+                .register(meterRegistry);
+        this.misses = Counter.builder(METRIC_NAME + ".requests")
+                .tag("result", "miss")
+                .description("Consultas a la caché de UserDetails")
+                .register(meterRegistry);
+        this.evictions = Counter.builder(METRIC_NAME + ".evictions")
+                .description("Entradas invalidadas de la caché de UserDetails")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".size", entries, Map::size)
+                .description("Entradas en la caché de UserDetails")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Optional<UserDetails> get(String username) {
+        Entrada entrada = entries.get(username);
+        if (entrada == null || entrada.expiraEn() <= System.currentTimeMillis()) {
+            if (entrada != null) {
+                entries.remove(username, entrada);
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        // Copia defensiva: Spring Security borra las credenciales del principal tras autenticar
+        return Optional.of(User.withUserDetails(entrada.userDetails()).build());
+    }
+
+    /**
+     * Debe leerse antes de cargar el usuario desde la base de datos
+     */
+    public long generacion() {
+        return generacion.get();
+    }
+
+    /**
+     * Cachea el usuario salvo que haya habido una invalidación desde {@code generacionLeida}
+     */
+    public void put(UserDetails userDetails, long generacionLeida) {
+        if (generacion.get() != generacionLeida) {
+            return;
+        }
+        if (entries.size() >= properties.getMaxEntries()) {
+            liberarEspacio();
+        }
+
+        long expiraEn = System.currentTimeMillis() + properties.getTtlSeconds() * 1000;
+        String username = userDetails.getUsername();
+        Entrada entrada = new Entrada(User.withUserDetails(userDetails).build(), expiraEn);
+        entries.put(username, entrada);
+
+        // Una invalidación entre la comprobación y la escritura pudo quitar la entrada antes
+        // de que existiera: se vuelve a comprobar después de escribir
+        if (generacion.get() != generacionLeida) {
+            entries.remove(username, entrada);
+        }
+    }
+
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        generacion.incrementAndGet();
+        if (entries.remove(username) != null) {
+            evictions.increment();
+            log.debug("UserDetails invalidado en caché: {}", username);
+        }
+    }
+
+    public void evictByAuthority(String authority) {
+        generacion.incrementAndGet();
+        entries.entrySet().removeIf(entry -> {
+            boolean afectado = entry.getValue().userDetails().getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .anyMatch(authority::equals);
+            if (afectado) {
+                evictions.increment();
+            }
+            return afectado;
+        });
+    }
+
+    public void invalidateAll() {
+        generacion.incrementAndGet();
+        evictions.increment(entries.size());
+        entries.clear();
+    }
+
+    // ============== EVENTOS DE DOMINIO ==============
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioSeguridadModificada(UsuarioSeguridadModificadaEvent event) {
+        evict(event.username());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolModificado(RolModificadoEvent event) {
+        String autoridad = event.autoridadRevocada();
+        if (autoridad != null) {
+            evictByAuthority(autoridad);
+        } else {
+            // Un rol reactivado, creado o con otra prioridad cambia la jerarquía de cualquier usuario
+            invalidateAll();
+        }
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void liberarEspacio() {
+        long ahora = System.currentTimeMillis();
+        entries.values().removeIf(entrada -> entrada.expiraEn() <= ahora);
+
+        int objetivo = properties.getMaxEntries() - Math.max(1, properties.getMaxEntries() / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > objetivo && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entrada(UserDetails userDetails, long expiraEn) {}
+}
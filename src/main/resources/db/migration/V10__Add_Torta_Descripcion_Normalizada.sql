@@ -0,0 +1,18 @@
+-- Huella de la descripción (minúsculas, sin acentos, espacios colapsados) para detectar duplicados
+-- Se calcula en la aplicación al guardar; aquí sólo se rellena para las tortas existentes
+ALTER TABLE torta ADD COLUMN IF NOT EXISTS descripcion_normalizada VARCHAR(255);
+
+UPDATE torta
+SET descripcion_normalizada = lower(regexp_replace(btrim(unaccent(descripcion)), '\s+', ' ', 'g'))
+WHERE descripcion_normalizada IS NULL;
+
+-- Duplicados previos: sólo la torta más antigua conserva la huella, el resto queda sin ella
+-- (el índice único ignora los NULL) hasta que se edite su descripción
+UPDATE torta t
+SET descripcion_normalizada = NULL
+WHERE EXISTS (SELECT 1
+              FROM torta o
+              WHERE o.descripcion_normalizada = t.descripcion_normalizada
+                AND o.id < t.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_torta_descripcion_normalizada ON torta (descripcion_normalizada);
@@ -0,0 +1,24 @@
+-- Índices compuestos (campo, id) para la paginación keyset de los listados
+-- El id desempata filas con el mismo valor del campo y se recorre en la misma dirección,
+-- de modo que cada página es un recorrido acotado del índice (sin OFFSET ni ordenamiento)
+
+-- Tortas: fechaCreado y descripcion
+CREATE INDEX IF NOT EXISTS idx_torta_fecha_creado_id ON torta (fecha_creado, id);
+CREATE INDEX IF NOT EXISTS idx_torta_descripcion_id ON torta (descripcion, id);
+
+-- Ocasiones: nombre ya tiene índice único
+CREATE INDEX IF NOT EXISTS idx_ocasion_fecha_creado_id ON ocasion (fecha_creado, id);
+
+-- Usuarios: username y email ya tienen índice único
+CREATE INDEX IF NOT EXISTS idx_usuario_fecha_creado_id ON usuarios (fecha_creado, id);
+
+-- Sesiones: el filtro por usuario va antes que el orden
+CREATE INDEX IF NOT EXISTS idx_refresh_token_creacion_id ON refresh_tokens (fecha_creacion, id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_username_creacion ON refresh_tokens (username, fecha_creacion, id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expiracion_id ON refresh_tokens (fecha_expiracion, id);
+
+-- Cubiertos por los compuestos anteriores
+DROP INDEX IF EXISTS idx_torta_fecha_creado;
+DROP INDEX IF EXISTS idx_torta_descripcion;
+DROP INDEX IF EXISTS idx_refresh_token_username;
+DROP INDEX IF EXISTS idx_refresh_token_expiracion;
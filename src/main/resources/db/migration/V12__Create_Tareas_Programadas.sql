@@ -0,0 +1,8 @@
+-- Última ejecución de cada tarea programada (hora de la base de datos)
+-- El bloqueo asesor sólo evita que dos nodos ejecuten la tarea a la vez; con esta marca
+-- un nodo cuyo disparo llega cuando otro ya la terminó omite la ejecución de ese turno
+CREATE TABLE IF NOT EXISTS tareas_programadas
+(
+    nombre           VARCHAR(100) PRIMARY KEY,
+    ultima_ejecucion TIMESTAMP    NOT NULL
+);
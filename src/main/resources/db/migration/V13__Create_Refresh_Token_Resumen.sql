@@ -0,0 +1,40 @@
+-- Resumen compartido de las estadísticas de refresh tokens
+-- Cada alta, baja o revocación suma su variación aquí en la misma transacción que la
+-- escritura del token, así que todos los nodos leen los mismos conteos sin agregar
+-- refresh_tokens. Las variaciones de una transacción van a una ranura (0-15) elegida al
+-- azar: las escrituras concurrentes no compiten por la misma fila y el valor real es
+-- la suma de las ranuras.
+
+-- tipo: TOTAL y ACTIVOS (clave ''), USUARIO (clave = username), DISPOSITIVO (clave = device_info)
+CREATE TABLE IF NOT EXISTS refresh_token_resumen
+(
+    tipo   VARCHAR(12)  NOT NULL,
+    clave  VARCHAR(255) NOT NULL,
+    ranura SMALLINT     NOT NULL,
+    total  BIGINT       NOT NULL,
+    PRIMARY KEY (tipo, clave, ranura)
+);
+
+-- Tokens por minuto de expiración: expirados y por expirar se calculan con la hora de la lectura
+CREATE TABLE IF NOT EXISTS refresh_token_resumen_expiracion
+(
+    minuto TIMESTAMP NOT NULL,
+    ranura SMALLINT  NOT NULL,
+    total  BIGINT    NOT NULL,
+    PRIMARY KEY (minuto, ranura)
+);
+
+-- Estado inicial a partir de los tokens existentes (la reconstrucción periódica hace lo mismo)
+INSERT INTO refresh_token_resumen (tipo, clave, ranura, total)
+SELECT 'TOTAL', '', 0, COUNT(*) FROM refresh_tokens
+UNION ALL
+SELECT 'ACTIVOS', '', 0, COUNT(*) FROM refresh_tokens WHERE activo
+UNION ALL
+SELECT 'USUARIO', username, 0, COUNT(*) FROM refresh_tokens GROUP BY username
+UNION ALL
+SELECT 'DISPOSITIVO', device_info, 0, COUNT(*) FROM refresh_tokens WHERE device_info IS NOT NULL GROUP BY device_info
+ON CONFLICT DO NOTHING;
+
+INSERT INTO refresh_token_resumen_expiracion (minuto, ranura, total)
+SELECT date_trunc('minute', fecha_expiracion), 0, COUNT(*) FROM refresh_tokens GROUP BY 1
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,17 @@
+-- Recalcula la huella con la misma normalización que Torta.normalizarDescripcion
+-- V10 recortaba sólo espacios antes de colapsar; aquí se colapsan primero los blancos
+-- [ \t\n\v\f\r] en un espacio y luego se recortan los extremos, como en la aplicación
+DROP INDEX IF EXISTS uk_torta_descripcion_normalizada;
+
+UPDATE torta
+SET descripcion_normalizada = lower(btrim(regexp_replace(unaccent(descripcion), '[ \t\n\v\f\r]+', ' ', 'g')));
+
+-- Duplicados: igual que en V10, sólo la torta más antigua conserva la huella
+UPDATE torta t
+SET descripcion_normalizada = NULL
+WHERE EXISTS (SELECT 1
+              FROM torta o
+              WHERE o.descripcion_normalizada = t.descripcion_normalizada
+                AND o.id < t.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_torta_descripcion_normalizada ON torta (descripcion_normalizada);
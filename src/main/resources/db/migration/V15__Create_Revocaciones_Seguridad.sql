@@ -0,0 +1,23 @@
+-- Revocaciones de access tokens para la autorización sin estado, compartidas entre nodos
+-- tipo USUARIO: época de seguridad del usuario (clave = username)
+-- tipo AUTORIDAD: autoridad revocada en los tokens emitidos antes (clave = nombre del rol)
+-- revocada_en en milisegundos desde epoch, el mismo valor que el claim sep y que iat
+-- Se escribe en la misma transacción que el cambio y cada nodo la relee periódicamente;
+-- las filas más antiguas que la vida de un access token se purgan
+CREATE TABLE IF NOT EXISTS revocaciones_seguridad
+(
+    tipo        VARCHAR(10)  NOT NULL,
+    clave       VARCHAR(100) NOT NULL,
+    revocada_en BIGINT       NOT NULL,
+    PRIMARY KEY (tipo, clave)
+);
+
+-- Lectura incremental por marca de agua y purga
+CREATE INDEX IF NOT EXISTS idx_revocaciones_seguridad_revocada_en ON revocaciones_seguridad (revocada_en);
+
+-- Punto de partida conservador: los usuarios modificados dentro de la vida de un access token
+INSERT INTO revocaciones_seguridad (tipo, clave, revocada_en)
+SELECT 'USUARIO', username, (EXTRACT(EPOCH FROM fecha_actualizado) * 1000)::BIGINT
+FROM usuarios
+WHERE fecha_actualizado > CURRENT_TIMESTAMP - INTERVAL '1 day'
+ON CONFLICT (tipo, clave) DO NOTHING;
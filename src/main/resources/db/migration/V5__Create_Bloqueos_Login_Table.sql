@@ -0,0 +1,12 @@
+-- Bloqueos de cuenta por intentos fallidos de login
+-- Compartidos entre nodos y persistentes tras reinicios
+CREATE TABLE IF NOT EXISTS bloqueos_login
+(
+    username          VARCHAR(50) PRIMARY KEY,
+    bloqueado_hasta   TIMESTAMP   NOT NULL,
+    intentos_fallidos INTEGER     NOT NULL,
+    ultima_ip         VARCHAR(45),
+    fecha_bloqueo     TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_bloqueos_login_hasta ON bloqueos_login (bloqueado_hasta);
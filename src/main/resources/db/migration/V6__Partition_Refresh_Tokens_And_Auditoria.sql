@@ -0,0 +1,136 @@
+-- Particionado por rango (mensual) de refresh_tokens y auditoria_usuarios
+-- La retención pasa a ser un DROP de particiones completas en lugar de DELETE
+-- por filas; MantenimientoParticiones crea las particiones futuras y elimina las vencidas.
+-- La clave primaria debe incluir la columna de partición.
+
+-- ============== REFRESH TOKENS ==============
+
+ALTER TABLE refresh_tokens RENAME TO refresh_tokens_legacy;
+ALTER TABLE refresh_tokens_legacy RENAME CONSTRAINT refresh_tokens_pkey TO refresh_tokens_legacy_pkey;
+DROP INDEX IF EXISTS idx_refresh_token_username;
+DROP INDEX IF EXISTS idx_refresh_token_device;
+DROP INDEX IF EXISTS idx_refresh_token_expiracion;
+DROP INDEX IF EXISTS idx_refresh_token_activo;
+DROP INDEX IF EXISTS idx_refresh_token_ip;
+
+CREATE TABLE refresh_tokens
+(
+    id               VARCHAR(255) NOT NULL,
+    username         VARCHAR(50)  NOT NULL,
+    device_info      VARCHAR(255),
+    ip_address       VARCHAR(45),
+    user_agent       VARCHAR(500),
+    activo           BOOLEAN      NOT NULL DEFAULT true,
+    fecha_creacion   TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_expiracion TIMESTAMP    NOT NULL,
+    ultimo_uso       TIMESTAMP,
+    PRIMARY KEY (id, fecha_expiracion),
+    FOREIGN KEY (username) REFERENCES usuarios (username) ON DELETE CASCADE
+) PARTITION BY RANGE (fecha_expiracion);
+
+-- Recibe filas fuera de las particiones mensuales; el mantenimiento las reubica
+CREATE TABLE refresh_tokens_default PARTITION OF refresh_tokens DEFAULT;
+
+DO
+$$
+    DECLARE
+        mes   DATE;
+        hasta DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::date;
+    BEGIN
+        SELECT LEAST(COALESCE(date_trunc('month', MIN(fecha_expiracion))::date, CURRENT_DATE),
+                     date_trunc('month', CURRENT_DATE)::date)
+        INTO mes
+        FROM refresh_tokens_legacy;
+
+        mes := date_trunc('month', mes)::date;
+        WHILE mes <= hasta
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF refresh_tokens FOR VALUES FROM (%L) TO (%L)',
+                               'refresh_tokens_p' || to_char(mes, 'YYYY_MM'),
+                               mes, (mes + INTERVAL '1 month')::date);
+                mes := (mes + INTERVAL '1 month')::date;
+            END LOOP;
+    END
+$$;
+
+CREATE INDEX idx_refresh_token_username ON refresh_tokens (username);
+CREATE INDEX idx_refresh_token_device ON refresh_tokens (device_info);
+CREATE INDEX idx_refresh_token_expiracion ON refresh_tokens (fecha_expiracion);
+CREATE INDEX idx_refresh_token_activo ON refresh_tokens (activo);
+CREATE INDEX idx_refresh_token_ip ON refresh_tokens (ip_address);
+-- Búsquedas por id sin fecha: un índice por partición
+CREATE INDEX idx_refresh_token_id ON refresh_tokens (id);
+
+INSERT INTO refresh_tokens (id, username, device_info, ip_address, user_agent,
+                            activo, fecha_creacion, fecha_expiracion, ultimo_uso)
+SELECT id, username, device_info, ip_address, user_agent,
+       activo, fecha_creacion, fecha_expiracion, ultimo_uso
+FROM refresh_tokens_legacy;
+
+DROP TABLE refresh_tokens_legacy;
+
+COMMENT ON TABLE refresh_tokens IS 'Tokens de refresco para gestión de sesiones (particionada por fecha_expiracion)';
+COMMENT ON COLUMN refresh_tokens.device_info IS 'Información del dispositivo para identificación';
+
+-- ============== AUDITORÍA ==============
+
+ALTER TABLE auditoria_usuarios RENAME TO auditoria_usuarios_legacy;
+ALTER TABLE auditoria_usuarios_legacy RENAME CONSTRAINT auditoria_usuarios_pkey TO auditoria_usuarios_legacy_pkey;
+DROP INDEX IF EXISTS idx_auditoria_usuario;
+DROP INDEX IF EXISTS idx_auditoria_fecha;
+DROP INDEX IF EXISTS idx_auditoria_accion;
+
+-- La secuencia se conserva para no reiniciar los ids
+ALTER SEQUENCE auditoria_usuarios_id_seq OWNED BY NONE;
+
+CREATE TABLE auditoria_usuarios
+(
+    id          BIGINT       NOT NULL DEFAULT nextval('auditoria_usuarios_id_seq'),
+    usuario_id  BIGINT,
+    accion      VARCHAR(100) NOT NULL,
+    descripcion VARCHAR(500),
+    ip_address  VARCHAR(45),
+    user_agent  VARCHAR(500),
+    fecha       TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    resultado   VARCHAR(50),
+    PRIMARY KEY (id, fecha),
+    FOREIGN KEY (usuario_id) REFERENCES usuarios (id) ON DELETE SET NULL
+) PARTITION BY RANGE (fecha);
+
+CREATE TABLE auditoria_usuarios_default PARTITION OF auditoria_usuarios DEFAULT;
+
+DO
+$$
+    DECLARE
+        mes   DATE;
+        hasta DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::date;
+    BEGIN
+        SELECT LEAST(COALESCE(date_trunc('month', MIN(fecha))::date, CURRENT_DATE),
+                     date_trunc('month', CURRENT_DATE)::date)
+        INTO mes
+        FROM auditoria_usuarios_legacy;
+
+        mes := date_trunc('month', mes)::date;
+        WHILE mes <= hasta
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF auditoria_usuarios FOR VALUES FROM (%L) TO (%L)',
+                               'auditoria_usuarios_p' || to_char(mes, 'YYYY_MM'),
+                               mes, (mes + INTERVAL '1 month')::date);
+                mes := (mes + INTERVAL '1 month')::date;
+            END LOOP;
+    END
+$$;
+
+CREATE INDEX idx_auditoria_usuario ON auditoria_usuarios (usuario_id);
+CREATE INDEX idx_auditoria_fecha ON auditoria_usuarios (fecha);
+CREATE INDEX idx_auditoria_accion ON auditoria_usuarios (accion);
+
+INSERT INTO auditoria_usuarios (id, usuario_id, accion, descripcion, ip_address, user_agent, fecha, resultado)
+SELECT id, usuario_id, accion, descripcion, ip_address, user_agent, fecha, resultado
+FROM auditoria_usuarios_legacy;
+
+DROP TABLE auditoria_usuarios_legacy;
+
+ALTER SEQUENCE auditoria_usuarios_id_seq OWNED BY auditoria_usuarios.id;
+
+COMMENT ON TABLE auditoria_usuarios IS 'Log de auditoría de acciones de usuarios (particionada por fecha)';
@@ -0,0 +1,14 @@
+-- Índices compuestos para la búsqueda de auditoría con paginación keyset por (fecha, id)
+-- Cada filtro de igualdad va primero y el orden de la paginación después, de modo que
+-- cada página es un recorrido acotado del índice (sin OFFSET ni ordenamiento)
+
+CREATE INDEX IF NOT EXISTS idx_auditoria_fecha_id ON auditoria_usuarios (fecha DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_auditoria_usuario_fecha ON auditoria_usuarios (usuario_id, fecha DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_auditoria_accion_fecha ON auditoria_usuarios (accion, fecha DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_auditoria_resultado_fecha ON auditoria_usuarios (resultado, fecha DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_auditoria_ip_fecha ON auditoria_usuarios (ip_address, fecha DESC, id DESC);
+
+-- Cubiertos por los compuestos anteriores
+DROP INDEX IF EXISTS idx_auditoria_fecha;
+DROP INDEX IF EXISTS idx_auditoria_usuario;
+DROP INDEX IF EXISTS idx_auditoria_accion;
@@ -0,0 +1,22 @@
+-- Resumen horario de auditoría: conteos por hora, acción y resultado
+-- Las estadísticas de rangos largos suman estas filas en lugar de agrupar la tabla cruda
+-- El resultado nulo se guarda como '' para poder formar parte de la clave primaria
+CREATE TABLE IF NOT EXISTS auditoria_rollup_horaria
+(
+    hora      TIMESTAMP    NOT NULL,
+    accion    VARCHAR(100) NOT NULL,
+    resultado VARCHAR(50)  NOT NULL,
+    total     BIGINT       NOT NULL,
+    PRIMARY KEY (hora, accion, resultado)
+);
+
+-- Marca hasta dónde (exclusive) está consolidado el resumen; las horas posteriores se leen de la tabla cruda
+CREATE TABLE IF NOT EXISTS auditoria_rollup_estado
+(
+    id                SMALLINT PRIMARY KEY,
+    consolidado_hasta TIMESTAMP
+);
+
+INSERT INTO auditoria_rollup_estado (id, consolidado_hasta)
+VALUES (1, NULL)
+ON CONFLICT (id) DO NOTHING;
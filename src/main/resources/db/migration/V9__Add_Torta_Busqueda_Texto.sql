@@ -0,0 +1,22 @@
+-- Búsqueda de texto completo en español, insensible a acentos, sobre una columna tsvector almacenada
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- Configuración 'spanish' con unaccent antes del stemmer: "Limón" y "limon" producen el mismo lexema
+DO
+$$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'es_sin_acentos') THEN
+        CREATE TEXT SEARCH CONFIGURATION es_sin_acentos (COPY = spanish);
+        ALTER TEXT SEARCH CONFIGURATION es_sin_acentos
+            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, spanish_stem;
+    END IF;
+END
+$$;
+
+-- Con la configuración explícita to_tsvector es inmutable y puede usarse en una columna generada
+ALTER TABLE torta
+    ADD COLUMN IF NOT EXISTS descripcion_tsv tsvector
+        GENERATED ALWAYS AS (to_tsvector('es_sin_acentos'::regconfig, coalesce(descripcion, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_torta_descripcion_tsv ON torta USING gin (descripcion_tsv);
@@ -0,0 +1,54 @@
+package com.altico.cakeserver.applications.service;
+
+import com.altico.cakeserver.applications.ports.output.DetectorActividadSospechosaPort;
+import com.altico.cakeserver.applications.ports.output.RefreshTokenPersistencePort;
+import com.altico.cakeserver.domain.exception.RevokedRefreshTokenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Uso del filtro negativo en el servicio de refresh tokens
+ */
+class RefreshTokenServiceTest {
+
+    private RefreshTokenPersistencePort persistence;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        persistence = mock(RefreshTokenPersistencePort.class);
+        service = new RefreshTokenService(persistence, mock(DetectorActividadSospechosaPort.class));
+    }
+
+    @Test
+    void revocarEjecutaLaActualizacionAunqueElFiltroLoDeComoInvalido() {
+        String tokenId = UUID.randomUUID().toString();
+        when(persistence.isDefinitelyInvalid(tokenId)).thenReturn(true);
+        when(persistence.existsById(tokenId)).thenReturn(true);
+
+        service.revocarToken(tokenId);
+
+        verify(persistence).revokeById(tokenId);
+    }
+
+    @Test
+    void renovarUnTokenRechazadoPorElFiltroNoLlegaALaRotacion() {
+        String tokenId = UUID.randomUUID().toString();
+        when(persistence.isDefinitelyInvalid(tokenId)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.renovarToken(tokenId))
+                .isInstanceOf(RevokedRefreshTokenException.class);
+
+        verify(persistence, never()).rotate(any(), any(), any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,177 @@
+package com.altico.cakeserver.benchmark;
+
+import com.altico.cakeserver.applications.ports.input.RefreshTokenServicePort;
+import com.altico.cakeserver.applications.ports.output.RefreshTokenPersistencePort;
+import com.altico.cakeserver.domain.model.RefreshToken;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.UsuarioEntity;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.RefreshTokenRepository;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de la renovación de refresh tokens: flujo anterior (validar, buscar,
+ * contar, guardar y revocar por separado) frente a la rotación en una sola sentencia.
+ *
+ * Cuenta las sentencias que recibe Postgres (pg_stat_statements) y mide la latencia
+ * por renovación. Requiere Docker; queda fuera del build por defecto y se ejecuta
+ * con {@code mvn test -Pbenchmark}.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.jwt.secret=benchmark-secret-benchmark-secret-benchmark-secret",
+        "app.jwt.issuer=cake-server-benchmark",
+        "app.refresh-token.scheduling.enabled=false"
+})
+@Testcontainers
+@Tag("benchmark")
+@Slf4j
+class RefreshTokenRotationBenchmarkTest {
+
+    private static final int CALENTAMIENTO = 50;
+    private static final int ITERACIONES = 500;
+    private static final int LIMITE_TOKENS = 5;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres",
+                    "-c", "shared_preload_libraries=pg_stat_statements",
+                    "-c", "pg_stat_statements.track_utility=off");
+
+    @Autowired
+    private RefreshTokenServicePort refreshTokenService;
+
+    @Autowired
+    private RefreshTokenPersistencePort refreshTokenPersistence;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+        username = "bench_" + UUID.randomUUID().toString().substring(0, 8);
+        usuarioRepository.save(new UsuarioEntity(username, username + "@bench.local", "x"));
+    }
+
+    @Test
+    void compararRenovacionAnteriorConRotacion() {
+        Resultado anterior = medir("anterior (~10 sentencias)", this::renovarComoAntes);
+        Resultado rotacion = medir("rotación en un CTE", this::renovarConRotacion);
+
+        log.info("Renovación de refresh token - {} iteraciones\n{}\n{}", ITERACIONES, anterior, rotacion);
+
+        // Sin sentencias registradas la comparación no probaría nada
+        assertThat(anterior.sentenciasPorRenovacion()).isGreaterThan(0);
+        assertThat(rotacion.sentenciasPorRenovacion())
+                .isGreaterThan(0)
+                .isLessThanOrEqualTo(anterior.sentenciasPorRenovacion() / 2);
+    }
+
+    // ============== FLUJOS ==============
+
+    /**
+     * Reproduce las llamadas que hacía POST /api/v1/auth/refresh antes de la rotación atómica
+     */
+    private String renovarComoAntes(String tokenId) {
+        // esTokenValido: búsqueda + actualización de ultimo_uso
+        RefreshToken token = refreshTokenPersistence.findById(tokenId).orElseThrow();
+        transactionTemplate.executeWithoutResult(status ->
+                refreshTokenRepository.updateUltimoUso(tokenId, LocalDateTime.now()));
+
+        // obtenerTokenPorId + usuario para el access token
+        refreshTokenPersistence.findById(tokenId).orElseThrow();
+        usuarioRepository.findByUsername(token.username()).orElseThrow();
+
+        // renovarToken: búsqueda, límite, alta y revocación
+        refreshTokenPersistence.findById(tokenId).orElseThrow();
+        if (refreshTokenPersistence.countActiveByUsername(token.username()) >= LIMITE_TOKENS) {
+            refreshTokenPersistence.findActiveByUsername(token.username());
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        RefreshToken nuevo = refreshTokenPersistence.save(new RefreshToken(
+                UUID.randomUUID().toString(), token.username(), token.deviceInfo(), token.ipAddress(),
+                token.userAgent(), true, ahora, ahora.plusDays(7), ahora));
+        refreshTokenPersistence.existsById(tokenId);
+        refreshTokenPersistence.revokeById(tokenId);
+
+        // Información del usuario para la respuesta
+        usuarioRepository.findByUsername(token.username()).orElseThrow();
+        return nuevo.id();
+    }
+
+    private String renovarConRotacion(String tokenId) {
+        RefreshToken nuevo = refreshTokenService.renovarToken(tokenId);
+        usuarioRepository.findByUsernameWithRoles(nuevo.username()).orElseThrow();
+        return nuevo.id();
+    }
+
+    // ============== MEDICIÓN ==============
+
+    private Resultado medir(String nombre, UnaryOperator<String> renovar) {
+        String tokenId = refreshTokenService.crearToken(username, "Benchmark", "127.0.0.1", "bench").id();
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            tokenId = renovar.apply(tokenId);
+        }
+
+        jdbcTemplate.execute("SELECT pg_stat_statements_reset()");
+        long[] latencias = new long[ITERACIONES];
+        for (int i = 0; i < ITERACIONES; i++) {
+            long inicio = System.nanoTime();
+            tokenId = renovar.apply(tokenId);
+            latencias[i] = System.nanoTime() - inicio;
+        }
+
+        Long sentencias = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(calls), 0) FROM pg_stat_statements " +
+                        "WHERE query NOT ILIKE '%pg_stat_statements%'", Long.class);
+
+        Arrays.sort(latencias);
+        return new Resultado(
+                nombre,
+                (double) (sentencias != null ? sentencias : 0) / ITERACIONES,
+                Arrays.stream(latencias).average().orElse(0) / 1_000_000,
+                latencias[ITERACIONES / 2] / 1_000_000.0,
+                latencias[(int) (ITERACIONES * 0.99)] / 1_000_000.0
+        );
+    }
+
+    private record Resultado(String nombre, double sentenciasPorRenovacion,
+                             double mediaMs, double p50Ms, double p99Ms) {
+        @Override
+        public String toString() {
+            return String.format("  %-28s sentencias/renovación=%5.2f  media=%6.3fms  p50=%6.3fms  p99=%6.3fms",
+                    nombre, sentenciasPorRenovacion, mediaMs, p50Ms, p99Ms);
+        }
+    }
+}
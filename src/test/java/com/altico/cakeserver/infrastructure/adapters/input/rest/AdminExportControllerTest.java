@@ -0,0 +1,88 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest;
+
+import com.altico.cakeserver.applications.ports.input.RefreshTokenServicePort;
+import com.altico.cakeserver.applications.ports.input.UsuarioServicePort;
+import com.altico.cakeserver.domain.exception.RateLimitExceededException;
+import com.altico.cakeserver.domain.model.RefreshToken;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.AdminDtoMapper;
+import com.altico.cakeserver.infrastructure.adapters.input.rest.mapper.AuthDtoMapper;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Formato de las filas exportadas: escapado RFC 4180, neutralización de fórmulas
+ * y enmascarado del ID de sesión; límite de volcados simultáneos.
+ */
+class AdminExportControllerTest {
+
+    @Test
+    void elTextoQuePareceFormulaSeNeutraliza() {
+        assertThat(AdminExportController.filaCsv("=HYPERLINK(\"http://x\")", "+1", "-2", "@SUM(A1)", "\tx"))
+                .isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\",'+1,'-2,'@SUM(A1),'\tx");
+    }
+
+    @Test
+    void losNumerosYFechasNoSeAlteran() {
+        LocalDateTime fecha = LocalDateTime.of(2025, 1, 2, 3, 4);
+
+        assertThat(AdminExportController.filaCsv(-5L, fecha, null, "texto"))
+                .isEqualTo("-5,2025-01-02T03:04,,texto");
+    }
+
+    @Test
+    void losSeparadoresYSaltosSeEntrecomillan() {
+        assertThat(AdminExportController.filaCsv("a,b", "línea\nnueva"))
+                .isEqualTo("\"a,b\",\"línea\nnueva\"");
+    }
+
+    @Test
+    void elIdDeSesionNuncaSaleCompleto() {
+        RefreshToken token = new RefreshToken("0123456789abcdef", "ana", null, null, null, true,
+                LocalDateTime.now(), LocalDateTime.now().plusDays(7), null);
+
+        assertThat(token.idEnmascarado()).isEqualTo("01234567***");
+        assertThat(RefreshToken.enmascararId("corto")).isEqualTo("***");
+        assertThat(AdminExportController.filaCsv(token.idEnmascarado(), token.username()))
+                .doesNotContain(token.id());
+    }
+
+    @Test
+    void porEncimaDelLimiteDeVolcadosSimultaneosSeResponde429() throws IOException {
+        AdminProperties adminProperties = new AdminProperties();
+        adminProperties.getExport().setMaxConcurrent(2);
+        AdminExportController controller = nuevoController(adminProperties);
+
+        ResponseEntity<StreamingResponseBody> primero = exportar(controller);
+        exportar(controller);
+        assertThatThrownBy(() -> exportar(controller))
+                .isInstanceOf(RateLimitExceededException.class);
+
+        // Al terminar un volcado su cupo queda libre
+        primero.getBody().writeTo(new ByteArrayOutputStream());
+        assertThat(exportar(controller).getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private AdminExportController nuevoController(AdminProperties adminProperties) {
+        return new AdminExportController(mock(UsuarioServicePort.class), mock(RefreshTokenServicePort.class),
+                mock(AdminDtoMapper.class), mock(AuthDtoMapper.class), adminProperties, new ObjectMapper());
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportar(AdminExportController controller) {
+        return controller.exportarAuditoria(null, null, null, null, null, null, "csv", false,
+                new MockHttpServletRequest());
+    }
+}
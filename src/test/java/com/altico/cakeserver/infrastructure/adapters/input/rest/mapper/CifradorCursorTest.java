@@ -0,0 +1,73 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.mapper;
+
+import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cursores cifrados del listado de sesiones: el ID del token no aparece en claro y
+ * cualquier alteración se rechaza.
+ */
+class CifradorCursorTest {
+
+    private static final String TOKEN_ID = "4f1c2a9e-7d3b-4c21-9a55-0b6e8f2d1c77";
+
+    private final CifradorCursor cifrador = cifrador("secreto-de-pruebas-con-longitud-suficiente-para-hs256");
+
+    @Test
+    void idaYVueltaConservaElCursor() {
+        String plano = CursorCodec.codificar("fechaCreacion", "DESC", TOKEN_ID, "2025-03-01T10:30:15");
+
+        assertThat(cifrador.descifrar(cifrador.cifrar(plano))).isEqualTo(plano);
+    }
+
+    @Test
+    void elIdDelTokenNoViajaEnClaro() {
+        String cifrado = cifrador.cifrar(CursorCodec.codificar("id", "ASC", TOKEN_ID, TOKEN_ID));
+        String bytes = new String(Base64.getUrlDecoder().decode(cifrado), StandardCharsets.ISO_8859_1);
+
+        assertThat(cifrado).doesNotContain(TOKEN_ID);
+        assertThat(bytes).doesNotContain(TOKEN_ID).doesNotContain("4f1c2a9e");
+    }
+
+    @Test
+    void unCursorAlteradoSeRechaza() {
+        byte[] bytes = Base64.getUrlDecoder().decode(cifrador.cifrar(CursorCodec.codificar("id", "ASC", TOKEN_ID, TOKEN_ID)));
+        bytes[bytes.length / 2] ^= 1;
+        String alterado = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        assertThatThrownBy(() -> cifrador.descifrar(alterado))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+    }
+
+    @Test
+    void unCursorSinCifrarOConOtraClaveSeRechaza() {
+        String plano = CursorCodec.codificar("id", "ASC", TOKEN_ID, TOKEN_ID);
+        String deOtraClave = cifrador("otro-secreto-de-pruebas-con-longitud-suficiente-hs256").cifrar(plano);
+
+        assertThatThrownBy(() -> cifrador.descifrar(plano)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cifrador.descifrar(deOtraClave)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cifrador.descifrar("%%")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sinCursorNoHayNadaQueCifrar() {
+        assertThat(cifrador.cifrar(null)).isNull();
+        assertThat(cifrador.descifrar(null)).isNull();
+        assertThat(cifrador.descifrar(" ")).isNull();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private static CifradorCursor cifrador(String secreto) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(secreto);
+        return new CifradorCursor(properties);
+    }
+}
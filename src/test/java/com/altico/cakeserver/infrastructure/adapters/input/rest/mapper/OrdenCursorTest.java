@@ -0,0 +1,100 @@
+package com.altico.cakeserver.infrastructure.adapters.input.rest.mapper;
+
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import com.altico.cakeserver.domain.model.PaginaCursor;
+import com.altico.cakeserver.domain.model.RefreshToken;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lectura y escritura del cursor opaco: ida y vuelta, orden distinto al del cursor
+ * y cursores alterados.
+ */
+class OrdenCursorTest {
+
+    private static final OrdenCursor<RefreshToken> ORDEN = OrdenCursor
+            .<RefreshToken>porId(valor -> valor, RefreshToken::id)
+            .campo("fechaCreacion", LocalDateTime::parse, RefreshToken::fechaCreacion)
+            .campo("deviceInfo", valor -> valor, RefreshToken::deviceInfo);
+
+    private static final LocalDateTime CREACION = LocalDateTime.of(2025, 3, 1, 10, 30, 15);
+
+    @Test
+    void elCursorDeLaPaginaSiguienteDevuelveLaMismaPosicion() {
+        ConsultaCursor primera = ORDEN.consulta("fechaCreacion", "desc", null);
+        assertThat(primera.esPrimeraPagina()).isTrue();
+
+        String cursor = ORDEN.siguiente(primera, pagina(token("abc-123", "movil")));
+        ConsultaCursor segunda = ORDEN.consulta("fechaCreacion", "DESC", cursor);
+
+        assertThat(segunda).isEqualTo(new ConsultaCursor("fechaCreacion", true, CREACION, "abc-123"));
+    }
+
+    @Test
+    void unValorConElSeparadorSeConserva() {
+        ConsultaCursor primera = ORDEN.consulta("deviceInfo", "ASC", null);
+
+        String cursor = ORDEN.siguiente(primera, pagina(token("abc-123", "Chrome | Linux")));
+
+        assertThat(ORDEN.consulta("deviceInfo", "ASC", cursor).despuesDeValor()).isEqualTo("Chrome | Linux");
+    }
+
+    @Test
+    void sinMasElementosNoHayCursor() {
+        ConsultaCursor primera = ORDEN.consulta("id", "ASC", null);
+
+        assertThat(ORDEN.siguiente(primera, PaginaCursor.de(List.of(token("a", "movil")), 20))).isNull();
+    }
+
+    @Test
+    void unCursorDeOtroOrdenSeRechaza() {
+        String cursor = ORDEN.siguiente(ORDEN.consulta("fechaCreacion", "DESC", null),
+                pagina(token("abc-123", "movil")));
+
+        assertThatThrownBy(() -> ORDEN.consulta("fechaCreacion", "ASC", cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ORDEN.consulta("deviceInfo", "DESC", cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unCursorAlteradoSeRechaza() {
+        assertThatThrownBy(() -> ORDEN.consulta("fechaCreacion", "DESC", "%%no-es-base64%%"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ORDEN.consulta("fechaCreacion", "DESC", codificar("fechaCreacion|DESC")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ORDEN.consulta("fechaCreacion", "DESC", codificar("fechaCreacion|DESC|x|ayer")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+    }
+
+    @Test
+    void soloSeAdmitenLosCamposYDireccionesRegistrados() {
+        assertThatThrownBy(() -> ORDEN.consulta("username", "ASC", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ORDEN.consulta("id", "ARRIBA", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private static RefreshToken token(String id, String deviceInfo) {
+        return new RefreshToken(id, "ana", deviceInfo, null, null, true, CREACION, CREACION.plusDays(7), null);
+    }
+
+    // Una página con un elemento de más: hay página siguiente
+    private static PaginaCursor<RefreshToken> pagina(RefreshToken ultimo) {
+        return PaginaCursor.de(List.of(ultimo, token("extra", "movil")), 1);
+    }
+
+    private static String codificar(String valor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
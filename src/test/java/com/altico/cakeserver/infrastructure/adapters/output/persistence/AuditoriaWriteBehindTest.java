@@ -0,0 +1,135 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.domain.model.UsuarioAuditoria;
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Volcado por lotes de auditoría: registros de usuarios eliminados, errores de la BD,
+ * límite de reintentos y contrapresión acotada. Requiere Docker.
+ */
+class AuditoriaWriteBehindTest extends BaseDatosMigradaTest {
+
+    private DataSourceTransactionManager transactionManager;
+    private AdminProperties adminProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditoriaWriteBehind writeBehind;
+    private long ana;
+    private long luis;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        ana = crearUsuario("ana");
+        luis = crearUsuario("luis");
+
+        adminProperties = new AdminProperties();
+        adminProperties.getAuditPipeline().setBatchSize(10);
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehind = new AuditoriaWriteBehind(jdbcTemplate, transactionManager, adminProperties, meterRegistry);
+    }
+
+    @Test
+    void unUsuarioEliminadoNoBloqueaLasAuditoriasPosteriores() {
+        writeBehind.registrar(auditoria(ana, "LOGIN"));
+        // El usuario se elimina antes de que su auditoría llegue a volcarse
+        jdbcTemplate.update("DELETE FROM usuarios WHERE id = ?", ana);
+        writeBehind.registrar(auditoria(ana, "ELIMINAR_USUARIO"));
+        writeBehind.registrar(auditoria(luis, "LOGIN"));
+
+        writeBehind.volcar();
+
+        assertThat(writeBehind.pendientes()).isZero();
+        assertThat(contar("usuario_id IS NULL")).isEqualTo(2);
+        assertThat(contar("usuario_id = " + luis)).isEqualTo(1);
+        assertThat(meterRegistry.counter("cakeserver.auditoria.sin_usuario").count()).isEqualTo(2);
+
+        // Los volcados siguientes no arrastran nada
+        writeBehind.registrar(auditoria(luis, "LOGOUT"));
+        writeBehind.volcar();
+        assertThat(contar("accion = 'LOGOUT'")).isEqualTo(1);
+    }
+
+    @Test
+    void unRegistroInvalidoSeDescartaSinPerderElRestoDelLote() {
+        writeBehind.registrar(auditoria(luis, "LOGIN"));
+        // accion es NOT NULL
+        writeBehind.registrar(auditoria(luis, null));
+        writeBehind.registrar(auditoria(luis, "LOGOUT"));
+
+        writeBehind.volcar();
+
+        assertThat(writeBehind.pendientes()).isZero();
+        assertThat(contar("TRUE")).isEqualTo(2);
+        assertThat(descartados("invalido")).isEqualTo(1);
+    }
+
+    @Test
+    void conLaBdCaidaSeConservaLoPendienteHastaElLimiteDeReintentos() {
+        adminProperties.getAuditPipeline().setMaxRetries(2);
+        writeBehind.registrar(auditoria(luis, "LOGIN"));
+        jdbcTemplate.execute("ALTER TABLE auditoria_usuarios RENAME TO auditoria_fuera");
+
+        writeBehind.volcar();
+        writeBehind.volcar();
+        assertThat(writeBehind.pendientes()).isEqualTo(1);
+
+        writeBehind.volcar();
+        assertThat(writeBehind.pendientes()).isZero();
+        assertThat(descartados("reintentos_agotados")).isEqualTo(1);
+    }
+
+    @Test
+    void seRecuperaTrasUnFalloTransitorio() {
+        writeBehind.registrar(auditoria(luis, "LOGIN"));
+        jdbcTemplate.execute("ALTER TABLE auditoria_usuarios RENAME TO auditoria_fuera");
+        writeBehind.volcar();
+
+        jdbcTemplate.execute("ALTER TABLE auditoria_fuera RENAME TO auditoria_usuarios");
+        writeBehind.volcar();
+
+        assertThat(writeBehind.pendientes()).isZero();
+        assertThat(contar("TRUE")).isEqualTo(1);
+    }
+
+    @Test
+    void conLaColaLlenaYLaBdCaidaQuienAuditaNoSeQuedaEsperando() throws Exception {
+        adminProperties.getAuditPipeline().setCapacity(1);
+        jdbcTemplate.execute("ALTER TABLE auditoria_usuarios RENAME TO auditoria_fuera");
+        writeBehind.registrar(auditoria(luis, "LOGIN"));
+
+        CompletableFuture<Void> segundo = CompletableFuture.runAsync(() ->
+                writeBehind.registrar(auditoria(luis, "LOGOUT")));
+
+        segundo.get(10, TimeUnit.SECONDS);
+        assertThat(writeBehind.pendientes()).isEqualTo(1);
+        assertThat(descartados("cola_llena")).isEqualTo(1);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private static UsuarioAuditoria auditoria(Long usuarioId, String accion) {
+        return new UsuarioAuditoria(null, usuarioId, accion, "prueba", "127.0.0.1", "test",
+                LocalDateTime.now(), "EXITOSO");
+    }
+
+    private long contar(String condicion) {
+        List<Long> filas = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM auditoria_usuarios WHERE " + condicion, Long.class);
+        return filas.get(0);
+    }
+
+    private double descartados(String motivo) {
+        return meterRegistry.counter("cakeserver.auditoria.descartados", "motivo", motivo).count();
+    }
+}
@@ -0,0 +1,77 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base de los tests de persistencia contra Postgres: el esquema sale de las migraciones
+ * de Flyway, no de un DDL copiado en cada test, así que particiones, claves foráneas e
+ * índices son los mismos que en producción. Requiere Docker.
+ *
+ * Las migraciones se aplican una vez por clase sobre la base del contenedor, que sirve
+ * de plantilla: cada test trabaja en una copia nueva (CREATE DATABASE ... TEMPLATE) y
+ * puede borrar o renombrar tablas sin afectar a los demás.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+abstract class BaseDatosMigradaTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final AtomicInteger COPIAS = new AtomicInteger();
+
+    protected DriverManagerDataSource dataSource;
+    protected JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrarPlantilla() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void crearBaseDeDatos() {
+        String nombre = "prueba_" + COPIAS.incrementAndGet();
+        new JdbcTemplate(conexion("postgres"))
+                .execute("CREATE DATABASE " + nombre + " TEMPLATE " + postgres.getDatabaseName());
+
+        dataSource = conexion(nombre);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    /**
+     * Inserta un usuario activo sin roles (refresh_tokens lo referencia por username).
+     *
+     * @return su id
+     */
+    protected long crearUsuario(String username) {
+        Long id = jdbcTemplate.queryForObject("INSERT INTO usuarios (username, email, password) " +
+                "VALUES (?, ?, 'x') RETURNING id", Long.class, username, username + "@prueba.local");
+        return id != null ? id : 0;
+    }
+
+    protected void insertarToken(String id, String username, String deviceInfo, boolean activo,
+                                 LocalDateTime expiracion) {
+        jdbcTemplate.update("INSERT INTO refresh_tokens (id, username, device_info, activo, fecha_expiracion) " +
+                "VALUES (?, ?, ?, ?, ?)", id, username, deviceInfo, activo, expiracion);
+    }
+
+    private static DriverManagerDataSource conexion(String baseDeDatos) {
+        String url = "jdbc:postgresql://" + postgres.getHost() + ":"
+                + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + baseDeDatos;
+        return new DriverManagerDataSource(url, postgres.getUsername(), postgres.getPassword());
+    }
+}
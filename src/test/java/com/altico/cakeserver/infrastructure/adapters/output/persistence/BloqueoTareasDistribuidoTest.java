@@ -0,0 +1,158 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.SchedulingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exclusión de tareas programadas entre nodos con bloqueos asesores de PostgreSQL y
+ * una ejecución por turno en todo el clúster. Cada instancia de
+ * {@link BloqueoTareasDistribuido} simula un nodo. Requiere Docker.
+ */
+class BloqueoTareasDistribuidoTest extends BaseDatosMigradaTest {
+
+    private BloqueoTareasDistribuido nodoA;
+    private BloqueoTareasDistribuido nodoB;
+
+    @BeforeEach
+    void setUp() {
+        nodoA = nuevoNodo();
+        nodoB = nuevoNodo();
+    }
+
+    @Test
+    void otroNodoOmiteLaTareaMientrasElBloqueoEstaTomado() throws Exception {
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        CompletableFuture<Boolean> enA = CompletableFuture.supplyAsync(() ->
+                nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, () -> {
+                    ejecuciones.incrementAndGet();
+                    iniciada.countDown();
+                    esperar(liberar);
+                }));
+
+        assertThat(iniciada.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(nodoB.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, ejecuciones::incrementAndGet)).isFalse();
+
+        liberar.countDown();
+        assertThat(enA.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(ejecuciones).hasValue(1);
+
+        // Liberado el bloqueo, el turno ya está ejecutado
+        assertThat(nodoB.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, ejecuciones::incrementAndGet)).isFalse();
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void unaTareaRapidaSeEjecutaUnaSolaVezPorTurno() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        // Disparos de los dos nodos uno tras otro: la primera ejecución ya soltó el bloqueo
+        assertThat(nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, ejecuciones::incrementAndGet)).isTrue();
+        assertThat(nodoB.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, ejecuciones::incrementAndGet)).isFalse();
+        assertThat(nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, ejecuciones::incrementAndGet)).isFalse();
+
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void pasadaLaVentanaElSiguienteTurnoSeEjecuta() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, ejecuciones::incrementAndGet);
+
+        vencerTurno(TareaProgramada.REFRESH_TOKEN_LIMPIEZA);
+
+        assertThat(nodoB.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, ejecuciones::incrementAndGet)).isTrue();
+        assertThat(ejecuciones).hasValue(2);
+    }
+
+    @Test
+    void tareasDistintasNoSeBloqueanEntreSi() throws Exception {
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> enA = CompletableFuture.supplyAsync(() ->
+                nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, () -> {
+                    iniciada.countDown();
+                    esperar(liberar);
+                }));
+
+        assertThat(iniciada.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(nodoB.ejecutar(TareaProgramada.REFRESH_TOKEN_ESTADISTICAS, () -> { })).isTrue();
+
+        liberar.countDown();
+        assertThat(enA.get(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void unaEjecucionSolapadaEnElMismoNodoSeOmite() {
+        AtomicInteger anidadas = new AtomicInteger();
+
+        boolean ejecutada = nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, () -> {
+            if (nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, anidadas::incrementAndGet)) {
+                anidadas.incrementAndGet();
+            }
+        });
+
+        assertThat(ejecutada).isTrue();
+        assertThat(anidadas).hasValue(0);
+    }
+
+    @Test
+    void elBloqueoYElTurnoSeLiberanAunqueLaTareaFalle() {
+        try {
+            nodoA.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, () -> {
+                throw new IllegalStateException("fallo de prueba");
+            });
+        } catch (IllegalStateException ignored) {
+            // esperado
+        }
+
+        assertThat(nodoB.ejecutar(TareaProgramada.REFRESH_TOKEN_LIMPIEZA, () -> { })).isTrue();
+    }
+
+    @Test
+    void cadaTareaTieneUnaClaveDeBloqueoPropia() {
+        assertThat(Arrays.stream(TareaProgramada.values()).map(TareaProgramada::getClaveBloqueo))
+                .doesNotHaveDuplicates();
+        assertThat(Arrays.stream(TareaProgramada.values()).map(TareaProgramada::getNombre))
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void laVentanaDeCadaTareaEsPositiva() {
+        assertThat(Arrays.stream(TareaProgramada.values()))
+                .allSatisfy(tarea -> assertThat(tarea.getVentanaMinima()).isPositive());
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private BloqueoTareasDistribuido nuevoNodo() {
+        return new BloqueoTareasDistribuido(dataSource, new SchedulingProperties(), new SimpleMeterRegistry());
+    }
+
+    // Simula que la última ejecución quedó en un turno anterior
+    private void vencerTurno(TareaProgramada tarea) {
+        jdbcTemplate.update("UPDATE tareas_programadas SET ultima_ejecucion = ultima_ejecucion - ? * INTERVAL '1 millisecond' " +
+                "WHERE nombre = ?", tarea.getVentanaMinima().toMillis(), tarea.getNombre());
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.domain.model.ConsultaCursor;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.RefreshTokenEntity;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.RefreshTokenRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Páginas keyset sobre (campo, id) con valores repetidos del campo: el id desempata
+ * sin saltar ni repetir filas entre páginas. El esquema lo crea Flyway con las
+ * migraciones. Requiere Docker.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=none")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class EspecificacionesKeysetTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final LocalDateTime CREACION = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Autowired
+    private RefreshTokenRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        // 'user' viene de los datos iniciales de las migraciones
+        // Cinco tokens creados en el mismo instante y dos una hora después
+        for (String id : List.of("t3", "t1", "t5", "t2", "t4")) {
+            crear(id, CREACION);
+        }
+        crear("t7", CREACION.plusHours(1));
+        crear("t6", CREACION.plusHours(1));
+        entityManager.clear();
+    }
+
+    @Test
+    void enOrdenDescendenteLosEmpatesSeRecorrenPorIdDescendente() {
+        assertThat(recorrer("fechaCreacion", true, 2))
+                .containsExactly("t7", "t6", "t5", "t4", "t3", "t2", "t1");
+    }
+
+    @Test
+    void enOrdenAscendenteLosEmpatesSeRecorrenPorIdAscendente() {
+        assertThat(recorrer("fechaCreacion", false, 2))
+                .containsExactly("t1", "t2", "t3", "t4", "t5", "t6", "t7");
+    }
+
+    @Test
+    void unaPaginaQueTerminaEnMitadDeUnEmpateNoSaltaNiRepite() {
+        // Con tamaño 3 el corte cae dentro del grupo de cinco empatados
+        assertThat(recorrer("fechaCreacion", true, 3))
+                .containsExactly("t7", "t6", "t5", "t4", "t3", "t2", "t1");
+    }
+
+    @Test
+    void ordenarPorIdNoNecesitaDesempate() {
+        assertThat(recorrer("id", true, 4))
+                .containsExactly("t7", "t6", "t5", "t4", "t3", "t2", "t1");
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void crear(String id, LocalDateTime creacion) {
+        repository.saveAndFlush(new RefreshTokenEntity(id, "user", "movil", null, null, creacion.plusDays(7)));
+        // fecha_creacion no es actualizable desde JPA (@CreationTimestamp)
+        entityManager.createNativeQuery("UPDATE refresh_tokens SET fecha_creacion = ?1 WHERE id = ?2")
+                .setParameter(1, creacion)
+                .setParameter(2, id)
+                .executeUpdate();
+    }
+
+    // Recorre todas las páginas como lo haría un cliente con el cursor de la anterior
+    private List<String> recorrer(String campo, boolean descendente, int tamano) {
+        List<String> ids = new ArrayList<>();
+        ConsultaCursor consulta = new ConsultaCursor(campo, descendente, null, null);
+        while (true) {
+            ConsultaCursor actual = consulta;
+            List<RefreshTokenEntity> pagina = repository.findBy(EspecificacionesKeyset.despuesDe(actual),
+                    q -> q.sortBy(EspecificacionesKeyset.orden(actual)).limit(tamano).all());
+            pagina.forEach(token -> ids.add(token.getId()));
+            if (pagina.size() < tamano) {
+                return ids;
+            }
+            RefreshTokenEntity ultimo = pagina.get(pagina.size() - 1);
+            Object valor = "id".equals(campo) ? ultimo.getId() : ultimo.getFechaCreacion();
+            consulta = new ConsultaCursor(campo, descendente, valor, ultimo.getId());
+        }
+    }
+}
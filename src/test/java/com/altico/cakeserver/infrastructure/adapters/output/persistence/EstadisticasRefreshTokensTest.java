@@ -0,0 +1,158 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.domain.model.TokenEstadisticas;
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import com.altico.cakeserver.infrastructure.config.SchedulingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estadísticas sobre el resumen compartido con varios nodos sobre la misma base de
+ * datos: los cambios de un nodo se ven en el otro al confirmarse, sin reconstruir.
+ * Requiere Docker.
+ */
+class EstadisticasRefreshTokensTest extends BaseDatosMigradaTest {
+
+    private DataSourceTransactionManager transactionManager;
+    private TransactionTemplate transactionTemplate;
+    private RefreshTokenProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        crearUsuario("ana");
+        crearUsuario("luis");
+
+        properties = new RefreshTokenProperties();
+    }
+
+    @Test
+    void laReconstruccionCompletaEsCadaVariasHoras() {
+        assertThat(properties.getEstadisticas().getReconcileIntervalMs()).isGreaterThanOrEqualTo(3_600_000);
+    }
+
+    @Test
+    void lasAltasDeUnNodoSeVenEnOtroAlConfirmar() {
+        EstadisticasRefreshTokens nodoA = nuevoNodo();
+        EstadisticasRefreshTokens nodoB = nuevoNodo();
+
+        alta(nodoA, "ana", "movil", LocalDateTime.now().plusDays(7));
+        alta(nodoA, "ana", "web", LocalDateTime.now().plusDays(7));
+        alta(nodoB, "luis", "web", LocalDateTime.now().plusDays(7));
+
+        TokenEstadisticas estadisticas = nodoB.obtener();
+        assertThat(estadisticas.totalTokens()).isEqualTo(3);
+        assertThat(estadisticas.tokensActivos()).isEqualTo(3);
+        assertThat(estadisticas.sesionesUnicas()).isEqualTo(2);
+        assertThat(estadisticas.dispositivosUnicos()).isEqualTo(2);
+        assertThat(nodoA.obtener()).isEqualTo(estadisticas);
+    }
+
+    @Test
+    void unaTransaccionRevertidaNoCuenta() {
+        EstadisticasRefreshTokens nodo = nuevoNodo();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            insertarToken(UUID.randomUUID().toString(), "ana", "movil", true, LocalDateTime.now().plusDays(7));
+            nodo.registrarAlta("ana", "movil", true, LocalDateTime.now().plusDays(7));
+            status.setRollbackOnly();
+        });
+
+        assertThat(nodo.obtener().totalTokens()).isZero();
+        assertThat(filasResumen()).isZero();
+    }
+
+    @Test
+    void revocacionesYBajasDescuentan() {
+        EstadisticasRefreshTokens nodo = nuevoNodo();
+        LocalDateTime expiracion = LocalDateTime.now().plusDays(7);
+        alta(nodo, "ana", "movil", expiracion);
+        alta(nodo, "ana", "web", expiracion);
+
+        transactionTemplate.executeWithoutResult(status -> nodo.registrarRevocaciones(1));
+        assertThat(nodo.obtener().tokensActivos()).isEqualTo(1);
+        assertThat(nodo.obtener().tokensRevocados()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> nodo.registrarBaja("ana", "web", false, expiracion));
+        TokenEstadisticas estadisticas = nodo.obtener();
+        assertThat(estadisticas.totalTokens()).isEqualTo(1);
+        assertThat(estadisticas.dispositivosUnicos()).isEqualTo(1);
+        assertThat(estadisticas.sesionesUnicas()).isEqualTo(1);
+    }
+
+    @Test
+    void expiradosYPorExpirarSeCalculanConLaHoraDeLectura() {
+        EstadisticasRefreshTokens nodo = nuevoNodo();
+        alta(nodo, "ana", "movil", LocalDateTime.now().minusHours(1));
+        alta(nodo, "ana", "web", LocalDateTime.now().plusHours(2));
+        alta(nodo, "luis", "web", LocalDateTime.now().plusDays(3));
+
+        TokenEstadisticas estadisticas = nodo.obtener();
+
+        assertThat(estadisticas.tokensExpirados()).isEqualTo(1);
+        assertThat(estadisticas.tokensPorExpirar24h()).isEqualTo(1);
+    }
+
+    @Test
+    void laReconstruccionCorrigeLosBorradosSinDetalleYCompacta() {
+        EstadisticasRefreshTokens nodo = nuevoNodo();
+        for (int i = 0; i < 20; i++) {
+            alta(nodo, "ana", "movil", LocalDateTime.now().plusDays(7));
+        }
+        // Borrado masivo sin informar qué filas (p. ej. cascada al eliminar el usuario)
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE id IN (SELECT id FROM refresh_tokens LIMIT 5)");
+        transactionTemplate.executeWithoutResult(status -> nodo.marcarDesfasadas());
+        assertThat(nodo.obtener().totalTokens()).isEqualTo(20);
+
+        nodo.revisar();
+
+        assertThat(nodo.obtener().totalTokens()).isEqualTo(15);
+        Long ranuras = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_token_resumen WHERE tipo = 'TOTAL'", Long.class);
+        assertThat(ranuras).isEqualTo(1);
+    }
+
+    @Test
+    void laReconstruccionPeriodicaLaHaceUnSoloNodoPorTurno() {
+        EstadisticasRefreshTokens nodoA = nuevoNodo();
+        EstadisticasRefreshTokens nodoB = nuevoNodo();
+        insertarToken(UUID.randomUUID().toString(), "ana", "movil", true, LocalDateTime.now().plusDays(7));
+
+        nodoA.reconciliarPeriodicamente();
+        // Alta sin registrar: si B reconstruyera también, la contaría
+        insertarToken(UUID.randomUUID().toString(), "luis", "web", true, LocalDateTime.now().plusDays(7));
+        nodoB.reconciliarPeriodicamente();
+
+        assertThat(nodoB.obtener().totalTokens()).isEqualTo(1);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private EstadisticasRefreshTokens nuevoNodo() {
+        BloqueoTareasDistribuido bloqueoTareas = new BloqueoTareasDistribuido(
+                dataSource, new SchedulingProperties(), new SimpleMeterRegistry());
+        return new EstadisticasRefreshTokens(jdbcTemplate, transactionManager, properties, bloqueoTareas);
+    }
+
+    // Alta del token y de su variación en la misma transacción, como el adaptador
+    private void alta(EstadisticasRefreshTokens nodo, String username, String deviceInfo, LocalDateTime expiracion) {
+        transactionTemplate.executeWithoutResult(status -> {
+            insertarToken(UUID.randomUUID().toString(), username, deviceInfo, true, expiracion);
+            nodo.registrarAlta(username, deviceInfo, true, expiracion);
+        });
+    }
+
+    private long filasResumen() {
+        Long filas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_token_resumen", Long.class);
+        return filas != null ? filas : 0;
+    }
+}
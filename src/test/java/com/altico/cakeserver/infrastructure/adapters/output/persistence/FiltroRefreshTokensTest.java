@@ -0,0 +1,121 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Filtro negativo de refresh tokens: rechazos seguros, modo no autoritativo,
+ * revocaciones que sólo cuentan al confirmarse y altas que no llegan a la
+ * instantánea de una reconstrucción. Requiere Docker.
+ */
+class FiltroRefreshTokensTest extends BaseDatosMigradaTest {
+
+    private DataSourceTransactionManager transactionManager;
+    private RefreshTokenProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        crearUsuario("ana");
+
+        properties = new RefreshTokenProperties();
+        properties.getFiltro().setExpectedTokens(10_000);
+    }
+
+    @Test
+    void porDefectoNoEsAutoritativo() {
+        FiltroRefreshTokens filtro = nuevoFiltro();
+        filtro.reconstruir();
+
+        // Emitido por otro nodo: no está en el Bloom local pero debe consultarse la BD
+        assertThat(filtro.esSeguroInvalido(UUID.randomUUID().toString())).isFalse();
+    }
+
+    @Test
+    void rechazaIdsMalFormadosYRevocados() {
+        FiltroRefreshTokens filtro = nuevoFiltro();
+        String revocado = UUID.randomUUID().toString();
+        filtro.registrarRevocacion(revocado);
+
+        assertThat(filtro.esSeguroInvalido("no-es-un-uuid")).isTrue();
+        assertThat(filtro.esSeguroInvalido(null)).isTrue();
+        assertThat(filtro.esSeguroInvalido(revocado)).isTrue();
+    }
+
+    @Test
+    void unaRevocacionRevertidaNoRechazaElToken() {
+        FiltroRefreshTokens filtro = nuevoFiltro();
+        String vigente = insertarVigente();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            filtro.registrarRevocacion(vigente);
+            // Aún sin confirmar: no se anota
+            assertThat(filtro.esSeguroInvalido(vigente)).isFalse();
+            status.setRollbackOnly();
+        });
+        assertThat(filtro.esSeguroInvalido(vigente)).isFalse();
+
+        transactionTemplate.executeWithoutResult(status -> filtro.registrarRevocaciones(List.of(vigente)));
+        assertThat(filtro.esSeguroInvalido(vigente)).isTrue();
+    }
+
+    @Test
+    void autoritativoReconoceLosTokensDeLaTabla() {
+        properties.getFiltro().setBloomAuthoritative(true);
+        String vigente = insertarVigente();
+
+        FiltroRefreshTokens filtro = nuevoFiltro();
+        filtro.reconstruir();
+
+        assertThat(filtro.esSeguroInvalido(vigente)).isFalse();
+        assertThat(filtro.esSeguroInvalido(UUID.randomUUID().toString())).isTrue();
+    }
+
+    @Test
+    void unaAltaSinConfirmarAlReconstruirSigueEnElNuevoBloom() {
+        properties.getFiltro().setBloomAuthoritative(true);
+        FiltroRefreshTokens filtro = nuevoFiltro();
+
+        // Registrada en memoria, pero su transacción aún no la ha escrito en la tabla
+        String alta = UUID.randomUUID().toString();
+        filtro.registrarAlta(alta);
+        filtro.reconstruir();
+
+        assertThat(filtro.esSeguroInvalido(alta)).isFalse();
+    }
+
+    @Test
+    void lasAltasPosterioresALaReconstruccionSeReconocen() {
+        properties.getFiltro().setBloomAuthoritative(true);
+        FiltroRefreshTokens filtro = nuevoFiltro();
+        filtro.reconstruir();
+
+        String alta = UUID.randomUUID().toString();
+        filtro.registrarAlta(alta);
+
+        assertThat(filtro.esSeguroInvalido(alta)).isFalse();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private FiltroRefreshTokens nuevoFiltro() {
+        return new FiltroRefreshTokens(jdbcTemplate, transactionManager, properties, new SimpleMeterRegistry());
+    }
+
+    private String insertarVigente() {
+        String id = UUID.randomUUID().toString();
+        insertarToken(id, "ana", "movil", true, LocalDateTime.now().plusDays(1));
+        return id;
+    }
+}
@@ -0,0 +1,159 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import com.altico.cakeserver.infrastructure.config.SchedulingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creación, reubicación desde la partición por defecto y retención de particiones
+ * mensuales sobre el esquema de las migraciones. Requiere Docker.
+ */
+class MantenimientoParticionesTest extends BaseDatosMigradaTest {
+
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private AdminProperties adminProperties;
+    private MantenimientoParticiones mantenimiento;
+
+    @BeforeEach
+    void setUp() {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        crearUsuario("ana");
+
+        adminProperties = new AdminProperties();
+        adminProperties.getPartitions().setMonthsAhead(2);
+        BloqueoTareasDistribuido bloqueoTareas = new BloqueoTareasDistribuido(
+                dataSource, new SchedulingProperties(), new SimpleMeterRegistry());
+        EstadisticasRefreshTokens estadisticas = new EstadisticasRefreshTokens(
+                jdbcTemplate, transactionManager, new RefreshTokenProperties(), bloqueoTareas);
+        mantenimiento = new MantenimientoParticiones(jdbcTemplate, new TransactionTemplate(transactionManager),
+                adminProperties, estadisticas);
+    }
+
+    @Test
+    void creaLasParticionesFuturasUnaSolaVez() {
+        // La migración ya creó el mes en curso y los tres siguientes; se quitan dos
+        eliminarParticion("refresh_tokens", YearMonth.now().plusMonths(1));
+        eliminarParticion("auditoria_usuarios", YearMonth.now().plusMonths(2));
+
+        MantenimientoParticiones.Resultado primera = mantenimiento.mantener();
+        MantenimientoParticiones.Resultado segunda = mantenimiento.mantener();
+
+        assertThat(primera.creadas()).isEqualTo(2);
+        assertThat(segunda.creadas()).isZero();
+        assertThat(particiones("refresh_tokens")).contains(
+                "refresh_tokens_p" + YearMonth.now().format(SUFIJO),
+                "refresh_tokens_p" + YearMonth.now().plusMonths(1).format(SUFIJO));
+        assertThat(particiones("auditoria_usuarios")).contains(
+                "auditoria_usuarios_p" + YearMonth.now().plusMonths(2).format(SUFIJO));
+    }
+
+    @Test
+    void reubicaLasFilasDeLaParticionPorDefectoAlCrearElMes() {
+        YearMonth proximo = YearMonth.now().plusMonths(1);
+        eliminarParticion("refresh_tokens", proximo);
+        insertarToken("t1", "ana", "movil", true, proximo.atDay(10).atStartOfDay());
+        assertThat(contar("refresh_tokens_default")).isEqualTo(1);
+
+        mantenimiento.mantener();
+
+        assertThat(contar("refresh_tokens_default")).isZero();
+        assertThat(contar("refresh_tokens_p" + proximo.format(SUFIJO))).isEqualTo(1);
+    }
+
+    @Test
+    void eliminaLasParticionesVencidasYPurgaLaParticionPorDefecto() {
+        crearParticion2020("auditoria_usuarios");
+        jdbcTemplate.update("INSERT INTO auditoria_usuarios (accion, fecha) VALUES ('A', '2020-01-15')");
+        // Mes sin partición propia: cae en la partición por defecto
+        jdbcTemplate.update("INSERT INTO auditoria_usuarios (accion, fecha) VALUES ('A', '2019-06-01')");
+        insertarToken("viejo", "ana", "movil", true, LocalDateTime.of(2019, 6, 1, 0, 0));
+
+        MantenimientoParticiones.Resultado resultado = mantenimiento.mantener();
+
+        assertThat(resultado.eliminadas()).isEqualTo(1);
+        assertThat(resultado.filasPurgadas()).isEqualTo(2);
+        assertThat(particiones("auditoria_usuarios")).doesNotContain("auditoria_usuarios_p2020_01");
+        assertThat(contar("auditoria_usuarios_default")).isZero();
+        assertThat(contar("refresh_tokens_default")).isZero();
+    }
+
+    @Test
+    void sinLimpiezaDeAuditoriaSeConservanSusDatos() {
+        adminProperties.setAuditCleanupEnabled(false);
+        jdbcTemplate.update("INSERT INTO auditoria_usuarios (accion, fecha) VALUES ('A', '2019-06-01')");
+
+        mantenimiento.mantener();
+
+        assertThat(contar("auditoria_usuarios_default")).isEqualTo(1);
+    }
+
+    @Test
+    void unaParticionBloqueadaNoImpideMantenerLasDemas() throws Exception {
+        adminProperties.getPartitions().setLockTimeoutMs(200);
+        crearParticion2020("refresh_tokens");
+        crearParticion2020("auditoria_usuarios");
+
+        // Una consulta larga retiene auditoria_usuarios: su DETACH agota lock_timeout
+        try (Connection consultaLarga = dataSource.getConnection()) {
+            consultaLarga.setAutoCommit(false);
+            consultaLarga.createStatement().execute("LOCK TABLE auditoria_usuarios IN ACCESS SHARE MODE");
+
+            MantenimientoParticiones.Resultado resultado = mantenimiento.mantener();
+
+            assertThat(resultado.eliminadas()).isEqualTo(1);
+            consultaLarga.rollback();
+        }
+        assertThat(particiones("refresh_tokens")).doesNotContain("refresh_tokens_p2020_01");
+        assertThat(particiones("auditoria_usuarios")).contains("auditoria_usuarios_p2020_01");
+
+        // Se completa en la siguiente ejecución
+        assertThat(mantenimiento.mantener().eliminadas()).isEqualTo(1);
+        assertThat(particiones("auditoria_usuarios")).doesNotContain("auditoria_usuarios_p2020_01");
+    }
+
+    @Test
+    void unaTablaNoParticionadaSeOmite() {
+        jdbcTemplate.execute("DROP TABLE refresh_tokens, auditoria_usuarios CASCADE");
+        jdbcTemplate.execute("CREATE TABLE refresh_tokens (id VARCHAR(255) PRIMARY KEY, fecha_expiracion TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE auditoria_usuarios (id BIGINT PRIMARY KEY, fecha TIMESTAMP)");
+
+        MantenimientoParticiones.Resultado resultado = mantenimiento.mantener();
+
+        assertThat(resultado).isEqualTo(new MantenimientoParticiones.Resultado(0, 0, 0));
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void eliminarParticion(String tabla, YearMonth mes) {
+        jdbcTemplate.execute("DROP TABLE " + tabla + "_p" + mes.format(SUFIJO));
+    }
+
+    private void crearParticion2020(String tabla) {
+        jdbcTemplate.execute("CREATE TABLE " + tabla + "_p2020_01 PARTITION OF " + tabla +
+                " FOR VALUES FROM ('2020-01-01') TO ('2020-02-01')");
+    }
+
+    private List<String> particiones(String tabla) {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass(?)", String.class, tabla);
+    }
+
+    private long contar(String tabla) {
+        Long filas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabla, Long.class);
+        return filas != null ? filas : 0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.domain.event.RolModificadoEvent;
+import com.altico.cakeserver.domain.event.UsuarioSeguridadModificadaEvent;
+import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import com.altico.cakeserver.infrastructure.security.service.SecurityEpochRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revocaciones de la autorización sin estado con varios nodos sobre la misma base de
+ * datos: lo que revoca un nodo lo aplica el otro al refrescar, y un nodo nuevo lo
+ * reconstruye al arrancar. Requiere Docker.
+ */
+class RevocacionesSeguridadTest extends BaseDatosMigradaTest {
+
+    private JwtProperties jwtProperties;
+
+    @BeforeEach
+    void setUp() {
+        jwtProperties = new JwtProperties();
+        jwtProperties.setStatelessAuthorization(true);
+    }
+
+    @Test
+    void laEpocaAvanzadaEnUnNodoInvalidaLosTokensEnOtro() {
+        SecurityEpochRegistry nodoA = nuevoNodo();
+        SecurityEpochRegistry nodoB = nuevoNodo();
+        long epocaEmitida = nodoB.epocaActual("ana");
+
+        usuarioModificado(nodoA, "ana", UsuarioSeguridadModificadaEvent.Motivo.DESACTIVADO);
+        assertThat(nodoB.esVigente("ana", epocaEmitida)).isTrue();
+
+        nodoB.refrescar();
+
+        assertThat(nodoB.esVigente("ana", epocaEmitida)).isFalse();
+        assertThat(nodoB.esVigente("luis", 0)).isTrue();
+    }
+
+    @Test
+    void unaAutoridadRevocadaYReactivadaSePropaga() {
+        SecurityEpochRegistry nodoA = nuevoNodo();
+        SecurityEpochRegistry nodoB = nuevoNodo();
+        long emitidoEn = System.currentTimeMillis() - 1000;
+
+        rolModificado(nodoA, RolModificadoEvent.Motivo.DESACTIVADO);
+        nodoB.refrescar();
+        assertThat(nodoB.esAutoridadVigente("ROLE_VENTAS", emitidoEn)).isFalse();
+
+        rolModificado(nodoA, RolModificadoEvent.Motivo.ACTIVADO);
+        nodoB.refrescar();
+        assertThat(nodoB.esAutoridadVigente("ROLE_VENTAS", emitidoEn)).isTrue();
+    }
+
+    @Test
+    void unNodoQueArrancaReconstruyeEpocasYAutoridades() {
+        SecurityEpochRegistry nodoA = nuevoNodo();
+        long emitidoEn = System.currentTimeMillis() - 1000;
+        usuarioModificado(nodoA, "ana", UsuarioSeguridadModificadaEvent.Motivo.ROLES_MODIFICADOS);
+        rolModificado(nodoA, RolModificadoEvent.Motivo.ELIMINADO);
+
+        SecurityEpochRegistry reiniciado = nuevoNodo();
+        reiniciado.inicializar();
+
+        assertThat(reiniciado.esVigente("ana", 0)).isFalse();
+        assertThat(reiniciado.esAutoridadVigente("ROLE_VENTAS", emitidoEn)).isFalse();
+    }
+
+    @Test
+    void loQueNoRevocaTokensNoSeGuarda() {
+        SecurityEpochRegistry nodo = nuevoNodo();
+
+        usuarioModificado(nodo, "ana", UsuarioSeguridadModificadaEvent.Motivo.PASSWORD_MODIFICADO);
+
+        Long filas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revocaciones_seguridad", Long.class);
+        assertThat(filas).isZero();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private SecurityEpochRegistry nuevoNodo() {
+        return new SecurityEpochRegistry(jwtProperties, new RevocacionesSeguridad(jdbcTemplate));
+    }
+
+    // Sin transacción los dos listeners se ejecutan en el acto, como con fallbackExecution
+    private void usuarioModificado(SecurityEpochRegistry nodo, String username,
+                                   UsuarioSeguridadModificadaEvent.Motivo motivo) {
+        UsuarioSeguridadModificadaEvent event = new UsuarioSeguridadModificadaEvent(1L, username, motivo);
+        nodo.persistirUsuarioSeguridadModificada(event);
+        nodo.onUsuarioSeguridadModificada(event);
+    }
+
+    private void rolModificado(SecurityEpochRegistry nodo, RolModificadoEvent.Motivo motivo) {
+        RolModificadoEvent event = new RolModificadoEvent(1, "ROLE_VENTAS", null, motivo);
+        nodo.persistirRolModificado(event);
+        nodo.onRolModificado(event);
+    }
+}
@@ -0,0 +1,104 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Consolidación del resumen horario de auditoría, incluidos los registros que llegan
+ * después de consolidar su hora. Requiere Docker.
+ */
+class RollupAuditoriaTest extends BaseDatosMigradaTest {
+
+    private AdminProperties adminProperties;
+    private RollupAuditoria rollup;
+    private LocalDateTime horaCerrada;
+
+    @BeforeEach
+    void setUp() {
+        adminProperties = new AdminProperties();
+        adminProperties.getAuditRollup().setLagMinutes(0);
+        adminProperties.getAuditRollup().setRecheckHours(6);
+        rollup = new RollupAuditoria(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), adminProperties);
+
+        horaCerrada = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(3);
+    }
+
+    @Test
+    void consolidaLasHorasCerradasYAvanzaLaMarca() {
+        insertar("LOGIN", horaCerrada.plusMinutes(5));
+        insertar("LOGIN", horaCerrada.plusMinutes(40));
+
+        RollupAuditoria.Resultado resultado = rollup.consolidar();
+
+        assertThat(resultado.consolidadoHasta()).isEqualTo(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+        assertThat(totalResumen(horaCerrada, "LOGIN")).isEqualTo(2);
+    }
+
+    @Test
+    void unRegistroTardioDentroDeLaVentanaSeCuenta() {
+        insertar("LOGIN", horaCerrada.plusMinutes(5));
+        rollup.consolidar();
+
+        // Llega después de consolidar su hora (p. ej. un reintento del volcado por lotes)
+        insertar("LOGIN", horaCerrada.plusMinutes(50));
+        rollup.consolidar();
+
+        assertThat(totalResumen(horaCerrada, "LOGIN")).isEqualTo(2);
+        assertThat(totalEstadisticas(horaCerrada.minusHours(1), LocalDateTime.now(), "LOGIN")).isEqualTo(2);
+    }
+
+    @Test
+    void repetirLaConsolidacionNoDuplicaConteos() {
+        insertar("LOGIN", horaCerrada.plusMinutes(5));
+        insertar("LOGOUT", horaCerrada.plusHours(1).plusMinutes(5));
+
+        rollup.consolidar();
+        rollup.consolidar();
+        rollup.consolidar();
+
+        assertThat(totalResumen(horaCerrada, "LOGIN")).isEqualTo(1);
+        assertThat(totalResumen(horaCerrada.plusHours(1), "LOGOUT")).isEqualTo(1);
+    }
+
+    @Test
+    void fueraDeLaVentanaDeRevisionElResumenNoSeReescribe() {
+        adminProperties.getAuditRollup().setRecheckHours(1);
+        insertar("LOGIN", horaCerrada.plusMinutes(5));
+        rollup.consolidar();
+
+        // Tres horas después de su hora: ya fuera de la ventana de una hora
+        insertar("LOGIN", horaCerrada.plusMinutes(50));
+        rollup.consolidar();
+
+        assertThat(totalResumen(horaCerrada, "LOGIN")).isEqualTo(1);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void insertar(String accion, LocalDateTime fecha) {
+        jdbcTemplate.update("INSERT INTO auditoria_usuarios (accion, fecha, resultado) VALUES (?, ?, 'EXITOSO')",
+                accion, fecha);
+    }
+
+    private long totalResumen(LocalDateTime hora, String accion) {
+        Long total = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(total), 0) FROM auditoria_rollup_horaria " +
+                "WHERE hora = ? AND accion = ?", Long.class, hora, accion);
+        return total != null ? total : 0;
+    }
+
+    private long totalEstadisticas(LocalDateTime desde, LocalDateTime hasta, String accion) {
+        return rollup.estadisticas(desde, hasta).stream()
+                .filter(fila -> accion.equals(fila[0]))
+                .mapToLong(fila -> (Long) fila[1])
+                .sum();
+    }
+}
@@ -0,0 +1,125 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence;
+
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Escritura diferida de ultimo_uso: reducción de usos por token, volcado por lotes,
+ * reintento tras un fallo y tope del buffer. Requiere Docker.
+ */
+class UltimoUsoWriteBehindTest extends BaseDatosMigradaTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenProperties properties;
+    private UltimoUsoWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        crearUsuario("ana");
+        for (String id : List.of("a", "b", "c")) {
+            insertarToken(id, "ana", "movil", true, LocalDateTime.now().plusDays(7));
+        }
+
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RefreshTokenProperties();
+        properties.getUltimoUso().setBatchSize(2);
+        writeBehind = new UltimoUsoWriteBehind(jdbcTemplate, properties, meterRegistry);
+    }
+
+    @Test
+    void variosUsosDelMismoTokenSeReducenAlMasReciente() {
+        writeBehind.registrar("a", BASE.plusMinutes(5));
+        writeBehind.registrar("a", BASE);
+        writeBehind.registrar("a", BASE.plusMinutes(3));
+        writeBehind.registrar("b", BASE);
+
+        assertThat(writeBehind.pendientes()).isEqualTo(2);
+
+        writeBehind.volcar();
+
+        assertThat(writeBehind.pendientes()).isZero();
+        assertThat(ultimoUso("a")).isEqualTo(BASE.plusMinutes(5));
+        assertThat(ultimoUso("b")).isEqualTo(BASE);
+    }
+
+    @Test
+    void registrarNoEscribeEnLaBd() {
+        properties.getUltimoUso().setMaxPending(2);
+
+        writeBehind.registrar("a", BASE);
+        writeBehind.registrar("b", BASE);
+        writeBehind.registrar("c", BASE);
+
+        // Sin volcado síncrono en el hilo que registra
+        assertThat(ultimoUso("a")).isNull();
+        assertThat(ultimoUso("b")).isNull();
+        assertThat(ultimoUso("c")).isNull();
+    }
+
+    @Test
+    void conElBufferLlenoSeDescartaElUsoMasAntiguo() {
+        properties.getUltimoUso().setMaxPending(2);
+
+        writeBehind.registrar("a", BASE);
+        writeBehind.registrar("b", BASE.plusMinutes(1));
+        // 'a' vuelve a usarse: pasa a ser el más reciente
+        writeBehind.registrar("a", BASE.plusMinutes(2));
+        writeBehind.registrar("c", BASE.plusMinutes(3));
+
+        assertThat(writeBehind.pendientes()).isEqualTo(2);
+        assertThat(meterRegistry.counter("cakeserver.refresh_token.ultimo_uso.descartados").count()).isEqualTo(1);
+
+        writeBehind.volcar();
+
+        assertThat(ultimoUso("a")).isEqualTo(BASE.plusMinutes(2));
+        assertThat(ultimoUso("b")).isNull();
+        assertThat(ultimoUso("c")).isEqualTo(BASE.plusMinutes(3));
+    }
+
+    @Test
+    void unVolcadoFallidoConservaLoPendienteYSeReintenta() {
+        writeBehind.registrar("a", BASE);
+        writeBehind.registrar("b", BASE);
+
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens RENAME TO refresh_tokens_fuera");
+        writeBehind.volcar();
+        assertThat(writeBehind.pendientes()).isEqualTo(2);
+
+        // Un uso posterior durante la caída se reduce con el pendiente
+        writeBehind.registrar("a", BASE.plusMinutes(1));
+        assertThat(writeBehind.pendientes()).isEqualTo(2);
+
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens_fuera RENAME TO refresh_tokens");
+        writeBehind.volcar();
+
+        assertThat(writeBehind.pendientes()).isZero();
+        assertThat(ultimoUso("a")).isEqualTo(BASE.plusMinutes(1));
+        assertThat(ultimoUso("b")).isEqualTo(BASE);
+    }
+
+    @Test
+    void noRetrocedeUnUltimoUsoMasReciente() {
+        jdbcTemplate.update("UPDATE refresh_tokens SET ultimo_uso = ? WHERE id = 'a'", BASE.plusHours(1));
+
+        writeBehind.registrar("a", BASE);
+        writeBehind.volcar();
+
+        assertThat(ultimoUso("a")).isEqualTo(BASE.plusHours(1));
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private LocalDateTime ultimoUso(String id) {
+        return jdbcTemplate.queryForObject(
+                "SELECT ultimo_uso FROM refresh_tokens WHERE id = ?", LocalDateTime.class, id);
+    }
+}
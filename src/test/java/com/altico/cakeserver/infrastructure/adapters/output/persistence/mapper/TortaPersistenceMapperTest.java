@@ -0,0 +1,65 @@
+package com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper;
+
+import com.altico.cakeserver.domain.model.Torta;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.TortaEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La huella de la descripción sólo se recalcula cuando cambia la descripción, y
+ * se normaliza igual que la migración que la rellena en SQL.
+ */
+class TortaPersistenceMapperTest {
+
+    private TortaPersistenceMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new TortaPersistenceMapper(null, null);
+    }
+
+    @Test
+    void cambiarSoloLaImagenConservaLaHuellaNulaDeUnDuplicadoAntiguo() {
+        TortaEntity entity = entidad("Torta de limón", null);
+
+        mapper.updateEntity(entity, torta("Torta de limón", "nueva.jpg"));
+
+        assertThat(entity.getDescripcionNormalizada()).isNull();
+        assertThat(entity.getImagen()).isEqualTo("nueva.jpg");
+    }
+
+    @Test
+    void cambiarLaDescripcionRecalculaLaHuella() {
+        TortaEntity entity = entidad("Torta de limón", null);
+
+        mapper.updateEntity(entity, torta("Torta de  NARANJA", "limon.jpg"));
+
+        assertThat(entity.getDescripcionNormalizada()).isEqualTo("torta de naranja");
+    }
+
+    @Test
+    void laHuellaColapsaBlancosAntesDeRecortarLosExtremos() {
+        // btrim de la migración sólo quita espacios: tabuladores y saltos se colapsan antes
+        assertThat(Torta.normalizarDescripcion("\tTorta\n de  Limón \r\n"))
+                .isEqualTo("torta de limon");
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private TortaEntity entidad(String descripcion, String huella) {
+        TortaEntity entity = new TortaEntity();
+        entity.setId(1);
+        entity.setDescripcion(descripcion);
+        entity.setDescripcionNormalizada(huella);
+        entity.setImagen("limon.jpg");
+        return entity;
+    }
+
+    private Torta torta(String descripcion, String imagen) {
+        return new Torta(1, descripcion, imagen, null, null, Set.of(), Set.of());
+    }
+}
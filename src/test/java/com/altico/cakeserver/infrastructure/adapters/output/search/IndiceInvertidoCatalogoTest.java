@@ -0,0 +1,113 @@
+package com.altico.cakeserver.infrastructure.adapters.output.search;
+
+import com.altico.cakeserver.domain.model.Torta;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.entity.TortaEntity;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.OcasionPersistenceMapper;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.mapper.TortaPersistenceMapper;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.OcasionRepository;
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.repository.TortaRepository;
+import com.altico.cakeserver.infrastructure.config.BusquedaProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconstrucción periódica del índice: recoge los cambios hechos en otros nodos sin
+ * perder los locales confirmados durante la carga.
+ */
+class IndiceInvertidoCatalogoTest {
+
+    private final List<TortaEntity> enBaseDeDatos = new ArrayList<>();
+    private TortaRepository tortaRepository;
+    private IndiceInvertidoCatalogo indice;
+
+    @BeforeEach
+    void setUp() {
+        BusquedaProperties properties = new BusquedaProperties();
+        properties.setEnabled(true);
+
+        tortaRepository = mock(TortaRepository.class);
+        OcasionRepository ocasionRepository = mock(OcasionRepository.class);
+        TortaPersistenceMapper tortaMapper = mock(TortaPersistenceMapper.class);
+        when(tortaRepository.findAll()).thenAnswer(inv -> List.copyOf(enBaseDeDatos));
+        when(ocasionRepository.findAll()).thenReturn(List.of());
+        when(tortaMapper.toDomain(any())).thenAnswer(inv -> {
+            TortaEntity entity = inv.getArgument(0);
+            return torta(entity.getId(), entity.getDescripcion());
+        });
+
+        indice = new IndiceInvertidoCatalogo(properties, tortaRepository, ocasionRepository, tortaMapper,
+                mock(OcasionPersistenceMapper.class), mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void losCambiosDeOtroNodoSeVenTrasLaReconstruccion() {
+        guardar(1, "Torta de chocolate");
+        indice.construir();
+        assertThat(indice.isListo()).isTrue();
+
+        // Otro nodo crea una torta y modifica otra: este nodo no recibe el aviso
+        guardar(2, "Torta de fresa");
+        enBaseDeDatos.get(0).setDescripcion("Torta de vainilla");
+        assertThat(indice.buscarTortas("fresa")).isEmpty();
+
+        indice.reconstruir();
+
+        assertThat(indice.buscarTortas("fresa")).extracting(Torta::getId).containsExactly(2);
+        assertThat(indice.buscarTortas("vainilla")).extracting(Torta::getId).containsExactly(1);
+        assertThat(indice.buscarTortas("chocolate")).isEmpty();
+    }
+
+    @Test
+    void unCambioLocalDuranteLaCargaNoSePierde() {
+        guardar(1, "Torta de chocolate");
+        indice.construir();
+
+        // La torta 3 se indexa mientras se lee la base de datos y no entra en la lectura
+        when(tortaRepository.findAll()).thenAnswer(inv -> {
+            List<TortaEntity> lectura = List.copyOf(enBaseDeDatos);
+            indice.indexarTorta(torta(3, "Torta de limón"));
+            return lectura;
+        });
+
+        indice.reconstruir();
+
+        assertThat(indice.buscarTortas("limón")).extracting(Torta::getId).containsExactly(3);
+        assertThat(indice.buscarTortas("chocolate")).extracting(Torta::getId).containsExactly(1);
+    }
+
+    @Test
+    void siLaReconstruccionFallaSeSigueUsandoElCatalogoAnterior() {
+        guardar(1, "Torta de chocolate");
+        indice.construir();
+
+        when(tortaRepository.findAll()).thenThrow(new IllegalStateException("sin conexión"));
+        indice.reconstruir();
+
+        assertThat(indice.isListo()).isTrue();
+        assertThat(indice.buscarTortas("chocolate")).extracting(Torta::getId).containsExactly(1);
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void guardar(int id, String descripcion) {
+        TortaEntity entity = new TortaEntity();
+        entity.setId(id);
+        entity.setDescripcion(descripcion);
+        enBaseDeDatos.add(entity);
+    }
+
+    private static Torta torta(int id, String descripcion) {
+        return new Torta(id, descripcion, null, LocalDateTime.now(), LocalDateTime.now(), Set.of(), Set.of());
+    }
+}
@@ -0,0 +1,60 @@
+package com.altico.cakeserver.infrastructure.security.jwt;
+
+import com.altico.cakeserver.infrastructure.adapters.output.persistence.RevocacionesSeguridad;
+import com.altico.cakeserver.infrastructure.adapters.output.security.JerarquiaRoles;
+import com.altico.cakeserver.infrastructure.config.JwtProperties;
+import com.altico.cakeserver.infrastructure.security.service.SecurityEpochRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Validación de access tokens firmados con la clave del servicio pero sin claim exp.
+ */
+class JwtServiceTest {
+
+    private static final String SECRETO = "clave-de-pruebas-de-al-menos-256-bits-para-hmac";
+
+    private JwtService jwtService;
+    private UserDetails ana;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecret(SECRETO);
+        jwtService = new JwtService(jwtProperties, new VerifiedTokenCache(jwtProperties),
+                new SecurityEpochRegistry(jwtProperties, mock(RevocacionesSeguridad.class)),
+                mock(JerarquiaRoles.class));
+        jwtService.init();
+
+        ana = User.withUsername("ana").password("").authorities("ROLE_USER").build();
+    }
+
+    @Test
+    void unTokenSinExpiracionNoEsValido() {
+        String token = Jwts.builder()
+                .subject("ana")
+                .issuedAt(new Date())
+                .signWith(Keys.hmacShaKeyFor(SECRETO.getBytes()))
+                .compact();
+
+        assertThat(jwtService.validateToken(token, ana)).isFalse();
+        assertThat(jwtService.isTokenExpired(token)).isTrue();
+    }
+
+    @Test
+    void unTokenEmitidoPorElServicioEsValido() {
+        String token = jwtService.generateRefreshToken(ana);
+
+        assertThat(jwtService.validateToken(token, ana)).isTrue();
+        assertThat(jwtService.isTokenExpired(token)).isFalse();
+    }
+}
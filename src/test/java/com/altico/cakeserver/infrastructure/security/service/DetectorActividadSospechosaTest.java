@@ -0,0 +1,126 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.infrastructure.config.AdminProperties;
+import com.altico.cakeserver.infrastructure.config.RefreshTokenProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Detector en memoria: alerta al cruzar el umbral, marca que sobrevive a la ventana
+ * y desalojo que respeta las claves marcadas. El reloj se simula por minutos.
+ */
+class DetectorActividadSospechosaTest {
+
+    private static final String DISPOSITIVO = "Android Pixel";
+    private static final String IP = "10.0.0.1";
+
+    private long minuto = 1_000_000;
+    private RefreshTokenProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private DetectorActividadSospechosa detector;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RefreshTokenProperties();
+        properties.getSecurityCheck().setSuspiciousDeviceThreshold(3);
+        properties.getSecurityCheck().setWindowMinutes(60);
+        properties.getSecurityCheck().setFlagRetentionMinutes(1500);
+        properties.getSecurityCheck().setMaxTrackedKeys(10);
+        meterRegistry = new SimpleMeterRegistry();
+
+        detector = new DetectorActividadSospechosa(properties, new AdminProperties(), meterRegistry) {
+            @Override
+            long minutoActual() {
+                return minuto;
+            }
+        };
+    }
+
+    @Test
+    void alertaUnaSolaVezAlCruzarElUmbral() {
+        detector.registrarLogin("ana", DISPOSITIVO, IP, true);
+        detector.registrarLogin("luis", DISPOSITIVO, IP, true);
+        assertThat(alertas("dispositivo")).isZero();
+
+        detector.registrarLogin("eva", DISPOSITIVO, IP, true);
+        detector.registrarLogin("juan", DISPOSITIVO, IP, true);
+
+        assertThat(alertas("dispositivo")).isEqualTo(1);
+        assertThat(detector.obtenerDispositivosSospechosos())
+                .singleElement()
+                .satisfies(d -> assertThat(d.usuariosDiferentes()).isEqualTo(4));
+    }
+
+    @Test
+    void laMarcaSobreviveALaVentanaHastaSuRetencion() {
+        marcarDispositivo(DISPOSITIVO);
+
+        // Fuera de la ventana de 60 minutos pero dentro de la retención de la marca
+        minuto += 8 * 60;
+        detector.descartarInactivos();
+        assertThat(detector.obtenerDispositivosSospechosos())
+                .singleElement()
+                .satisfies(d -> assertThat(d.deviceInfo()).isEqualTo(DISPOSITIVO));
+
+        minuto += 1500;
+        detector.descartarInactivos();
+        assertThat(detector.obtenerDispositivosSospechosos()).isEmpty();
+    }
+
+    @Test
+    void elDesalojoPorEspacioConservaLasClavesMarcadas() {
+        marcarDispositivo(DISPOSITIVO);
+
+        // Claves elegidas por el cliente para llenar el mapa
+        for (int i = 0; i < 50; i++) {
+            detector.registrarLogin("usuario" + i, "relleno-" + i, IP, true);
+        }
+
+        assertThat(detector.obtenerDispositivosSospechosos())
+                .extracting(d -> d.deviceInfo())
+                .containsExactly(DISPOSITIVO);
+        assertThat(meterRegistry.counter("cakeserver.seguridad.detector.marcados_descartados").count()).isZero();
+    }
+
+    @Test
+    void unaIpConTokensInvalidosAlertaYSeConservaTrasLaVentana() {
+        for (int i = 0; i < 3; i++) {
+            detector.registrarTokenInvalido("0123456789abcdef-" + i, IP, "curl", "REFRESH_TOKEN_INVALIDO");
+        }
+        assertThat(alertas("ip")).isEqualTo(1);
+
+        minuto += 120;
+        detector.descartarInactivos();
+
+        assertThat(detector.obtenerIntentosSospechosos())
+                .hasSize(3)
+                .allSatisfy(intento -> assertThat(intento.tokenId()).isEqualTo("01234567***"));
+    }
+
+    @Test
+    void sinCruzarElUmbralNoHayAlertaNiMarca() {
+        detector.registrarLogin("ana", DISPOSITIVO, IP, true);
+        detector.registrarLogin("luis", DISPOSITIVO, IP, true);
+
+        minuto += 120;
+        detector.descartarInactivos();
+
+        assertThat(alertas("dispositivo")).isZero();
+        assertThat(detector.obtenerDispositivosSospechosos()).isEmpty();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private void marcarDispositivo(String deviceInfo) {
+        detector.registrarLogin("ana", deviceInfo, IP, true);
+        detector.registrarLogin("luis", deviceInfo, IP, true);
+        detector.registrarLogin("eva", deviceInfo, IP, true);
+    }
+
+    private double alertas(String tipo) {
+        return meterRegistry.counter("cakeserver.seguridad.detector.alertas", "tipo", tipo).count();
+    }
+}
@@ -0,0 +1,69 @@
+package com.altico.cakeserver.infrastructure.security.service;
+
+import com.altico.cakeserver.infrastructure.config.UserDetailsCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Una carga que empezó antes de una invalidación no deja su resultado en la caché.
+ */
+class UserDetailsCacheTest {
+
+    private UserDetailsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserDetailsCache(new UserDetailsCacheProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void unaCargaSinInvalidacionesSeCachea() {
+        long generacion = cache.generacion();
+
+        cache.put(usuario("ana", "ROLE_ADMIN"), generacion);
+
+        assertThat(cache.get("ana")).isPresent();
+    }
+
+    @Test
+    void unaCargaInvalidadaDuranteLaLecturaNoSeCachea() {
+        long generacion = cache.generacion();
+        // El usuario cambia y se invalida mientras la carga aún tiene los datos antiguos
+        cache.evict("ana");
+
+        cache.put(usuario("ana", "ROLE_ADMIN"), generacion);
+
+        assertThat(cache.get("ana")).isEmpty();
+    }
+
+    @Test
+    void unCambioDeRolDuranteLaLecturaTambienDescartaLaCarga() {
+        long generacion = cache.generacion();
+        cache.evictByAuthority("ROLE_ADMIN");
+
+        cache.put(usuario("ana", "ROLE_ADMIN"), generacion);
+
+        assertThat(cache.get("ana")).isEmpty();
+    }
+
+    @Test
+    void unaCargaPosteriorALaInvalidacionSeCachea() {
+        cache.evict("ana");
+        long generacion = cache.generacion();
+
+        cache.put(usuario("ana", "ROLE_USER"), generacion);
+
+        assertThat(cache.get("ana")).isPresent();
+    }
+
+    // ============== MÉTODOS AUXILIARES ==============
+
+    private UserDetails usuario(String username, String authority) {
+        return User.withUsername(username).password("x").authorities(authority).build();
+    }
+}